@@ -0,0 +1,101 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import de.unia.oc.robotcontrol.util.Bijection;
+import de.unia.oc.robotcontrol.util.Tuple;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link FixedEncoding} which appends the bytes of a second encoding
+ * to those of a first one, and joins the encoded values using a
+ * {@link Bijection} to- and from a tuple.
+ *
+ * Created by {@link FixedEncoding#append(FixedEncoding, Bijection)}.
+ * Both values are encoded into and decoded from the given buffer
+ * directly, without intermediate byte arrays.
+ *
+ * @param <F> the type of value encoded by the first encoding
+ * @param <S> the type of value encoded by the second encoding
+ * @param <R> the type of the joined value
+ */
+public final class AppendedEncoding<F, S, R> implements FixedEncoding<R> {
+
+    /**
+     * The encoding whose bytes come first
+     */
+    private final FixedEncoding<F> first;
+
+    /**
+     * The encoding whose bytes are appended
+     */
+    private final FixedEncoding<S> second;
+
+    /**
+     * The bijection joining the values of both encodings
+     */
+    private final Bijection<R, Tuple<F, S>> joiner;
+
+    /**
+     * Create a new instance of {@link AppendedEncoding}.
+     *
+     * @param first the encoding whose bytes come first
+     * @param second the encoding whose bytes are appended
+     * @param joiner the bijection which can produce a value based on the tuple
+     *               produced by the first and second encoding and vice versa
+     * @throws IllegalArgumentException if the contexts of both encodings do not match
+     */
+    public AppendedEncoding(FixedEncoding<F> first,
+                            FixedEncoding<S> second,
+                            Bijection<R, Tuple<F, S>> joiner) {
+        if (first.getContext() != second.getContext()) {
+            throw new IllegalArgumentException("Encoding Contexts must match!");
+        }
+        this.first = first;
+        this.second = second;
+        this.joiner = joiner;
+    }
+
+    @Override
+    public @Positive int numBytes() {
+        return first.numBytes() + second.numBytes();
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return first.getContext();
+    }
+
+    @Override
+    public FixedEncoding<R> withContext(CodingContext context) {
+        return first.withContext(context).append(second.withContext(context), joiner);
+    }
+
+    @Override
+    public byte[] encode(R object) throws IllegalArgumentException {
+        byte[] result = new byte[numBytes()];
+        encodeInto(object, ByteBuffer.wrap(result));
+        return result;
+    }
+
+    @Override
+    public @NonNull R decode(byte[] raw) throws IllegalArgumentException {
+        return decodeFrom(ByteBuffer.wrap(raw));
+    }
+
+    @Override
+    public void encodeInto(R object, ByteBuffer target) throws IllegalArgumentException {
+        Tuple<F, S> parts = joiner.encode(object);
+        first.encodeInto(parts.first, target);
+        second.encodeInto(parts.second, target);
+    }
+
+    @Override
+    public @NonNull R decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        F firstValue = first.decodeFrom(source);
+        S secondValue = second.decodeFrom(source);
+        return joiner.decode(Tuple.create(firstValue, secondValue));
+    }
+}
@@ -3,6 +3,9 @@ package de.unia.oc.robotcontrol.coding;
 
 import de.unia.oc.robotcontrol.util.Tuple;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * Utility class that Encodings may use.
  */
@@ -48,4 +51,52 @@ public class CodingUtil {
         System.arraycopy(second, 0, combined, first.length, second.length);
         return combined;
     }
+
+    /**
+     * Writes the lowest {@code numBytes} bytes of the given bits into
+     * the buffer at its current position, using the given byte order
+     * independently of the order set on the buffer.
+     * Advances the position of the buffer by {@code numBytes}.
+     *
+     * @param target The buffer to write to
+     * @param bits The bits of the value to write
+     * @param numBytes The number of (lowest) bytes to write, at most 8
+     * @param order The byte order to write the bytes in
+     */
+    public static void putBits(ByteBuffer target, long bits, int numBytes, ByteOrder order) {
+        if (order == ByteOrder.BIG_ENDIAN) {
+            for (int i = numBytes - 1; i >= 0; --i) {
+                target.put((byte) (bits >>> (i * 8)));
+            }
+        } else {
+            for (int i = 0; i < numBytes; ++i) {
+                target.put((byte) (bits >>> (i * 8)));
+            }
+        }
+    }
+
+    /**
+     * Reads {@code numBytes} bytes from the buffer at its current position
+     * using the given byte order, independently of the order set on the buffer,
+     * and returns them as the lowest bytes of a long (without sign extension).
+     * Advances the position of the buffer by {@code numBytes}.
+     *
+     * @param source The buffer to read from
+     * @param numBytes The number of bytes to read, at most 8
+     * @param order The byte order the bytes are stored in
+     * @return the read bytes as the lowest bytes of a long
+     */
+    public static long getBits(ByteBuffer source, int numBytes, ByteOrder order) {
+        long bits = 0;
+        if (order == ByteOrder.BIG_ENDIAN) {
+            for (int i = numBytes - 1; i >= 0; --i) {
+                bits |= (source.get() & 0xFFL) << (i * 8);
+            }
+        } else {
+            for (int i = 0; i < numBytes; ++i) {
+                bits |= (source.get() & 0xFFL) << (i * 8);
+            }
+        }
+        return bits;
+    }
 }
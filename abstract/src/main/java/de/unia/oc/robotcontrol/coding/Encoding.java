@@ -4,6 +4,7 @@ package de.unia.oc.robotcontrol.coding;
 import de.unia.oc.robotcontrol.util.Bijection;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.nio.ByteBuffer;
 import java.util.function.Supplier;
 
 /**
@@ -16,6 +17,15 @@ import java.util.function.Supplier;
  * different context, having an effect on another one, thus breaking
  * the communication with another device.
  *
+ * Next to the byte array based {@link #encode(Object)} and
+ * {@link #decode(byte[])} methods, encodings can write to and read
+ * from a {@link ByteBuffer} directly using {@link #encodeInto(Object, ByteBuffer)}
+ * and {@link #decodeFrom(ByteBuffer)}, which allows callers to reuse
+ * buffers instead of allocating new arrays for each value.
+ * The default implementations of these methods are adapters to the
+ * byte array based ones, so implementations should override them
+ * if they can avoid intermediate copies.
+ *
  * @param <T> The type of Java Object a particular Instance of {@link Encoding}
  *            will encode and decode to.
  */
@@ -44,6 +54,41 @@ public interface Encoding<T> extends Bijection<T, byte[]>, Contextual {
     @Override
     @NonNull T decode(byte[] raw) throws IllegalArgumentException;
 
+    /**
+     * Encode the given object, writing the resulting bytes into the given
+     * {@link ByteBuffer} at its current position, advancing the position
+     * by the number of bytes written.
+     *
+     * Defaults to putting the result of {@link #encode(Object)} into the buffer.
+     *
+     * @param object The thing to encode
+     * @param target The buffer to write the encoded bytes to
+     * @throws IllegalArgumentException if the object could not be
+     * encoded
+     * @throws java.nio.BufferOverflowException if the buffer does not have
+     * enough space remaining
+     */
+    default void encodeInto(T object, ByteBuffer target) throws IllegalArgumentException {
+        target.put(encode(object));
+    }
+
+    /**
+     * Decode a value from the given {@link ByteBuffer}, starting at its current
+     * position and advancing the position by the number of bytes read.
+     *
+     * Defaults to passing all remaining bytes of the buffer to {@link #decode(byte[])}.
+     *
+     * @param source The buffer to read the bytes from
+     * @return a decoded value (from the bytes in the buffer)
+     * @throws IllegalArgumentException if the object could not be
+     * decoded from the given bytes
+     */
+    default @NonNull T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        byte[] raw = new byte[source.remaining()];
+        source.get(raw);
+        return decode(raw);
+    }
+
     /**
      * Return an encoding of type {@link T}  with its context
      * set to {@code context}
@@ -69,6 +114,16 @@ public interface Encoding<T> extends Bijection<T, byte[]>, Contextual {
             public @NonNull T decode(byte[] raw) throws IllegalArgumentException {
                 return old.decode(raw);
             }
+
+            @Override
+            public void encodeInto(T object, ByteBuffer target) throws IllegalArgumentException {
+                old.encodeInto(object, target);
+            }
+
+            @Override
+            public @NonNull T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return old.decodeFrom(source);
+            }
         };
     }
 
@@ -101,6 +156,16 @@ public interface Encoding<T> extends Bijection<T, byte[]>, Contextual {
             public @NonNull R decode(byte[] raw) throws IllegalArgumentException {
                 return top.decode(bottom.decode(raw));
             }
+
+            @Override
+            public void encodeInto(R object, ByteBuffer target) throws IllegalArgumentException {
+                bottom.encodeInto(top.encode(object), target);
+            }
+
+            @Override
+            public @NonNull R decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return top.decode(bottom.decodeFrom(source));
+            }
         };
     }
 
@@ -130,6 +195,16 @@ public interface Encoding<T> extends Bijection<T, byte[]>, Contextual {
             public @NonNull T decode(byte[] raw) throws IllegalArgumentException {
                 return supplier.get();
             }
+
+            @Override
+            public void encodeInto(T object, ByteBuffer target) {
+                // nothing to write
+            }
+
+            @Override
+            public @NonNull T decodeFrom(ByteBuffer source) {
+                return supplier.get();
+            }
         };
     }
 }
@@ -4,9 +4,10 @@ package de.unia.oc.robotcontrol.coding;
 import de.unia.oc.robotcontrol.util.Bijection;
 import de.unia.oc.robotcontrol.util.Tuple;
 import org.checkerframework.checker.index.qual.Positive;
-import org.checkerframework.checker.nullness.NullnessUtil;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.nio.ByteBuffer;
+
 /**
  * A {@link FixedEncoding} is a special encoding that guarantees
  * a fixed number of bytes. This is, for example, used in
@@ -24,6 +25,27 @@ public interface FixedEncoding<T> extends Encoding<T> {
      */
     @Positive int numBytes();
 
+    /**
+     * {@inheritDoc}
+     *
+     * Reads exactly {@link #numBytes()} bytes from the given buffer
+     * and passes them to {@link #decode(byte[])}.
+     *
+     * @param source The buffer to read the bytes from
+     * @return a decoded value (from the bytes in the buffer)
+     * @throws IllegalArgumentException if there are not enough bytes remaining
+     * in the buffer, or the object could not be decoded from the given bytes
+     */
+    @Override
+    default @NonNull T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        if (source.remaining() < numBytes()) {
+            throw new IllegalArgumentException("Not enough bytes remaining to decode! Expected: " + numBytes());
+        }
+        byte[] raw = new byte[numBytes()];
+        source.get(raw);
+        return decode(raw);
+    }
+
     /**
      * Return an instance of {@link FixedEncoding}, asserting that encoding
      * an instance of {@link R} uses the given number of bytes exactly.
@@ -55,6 +77,11 @@ public interface FixedEncoding<T> extends Encoding<T> {
             public @NonNull R decode(byte[] raw) throws IllegalArgumentException {
                 return encoding.decode(raw);
             }
+
+            @Override
+            public void encodeInto(R object, ByteBuffer target) throws IllegalArgumentException {
+                encoding.encodeInto(object, target);
+            }
         };
     }
 
@@ -87,9 +114,36 @@ public interface FixedEncoding<T> extends Encoding<T> {
             public @NonNull T decode(byte[] raw) throws IllegalArgumentException {
                 return self.decode(raw);
             }
+
+            @Override
+            public void encodeInto(T object, ByteBuffer target) throws IllegalArgumentException {
+                self.encodeInto(object, target);
+            }
+
+            @Override
+            public @NonNull T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return self.decodeFrom(source);
+            }
         };
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Transforming the values does not change the number of bytes,
+     * so the result is a {@link FixedEncoding} as well.
+     *
+     * @param top The instance of of {@link Bijection} that is used
+     *            to encode first and decode last {@code (R <-> T)},
+     *            transforming the encoding
+     * @param <R> the new type this encoding can accept
+     * @return A new instance of {@link FixedEncoding}
+     */
+    @Override
+    default <R> FixedEncoding<R> stack(Bijection<R, T> top) {
+        return new StackedEncoding<>(this, top);
+    }
+
     /**
      * Creates an new FixedEncoding instance which appends the bytes used
      * for the `second` parameter to those of the first parameter.
@@ -101,50 +155,10 @@ public interface FixedEncoding<T> extends Encoding<T> {
      * @param <S> The type of the second encoding
      * @param <R> The type of the joined value
      * @return An instance of FixedEncoding which can encode R
+     * @throws IllegalArgumentException if the contexts of both encodings do not match
      */
     default <S, R> FixedEncoding<R> append(FixedEncoding<S> second, Bijection<R, Tuple<T, S>> joiner) {
-        FixedEncoding<T> first = this;
-
-        if (first.getContext() != second.getContext()) {
-            throw new IllegalArgumentException("Encoding Contexts must match!");
-        }
-
-        return new FixedEncoding<R>() {
-
-            @Override
-            public @Positive int numBytes() {
-                return first.numBytes() + second.numBytes();
-            }
-
-            @Override
-            public CodingContext getContext() {
-                return first.getContext();
-            }
-
-            @Override
-            public FixedEncoding<R> withContext(CodingContext context) {
-                return first.withContext(context).append(second.withContext(context), joiner);
-            }
-
-            @Override
-            public byte[] encode(R object) throws IllegalArgumentException {
-                return joiner
-                        .encode(object)
-                        .map(first::encode, second::encode)
-                        .joinWith(CodingUtil::join);
-            }
-
-            @Override
-            // TODO: Find out why checker-framework requires casting here
-            public @NonNull R decode(byte[] raw) throws IllegalArgumentException {
-                return NullnessUtil.castNonNull(
-                        CodingUtil
-                                .splitAt(raw, first.numBytes())
-                                .map(first::decode, second::decode)
-                                .joinWith(joiner::decode)
-                );
-            }
-        };
+        return new AppendedEncoding<>(this, second, joiner);
     }
 
     /**
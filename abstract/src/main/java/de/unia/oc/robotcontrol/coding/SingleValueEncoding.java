@@ -6,7 +6,6 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.Arrays;
 
 /**
  * An abstract class implementing {@link Encoding},
@@ -57,6 +56,41 @@ public abstract class SingleValueEncoding<T> implements FixedEncoding<T> {
      */
     protected abstract @NonNull T fromByteBuffer(ByteBuffer buffer);
 
+    /**
+     * Converts the given object to its bit representation, stored in
+     * the lowest {@link #nativeByteCount()} bytes of a long.
+     *
+     * Defaults to using {@link #intoByteBuffer(ByteBuffer, Object)};
+     * subclasses should override this to avoid allocating a buffer.
+     *
+     * @param object The object to convert
+     * @return The bits representing the object
+     */
+    protected long toBits(@NonNull T object) {
+        ByteBuffer buffer = intoByteBuffer(
+                ByteBuffer.allocate(nativeByteCount()).order(ByteOrder.BIG_ENDIAN),
+                object);
+        buffer.flip();
+        return CodingUtil.getBits(buffer, nativeByteCount(), ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Converts the given bits, as returned by {@link #toBits(Object)},
+     * back to an object of type {@link T}.
+     *
+     * Defaults to using {@link #fromByteBuffer(ByteBuffer)};
+     * subclasses should override this to avoid allocating a buffer.
+     *
+     * @param bits The bits representing the object
+     * @return An instance of an object of type {@link T}
+     */
+    protected @NonNull T fromBits(long bits) {
+        ByteBuffer buffer = ByteBuffer.allocate(nativeByteCount()).order(ByteOrder.BIG_ENDIAN);
+        CodingUtil.putBits(buffer, bits, nativeByteCount(), ByteOrder.BIG_ENDIAN);
+        buffer.flip();
+        return fromByteBuffer(buffer);
+    }
+
     @Override
     public CodingContext getContext() {
         return context;
@@ -65,31 +99,46 @@ public abstract class SingleValueEncoding<T> implements FixedEncoding<T> {
     @Override
     public @NonNull T decode(byte[] raw) throws IllegalArgumentException {
         if (raw == null) { throw new IllegalArgumentException("Passed bytes were null!"); }
-        if (getContext().doReverse()) { CodingUtil.reverseBytes(raw); }
-        byte[] nativeSize = Arrays.copyOf(raw, this.nativeByteCount());
-        return fromByteBuffer(
-                ByteBuffer.wrap(nativeSize)
-                          .order(CodingContext.NATIVE.getByteOrder())
-        );
+        return decodeFrom(ByteBuffer.wrap(raw));
     }
 
     @Override
     public @NonNull byte[] encode(T object) {
+        byte[] result = new byte[numBytes()];
+        encodeInto(object, ByteBuffer.wrap(result));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Writes the lowest {@link #numBytes()} bytes of the value
+     * in the byte order of the {@link CodingContext}.
+     *
+     * @param object The thing to encode
+     * @param target The buffer to write the encoded bytes to
+     */
+    @Override
+    public void encodeInto(T object, ByteBuffer target) {
         if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
-        byte[] whole = intoByteBuffer(
-                ByteBuffer
-                        .allocate(nativeByteCount())
-                        .order(getContext().getByteOrder()),
-                object
-        ).array();
-        return getContext().getByteOrder() == ByteOrder.BIG_ENDIAN ?
-                Arrays.copyOfRange(
-                        whole,
-                        (whole.length - numBytes()),
-                        whole.length) :
-                Arrays.copyOfRange(
-                        whole,
-                        0,
-                        numBytes());
+        CodingUtil.putBits(target, toBits(object), numBytes(), getContext().getByteOrder());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Reads {@link #numBytes()} bytes in the byte order of the
+     * {@link CodingContext}, filling up the rest of the value with zeros.
+     *
+     * @param source The buffer to read the bytes from
+     * @return the decoded value
+     * @throws IllegalArgumentException if there are not enough bytes remaining
+     */
+    @Override
+    public @NonNull T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        if (source.remaining() < numBytes()) {
+            throw new IllegalArgumentException("Not enough bytes remaining to decode! Expected: " + numBytes());
+        }
+        return fromBits(CodingUtil.getBits(source, numBytes(), getContext().getByteOrder()));
     }
 }
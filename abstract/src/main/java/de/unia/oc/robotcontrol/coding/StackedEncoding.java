@@ -0,0 +1,78 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import de.unia.oc.robotcontrol.util.Bijection;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link FixedEncoding} which transforms the values of an existing
+ * {@link FixedEncoding} using a {@link Bijection}, keeping the number of bytes.
+ *
+ * Created by {@link FixedEncoding#stack(Bijection)}.
+ * Values are encoded into and decoded from the given buffer
+ * directly, without intermediate byte arrays.
+ *
+ * @param <T> the type of value encoded by the bottom encoding
+ * @param <R> the type of value encoded by this encoding
+ */
+public final class StackedEncoding<T, R> implements FixedEncoding<R> {
+
+    /**
+     * The encoding that is used to encode last and decode first
+     */
+    private final FixedEncoding<T> bottom;
+
+    /**
+     * The bijection that is used to encode first and decode last
+     */
+    private final Bijection<R, T> top;
+
+    /**
+     * Create a new instance of {@link StackedEncoding}.
+     *
+     * @param bottom the encoding that is used to encode last and decode first
+     * @param top the bijection that is used to encode first and decode last
+     */
+    public StackedEncoding(FixedEncoding<T> bottom, Bijection<R, T> top) {
+        this.bottom = bottom;
+        this.top = top;
+    }
+
+    @Override
+    public @Positive int numBytes() {
+        return bottom.numBytes();
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return bottom.getContext();
+    }
+
+    @Override
+    public FixedEncoding<R> withContext(CodingContext context) {
+        return new StackedEncoding<>(bottom.withContext(context), top);
+    }
+
+    @Override
+    public byte[] encode(R object) throws IllegalArgumentException {
+        return bottom.encode(top.encode(object));
+    }
+
+    @Override
+    public @NonNull R decode(byte[] raw) throws IllegalArgumentException {
+        return top.decode(bottom.decode(raw));
+    }
+
+    @Override
+    public void encodeInto(R object, ByteBuffer target) throws IllegalArgumentException {
+        bottom.encodeInto(top.encode(object), target);
+    }
+
+    @Override
+    public @NonNull R decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        return top.decode(bottom.decodeFrom(source));
+    }
+}
@@ -0,0 +1,238 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import de.unia.oc.robotcontrol.util.Bijection;
+import de.unia.oc.robotcontrol.util.Tuple;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link VariableEncoding} is an encoding whose encoded values may
+ * use a different number of bytes depending on the value, as opposed to
+ * a {@link FixedEncoding}. The encoded bytes are self-delimiting, that is,
+ * {@link #decodeFrom(ByteBuffer)} reads exactly the bytes written
+ * by {@link #encodeInto(Object, ByteBuffer)}, so that variable encodings
+ * can be appended to each other or be followed by other data.
+ *
+ * This allows small values to be encoded using fewer bytes, for example
+ * using varints.
+ *
+ * @param <T> the type of value this can encode and decode from
+ */
+public interface VariableEncoding<T> extends Encoding<T> {
+
+    /**
+     * The number of bytes the given value will use when encoded.
+     *
+     * @param object the value to encode
+     * @return The number of bytes encoding the value needs.
+     * @throws IllegalArgumentException if the object could not be encoded
+     */
+    int sizeOf(T object) throws IllegalArgumentException;
+
+    /**
+     * {@inheritDoc}
+     *
+     * Writes exactly {@link #sizeOf(Object)} bytes.
+     *
+     * @param object The thing to encode
+     * @param target The buffer to write the encoded bytes to
+     * @throws IllegalArgumentException if the object could not be encoded
+     */
+    @Override
+    void encodeInto(T object, ByteBuffer target) throws IllegalArgumentException;
+
+    /**
+     * {@inheritDoc}
+     *
+     * Reads exactly the bytes that were written by {@link #encodeInto(Object, ByteBuffer)}.
+     *
+     * @param source The buffer to read the bytes from
+     * @return a decoded value (from the bytes in the buffer)
+     * @throws IllegalArgumentException if the object could not be
+     * decoded from the bytes in the buffer
+     */
+    @Override
+    @NonNull T decodeFrom(ByteBuffer source) throws IllegalArgumentException;
+
+    @Override
+    default byte[] encode(T object) throws IllegalArgumentException {
+        byte[] result = new byte[sizeOf(object)];
+        encodeInto(object, ByteBuffer.wrap(result));
+        return result;
+    }
+
+    @Override
+    default @NonNull T decode(byte[] raw) throws IllegalArgumentException {
+        return decodeFrom(ByteBuffer.wrap(raw));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param context The coding context that has to be set
+     * @return a new instance of {@link VariableEncoding}
+     */
+    @Override
+    default VariableEncoding<T> withContext(CodingContext context) {
+        VariableEncoding<T> self = this;
+        return new VariableEncoding<T>() {
+            @Override
+            public int sizeOf(T object) throws IllegalArgumentException {
+                return self.sizeOf(object);
+            }
+
+            @Override
+            public void encodeInto(T object, ByteBuffer target) throws IllegalArgumentException {
+                self.encodeInto(object, target);
+            }
+
+            @Override
+            public @NonNull T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return self.decodeFrom(source);
+            }
+
+            @Override
+            public CodingContext getContext() {
+                return context;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Transforming the values keeps the bytes self-delimiting,
+     * so the result is a {@link VariableEncoding} as well.
+     *
+     * @param top The instance of of {@link Bijection} that is used
+     *            to encode first and decode last {@code (R <-> T)},
+     *            transforming the encoding
+     * @param <R> the new type this encoding can accept
+     * @return A new instance of {@link VariableEncoding}
+     */
+    @Override
+    default <R> VariableEncoding<R> stack(Bijection<R, T> top) {
+        VariableEncoding<T> bottom = this;
+        return new VariableEncoding<R>() {
+            @Override
+            public int sizeOf(R object) throws IllegalArgumentException {
+                return bottom.sizeOf(top.encode(object));
+            }
+
+            @Override
+            public void encodeInto(R object, ByteBuffer target) throws IllegalArgumentException {
+                bottom.encodeInto(top.encode(object), target);
+            }
+
+            @Override
+            public @NonNull R decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return top.decode(bottom.decodeFrom(source));
+            }
+
+            @Override
+            public CodingContext getContext() {
+                return bottom.getContext();
+            }
+        };
+    }
+
+    /**
+     * Creates a new VariableEncoding instance which appends the bytes used
+     * for the `second` parameter to those of this one.
+     * The encodable value is thus a tuple, which is then transformed using the
+     * given `joiner` bijection (to- and from a tuple).
+     *
+     * @param second The encoding which to append to this one
+     * @param joiner The bijection which can produce a value based on the tuple produced by the first and second encoding and vice versa
+     * @param <S> The type of the second encoding
+     * @param <R> The type of the joined value
+     * @return An instance of VariableEncoding which can encode R
+     * @throws IllegalArgumentException if the contexts of both encodings do not match
+     */
+    default <S, R> VariableEncoding<R> append(VariableEncoding<S> second, Bijection<R, Tuple<T, S>> joiner) {
+        VariableEncoding<T> first = this;
+
+        if (first.getContext() != second.getContext()) {
+            throw new IllegalArgumentException("Encoding Contexts must match!");
+        }
+
+        return new VariableEncoding<R>() {
+            @Override
+            public int sizeOf(R object) throws IllegalArgumentException {
+                Tuple<T, S> parts = joiner.encode(object);
+                return first.sizeOf(parts.first) + second.sizeOf(parts.second);
+            }
+
+            @Override
+            public void encodeInto(R object, ByteBuffer target) throws IllegalArgumentException {
+                Tuple<T, S> parts = joiner.encode(object);
+                first.encodeInto(parts.first, target);
+                second.encodeInto(parts.second, target);
+            }
+
+            @Override
+            public @NonNull R decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                T firstValue = first.decodeFrom(source);
+                S secondValue = second.decodeFrom(source);
+                return joiner.decode(Tuple.create(firstValue, secondValue));
+            }
+
+            @Override
+            public CodingContext getContext() {
+                return first.getContext();
+            }
+        };
+    }
+
+    /**
+     * Creates a new instance of VariableEncoding that appends the bytes of the given
+     * second encoding to the bytes of this one, and decodes to a tuple of type
+     * (T, S).
+     * @param second the encoding which to append to this one
+     * @param <S> the type of the second encoding
+     * @return An instance of VariableEncoding that can encode a Tuple (T, S)
+     */
+    default <S> VariableEncoding<Tuple<T, S>> append(VariableEncoding<S> second) {
+        return append(second, Bijection.identity());
+    }
+
+    /**
+     * View the given {@link FixedEncoding} as a {@link VariableEncoding},
+     * which always uses {@link FixedEncoding#numBytes()} bytes.
+     * This allows fixed encodings to be appended to variable ones.
+     *
+     * @param encoding the fixed encoding to wrap
+     * @param <T> the type of value encoded
+     * @return a new instance of {@link VariableEncoding}
+     */
+    static <T> VariableEncoding<T> fromFixed(FixedEncoding<T> encoding) {
+        return new VariableEncoding<T>() {
+            @Override
+            public int sizeOf(T object) {
+                return encoding.numBytes();
+            }
+
+            @Override
+            public void encodeInto(T object, ByteBuffer target) throws IllegalArgumentException {
+                encoding.encodeInto(object, target);
+            }
+
+            @Override
+            public @NonNull T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return encoding.decodeFrom(source);
+            }
+
+            @Override
+            public CodingContext getContext() {
+                return encoding.getContext();
+            }
+
+            @Override
+            public VariableEncoding<T> withContext(CodingContext context) {
+                return fromFixed(encoding.withContext(context));
+            }
+        };
+    }
+}
@@ -6,7 +6,9 @@
  *
  * The main abstraction provided by this package is {@link de.unia.oc.robotcontrol.coding.Encoding},
  * which serves the aforementioned purpose. It also has a more strict version,
- * {@link de.unia.oc.robotcontrol.coding.FixedEncoding}, which guarantees a constant number of bytes.
+ * {@link de.unia.oc.robotcontrol.coding.FixedEncoding}, which guarantees a constant number of bytes,
+ * and a self-delimiting version, {@link de.unia.oc.robotcontrol.coding.VariableEncoding},
+ * whose number of bytes depends on the encoded value.
  * Distinguishing between different Environments and Contexts for the target devices can be done using
  * {@link de.unia.oc.robotcontrol.coding.CodingContext}.
  *
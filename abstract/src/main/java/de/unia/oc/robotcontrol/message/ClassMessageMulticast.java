@@ -0,0 +1,25 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * A {@link MessageMulticast} which can also be subscribed to
+ * all messages of a class, regardless of their type.
+ * @param <T> The type of message this can receive and will send
+ */
+public interface ClassMessageMulticast<T extends Message> extends MessageMulticast<T> {
+
+    /**
+     * Subscribe to all messages which are instances of the given class
+     * (e.g. all {@link SensorMessage}s) once decoded, regardless of their type.
+     *
+     * Which message types match the class is resolved once per type, using the first
+     * message of that type, so all messages of a type have to be of the same class.
+     * Messages may still be lazily decoded when they are emitted.
+     *
+     * @param messageClass the class of messages to subscribe to
+     * @return a publisher emitting all messages of the given class
+     */
+    Publisher<T> subscribeToClass(Class<?> messageClass);
+}
@@ -2,11 +2,12 @@
 package de.unia.oc.robotcontrol.message;
 
 import de.unia.oc.robotcontrol.coding.CodingContext;
-import de.unia.oc.robotcontrol.coding.CodingUtil;
 import de.unia.oc.robotcontrol.coding.Encoding;
 import de.unia.oc.robotcontrol.coding.FixedEncoding;
 import de.unia.oc.robotcontrol.util.Tuple;
 
+import java.nio.ByteBuffer;
+
 /**
  * A message identifier that can be encoded, which makes it
  * possible to determine the type of message from just bytes.
@@ -21,6 +22,30 @@ public interface MessageIdentifier<T>
      */
     FixedEncoding<T> getIdentifierEncoding();
 
+    /**
+     * Write the encoded identifier into the given buffer at its
+     * current position, advancing it by the number of identifier bytes.
+     *
+     * @param identifier the identifier to encode
+     * @param target the buffer to write the identifier to
+     * @throws IllegalArgumentException if the identifier encoding failed
+     */
+    default void encodeIdentifier(T identifier, ByteBuffer target) throws IllegalArgumentException {
+        getIdentifierEncoding().encodeInto(identifier, target);
+    }
+
+    /**
+     * Read the identifier from the given buffer at its current
+     * position, leaving the position at the start of the message data.
+     *
+     * @param source the buffer to read the identifier from
+     * @return the decoded identifier
+     * @throws IllegalArgumentException if the identifier decoding failed
+     */
+    default T decodeIdentifier(ByteBuffer source) throws IllegalArgumentException {
+        return getIdentifierEncoding().decodeFrom(source);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -36,9 +61,9 @@ public interface MessageIdentifier<T>
      */
     @Override
     default byte[] encode(Tuple<T, byte[]> object) throws IllegalArgumentException {
-        FixedEncoding<T> e = getIdentifierEncoding();
-        Tuple<byte[], byte[]> encoded = object.mapFirst(e::encode);
-        return CodingUtil.join(encoded.first, encoded.second);
+        byte[] result = new byte[getIdentifierEncoding().numBytes() + object.second.length];
+        encodeInto(object, ByteBuffer.wrap(result));
+        return result;
     }
 
     /**
@@ -56,9 +81,21 @@ public interface MessageIdentifier<T>
      */
     @Override
     default Tuple<T, byte[]> decode(byte[] raw) throws IllegalArgumentException {
-        FixedEncoding<T> e = getIdentifierEncoding();
-        Tuple<byte[], byte[]> split = CodingUtil.splitAt(raw, e.numBytes());
-        return split.mapFirst(e::decode);
+        return decodeFrom(ByteBuffer.wrap(raw));
+    }
+
+    @Override
+    default void encodeInto(Tuple<T, byte[]> object, ByteBuffer target) throws IllegalArgumentException {
+        encodeIdentifier(object.first, target);
+        target.put(object.second);
+    }
+
+    @Override
+    default Tuple<T, byte[]> decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        T identifier = decodeIdentifier(source);
+        byte[] rest = new byte[source.remaining()];
+        source.get(rest);
+        return Tuple.create(identifier, rest);
     }
 
     /**
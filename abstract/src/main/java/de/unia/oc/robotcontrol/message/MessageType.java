@@ -3,8 +3,11 @@ package de.unia.oc.robotcontrol.message;
 
 import de.unia.oc.robotcontrol.coding.CodingContext;
 import de.unia.oc.robotcontrol.coding.Encoding;
+import de.unia.oc.robotcontrol.coding.FixedEncoding;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.nio.ByteBuffer;
+
 /**
  * An interface that defines the type of a message by
  * providing an {@link Encoding} for it.
@@ -14,12 +17,31 @@ import org.checkerframework.checker.nullness.qual.NonNull;
  */
 public interface MessageType<T extends Message> extends Encoding<T> {
 
+    /**
+     * Returned by {@link #getFixedSize()} if the messages of a type
+     * do not always use the same number of bytes.
+     */
+    int VARIABLE_SIZE = -1;
+
     @Override
     @NonNull T decode(byte[] raw) throws IllegalArgumentException;
 
     @Override
     byte[] encode(T object) throws IllegalArgumentException;
 
+    /**
+     * Return the number of bytes every message of this type uses when
+     * encoded (without the identifier), or {@link #VARIABLE_SIZE} if
+     * that number is not constant or not known.
+     *
+     * Used to split frames from a byte stream without trying to decode them.
+     *
+     * @return the constant encoded size of messages of this type, or {@link #VARIABLE_SIZE}
+     */
+    default int getFixedSize() {
+        return VARIABLE_SIZE;
+    }
+
     /**
      * Try to cast the message to a message of this message type.
      *
@@ -67,6 +89,21 @@ public interface MessageType<T extends Message> extends Encoding<T> {
                 return self.decode(raw);
             }
 
+            @Override
+            @SuppressWarnings("unchecked")
+            public void encodeInto(Message object, ByteBuffer target) throws IllegalArgumentException {
+                try {
+                    self.encodeInto((T) object, target);
+                } catch (ClassCastException e) {
+                    throw new IllegalArgumentException("Argument was of wrong class");
+                }
+            }
+
+            @Override
+            public Message decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return self.decodeFrom(source);
+            }
+
             @Override
             public String toString() {
                 return "[Encoding from MessageType: " + self.toString();
@@ -92,11 +129,31 @@ public interface MessageType<T extends Message> extends Encoding<T> {
                }
            }
 
+           @Override
+           @SuppressWarnings("unchecked")
+           public void encodeInto(Message object, ByteBuffer target) throws IllegalArgumentException {
+               try {
+                   self.encodeInto((T) object, target);
+               } catch (ClassCastException e) {
+                   throw new IllegalArgumentException("Argument was of wrong class");
+               }
+           }
+
+           @Override
+           public Message decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+               return self.decodeFrom(source);
+           }
+
            @Override
            public CodingContext getContext() {
                return self.getContext();
            }
 
+           @Override
+           public int getFixedSize() {
+               return self.getFixedSize();
+           }
+
            @Override
            public String toString() {
                return self.toString();
@@ -123,11 +180,26 @@ public interface MessageType<T extends Message> extends Encoding<T> {
                 return e.decode(raw);
             }
 
+            @Override
+            public void encodeInto(T object, ByteBuffer target) throws IllegalArgumentException {
+                e.encodeInto(object, target);
+            }
+
+            @Override
+            public T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return e.decodeFrom(source);
+            }
+
             @Override
             public CodingContext getContext() {
                 return e.getContext();
             }
 
+            @Override
+            public int getFixedSize() {
+                return e instanceof FixedEncoding ? ((FixedEncoding) e).numBytes() : VARIABLE_SIZE;
+            }
+
             @Override
             public String toString() {
                 return "[MessageType " + super.toString() + " for Encoding: " + e.toString() + "]";
@@ -150,11 +222,27 @@ public interface MessageType<T extends Message> extends Encoding<T> {
                 return self.encode(object);
             }
 
+            @Override
+            public void encodeInto(T object, ByteBuffer target) throws IllegalArgumentException {
+                self.encodeInto(object, target);
+            }
+
+            @NonNull
+            @Override
+            public T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return self.decodeFrom(source);
+            }
+
             @Override
             public CodingContext getContext() {
                 return self.getContext();
             }
 
+            @Override
+            public int getFixedSize() {
+                return self.getFixedSize();
+            }
+
             @Override
             public String toString() {
                 return "[MessageType " + self.toString() + " - " +  name + "]";
@@ -5,6 +5,8 @@ import de.unia.oc.robotcontrol.coding.Encoding;
 import de.unia.oc.robotcontrol.util.Registry;
 import de.unia.oc.robotcontrol.util.Tuple;
 
+import java.nio.ByteBuffer;
+
 /**
  * A generic interface for a Registry that associates a MessageIdentifier
  * with a MessageType, so that it is possible to decode received bytes
@@ -68,11 +70,47 @@ public interface MessageTypeRegistry<I extends Object>
      */
     @Override
     default Message decode(byte[] raw) throws IllegalArgumentException {
-        return getIdentifier()
-                .decode(raw)
-                .joinWith((I id, byte[] rest) ->
-                        getValueFor(id)
-                                .orElseThrow(IllegalArgumentException::new)
-                                .decode(rest));
+        return decodeFrom(ByteBuffer.wrap(raw));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Writes the identifier registered for the type of the given message,
+     * followed by the message data, directly into the given buffer.
+     *
+     * @param object The message to encode
+     * @param target The buffer to write the identifier and message data to
+     * @throws IllegalArgumentException if the underlying message encoding failed,
+     * the identifier encoding failed, or the messages' {@link MessageType} is
+     * not registered
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    default void encodeInto(Message object, ByteBuffer target) throws IllegalArgumentException {
+        MessageType type = object.getType();
+        getIdentifier().encodeIdentifier(
+                getKeyFor(type).orElseThrow(IllegalArgumentException::new),
+                target);
+        type.encodeInto(object, target);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Reads the identifier from the given buffer, looks up the
+     * {@link MessageType} registered for it and lets it decode
+     * the message data directly from the buffer.
+     *
+     * @param source The buffer to read the identifier and message data from
+     * @return the decoded message
+     * @throws IllegalArgumentException if the underlying message decoding failed,
+     * the identifier decoding failed, or the identifier is not registered
+     */
+    @Override
+    default Message decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        I id = getIdentifier().decodeIdentifier(source);
+        MessageType<?> type = getValueFor(id).orElseThrow(IllegalArgumentException::new);
+        return type.decodeFrom(source);
     }
 }
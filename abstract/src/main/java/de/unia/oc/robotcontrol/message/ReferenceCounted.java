@@ -0,0 +1,87 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An object (usually a {@link Message}) whose lifecycle is tracked
+ * using a reference count, so that it can be reused once nobody
+ * holds a reference to it anymore.
+ *
+ * The object starts out with a single reference, owned by the one
+ * who created (or acquired) it. Everyone who passes the object on to
+ * multiple recipients has to {@link #retain(int)} it for each of them,
+ * and everyone who is done with the object has to {@link #release()}
+ * it exactly once. Once the last reference is released, the object
+ * may be reused and must not be accessed anymore.
+ *
+ * Code which does not know whether an object is reference counted should use
+ * {@link #retainIfCounted(Object, int)} and {@link #releaseIfCounted(Object)}.
+ */
+public interface ReferenceCounted {
+
+    /**
+     * @return the number of references currently held to this object
+     */
+    int refCount();
+
+    /**
+     * Add the given number of references to this object.
+     *
+     * @param increment the number of references to add
+     * @throws IllegalStateException if the object has already been released
+     */
+    void retain(@NonNegative int increment) throws IllegalStateException;
+
+    /**
+     * Release a single reference to this object.
+     *
+     * @return whether this was the last reference, so that
+     * the object may now be reused
+     * @throws IllegalStateException if the object has already been released
+     */
+    boolean release() throws IllegalStateException;
+
+    /**
+     * @return whether this object may be reused once its last reference
+     * has been released; if not, it can be kept without holding a reference
+     */
+    default boolean isRecyclable() {
+        return true;
+    }
+
+    /**
+     * @param object the object to check
+     * @return whether the given object is {@link ReferenceCounted}
+     * and {@link #isRecyclable()}
+     */
+    static boolean isRecyclable(@Nullable Object object) {
+        return object instanceof ReferenceCounted && ((ReferenceCounted) object).isRecyclable();
+    }
+
+    /**
+     * Call {@link #retain(int)} on the given object if it is
+     * {@link ReferenceCounted}, do nothing otherwise.
+     *
+     * @param object the object to retain
+     * @param increment the number of references to add
+     */
+    static void retainIfCounted(@Nullable Object object, @NonNegative int increment) {
+        if (object instanceof ReferenceCounted && increment > 0) {
+            ((ReferenceCounted) object).retain(increment);
+        }
+    }
+
+    /**
+     * Call {@link #release()} on the given object if it is
+     * {@link ReferenceCounted}, do nothing otherwise.
+     *
+     * @param object the object to release
+     * @return whether the object was reference counted and
+     * this was the last reference to it
+     */
+    static boolean releaseIfCounted(@Nullable Object object) {
+        return object instanceof ReferenceCounted && ((ReferenceCounted) object).release();
+    }
+}
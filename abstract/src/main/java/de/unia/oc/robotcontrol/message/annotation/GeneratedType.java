@@ -0,0 +1,71 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link de.unia.oc.robotcontrol.message.Message} class for which
+ * a {@link de.unia.oc.robotcontrol.message.MessageType} implementation
+ * is generated at compile time.
+ *
+ * The generated class is placed in the same package and named after the
+ * message class with the suffix {@code Type}, e.g. {@code DistanceDataMessageType}
+ * for {@code DistanceDataMessage}. Its single instance is available as
+ * {@code INSTANCE}.
+ *
+ * The message is encoded as the sequence of its fields annotated with
+ * {@link MessageField}, in the order of their declaration. The message class
+ * needs a constructor which accepts exactly these fields in the same order,
+ * or a static factory method named by {@link #factory()}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GeneratedType {
+
+    /**
+     * The coding contexts message types can be generated for.
+     * Mirrors the constants defined in {@link de.unia.oc.robotcontrol.coding.CodingContext},
+     * as their sizes have to be known at compile time.
+     */
+    enum Context {
+        /**
+         * See {@link de.unia.oc.robotcontrol.coding.CodingContext#NATIVE}
+         */
+        NATIVE,
+        /**
+         * See {@link de.unia.oc.robotcontrol.coding.CodingContext#ARDUINO}
+         */
+        ARDUINO
+    }
+
+    /**
+     * @return the name of the generated message type, returned by its
+     * {@code toString()} method. Defaults to the name of the message class.
+     */
+    String name() default "";
+
+    /**
+     * @return the character used to identify the message type in a
+     * {@link de.unia.oc.robotcontrol.message.MessageTypeRegistry}. If set,
+     * the generated type has a static {@code register} method which adds it
+     * to a registry using this identifier.
+     */
+    char identifier() default '\0';
+
+    /**
+     * @return the coding context which defines the default sizes of
+     * the fields and the byte order of the encoded message
+     */
+    Context context() default Context.NATIVE;
+
+    /**
+     * @return the name of a static method of the message class which accepts
+     * the encoded fields in order and returns a message, used instead of the
+     * constructor when decoding (e.g. to take the message from a pool).
+     * Uses the constructor if empty.
+     */
+    String factory() default "";
+}
@@ -0,0 +1,38 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a message class annotated with {@link GeneratedType}
+ * as part of the encoded message.
+ *
+ * Supported are fields of a primitive type.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface MessageField {
+
+    /**
+     * @return the number of bytes (1 to 8) used to encode the field.
+     * Defaults to the size defined by the {@link GeneratedType#context()}
+     * for the type of the field.
+     */
+    int width() default -1;
+
+    /**
+     * @return whether integral values narrower than their java type are sign-extended
+     * when decoding. Corresponds to {@code IntCodec#signed}.
+     */
+    boolean signed() default false;
+
+    /**
+     * @return the expression used to read the value from the message, relative
+     * to the message (e.g. {@code getCommand().getIdentifier()}). Defaults
+     * to the getter of the field, or the field itself if it is not private.
+     */
+    String accessor() default "";
+}
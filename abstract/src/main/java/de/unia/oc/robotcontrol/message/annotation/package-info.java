@@ -0,0 +1,13 @@
+/* %FILE_TEMPLATE_TEXT% */
+/**
+ * Annotations for message classes from which {@link de.unia.oc.robotcontrol.message.MessageType}
+ * implementations are generated at compile time, so that no encodings have to be composed
+ * (and no lambdas called) at runtime.
+ *
+ * The generation is done by the annotation processor in the processor module,
+ * which has to be enabled for the module containing the annotated messages.
+ *
+ * @author Maximilian Kuschewski
+ * @since 1.0
+ */
+package de.unia.oc.robotcontrol.message.annotation;
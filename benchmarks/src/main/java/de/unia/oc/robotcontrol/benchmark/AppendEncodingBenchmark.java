@@ -0,0 +1,59 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.benchmark;
+
+import de.unia.oc.robotcontrol.coding.CharEncoding;
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.FixedEncoding;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.util.Tuple;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encodings composed with {@link FixedEncoding#append(FixedEncoding)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppendEncodingBenchmark {
+
+    private FixedEncoding<Tuple<Tuple<Character, Integer>, Integer>> appended;
+
+    private Tuple<Tuple<Character, Integer>, Integer> value;
+    private byte[] encoded;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        CodingContext ctx = CodingContext.ARDUINO;
+        appended = new CharEncoding(ctx)
+                .append(new IntegerEncoding(ctx))
+                .append(new IntegerEncoding(ctx));
+        value = Tuple.create(Tuple.create('f', 128), 255);
+        encoded = appended.encode(value);
+        buffer = ByteBuffer.allocate(appended.numBytes());
+    }
+
+    @Benchmark
+    public byte[] encodeAppended() {
+        return appended.encode(value);
+    }
+
+    @Benchmark
+    public Tuple<Tuple<Character, Integer>, Integer> decodeAppended() {
+        return appended.decode(encoded);
+    }
+
+    @Benchmark
+    public Tuple<Tuple<Character, Integer>, Integer> roundTripAppendedBuffer() {
+        buffer.clear();
+        appended.encodeInto(value, buffer);
+        buffer.flip();
+        return appended.decodeFrom(buffer);
+    }
+}
@@ -0,0 +1,70 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.benchmark;
+
+import de.unia.oc.robotcontrol.coding.CodingUtil;
+import de.unia.oc.robotcontrol.util.Tuple;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the helper functions in {@link CodingUtil}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodingUtilBenchmark {
+
+    @Param({"8", "32"})
+    public int size;
+
+    private byte[] bytes;
+    private ByteBuffer buffer;
+    private long bits = 0x0102030405060708L;
+
+    @Setup
+    public void setup() {
+        bytes = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            bytes[i] = (byte) i;
+        }
+        buffer = ByteBuffer.allocate(8);
+    }
+
+    @Benchmark
+    public byte[] reverseBytes() {
+        CodingUtil.reverseBytes(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public Tuple<byte[], byte[]> splitAt() {
+        return CodingUtil.splitAt(bytes, size / 2);
+    }
+
+    @Benchmark
+    public byte[] join() {
+        return CodingUtil.join(bytes, bytes);
+    }
+
+    @Benchmark
+    public long putAndGetBitsBigEndian() {
+        buffer.clear();
+        CodingUtil.putBits(buffer, bits, 4, ByteOrder.BIG_ENDIAN);
+        buffer.flip();
+        return CodingUtil.getBits(buffer, 4, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Benchmark
+    public long putAndGetBitsLittleEndian() {
+        buffer.clear();
+        CodingUtil.putBits(buffer, bits, 8, ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        return CodingUtil.getBits(buffer, 8, ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,86 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.benchmark;
+
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.IntCodec;
+import de.unia.oc.robotcontrol.coding.IntListEncoding;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.coding.LengthPrefixedListEncoding;
+import de.unia.oc.robotcontrol.coding.ListEncoding;
+import de.unia.oc.robotcontrol.coding.VarIntEncoding;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encodings of lists of integers, comparing {@link ListEncoding}
+ * with the unboxed {@link IntListEncoding} and the varint based
+ * {@link LengthPrefixedListEncoding}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListEncodingBenchmark {
+
+    @Param({"3", "64"})
+    public int size;
+
+    private ListEncoding<Integer> listEncoding;
+    private IntListEncoding intListEncoding;
+    private LengthPrefixedListEncoding<Integer> varIntListEncoding;
+
+    private List<Integer> list;
+    private int[] array;
+    private byte[] encodedList;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        CodingContext ctx = CodingContext.ARDUINO;
+        listEncoding = new ListEncoding<>(new IntegerEncoding(ctx), size);
+        intListEncoding = new IntListEncoding(new IntCodec(ctx), size);
+        varIntListEncoding = new LengthPrefixedListEncoding<>(new VarIntEncoding(ctx));
+
+        list = new ArrayList<>(size);
+        array = new int[size];
+        for (int i = 0; i < size; ++i) {
+            list.add(i * 37);
+            array[i] = i * 37;
+        }
+        encodedList = listEncoding.encode(list);
+        buffer = ByteBuffer.allocate(size * 8 + 8);
+    }
+
+    @Benchmark
+    public byte[] encodeList() {
+        return listEncoding.encode(list);
+    }
+
+    @Benchmark
+    public List<Integer> decodeList() {
+        return listEncoding.decode(encodedList);
+    }
+
+    @Benchmark
+    public int[] roundTripIntList() {
+        buffer.clear();
+        intListEncoding.encodeInto(array, buffer);
+        buffer.flip();
+        intListEncoding.decodeInto(buffer, array);
+        return array;
+    }
+
+    @Benchmark
+    public List<Integer> roundTripVarIntList() {
+        buffer.clear();
+        varIntListEncoding.encodeInto(list, buffer);
+        buffer.flip();
+        return varIntListEncoding.decodeFrom(buffer);
+    }
+}
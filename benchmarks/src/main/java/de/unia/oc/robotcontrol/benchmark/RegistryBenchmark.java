@@ -0,0 +1,84 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.benchmark;
+
+import de.unia.oc.robotcontrol.coding.Encoding;
+import de.unia.oc.robotcontrol.example.arduino.data.RobotDrivingCommand;
+import de.unia.oc.robotcontrol.example.arduino.message.ArduinoMessageTypes;
+import de.unia.oc.robotcontrol.example.arduino.message.DistanceDataMessage;
+import de.unia.oc.robotcontrol.example.arduino.message.SpeedCmdMessage;
+import de.unia.oc.robotcontrol.example.arduino.message.UpdateRequestMessage;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.Messaging;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding and decoding the messages defined in {@link ArduinoMessageTypes}
+ * using the {@link ArduinoMessageTypes#REGISTRY}, as done for every message
+ * sent to or received from the arduino.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+
+    private final Encoding<Message> registry = ArduinoMessageTypes.ENCODING;
+    private final Encoding<Message> lazyRegistry = Messaging.lazyDecoding(ArduinoMessageTypes.REGISTRY);
+
+    private DistanceDataMessage distanceData;
+    private SpeedCmdMessage speedCmd;
+    private UpdateRequestMessage updateRequest;
+
+    private byte[] encodedDistanceData;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        distanceData = new DistanceDataMessage(12, 345, 678);
+        speedCmd = new SpeedCmdMessage(RobotDrivingCommand.FRONT, 64);
+        updateRequest = new UpdateRequestMessage();
+        encodedDistanceData = registry.encode(distanceData);
+        buffer = ByteBuffer.allocate(32);
+    }
+
+    @Benchmark
+    public byte[] encodeSpeedCmd() {
+        return registry.encode(speedCmd);
+    }
+
+    @Benchmark
+    public byte[] encodeUpdateRequest() {
+        return registry.encode(updateRequest);
+    }
+
+    @Benchmark
+    public Message decodeDistanceData() {
+        return registry.decode(encodedDistanceData);
+    }
+
+    @Benchmark
+    public Message decodeDistanceDataLazily() {
+        return lazyRegistry.decode(encodedDistanceData);
+    }
+
+    @Benchmark
+    public Message roundTripDistanceDataBuffer() {
+        buffer.clear();
+        registry.encodeInto(distanceData, buffer);
+        buffer.flip();
+        return registry.decodeFrom(buffer);
+    }
+
+    @Benchmark
+    public Message roundTripSpeedCmdBuffer() {
+        buffer.clear();
+        registry.encodeInto(speedCmd, buffer);
+        buffer.flip();
+        return registry.decodeFrom(buffer);
+    }
+}
@@ -0,0 +1,83 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.benchmark;
+
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.DoubleEncoding;
+import de.unia.oc.robotcontrol.coding.FixedEncoding;
+import de.unia.oc.robotcontrol.coding.IntCodec;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encodings of single values ({@link de.unia.oc.robotcontrol.coding.SingleValueEncoding}),
+ * comparing the byte array path with the buffer path and with the unboxed {@link IntCodec}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SingleValueEncodingBenchmark {
+
+    @Param({"NATIVE", "ARDUINO"})
+    public String context;
+
+    private IntegerEncoding integerEncoding;
+    private FixedEncoding<Double> doubleEncoding;
+    private IntCodec intCodec;
+
+    private byte[] encodedInt;
+    private byte[] encodedDouble;
+    private ByteBuffer buffer;
+
+    private int intValue = 1234;
+    private double doubleValue = 12.34;
+
+    @Setup
+    public void setup() {
+        CodingContext ctx = "ARDUINO".equals(context) ? CodingContext.ARDUINO : CodingContext.NATIVE;
+        integerEncoding = new IntegerEncoding(ctx);
+        doubleEncoding = new DoubleEncoding().withContext(ctx);
+        intCodec = new IntCodec(ctx);
+        encodedInt = integerEncoding.encode(intValue);
+        encodedDouble = doubleEncoding.encode(doubleValue);
+        buffer = ByteBuffer.allocate(64);
+    }
+
+    @Benchmark
+    public byte[] encodeInteger() {
+        return integerEncoding.encode(intValue);
+    }
+
+    @Benchmark
+    public Integer decodeInteger() {
+        return integerEncoding.decode(encodedInt);
+    }
+
+    @Benchmark
+    public Integer roundTripIntegerBuffer() {
+        buffer.clear();
+        integerEncoding.encodeInto(intValue, buffer);
+        buffer.flip();
+        return integerEncoding.decodeFrom(buffer);
+    }
+
+    @Benchmark
+    public int roundTripIntCodec() {
+        buffer.clear();
+        intCodec.encodeInt(intValue, buffer);
+        buffer.flip();
+        return intCodec.decodeInt(buffer);
+    }
+
+    @Benchmark
+    public void roundTripDouble(Blackhole bh) {
+        bh.consume(doubleEncoding.encode(doubleValue));
+        bh.consume(doubleEncoding.decode(encodedDouble));
+    }
+}
@@ -0,0 +1,16 @@
+/* %FILE_TEMPLATE_TEXT% */
+/**
+ * JMH benchmarks for the coding ({@link de.unia.oc.robotcontrol.coding}) and
+ * messaging ({@link de.unia.oc.robotcontrol.message}) modules, measuring
+ * the throughput and allocation rate of encoding and decoding.
+ *
+ * Build with {@code mvn package} and run all benchmarks using
+ * {@code java -jar benchmarks/target/benchmarks.jar}, which uses
+ * {@link de.unia.oc.robotcontrol.benchmark.BenchmarkRunner} to enable the
+ * gc profiler and to write the results to {@code benchmarks.json}.
+ * Passing a regular expression only runs the matching benchmarks.
+ *
+ * @since 1.0
+ * @author Maximilian Kuschewski
+ */
+package de.unia.oc.robotcontrol.benchmark;
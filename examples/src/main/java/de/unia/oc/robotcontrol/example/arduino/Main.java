@@ -20,6 +20,7 @@ import de.unia.oc.robotcontrol.oc.Controller;
 import de.unia.oc.robotcontrol.oc.ObservationModel;
 import de.unia.oc.robotcontrol.oc.RobotControl;
 import de.unia.oc.robotcontrol.util.Logger;
+import de.unia.oc.robotcontrol.visualization.Metrics;
 import de.unia.oc.robotcontrol.visualization.ObjectGrid;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import reactor.core.publisher.Flux;
@@ -38,6 +39,9 @@ public class Main {
      * @param args The program arguments. Can include the following words:
      *             - simulation | simulate: Don't try to connect to the arduino using I2C, but instead
      *             run a simulated version within a discrete grid.
+     *             - trace: Trace the latency of the control loop, the queueing delays of
+     *             the multicast and the request delays of adaptively paced devices,
+     *             and show them in the runtime metrics.
      *
      * @throws IOException in case the program could not connect to the arduino using I2C (Bus 1, Device 4)
      */
@@ -45,28 +49,48 @@ public class Main {
         final Set<String> argSet = new HashSet<>(Arrays.asList(args));
         final boolean simulate = argSet.contains("simulate") || argSet.contains("simulation");
         final boolean manual = argSet.contains("manual");
+        final boolean trace = argSet.contains("trace");
+        if (trace) {
+            LatencyTracer.instance().reportTo(Metrics.instance(), 50);
+        }
 
         // startWithoutFacade(simulate, manual);
-        startWithFacade(simulate, manual);
+        startWithFacade(simulate, manual, trace);
     }
 
-    private static void startWithFacade(boolean simulate, boolean manual) throws IOException {
-        // RobotControl<> control =
+    private static void startWithFacade(boolean simulate, boolean manual, boolean trace) throws IOException {
+        RobotControl<?, ?, ?, ?, ?, ?> control = createControl(createDevice(simulate), manual);
+        if (trace) {
+            control.reportTo(Metrics.instance());
+        }
+        control.run();
+    }
+
+    /**
+     * Build the control loop of the robot around the given device.
+     *
+     * @param device the device the commands are sent to, and sensor messages are read from
+     * @param manual whether the robot is controlled manually
+     * @return the configured, not yet running {@link RobotControl}
+     */
+    static RobotControl<?, ?, ?, ?, ?, ?> createControl(Device<Message, Message> device, boolean manual) {
         final Controller<ArduinoState, ObservationModel<ArduinoState>, RobotDrivingCommand> controller = manual
                 ? new ManualController()
                 : new ArduinoController();
         final ArduinoObserver<ObservationModel<ArduinoState>> observer = new ArduinoObserver<>(controller.getObservationModel());
 
-        RobotControl
+        return RobotControl
                 .build(observer, controller)
-                .withActionInterpreter((c) -> new SpeedCmdMessage(c, 64))
-                .withDevice(createDevice(simulate), ArduinoMessageTypes.SPEED_CMD)
-                .registerObserverMessages(ArduinoMessageTypes.DISTANCE_DATA)
-                .withMessageStrategy(ArduinoMessageTypes.DISTANCE_DATA, LatestFlowStrategy.create())
+                .withActionInterpreter((c) -> SpeedCmdMessage.acquire(c, 64))
+                .withDevice(device, ArduinoMessageTypes.SPEED_CMD)
+                // the observer receives all sensor messages, keeping only the latest
+                .registerObserverClass(LatestFlowStrategy.create())
                 .withMessageStrategy(ArduinoMessageTypes.SPEED_CMD, LatestFlowStrategy.create())
                 .withMessageStrategy(ArduinoMessageTypes.UPDATE_REQUEST, IgnoringFlowStrategy.create())
-                .create()
-                .run();
+                // commands are not delayed by bursts of sensor messages; update
+                // requests are created by the device itself, and never dispatched
+                .withMessagePriority(ArduinoMessageTypes.SPEED_CMD, MessagePriority.HIGH)
+                .create();
     }
 
     private static Device<Message, Message> createDevice(boolean simulate) throws IOException {
@@ -75,18 +99,19 @@ public class Main {
                 // define a simulated version of the arduino in a discrete grid environment
                 new DiscreteSimulatedRobot(
                         ArduinoMessageTypes.ENCODING,
-                        UpdateRequestMessage::new,
+                        UpdateRequestMessage::acquire,
                         new ObjectGrid(20, 20)
                 ) :
 
-                // define the arduino which is connected using I2C
+                // define the arduino which is connected using I2C;
+                // received messages are only decoded if they are not dropped
                 new I2CConnector<>(
                         32,
                         1,
                         (byte) 4,
                         ArduinoMessageTypes.ENCODING,
-                        ArduinoMessageTypes.ENCODING,
-                        UpdateRequestMessage::new);
+                        Messaging.lazyDecoding(ArduinoMessageTypes.REGISTRY),
+                        UpdateRequestMessage::acquire);
     }
 
 }
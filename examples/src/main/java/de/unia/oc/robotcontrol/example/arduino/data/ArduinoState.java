@@ -2,6 +2,7 @@
 package de.unia.oc.robotcontrol.example.arduino.data;
 
 import de.unia.oc.robotcontrol.example.arduino.message.DistanceDataMessage;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
 import de.unia.oc.robotcontrol.message.SensorMessage;
 import de.unia.oc.robotcontrol.util.CollectionUtil;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
@@ -35,12 +36,18 @@ public class ArduinoState {
     }
 
     /**
-     * Set recorded distances
+     * Set recorded distances.
+     * Takes over the reference of the caller to the passed message, and releases
+     * the message which is no longer recorded (see {@link ReferenceCounted}).
      * @param data The {@link DistanceDataMessage} encapsulating the measured distances
      */
     private synchronized void updateDistances(DistanceDataMessage data) {
+        DistanceDataMessage dropped = this.prevDistances;
         this.prevDistances = this.distances == null ? data : this.distances;
         this.distances = data;
+        if (dropped != null && dropped != this.prevDistances && dropped != this.distances) {
+            dropped.release();
+        }
     }
 
     /**
@@ -23,27 +23,51 @@ public final class ArduinoMessageTypes {
     public static final CodingContext CONTEXT = CodingContext.ARDUINO;
 
     /**
-     * MessageType for {@link DistanceDataMessage}. {@code [int, int, int] -> [x, y, z]}
+     * Composed encoding for {@link DistanceDataMessage}, producing the same bytes
+     * as {@link #DISTANCE_DATA}. {@code [int, int, int] -> [x, y, z]}
      */
-    public static final MessageType<DistanceDataMessage> DISTANCE_DATA =
+    static final FixedEncoding<DistanceDataMessage> DISTANCE_DATA_ENCODING =
+            Encodings.stack(
+                    new IntListEncoding(new IntCodec(CONTEXT), 3),
+                    Bijection.create(
+                            (DistanceDataMessage msg) -> new int[]{ msg.getFront(), msg.getRight(), msg.getLeft() },
+                            (int[] ints) -> new DistanceDataMessage(ints[0], ints[1], ints[2])
+                    )
+            );
+
+    /**
+     * MessageType for {@link DistanceDataMessage}, generated from its
+     * annotations at compile time. {@code [int, int, int] -> [x, y, z]}
+     */
+    public static final MessageType<DistanceDataMessage> DISTANCE_DATA = DistanceDataMessageType.INSTANCE;
+
+    /**
+     * MessageType for {@link DistanceDataMessage} with each distance
+     * encoded as a varint, so that small distances only use a single byte.
+     * {@code [varint, varint, varint] -> [x, y, z]}
+     */
+    public static final MessageType<DistanceDataMessage> COMPACT_DISTANCE_DATA =
             MessageType.fromEncoding(
-                    Encodings.stack(
-                            new ListEncoding<>(new IntegerEncoding(CONTEXT), 3),
-                            Bijection.create(
-                                    (DistanceDataMessage msg) -> Arrays.asList( msg.getFront(), msg.getRight(), msg.getLeft() ),
-                                    (List<Integer> ints) -> new DistanceDataMessage(ints.get(0), ints.get(1), ints.get(2))
+                    new VarIntEncoding(CONTEXT)
+                            .append(new VarIntEncoding(CONTEXT))
+                            .append(
+                                    new VarIntEncoding(CONTEXT),
+                                    Bijection.create(
+                                            (DistanceDataMessage msg) -> new Tuple<>(new Tuple<>(msg.getFront(), msg.getRight()), msg.getLeft()),
+                                            (Tuple<Tuple<Integer, Integer>, Integer> t) ->
+                                                    new DistanceDataMessage(t.first.first, t.first.second, t.second)
+                                    )
                             )
-                    )
-            ).withName("DistanceData");
+            ).withName("CompactDistanceData");
 
     /**
-     * MessageType for {@link SpeedCmdMessage}. {@code (char, byte) -> (direction, speed)}
+     * MessageType for {@link SpeedCmdMessage}. {@code (char, int) -> (direction, speed)}
      */
     public static final MessageType<SpeedCmdMessage> SPEED_CMD =
             MessageType.fromEncoding(
                     Encodings.join(
                             new CharEncoding(CONTEXT),
-                            new IntegerEncoding(CONTEXT),
+                            new IntCodec(CONTEXT),
                             Bijection.create(
                                     (SpeedCmdMessage msg) -> new Tuple<>(msg.getCommand().getIdentifier(), msg.getSpeed()),
                                     (Tuple<Character, Integer> t) -> new SpeedCmdMessage(t.first, t.second)
@@ -68,7 +92,7 @@ public final class ArduinoMessageTypes {
     public static final Set<MessageType<? extends Message>> messageTypeList =
             Collections.unmodifiableSet(
                     new HashSet<>(
-                            Arrays.asList(DISTANCE_DATA, SPEED_CMD, UPDATE_REQUEST)
+                            Arrays.asList(DISTANCE_DATA, COMPACT_DISTANCE_DATA, SPEED_CMD, UPDATE_REQUEST)
                     )
             );
 
@@ -86,7 +110,8 @@ public final class ArduinoMessageTypes {
             Messaging.createRegistry(
                     IDENTIFIER,
                     (p) -> {
-                        p.apply('d', DISTANCE_DATA);
+                        DistanceDataMessageType.register(p);
+                        p.apply('D', COMPACT_DISTANCE_DATA);
                         p.apply('s', SPEED_CMD);
                         p.apply('u', UPDATE_REQUEST);
                     }
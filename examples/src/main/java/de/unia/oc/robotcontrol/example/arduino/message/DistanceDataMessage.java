@@ -2,33 +2,64 @@
 package de.unia.oc.robotcontrol.example.arduino.message;
 
 import de.unia.oc.robotcontrol.message.AbstractDeviceMessage;
+import de.unia.oc.robotcontrol.message.MessagePool;
 import de.unia.oc.robotcontrol.message.MessageType;
 import de.unia.oc.robotcontrol.message.SensorMessage;
+import de.unia.oc.robotcontrol.message.annotation.GeneratedType;
+import de.unia.oc.robotcontrol.message.annotation.MessageField;
 import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A message wrapping the distance data from the
  * three arduino ultrasound sensors (front, right, left).
+ *
+ * Its {@link MessageType} ({@code DistanceDataMessageType}) is generated
+ * from the annotated fields. {@code [int, int, int] -> [front, right, left]}
+ *
+ * Decoded messages are taken from a {@link MessagePool} using {@link #acquire(int, int, int)},
+ * and reused once they have been released by all of their recipients.
  */
+@GeneratedType(name = "DistanceData", identifier = 'd', context = GeneratedType.Context.ARDUINO, factory = "acquire")
 public class DistanceDataMessage
         extends AbstractDeviceMessage<DistanceDataMessage>
         implements SensorMessage<DistanceDataMessage> {
 
     /**
-     * The timestamp at which this message was received.
+     * The pool decoded messages are taken from
      */
-    private final long time;
+    private static final MessagePool<DistanceDataMessage> POOL = new MessagePool<>(DistanceDataMessage::new);
 
-    private final @NonNegative int front, right, left; // front, right, left distance sensor
+    @MessageField
+    private @NonNegative int front, right, left; // front, right, left distance sensor
 
     public DistanceDataMessage(@NonNegative int front, @NonNegative int right, @NonNegative int left) {
-        this.time = System.currentTimeMillis();
         this.front = front;
         this.right = right;
         this.left = left;
     }
 
+    private DistanceDataMessage(MessagePool<DistanceDataMessage> pool) {
+        super(pool);
+    }
+
+    /**
+     * Take a message from the pool and set its distances.
+     * The message has to be released once it is not used anymore.
+     *
+     * @param front the distance measured by the front sensor
+     * @param right the distance measured by the right sensor
+     * @param left the distance measured by the left sensor
+     * @return a pooled {@link DistanceDataMessage}
+     */
+    public static DistanceDataMessage acquire(@NonNegative int front, @NonNegative int right, @NonNegative int left) {
+        DistanceDataMessage message = POOL.acquire();
+        message.front = front;
+        message.right = right;
+        message.left = left;
+        return message;
+    }
+
     @Override
     public MessageType<DistanceDataMessage> getType() {
         return ArduinoMessageTypes.DISTANCE_DATA;
@@ -63,9 +94,4 @@ public class DistanceDataMessage
     public String toString() {
         return "DistanceData Message: front: " + front + ", right: " + right + ", left: " + left;
     }
-
-    @Override
-    public long getCreationTime() {
-        return this.time;
-    }
 }
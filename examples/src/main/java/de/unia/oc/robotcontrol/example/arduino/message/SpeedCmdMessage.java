@@ -3,17 +3,26 @@ package de.unia.oc.robotcontrol.example.arduino.message;
 
 import de.unia.oc.robotcontrol.example.arduino.data.RobotDrivingCommand;
 import de.unia.oc.robotcontrol.message.AbstractActuatorMessage;
+import de.unia.oc.robotcontrol.message.MessagePool;
 import de.unia.oc.robotcontrol.message.MessageType;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A message wrapping the command sent to an arduino used for
  * setting its speed.
+ *
+ * Messages created using {@link #acquire(RobotDrivingCommand, int)} are taken from
+ * a {@link MessagePool}, and reused once they have been released by all of their recipients.
  */
 public class SpeedCmdMessage extends AbstractActuatorMessage<SpeedCmdMessage> {
 
-    private final RobotDrivingCommand command;
-    private final int speed;
+    /**
+     * The pool messages created by {@link #acquire(RobotDrivingCommand, int)} are taken from
+     */
+    private static final MessagePool<SpeedCmdMessage> POOL = new MessagePool<>(SpeedCmdMessage::new);
+
+    private RobotDrivingCommand command;
+    private int speed;
 
     public SpeedCmdMessage(char command, int speed) {
         this.command = RobotDrivingCommand.fromIdentifier(command).orElseThrow(IllegalArgumentException::new);
@@ -25,6 +34,34 @@ public class SpeedCmdMessage extends AbstractActuatorMessage<SpeedCmdMessage> {
         this.speed = speed;
     }
 
+    private SpeedCmdMessage(MessagePool<SpeedCmdMessage> pool) {
+        super(pool);
+        this.command = RobotDrivingCommand.STOP;
+    }
+
+    /**
+     * Take a message from the pool and set its command and speed.
+     * The message has to be released once it is not used anymore.
+     *
+     * @param command the driving command to send
+     * @param speed the speed to drive with
+     * @return a pooled {@link SpeedCmdMessage}
+     */
+    public static SpeedCmdMessage acquire(RobotDrivingCommand command, int speed) {
+        SpeedCmdMessage message = POOL.acquire();
+        message.command = command;
+        message.speed = speed;
+        return message;
+    }
+
+    /**
+     * @return the pool messages created by {@link #acquire(RobotDrivingCommand, int)}
+     * are taken from, e.g. to monitor how many of them are reused
+     */
+    public static MessagePool<SpeedCmdMessage> getPool() {
+        return POOL;
+    }
+
     public RobotDrivingCommand getCommand() {
         return command;
     }
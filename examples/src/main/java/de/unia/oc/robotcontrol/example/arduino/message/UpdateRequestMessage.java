@@ -2,6 +2,7 @@
 package de.unia.oc.robotcontrol.example.arduino.message;
 
 import de.unia.oc.robotcontrol.message.AbstractActuatorMessage;
+import de.unia.oc.robotcontrol.message.MessagePool;
 import de.unia.oc.robotcontrol.message.MessageType;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -11,14 +12,36 @@ import java.util.UUID;
 /**
  * Message with no content that just requests a state update
  * from the Arduino.
+ *
+ * Messages created using {@link #acquire()} are taken from a {@link MessagePool},
+ * and reused once they have been sent.
  */
 public class UpdateRequestMessage extends AbstractActuatorMessage<UpdateRequestMessage> {
 
+    /**
+     * The pool messages created by {@link #acquire()} are taken from
+     */
+    private static final MessagePool<UpdateRequestMessage> POOL = new MessagePool<>(UpdateRequestMessage::new);
+
     private volatile @MonotonicNonNull UUID deviceUUID;
 
     public UpdateRequestMessage() {
     }
 
+    private UpdateRequestMessage(MessagePool<UpdateRequestMessage> pool) {
+        super(pool);
+    }
+
+    /**
+     * Take a message from the pool.
+     * The message has to be released once it is not used anymore.
+     *
+     * @return a pooled {@link UpdateRequestMessage}
+     */
+    public static UpdateRequestMessage acquire() {
+        return POOL.acquire();
+    }
+
     @Override
     public MessageType<UpdateRequestMessage> getType() {
         return ArduinoMessageTypes.UPDATE_REQUEST;
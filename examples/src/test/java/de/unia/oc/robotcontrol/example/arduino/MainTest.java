@@ -0,0 +1,134 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.example.arduino;
+
+import de.unia.oc.robotcontrol.example.arduino.data.ArduinoState;
+import de.unia.oc.robotcontrol.example.arduino.device.MockArduino;
+import de.unia.oc.robotcontrol.example.arduino.message.ArduinoMessageTypes;
+import de.unia.oc.robotcontrol.example.arduino.message.SpeedCmdMessage;
+import de.unia.oc.robotcontrol.example.arduino.message.UpdateRequestMessage;
+import de.unia.oc.robotcontrol.example.arduino.oc.ArduinoController;
+import de.unia.oc.robotcontrol.example.arduino.oc.ArduinoObserver;
+import de.unia.oc.robotcontrol.flow.PriorityLanes;
+import de.unia.oc.robotcontrol.flow.strategy.LatestFlowStrategy;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessagePriority;
+import de.unia.oc.robotcontrol.oc.ObservationModel;
+import de.unia.oc.robotcontrol.oc.RobotControl;
+import de.unia.oc.robotcontrol.visualization.IgnoringRuntimeMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+class MainTest {
+
+    @Test
+    void reusesSpeedCommands() throws InterruptedException {
+        AtomicInteger pushed = new AtomicInteger();
+        // counts the commands received by the device
+        MockArduino arduino = new MockArduino(ArduinoMessageTypes.ENCODING, UpdateRequestMessage::acquire) {
+            @Override
+            protected void pushMessage(byte[] message) {
+                if (ArduinoMessageTypes.ENCODING.decode(message) instanceof SpeedCmdMessage) {
+                    pushed.incrementAndGet();
+                }
+            }
+        };
+        long reusedBefore = SpeedCmdMessage.getPool().getReusedCount();
+
+        RobotControl<?, ?, ?, ?, ?, ?> control = Main.createControl(arduino, false);
+        control.run();
+        try {
+            // commands are sent once they are released by all of their
+            // recipients, and reused by the commands after the next one
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((pushed.get() < 3 || SpeedCmdMessage.getPool().getReusedCount() == reusedBefore)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            control.terminate();
+        }
+        Assertions.assertTrue(pushed.get() >= 3);
+        Assertions.assertTrue(SpeedCmdMessage.getPool().getReusedCount() > reusedBefore,
+                "no command was reused, created " + SpeedCmdMessage.getPool().getCreatedCount());
+    }
+
+    @Test
+    void dispatchesCommandsThroughPriorityLane() throws InterruptedException {
+        List<String> registered = new ArrayList<>();
+        RobotControl<?, ?, ?, ?, ?, ?> control = Main.createControl(
+                new MockArduino(ArduinoMessageTypes.ENCODING, UpdateRequestMessage::acquire),
+                false);
+        control.reportTo(new IgnoringRuntimeMetrics<String>() {
+            @Override
+            public Consumer<Double> registerCallback(String metric) {
+                registered.add(metric);
+                return super.registerCallback(metric);
+            }
+        });
+        Assertions.assertTrue(registered.contains("Multicast HIGH Lane Queueing Delay (ms)"));
+
+        PriorityLanes<Message> lanes = control.getPriorityLanes().orElseThrow(AssertionError::new);
+        int high = MessagePriority.HIGH.ordinal();
+        control.run();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (lanes.getDrainedCount(high) == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            control.terminate();
+        }
+        Assertions.assertTrue(lanes.getDrainedCount(high) > 0);
+    }
+
+    @Test
+    void reportsRequestDelaysOfPacedDevices() throws InterruptedException {
+        List<String> registered = new CopyOnWriteArrayList<>();
+        RobotControl<?, ?, ?, ?, ?, ?> control = Main.createControl(
+                new MockArduino(ArduinoMessageTypes.ENCODING, UpdateRequestMessage::acquire) {
+                    @Override
+                    protected boolean isAdaptivePacing() {
+                        return true;
+                    }
+                },
+                false);
+        control.reportTo(new IgnoringRuntimeMetrics<String>() {
+            @Override
+            public Consumer<Double> registerCallback(String metric) {
+                registered.add(metric);
+                return super.registerCallback(metric);
+            }
+        });
+
+        // the delay of each kind of request is registered once it is first sent
+        control.run();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (registered.stream().noneMatch((m) -> m.startsWith("Mock Arduino request delay"))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            control.terminate();
+        }
+        Assertions.assertTrue(registered.stream().anyMatch((m) -> m.startsWith("Mock Arduino request delay")),
+                "no request delay registered: " + registered);
+    }
+
+    @Test
+    void rejectsObserverSubscribedToClassAndTypes() {
+        ArduinoController controller = new ArduinoController();
+        RobotControl.Builder<?, ?, ?, ?, ?, ?> builder = RobotControl
+                .build(new ArduinoObserver<ObservationModel<ArduinoState>>(controller.getObservationModel()), controller)
+                .withActionInterpreter((c) -> SpeedCmdMessage.acquire(c, 64))
+                .registerObserverMessages(ArduinoMessageTypes.DISTANCE_DATA)
+                .registerObserverClass(LatestFlowStrategy.create());
+        Assertions.assertThrows(IllegalStateException.class, builder::create);
+    }
+}
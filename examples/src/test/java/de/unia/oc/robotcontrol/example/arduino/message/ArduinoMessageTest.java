@@ -4,6 +4,8 @@ package de.unia.oc.robotcontrol.example.arduino.message;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 public class ArduinoMessageTest {
 
     @Test
@@ -45,6 +47,19 @@ public class ArduinoMessageTest {
         );
     }
 
+    @Test
+    void compactDistanceDataDecodesFromRegistry() {
+        DistanceDataMessage m = new DistanceDataMessage(12, 300, 65535);
+        byte[] payload = ArduinoMessageTypes.COMPACT_DISTANCE_DATA.encode(m);
+
+        Assertions.assertEquals(1 + 2 + 3, payload.length);
+
+        byte[] raw = new byte[payload.length + 1];
+        raw[0] = 'D';
+        System.arraycopy(payload, 0, raw, 1, payload.length);
+        Assertions.assertEquals(m, ArduinoMessageTypes.ENCODING.decode(raw));
+    }
+
     @Test
     void updateRequestMessageWorkds() {
 
@@ -61,4 +76,24 @@ public class ArduinoMessageTest {
                 m
         );
     }
+
+    @Test
+    void generatedDistanceDataMatchesComposition() {
+        Assertions.assertSame(DistanceDataMessageType.INSTANCE, ArduinoMessageTypes.DISTANCE_DATA);
+        Assertions.assertEquals(
+                ArduinoMessageTypes.DISTANCE_DATA_ENCODING.numBytes(),
+                DistanceDataMessageType.NUM_BYTES);
+
+        for (DistanceDataMessage m : Arrays.asList(
+                new DistanceDataMessage(0, 0, 0),
+                new DistanceDataMessage(12, 345, 6789),
+                new DistanceDataMessage(1, 32767, 65535))) {
+            byte[] expected = ArduinoMessageTypes.DISTANCE_DATA_ENCODING.encode(m);
+            Assertions.assertArrayEquals(expected, DistanceDataMessageType.INSTANCE.encode(m));
+            Assertions.assertEquals(m, DistanceDataMessageType.INSTANCE.decode(expected));
+            Assertions.assertEquals(
+                    ArduinoMessageTypes.DISTANCE_DATA_ENCODING.decode(expected),
+                    DistanceDataMessageType.INSTANCE.decode(expected));
+        }
+    }
 }
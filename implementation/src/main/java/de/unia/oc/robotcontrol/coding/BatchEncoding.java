@@ -0,0 +1,130 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An encoding which frames several values into one batch, so that
+ * they can be sent in a single transaction.
+ *
+ * The frame starts with the number of entries as a varint
+ * (see {@link VarIntEncoding}). Each entry is the length of the encoded
+ * value as a varint, followed by the bytes of the value as encoded by
+ * the wrapped {@link Encoding}. Because of the length prefix, the wrapped
+ * encoding does not need to be self-delimiting; when wrapping a
+ * {@link de.unia.oc.robotcontrol.message.MessageTypeRegistry}, each entry
+ * thus consists of the message identifier and the message payload.
+ *
+ * @param <T> The type of the single values encoded.
+ */
+public class BatchEncoding<T> implements VariableEncoding<List<T>> {
+
+    /**
+     * The encoding used for encoding and decoding each entry.
+     */
+    private final Encoding<T> entryEncoding;
+
+    /**
+     * Create a new instance of {@link BatchEncoding} which
+     * encodes each entry using the given encoding.
+     *
+     * @param entryEncoding the encoding used to encode/decode the entries
+     */
+    public BatchEncoding(Encoding<T> entryEncoding) {
+        this.entryEncoding = entryEncoding;
+    }
+
+    /**
+     * The number of bytes the given entry uses, without the length prefix.
+     *
+     * @param entry the entry to encode
+     * @return the number of bytes the entry uses
+     */
+    private int entrySize(T entry) {
+        if (entryEncoding instanceof FixedEncoding) {
+            return ((FixedEncoding<T>) entryEncoding).numBytes();
+        }
+        if (entryEncoding instanceof VariableEncoding) {
+            return ((VariableEncoding<T>) entryEncoding).sizeOf(entry);
+        }
+        return entryEncoding.encode(entry).length;
+    }
+
+    @Override
+    public int sizeOf(List<T> object) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        int size = VarIntEncoding.unsignedSize(object.size());
+        for (T entry : object) {
+            int length = entrySize(entry);
+            size += VarIntEncoding.unsignedSize(length) + length;
+        }
+        return size;
+    }
+
+    @Override
+    public void encodeInto(List<T> object, ByteBuffer target) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        VarIntEncoding.putUnsigned(object.size(), target);
+        for (T entry : object) {
+            // reserve a single byte for the length, which suffices for most entries
+            int start = target.position();
+            if (!target.hasRemaining()) {
+                throw new IllegalArgumentException("Not enough space remaining to encode!");
+            }
+            target.position(start + 1);
+            entryEncoding.encodeInto(entry, target);
+            int length = target.position() - start - 1;
+            if (length <= 0x7F) {
+                target.put(start, (byte) length);
+                continue;
+            }
+            // the length needs more bytes; move the entry back to make room
+            byte[] bytes = new byte[length];
+            ByteBuffer written = target.duplicate();
+            written.position(start + 1);
+            written.get(bytes);
+            target.position(start);
+            VarIntEncoding.putUnsigned(length, target);
+            if (target.remaining() < length) {
+                throw new IllegalArgumentException("Not enough space remaining to encode! Expected: " + length);
+            }
+            target.put(bytes);
+        }
+    }
+
+    @Override
+    public @NonNull List<T> decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        int numEntries = VarIntEncoding.getUnsigned(source);
+        // every entry uses at least one byte for its length
+        if (numEntries < 0 || numEntries > source.remaining()) {
+            throw new IllegalArgumentException("Invalid number of entries: " + Integer.toUnsignedString(numEntries));
+        }
+        List<T> result = new ArrayList<>(numEntries);
+        for (int i = 0; i < numEntries; ++i) {
+            int length = VarIntEncoding.getUnsigned(source);
+            if (length < 0 || source.remaining() < length) {
+                throw new IllegalArgumentException("Not enough bytes remaining to decode! Expected: " + Integer.toUnsignedString(length));
+            }
+            int end = source.position() + length;
+            ByteBuffer entry = source.duplicate();
+            entry.limit(end);
+            result.add(entryEncoding.decodeFrom(entry));
+            source.position(end);
+        }
+        return result;
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return entryEncoding.getContext();
+    }
+
+    @Override
+    public BatchEncoding<T> withContext(CodingContext context) {
+        return new BatchEncoding<>(entryEncoding.withContext(context));
+    }
+}
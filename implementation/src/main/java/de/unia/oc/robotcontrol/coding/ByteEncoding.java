@@ -31,4 +31,14 @@ public class ByteEncoding extends SingleValueEncoding<Byte> {
     public int numBytes() {
         return 1;
     }
+
+    @Override
+    protected long toBits(Byte object) {
+        return (long) object;
+    }
+
+    @Override
+    protected Byte fromBits(long bits) {
+        return (byte) bits;
+    }
 }
@@ -36,4 +36,14 @@ public class CharEncoding extends SingleValueEncoding<Character> {
     public int numBytes() {
         return getContext().getCharSize();
     }
+
+    @Override
+    protected long toBits(Character object) {
+        return (long) object;
+    }
+
+    @Override
+    protected Character fromBits(long bits) {
+        return (char) bits;
+    }
 }
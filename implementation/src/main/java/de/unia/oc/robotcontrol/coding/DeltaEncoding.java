@@ -0,0 +1,252 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import de.unia.oc.robotcontrol.util.Bijection;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A stateful encoding for a fixed number of numeric values which usually
+ * change only slightly between consecutive values, such as sensor readings.
+ *
+ * Every value is written as a frame which starts with a header byte. The
+ * highest bit of the header is set for keyframes, the lower seven bits hold
+ * a sequence number. Keyframes contain the complete value as encoded by
+ * the wrapped {@link FixedEncoding}, while other frames only contain the
+ * difference of each element to the previous value as zigzag varints
+ * (see {@link VarIntEncoding}). A keyframe is written for the first value,
+ * then after every {@code keyframeInterval} frames, and whenever
+ * {@link #requestKeyframe()} was called.
+ *
+ * When decoding, a frame which does not directly follow the previously
+ * decoded one means that a frame was lost. Decoding this frame and all
+ * following delta frames fails with an {@link IllegalArgumentException}
+ * (consuming their bytes) until the next keyframe is received.
+ *
+ * Encoding and decoding keep separate state, so one instance can be
+ * used for both directions.
+ *
+ * @param <T> the type of value encoded
+ */
+public class DeltaEncoding<T> implements VariableEncoding<T> {
+
+    /**
+     * Bit of the header byte which marks keyframes.
+     */
+    private static final int KEYFRAME_FLAG = 0x80;
+
+    /**
+     * Mask for the sequence number in the header byte.
+     */
+    private static final int SEQUENCE_MASK = 0x7F;
+
+    /**
+     * The encoding used for keyframes.
+     */
+    private final FixedEncoding<T> keyframeEncoding;
+
+    /**
+     * Converts values to and from their numeric elements.
+     */
+    private final Bijection<T, int[]> elements;
+
+    /**
+     * The number of elements each value has.
+     */
+    private final int numElements;
+
+    /**
+     * The maximum number of frames between two keyframes.
+     */
+    private final int keyframeInterval;
+
+    /**
+     * Used for computing the differences of the delta frames.
+     */
+    private final VarIntEncoding deltaEncoding;
+
+    /**
+     * The elements of the last encoded value, or null
+     * if the next frame has to be a keyframe.
+     */
+    private int @Nullable [] lastEncoded;
+
+    /**
+     * The sequence number of the last encoded frame.
+     */
+    private int encodedSequence;
+
+    /**
+     * The number of frames written since the last keyframe.
+     */
+    private int framesSinceKeyframe;
+
+    /**
+     * The elements of the last decoded value, or null
+     * if decoding has to wait for the next keyframe.
+     */
+    private int @Nullable [] lastDecoded;
+
+    /**
+     * The sequence number of the last decoded frame.
+     */
+    private int decodedSequence;
+
+    /**
+     * Create a new instance of {@link DeltaEncoding}.
+     *
+     * @param keyframeEncoding the encoding used for writing complete values
+     * @param elements bijection which converts values to and from their elements
+     * @param numElements the number of elements each value has
+     * @param keyframeInterval the maximum number of frames between keyframes
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public DeltaEncoding(FixedEncoding<T> keyframeEncoding,
+                         Bijection<T, int[]> elements,
+                         int numElements,
+                         int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval has to be positive!");
+        }
+        this.keyframeEncoding = keyframeEncoding;
+        this.elements = elements;
+        this.numElements = numElements;
+        this.keyframeInterval = keyframeInterval;
+        this.deltaEncoding = VarIntEncoding.zigZag(keyframeEncoding.getContext());
+    }
+
+    /**
+     * Create a new instance of {@link DeltaEncoding} for
+     * integer arrays, using the given encoding for keyframes.
+     *
+     * @param keyframeEncoding the encoding used for writing complete values
+     * @param numElements the number of elements each value has
+     * @param keyframeInterval the maximum number of frames between keyframes
+     * @return a new instance of {@link DeltaEncoding}
+     */
+    public static DeltaEncoding<int[]> ofInts(FixedEncoding<int[]> keyframeEncoding,
+                                              int numElements,
+                                              int keyframeInterval) {
+        return new DeltaEncoding<>(keyframeEncoding, Bijection.identity(), numElements, keyframeInterval);
+    }
+
+    /**
+     * Make the next encoded frame a keyframe, for example
+     * because the receiver might have missed a frame.
+     */
+    public synchronized void requestKeyframe() {
+        lastEncoded = null;
+    }
+
+    private int[] elementsOf(T object) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        int[] values = elements.encode(object);
+        if (values.length != numElements) {
+            throw new IllegalArgumentException("Array is too large or too small! Expected size: " + numElements);
+        }
+        return values;
+    }
+
+    private boolean nextIsKeyframe() {
+        return lastEncoded == null || framesSinceKeyframe >= keyframeInterval - 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The size depends on whether the next encoded frame
+     * will be a keyframe.
+     */
+    @Override
+    public synchronized int sizeOf(T object) throws IllegalArgumentException {
+        int[] values = elementsOf(object);
+        int[] previous = lastEncoded;
+        if (previous == null || nextIsKeyframe()) {
+            return 1 + keyframeEncoding.numBytes();
+        }
+        int size = 1;
+        for (int i = 0; i < numElements; ++i) {
+            size += deltaEncoding.sizeOfInt(values[i] - previous[i]);
+        }
+        return size;
+    }
+
+    @Override
+    public synchronized byte[] encode(T object) throws IllegalArgumentException {
+        byte[] result = new byte[sizeOf(object)];
+        encodeInto(object, ByteBuffer.wrap(result));
+        return result;
+    }
+
+    @Override
+    public synchronized void encodeInto(T object, ByteBuffer target) throws IllegalArgumentException {
+        int[] values = elementsOf(object);
+        int[] previous = lastEncoded;
+        int sequence = (encodedSequence + 1) & SEQUENCE_MASK;
+        if (previous == null || nextIsKeyframe()) {
+            target.put((byte) (KEYFRAME_FLAG | sequence));
+            keyframeEncoding.encodeInto(object, target);
+            framesSinceKeyframe = 0;
+        } else {
+            target.put((byte) sequence);
+            for (int i = 0; i < numElements; ++i) {
+                deltaEncoding.encodeInt(values[i] - previous[i], target);
+            }
+            ++framesSinceKeyframe;
+        }
+        lastEncoded = values.clone();
+        encodedSequence = sequence;
+    }
+
+    @Override
+    public synchronized @NonNull T decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        if (!source.hasRemaining()) {
+            throw new IllegalArgumentException("Not enough bytes remaining to decode! Expected: 1");
+        }
+        int header = source.get() & 0xFF;
+        int sequence = header & SEQUENCE_MASK;
+
+        if ((header & KEYFRAME_FLAG) != 0) {
+            T result = keyframeEncoding.decodeFrom(source);
+            lastDecoded = elementsOf(result).clone();
+            decodedSequence = sequence;
+            return result;
+        }
+
+        int[] values = new int[numElements];
+        for (int i = 0; i < numElements; ++i) {
+            values[i] = deltaEncoding.decodeInt(source);
+        }
+        int[] previous = lastDecoded;
+        if (previous == null || sequence != ((decodedSequence + 1) & SEQUENCE_MASK)) {
+            lastDecoded = null;
+            throw new IllegalArgumentException("Missed a frame, waiting for the next keyframe!");
+        }
+        for (int i = 0; i < numElements; ++i) {
+            values[i] += previous[i];
+        }
+        lastDecoded = values;
+        decodedSequence = sequence;
+        return elements.decode(values.clone());
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return keyframeEncoding.getContext();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned encoding starts with a fresh state.
+     *
+     * @param context The coding context that has to be set
+     * @return a new instance of {@link DeltaEncoding}
+     */
+    @Override
+    public DeltaEncoding<T> withContext(CodingContext context) {
+        return new DeltaEncoding<>(keyframeEncoding.withContext(context), elements, numElements, keyframeInterval);
+    }
+}
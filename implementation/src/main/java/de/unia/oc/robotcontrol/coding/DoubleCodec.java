@@ -0,0 +1,85 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a single double-precision floating point number with the
+ * double size of the {@link CodingContext} without boxing it,
+ * using {@link #encodeDouble(double, ByteBuffer)} and {@link #decodeDouble(ByteBuffer)}.
+ *
+ * If the context defines doubles as four bytes wide (as on an arduino,
+ * where a double is a single-precision float), values are converted
+ * to and from {@code float} and encoded in the IEEE 754 single format.
+ * This differs from {@link DoubleEncoding}, which cuts off the bytes
+ * of the double-precision representation instead.
+ */
+public class DoubleCodec extends PrimitiveCodec<Double> {
+
+    public DoubleCodec(CodingContext context) {
+        super(context);
+    }
+
+    @Override
+    public int numBytes() {
+        return getContext().getDoubleSize();
+    }
+
+    /**
+     * Encode the given value into the given buffer.
+     *
+     * @param value the value to encode
+     * @param target the buffer to write to
+     * @throws IllegalArgumentException if the context defines a double size
+     * other than four or eight bytes
+     */
+    public void encodeDouble(double value, ByteBuffer target) throws IllegalArgumentException {
+        switch (numBytes()) {
+            case Float.BYTES:
+                putBits(Float.floatToRawIntBits((float) value), target);
+                break;
+            case Double.BYTES:
+                putBits(Double.doubleToRawLongBits(value), target);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported double size: " + numBytes());
+        }
+    }
+
+    /**
+     * Decode a value from the given buffer.
+     *
+     * @param source the buffer to read from
+     * @return the decoded value
+     * @throws IllegalArgumentException if there are not enough bytes remaining, or
+     * the context defines a double size other than four or eight bytes
+     */
+    public double decodeDouble(ByteBuffer source) throws IllegalArgumentException {
+        switch (numBytes()) {
+            case Float.BYTES:
+                return Float.intBitsToFloat((int) getBits(source));
+            case Double.BYTES:
+                return Double.longBitsToDouble(getBits(source));
+            default:
+                throw new IllegalArgumentException("Unsupported double size: " + numBytes());
+        }
+    }
+
+    @Override
+    public void encodeInto(Double object, ByteBuffer target) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        encodeDouble(object, target);
+    }
+
+    @Override
+    public @NonNull Double decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        return decodeDouble(source);
+    }
+
+    @Override
+    public DoubleCodec withContext(CodingContext context) {
+        return new DoubleCodec(context);
+    }
+}
@@ -31,4 +31,14 @@ public class DoubleEncoding extends SingleValueEncoding<Double> {
     public @Positive int numBytes() {
         return getContext().getDoubleSize();
     }
+
+    @Override
+    protected long toBits(@NonNull Double object) {
+        return Double.doubleToRawLongBits(object);
+    }
+
+    @Override
+    protected Double fromBits(long bits) {
+        return Double.longBitsToDouble(bits);
+    }
 }
@@ -37,6 +37,24 @@ public final class Encodings {
         return bottom.stack(top);
     }
 
+    /**
+     * Stack a {@link Bijection} on top of the given fixed encoding,
+     * creating a new {@link FixedEncoding} with the same number of bytes.
+     *
+     * Mirror of {@link FixedEncoding#stack(Bijection)}.
+     *
+     * @param bottom the encoding to modify
+     * @param top the bijection to use to transform the decoded values
+     * @param <F> the type of the values encoded by the original encoding
+     * @param <R> the type of the values encoded by the new encoding
+     * @return a new instance of {@link FixedEncoding}
+     */
+    public static <F, R> FixedEncoding<R> stack(
+            FixedEncoding<F> bottom,
+            Bijection<R, F> top) {
+        return bottom.stack(top);
+    }
+
     /**
      * Join the two given {@link FixedEncoding} instances together
      * by appending them to each other, creating a {@link FixedEncoding}
@@ -31,4 +31,14 @@ public class FloatEncoding extends SingleValueEncoding<Float> {
     public @Positive int numBytes() {
         return getContext().getFloatSize();
     }
+
+    @Override
+    protected long toBits(@NonNull Float object) {
+        return Float.floatToRawIntBits(object) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    protected Float fromBits(long bits) {
+        return Float.intBitsToFloat((int) bits);
+    }
 }
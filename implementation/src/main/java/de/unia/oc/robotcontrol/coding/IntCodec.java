@@ -0,0 +1,93 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a single integer with the integer size of the {@link CodingContext}
+ * (for example, two bytes on an arduino) without boxing it,
+ * using {@link #encodeInt(int, ByteBuffer)} and {@link #decodeInt(ByteBuffer)}.
+ *
+ * Produces the same bytes as {@link IntegerEncoding}. By default, values
+ * narrower than a java int are zero-extended when decoding, like in
+ * {@link IntegerEncoding}; use {@link #signed(CodingContext)} to
+ * sign-extend them instead.
+ */
+public class IntCodec extends PrimitiveCodec<Integer> {
+
+    /**
+     * Whether decoded values narrower than a java int are sign-extended.
+     */
+    private final boolean signed;
+
+    public IntCodec(CodingContext context) {
+        this(context, false);
+    }
+
+    /**
+     * Create a new instance of {@link IntCodec}.
+     *
+     * @param context the context to encode values in
+     * @param signed whether to sign-extend decoded values narrower than a java int
+     */
+    public IntCodec(CodingContext context, boolean signed) {
+        super(context);
+        this.signed = signed;
+    }
+
+    /**
+     * Create a new instance of {@link IntCodec} which sign-extends decoded values.
+     *
+     * @param context the context to encode values in
+     * @return a new instance of {@link IntCodec}
+     */
+    public static IntCodec signed(CodingContext context) {
+        return new IntCodec(context, true);
+    }
+
+    @Override
+    public int numBytes() {
+        return getContext().getIntSize();
+    }
+
+    /**
+     * Encode the given value into the given buffer.
+     *
+     * @param value the value to encode
+     * @param target the buffer to write to
+     */
+    public void encodeInt(int value, ByteBuffer target) {
+        putBits(value, target);
+    }
+
+    /**
+     * Decode a value from the given buffer.
+     *
+     * @param source the buffer to read from
+     * @return the decoded value
+     * @throws IllegalArgumentException if there are not enough bytes remaining
+     */
+    public int decodeInt(ByteBuffer source) throws IllegalArgumentException {
+        int bits = (int) getBits(source);
+        int shift = Integer.SIZE - numBytes() * Byte.SIZE;
+        return signed && shift > 0 ? (bits << shift) >> shift : bits;
+    }
+
+    @Override
+    public void encodeInto(Integer object, ByteBuffer target) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        encodeInt(object, target);
+    }
+
+    @Override
+    public @NonNull Integer decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        return decodeInt(source);
+    }
+
+    @Override
+    public IntCodec withContext(CodingContext context) {
+        return new IntCodec(context, signed);
+    }
+}
@@ -0,0 +1,116 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An encoding for a fixed number of integers, which encodes
+ * and decodes them as an {@code int[]} instead of a {@link java.util.List},
+ * avoiding boxing of the single values.
+ *
+ * Uses an {@link IntCodec} to encode and decode each single value,
+ * and produces the same bytes as a {@link ListEncoding} of
+ * {@link IntegerEncoding}.
+ */
+public class IntListEncoding implements FixedEncoding<int[]> {
+
+    /**
+     * The {@link IntCodec} instance used for
+     * encoding and decoding each element.
+     */
+    private final IntCodec singleEncoding;
+
+    /**
+     * The fixed number of elements
+     * the array is asserted to have.
+     */
+    private final int numElements;
+
+    /**
+     * Create a new Instance of {@link IntListEncoding} which
+     * uses the given codec a fixed number of times.
+     *
+     * @param singleEncoding the codec used to encode/decode the elements
+     * @param numElements the number of elements which will be in the array
+     */
+    public IntListEncoding(IntCodec singleEncoding, int numElements) {
+        this.singleEncoding = singleEncoding;
+        this.numElements = numElements;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the overall number of bytes required by this encoding, that is,
+     * of the complete array
+     */
+    @Override
+    public int numBytes() {
+        return numElements * singleEncoding.numBytes();
+    }
+
+    @Override
+    public int[] decode(byte[] raw) {
+        return decodeFrom(ByteBuffer.wrap(raw));
+    }
+
+    @Override
+    public byte[] encode(int[] values) throws IllegalArgumentException {
+        byte[] result = new byte[numBytes()];
+        encodeInto(values, ByteBuffer.wrap(result));
+        return result;
+    }
+
+    @Override
+    public int[] decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        int[] result = new int[numElements];
+        decodeInto(source, result);
+        return result;
+    }
+
+    /**
+     * Decodes the elements from the given buffer into an existing array,
+     * so that arrays can be reused between calls.
+     *
+     * @param source the buffer to read from
+     * @param target the array to write the decoded elements to
+     * @throws IllegalArgumentException if the array does not have exactly
+     * the expected number of elements
+     */
+    public void decodeInto(ByteBuffer source, int[] target) throws IllegalArgumentException {
+        if (target.length != this.numElements) {
+            throw new IllegalArgumentException("Array is too large or too small! Expected size: " + this.numElements);
+        }
+        for (int i = 0; i < this.numElements; ++i) {
+            target[i] = singleEncoding.decodeInt(source);
+        }
+    }
+
+    @Override
+    public void encodeInto(int[] values, ByteBuffer target) throws IllegalArgumentException {
+        if (values.length != this.numElements) {
+            throw new IllegalArgumentException("Array is too large or too small! Expected size: " + this.numElements);
+        }
+        for (int value : values) {
+            singleEncoding.encodeInt(value, target);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The {@link CodingContext} is the same as the one used
+     * by the codec for the single values.
+     *
+     * @return the coding context this encoding uses
+     */
+    @Override
+    public CodingContext getContext() {
+        return singleEncoding.getContext();
+    }
+
+    @Override
+    public IntListEncoding withContext(CodingContext context) {
+        return new IntListEncoding(singleEncoding.withContext(context), numElements);
+    }
+}
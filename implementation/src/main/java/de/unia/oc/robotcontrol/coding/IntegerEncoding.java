@@ -37,4 +37,13 @@ public class IntegerEncoding extends SingleValueEncoding<Integer> {
         return buffer.getInt();
     }
 
+    @Override
+    protected long toBits(Integer object) {
+        return (long) object;
+    }
+
+    @Override
+    protected Integer fromBits(long bits) {
+        return (int) bits;
+    }
 }
@@ -0,0 +1,97 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An encoding for a list of values with a variable length.
+ *
+ * The number of elements is written first as a varint
+ * (see {@link VarIntEncoding}), followed by the bytes of
+ * each element, which are encoded using an existing
+ * {@link VariableEncoding}. Use {@link VariableEncoding#fromFixed(FixedEncoding)}
+ * to encode the elements with a {@link FixedEncoding}.
+ *
+ * @param <T> The type of the single values encoded.
+ */
+public class LengthPrefixedListEncoding<T> implements VariableEncoding<List<T>> {
+
+    /**
+     * The {@link VariableEncoding} instance used for
+     * encoding and decoding each element.
+     */
+    private final VariableEncoding<T> singleEncoding;
+
+    /**
+     * The maximum number of elements a decoded list may have.
+     * Guards against allocating huge lists from corrupted bytes.
+     */
+    private final int maxElements;
+
+    public LengthPrefixedListEncoding(VariableEncoding<T> singleEncoding) {
+        this(singleEncoding, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a new Instance of {@link LengthPrefixedListEncoding} by wrapping
+     * an existing encoding for a single element.
+     *
+     * @param singleEncoding the encoding used to encode/decode the elements
+     *                       of the list
+     * @param maxElements the maximum number of elements a list may have
+     */
+    public LengthPrefixedListEncoding(VariableEncoding<T> singleEncoding, int maxElements) {
+        this.singleEncoding = singleEncoding;
+        this.maxElements = maxElements;
+    }
+
+    @Override
+    public int sizeOf(List<T> object) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        int size = VarIntEncoding.unsignedSize(object.size());
+        for (T element : object) {
+            size += singleEncoding.sizeOf(element);
+        }
+        return size;
+    }
+
+    @Override
+    public void encodeInto(List<T> object, ByteBuffer target) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        if (object.size() > maxElements) {
+            throw new IllegalArgumentException("List has too many elements! Maximum: " + maxElements);
+        }
+        VarIntEncoding.putUnsigned(object.size(), target);
+        for (T element : object) {
+            singleEncoding.encodeInto(element, target);
+        }
+    }
+
+    @Override
+    public @NonNull List<T> decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        int numElements = VarIntEncoding.getUnsigned(source);
+        // every element uses at least one byte
+        if (numElements < 0 || numElements > maxElements || numElements > source.remaining()) {
+            throw new IllegalArgumentException("Invalid number of list elements: " + Integer.toUnsignedString(numElements));
+        }
+        List<T> result = new ArrayList<>(numElements);
+        for (int i = 0; i < numElements; ++i) {
+            result.add(singleEncoding.decodeFrom(source));
+        }
+        return result;
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return singleEncoding.getContext();
+    }
+
+    @Override
+    public LengthPrefixedListEncoding<T> withContext(CodingContext context) {
+        return new LengthPrefixedListEncoding<>(singleEncoding.withContext(context), maxElements);
+    }
+}
@@ -1,8 +1,8 @@
 /* %FILE_TEMPLATE_TEXT% */
 package de.unia.oc.robotcontrol.coding;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -61,29 +61,53 @@ public class ListEncoding<T> implements FixedEncoding<List<T>> {
 
     @Override
     public List<T> decode(byte[] raw) {
-        int singleBytes = singleEncoding.numBytes();
-        List<T> result = new ArrayList<>(this.numElements);
+        return decodeFrom(ByteBuffer.wrap(raw));
+    }
 
+    @Override
+    public byte[] encode(List<T> list) throws IllegalArgumentException {
+        byte[] result = new byte[numBytes()];
+        encodeInto(list, ByteBuffer.wrap(result));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Decodes each element directly from the given buffer
+     * using the encoding for the single elements.
+     *
+     * @param source The buffer to read the bytes from
+     * @return a new list containing the decoded elements
+     */
+    @Override
+    public List<T> decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        List<T> result = new ArrayList<>(this.numElements);
         for (int i = 0; i < this.numElements; ++i) {
-            int idx = i * singleBytes;
-            byte[] elemBytes = Arrays.copyOfRange(raw, idx, idx + singleBytes);
-            result.add(singleEncoding.decode(elemBytes));
+            result.add(singleEncoding.decodeFrom(source));
         }
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Encodes each element directly into the given buffer
+     * using the encoding for the single elements.
+     *
+     * @param list the list to encode
+     * @param target The buffer to write the encoded bytes to
+     * @throws IllegalArgumentException if the list does not have
+     * exactly the expected number of elements
+     */
     @Override
-    public byte[] encode(List<T> list) throws IllegalArgumentException {
+    public void encodeInto(List<T> list, ByteBuffer target) throws IllegalArgumentException {
         if (list.size() != this.numElements) {
             throw new IllegalArgumentException("List is too large or too small! Expected size: " + this.numElements);
         }
-        int singleBytes = singleEncoding.numBytes();
-        byte[] result = new byte[list.size() * singleBytes];
         for (int i = 0; i < list.size(); ++i) {
-            byte[] single = singleEncoding.encode(list.get(i));
-            System.arraycopy(single, 0, result, i * singleBytes, singleBytes);
+            singleEncoding.encodeInto(list.get(i), target);
         }
-        return result;
     }
 
     /**
@@ -0,0 +1,93 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a single long integer with the long size of the {@link CodingContext}
+ * (for example, four bytes on an arduino) without boxing it,
+ * using {@link #encodeLong(long, ByteBuffer)} and {@link #decodeLong(ByteBuffer)}.
+ *
+ * Produces the same bytes as {@link LongEncoding}. By default, values
+ * narrower than a java long are zero-extended when decoding, like in
+ * {@link LongEncoding}; use {@link #signed(CodingContext)} to
+ * sign-extend them instead.
+ */
+public class LongCodec extends PrimitiveCodec<Long> {
+
+    /**
+     * Whether decoded values narrower than a java long are sign-extended.
+     */
+    private final boolean signed;
+
+    public LongCodec(CodingContext context) {
+        this(context, false);
+    }
+
+    /**
+     * Create a new instance of {@link LongCodec}.
+     *
+     * @param context the context to encode values in
+     * @param signed whether to sign-extend decoded values narrower than a java long
+     */
+    public LongCodec(CodingContext context, boolean signed) {
+        super(context);
+        this.signed = signed;
+    }
+
+    /**
+     * Create a new instance of {@link LongCodec} which sign-extends decoded values.
+     *
+     * @param context the context to encode values in
+     * @return a new instance of {@link LongCodec}
+     */
+    public static LongCodec signed(CodingContext context) {
+        return new LongCodec(context, true);
+    }
+
+    @Override
+    public int numBytes() {
+        return getContext().getLongSize();
+    }
+
+    /**
+     * Encode the given value into the given buffer.
+     *
+     * @param value the value to encode
+     * @param target the buffer to write to
+     */
+    public void encodeLong(long value, ByteBuffer target) {
+        putBits(value, target);
+    }
+
+    /**
+     * Decode a value from the given buffer.
+     *
+     * @param source the buffer to read from
+     * @return the decoded value
+     * @throws IllegalArgumentException if there are not enough bytes remaining
+     */
+    public long decodeLong(ByteBuffer source) throws IllegalArgumentException {
+        long bits = getBits(source);
+        int shift = Long.SIZE - numBytes() * Byte.SIZE;
+        return signed && shift > 0 ? (bits << shift) >> shift : bits;
+    }
+
+    @Override
+    public void encodeInto(Long object, ByteBuffer target) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        encodeLong(object, target);
+    }
+
+    @Override
+    public @NonNull Long decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        return decodeLong(source);
+    }
+
+    @Override
+    public LongCodec withContext(CodingContext context) {
+        return new LongCodec(context, signed);
+    }
+}
@@ -11,6 +11,14 @@ import java.nio.ByteBuffer;
  */
 public class LongEncoding extends SingleValueEncoding<Long> {
 
+    public LongEncoding() {
+        super();
+    }
+
+    public LongEncoding(CodingContext context) {
+        super(context);
+    }
+
     @Override
     protected @Positive int nativeByteCount() {
         return CodingContext.NATIVE.getLongSize();
@@ -30,4 +38,14 @@ public class LongEncoding extends SingleValueEncoding<Long> {
     public @Positive int numBytes() {
         return getContext().getLongSize();
     }
+
+    @Override
+    protected long toBits(Long object) {
+        return object;
+    }
+
+    @Override
+    protected Long fromBits(long bits) {
+        return bits;
+    }
 }
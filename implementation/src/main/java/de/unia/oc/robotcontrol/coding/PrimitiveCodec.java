@@ -0,0 +1,84 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base class for encodings of a single primitive value, which
+ * are written to and read from buffers directly using shifts,
+ * in the byte order and with the width defined by the {@link CodingContext}.
+ *
+ * Subclasses provide methods for encoding and decoding the primitive
+ * value without boxing it; the methods of {@link Encoding}
+ * are implemented as adapters to those.
+ *
+ * @param <T> The boxed type of the primitive value encoded
+ */
+public abstract class PrimitiveCodec<T> implements FixedEncoding<T> {
+
+    /**
+     * The CodingContext used for this Encoding.
+     */
+    private final CodingContext context;
+
+    public PrimitiveCodec(CodingContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return context;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Creates a new instance of this codec which
+     * encodes values using the given context.
+     *
+     * @param context The coding context that has to be set
+     * @return a new instance of {@link PrimitiveCodec}
+     */
+    @Override
+    public abstract PrimitiveCodec<T> withContext(CodingContext context);
+
+    @Override
+    public byte[] encode(T object) throws IllegalArgumentException {
+        byte[] result = new byte[numBytes()];
+        encodeInto(object, ByteBuffer.wrap(result));
+        return result;
+    }
+
+    @Override
+    public @NonNull T decode(byte[] raw) throws IllegalArgumentException {
+        if (raw == null) { throw new IllegalArgumentException("Passed bytes were null!"); }
+        return decodeFrom(ByteBuffer.wrap(raw));
+    }
+
+    /**
+     * Writes the lowest {@link #numBytes()} bytes of the given bits
+     * in the byte order of the {@link CodingContext}.
+     *
+     * @param bits the bits to write
+     * @param target the buffer to write to
+     */
+    protected void putBits(long bits, ByteBuffer target) {
+        CodingUtil.putBits(target, bits, numBytes(), getContext().getByteOrder());
+    }
+
+    /**
+     * Reads {@link #numBytes()} bytes in the byte order of the {@link CodingContext}.
+     *
+     * @param source the buffer to read from
+     * @return the read bytes as the lowest bytes of a long (without sign extension)
+     * @throws IllegalArgumentException if there are not enough bytes remaining
+     */
+    protected long getBits(ByteBuffer source) throws IllegalArgumentException {
+        if (source.remaining() < numBytes()) {
+            throw new IllegalArgumentException("Not enough bytes remaining to decode! Expected: " + numBytes());
+        }
+        return CodingUtil.getBits(source, numBytes(), getContext().getByteOrder());
+    }
+}
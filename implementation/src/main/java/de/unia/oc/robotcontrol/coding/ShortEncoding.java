@@ -33,4 +33,14 @@ public class ShortEncoding extends SingleValueEncoding<Short> {
     public @Positive int numBytes() {
         return getContext().getShortSize();
     }
+
+    @Override
+    protected long toBits(@NonNull Short object) {
+        return (long) object;
+    }
+
+    @Override
+    protected Short fromBits(long bits) {
+        return (short) bits;
+    }
 }
@@ -0,0 +1,80 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes a string as the number of bytes in the given charset
+ * (written as a varint, see {@link VarIntEncoding}), followed by
+ * the bytes of the string in that charset.
+ */
+public class StringEncoding implements VariableEncoding<String> {
+
+    /**
+     * The CodingContext used for this Encoding.
+     */
+    private final CodingContext context;
+
+    /**
+     * The charset used to convert strings to bytes and vice versa.
+     */
+    private final Charset charset;
+
+    public StringEncoding(CodingContext context) {
+        this(context, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Create a new instance of {@link StringEncoding}.
+     *
+     * @param context the context to encode values in
+     * @param charset the charset to encode the string with
+     */
+    public StringEncoding(CodingContext context, Charset charset) {
+        this.context = context;
+        this.charset = charset;
+    }
+
+    @Override
+    public int sizeOf(String object) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        int length = object.getBytes(charset).length;
+        return VarIntEncoding.unsignedSize(length) + length;
+    }
+
+    @Override
+    public void encodeInto(String object, ByteBuffer target) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        byte[] bytes = object.getBytes(charset);
+        VarIntEncoding.putUnsigned(bytes.length, target);
+        if (target.remaining() < bytes.length) {
+            throw new IllegalArgumentException("Not enough space remaining to encode! Expected: " + bytes.length);
+        }
+        target.put(bytes);
+    }
+
+    @Override
+    public @NonNull String decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        int length = VarIntEncoding.getUnsigned(source);
+        if (length < 0 || source.remaining() < length) {
+            throw new IllegalArgumentException("Not enough bytes remaining to decode! Expected: " + Integer.toUnsignedString(length));
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, charset);
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return context;
+    }
+
+    @Override
+    public StringEncoding withContext(CodingContext context) {
+        return new StringEncoding(context, charset);
+    }
+}
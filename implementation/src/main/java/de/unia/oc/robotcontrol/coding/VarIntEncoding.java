@@ -0,0 +1,193 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.coding;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a single integer as a varint (LEB128), that is,
+ * seven bits per byte starting with the least significant bits,
+ * with the highest bit of each byte set if another byte follows.
+ * Values below 128 thus only use a single byte, but negative
+ * values always use five bytes, unless the zigzag encoding
+ * ({@link #zigZag(CodingContext)}) is used, which maps values
+ * of small magnitude to small unsigned values
+ * {@code (0, -1, 1, -2, ...) -> (0, 1, 2, 3, ...)}.
+ *
+ * The encoded bytes do not depend on the byte order
+ * of the {@link CodingContext}. Values can be encoded without
+ * boxing using {@link #encodeInt(int, ByteBuffer)} and
+ * {@link #decodeInt(ByteBuffer)}.
+ */
+public class VarIntEncoding implements VariableEncoding<Integer> {
+
+    /**
+     * The maximum number of bytes a single varint uses.
+     */
+    public static final int MAX_BYTES = 5;
+
+    /**
+     * The CodingContext used for this Encoding.
+     */
+    private final CodingContext context;
+
+    /**
+     * Whether values are zigzag-encoded before writing them.
+     */
+    private final boolean zigZag;
+
+    public VarIntEncoding(CodingContext context) {
+        this(context, false);
+    }
+
+    /**
+     * Create a new instance of {@link VarIntEncoding}.
+     *
+     * @param context the context to encode values in
+     * @param zigZag whether to zigzag-encode values, so that
+     *               negative values of small magnitude use few bytes
+     */
+    public VarIntEncoding(CodingContext context, boolean zigZag) {
+        this.context = context;
+        this.zigZag = zigZag;
+    }
+
+    /**
+     * Create a new instance of {@link VarIntEncoding} which
+     * zigzag-encodes values.
+     *
+     * @param context the context to encode values in
+     * @return a new instance of {@link VarIntEncoding}
+     */
+    public static VarIntEncoding zigZag(CodingContext context) {
+        return new VarIntEncoding(context, true);
+    }
+
+    /**
+     * The number of bytes the given unsigned varint uses.
+     *
+     * @param bits the (already zigzag-encoded) value
+     * @return the number of bytes required, between 1 and {@link #MAX_BYTES}
+     */
+    static int unsignedSize(int bits) {
+        int size = 1;
+        while ((bits & ~0x7F) != 0) {
+            bits >>>= 7;
+            ++size;
+        }
+        return size;
+    }
+
+    /**
+     * Write the given value as an unsigned varint.
+     *
+     * @param bits the value to write
+     * @param target the buffer to write to
+     * @throws IllegalArgumentException if the buffer has not enough space remaining
+     */
+    static void putUnsigned(int bits, ByteBuffer target) throws IllegalArgumentException {
+        if (target.remaining() < unsignedSize(bits)) {
+            throw new IllegalArgumentException("Not enough space remaining to encode! Expected: " + unsignedSize(bits));
+        }
+        while ((bits & ~0x7F) != 0) {
+            target.put((byte) ((bits & 0x7F) | 0x80));
+            bits >>>= 7;
+        }
+        target.put((byte) bits);
+    }
+
+    /**
+     * Read an unsigned varint.
+     *
+     * @param source the buffer to read from
+     * @return the value read
+     * @throws IllegalArgumentException if the buffer ends before the varint does,
+     * if the varint is longer than {@link #MAX_BYTES}, or if its value does not fit into an int
+     */
+    static int getUnsigned(ByteBuffer source) throws IllegalArgumentException {
+        int result = 0;
+        for (int shift = 0; shift < MAX_BYTES * 7; shift += 7) {
+            if (!source.hasRemaining()) {
+                throw new IllegalArgumentException("Not enough bytes remaining to decode varint!");
+            }
+            byte b = source.get();
+            // only the lowest four bits of the last byte fit into an int
+            if (shift == (MAX_BYTES - 1) * 7 && (b & 0x70) != 0) {
+                throw new IllegalArgumentException("Varint does not fit into an int!");
+            }
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Varint is longer than " + MAX_BYTES + " bytes!");
+    }
+
+    private int toBits(int value) {
+        return zigZag ? (value << 1) ^ (value >> 31) : value;
+    }
+
+    private int fromBits(int bits) {
+        return zigZag ? (bits >>> 1) ^ -(bits & 1) : bits;
+    }
+
+    /**
+     * The number of bytes the given value uses when encoded.
+     *
+     * @param value the value to encode
+     * @return the number of bytes required, between 1 and {@link #MAX_BYTES}
+     */
+    public int sizeOfInt(int value) {
+        return unsignedSize(toBits(value));
+    }
+
+    /**
+     * Encode the given value into the given buffer.
+     *
+     * @param value the value to encode
+     * @param target the buffer to write to
+     * @throws IllegalArgumentException if the buffer has not enough space remaining
+     */
+    public void encodeInt(int value, ByteBuffer target) throws IllegalArgumentException {
+        putUnsigned(toBits(value), target);
+    }
+
+    /**
+     * Decode a value from the given buffer.
+     *
+     * @param source the buffer to read from
+     * @return the decoded value
+     * @throws IllegalArgumentException if the bytes do not form a valid varint
+     */
+    public int decodeInt(ByteBuffer source) throws IllegalArgumentException {
+        return fromBits(getUnsigned(source));
+    }
+
+    @Override
+    public int sizeOf(Integer object) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        return sizeOfInt(object);
+    }
+
+    @Override
+    public void encodeInto(Integer object, ByteBuffer target) throws IllegalArgumentException {
+        if (object == null) { throw new IllegalArgumentException("Passed object was null!"); }
+        encodeInt(object, target);
+    }
+
+    @Override
+    public @NonNull Integer decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        return decodeInt(source);
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return context;
+    }
+
+    @Override
+    public VarIntEncoding withContext(CodingContext context) {
+        return new VarIntEncoding(context, zigZag);
+    }
+}
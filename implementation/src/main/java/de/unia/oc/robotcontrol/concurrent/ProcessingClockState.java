@@ -7,6 +7,7 @@ import de.unia.oc.robotcontrol.flow.Flowable;
 import de.unia.oc.robotcontrol.flow.strategy.FlatteningFlowStrategy;
 import de.unia.oc.robotcontrol.flow.strategy.MappingFlowStrategy;
 import de.unia.oc.robotcontrol.flow.strategy.TimedFlowStrategy;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.reactivestreams.Processor;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.EmitterProcessor;
@@ -52,8 +53,23 @@ public class ProcessingClockState<T extends Object, R extends Object>
      * @param mergingFunction the function used to combine a tick emitted by the Clock with
      *                        the last value from the {@link Clockable} {@link org.reactivestreams.Publisher}
      */
-    @SuppressWarnings("initialization")
     private ProcessingClockState(Supplier<T> initialInput, BiFunction<Long, T, R> mergingFunction) {
+        this(initialInput, mergingFunction, false);
+    }
+
+    /**
+     * Creates a new {@link ProcessingClockState} instance like
+     * {@link #ProcessingClockState(Supplier, BiFunction)}.
+     *
+     * @param initialInput a supplier for the initial input
+     * @param mergingFunction the function used to combine a tick with a value
+     * @param isPassingArrivals whether values are only passed to the merging function once,
+     *                          see {@link TimedFlowStrategy#createArriving(Publisher, Supplier, BiFunction)}
+     */
+    @SuppressWarnings("initialization")
+    private ProcessingClockState(Supplier<T> initialInput,
+                                 BiFunction<Long, T, R> mergingFunction,
+                                 boolean isPassingArrivals) {
         this.timerPublisher = Flow.withProcessor(
                 EmitterProcessor.create(),
                 FlowStrategy.concat(
@@ -62,7 +78,9 @@ public class ProcessingClockState<T extends Object, R extends Object>
                 )
         );
 
-        this.strategy = TimedFlowStrategy.createTimed(timerPublisher, initialInput, mergingFunction);
+        this.strategy = isPassingArrivals
+                ? TimedFlowStrategy.createArriving(timerPublisher, initialInput, mergingFunction)
+                : TimedFlowStrategy.createTimed(timerPublisher, initialInput, mergingFunction);
         this.clockType = Clockable.ClockType.createClocked(this::runOnClock);
     }
 
@@ -83,6 +101,24 @@ public class ProcessingClockState<T extends Object, R extends Object>
         return new ProcessingClockState<>(initialInput, mergingFunction);
     }
 
+    /**
+     * Like {@link #create(Supplier, BiFunction)}, but each value of the {@link Flowable}s
+     * {@link Publisher} is only passed to the merging function once, and null is passed on
+     * ticks without a new value (see {@link TimedFlowStrategy#createArriving(Publisher, Supplier, BiFunction)}).
+     *
+     * @param initialInput the supplier for the initial input
+     * @param mergingFunction the function used to merge the {@link Long} from the tick
+     *                        with the newly arrived value, or null if there is none
+     * @param <T> the type of the input values of the resulting {@link FlowStrategy}
+     * @param <R> the type of the output values of the resulting {@link FlowStrategy}
+     * @return a new instance of {@link ProcessingClockState}
+     */
+    public static <T extends Object, R extends Object> ProcessingClockState<T, R> createArriving(
+            Supplier<T> initialInput,
+            BiFunction<Long, @Nullable T, R> mergingFunction) {
+        return new ProcessingClockState<>(initialInput, mergingFunction, true);
+    }
+
     /**
      * Like {@link #create(Supplier, BiFunction)}, but uses a function which ignores the Long
      * value from the last clock tick and just "replays" the last value received by the
@@ -0,0 +1,84 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+/**
+ * The settings of a {@link LockingDeviceConnector} which can be chosen
+ * per instance, so that they do not have to be changed by overriding
+ * the respective methods of the connector. Instances are immutable;
+ * each of the {@code with...} methods returns a changed copy.
+ *
+ * @see LockingDeviceConnector#LockingDeviceConnector(de.unia.oc.robotcontrol.coding.Encoding,
+ * de.unia.oc.robotcontrol.coding.Encoding, java.util.function.Supplier, ConnectorSettings)
+ */
+public final class ConnectorSettings {
+
+    /**
+     * The age in milliseconds below which the last answer of the device
+     * is fresh enough that no update request is sent, if not given explicitly
+     */
+    public static final int DEFAULT_MAX_ANSWER_AGE_MILLIS = 10;
+
+    /**
+     * The settings used if none are given explicitly
+     */
+    public static final ConnectorSettings DEFAULT = new ConnectorSettings(1, DEFAULT_MAX_ANSWER_AGE_MILLIS);
+
+    /**
+     * The maximum number of messages sent to the device in a single frame
+     */
+    private final int maxBatchSize;
+    /**
+     * The age in milliseconds below which the last answer of the device
+     * is fresh enough that no update request is sent
+     */
+    private final int maxAnswerAgeMillis;
+
+    private ConnectorSettings(int maxBatchSize, int maxAnswerAgeMillis) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxAnswerAgeMillis = maxAnswerAgeMillis;
+    }
+
+    /**
+     * @return the maximum number of messages sent to the device in a single frame,
+     * see {@link LockingDeviceConnector#getMaxBatchSize()}
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @param maxBatchSize the maximum number of messages sent to the device in a single frame,
+     *                     see {@link LockingDeviceConnector#getMaxBatchSize()}
+     * @return a copy of these settings with the given batch size
+     * @throws IllegalArgumentException if the batch size is not positive
+     */
+    public ConnectorSettings withMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size has to be positive!");
+        }
+        return new ConnectorSettings(maxBatchSize, maxAnswerAgeMillis);
+    }
+
+    /**
+     * @return the age in milliseconds below which the last answer of the device is fresh
+     * enough that no update request is sent, see {@link LockingDeviceConnector#getMaxAnswerAgeMillis()}
+     */
+    public int getMaxAnswerAgeMillis() {
+        return maxAnswerAgeMillis;
+    }
+
+    /**
+     * @param maxAnswerAgeMillis the age in milliseconds below which the last answer of the device
+     *                           is fresh enough that no update request is sent, or 0 to send them
+     *                           regardless of the age of the last answer,
+     *                           see {@link LockingDeviceConnector#getMaxAnswerAgeMillis()}
+     * @return a copy of these settings with the given maximum answer age
+     * @throws IllegalArgumentException if the age is negative
+     */
+    public ConnectorSettings withMaxAnswerAgeMillis(int maxAnswerAgeMillis) {
+        if (maxAnswerAgeMillis < 0) {
+            throw new IllegalArgumentException("The maximum answer age must not be negative!");
+        }
+        return new ConnectorSettings(maxBatchSize, maxAnswerAgeMillis);
+    }
+}
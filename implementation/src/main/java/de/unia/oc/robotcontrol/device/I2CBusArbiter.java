@@ -0,0 +1,410 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.concurrent.Terminable;
+import de.unia.oc.robotcontrol.util.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns a single I2C bus shared by several devices, and grants
+ * the devices attached to it ({@link #attach(int, int)}) access
+ * to the bus for one transfer (a write or a read) at a time.
+ *
+ * As the bus is only held while bytes are transferred, one device can use
+ * the bus while another one is waiting for its device to settle between
+ * writing a request and reading the answer
+ * (see {@link LockingDeviceConnector#getMinRequestTimeMillis()}).
+ *
+ * If several devices are waiting for the bus, the one with the highest
+ * priority is granted access first. Devices with the same priority are
+ * granted access round-robin, in the order they were attached.
+ *
+ * For each device, the time spent transferring and waiting
+ * for the bus is recorded (see {@link Channel#getUtilization()}).
+ */
+public final class I2CBusArbiter implements Terminable {
+
+    /**
+     * The transfers an I2C bus has to support,
+     * implemented by the actual bus or a mock of it.
+     */
+    public interface Bus {
+
+        /**
+         * Write the given bytes to the device with the given address.
+         *
+         * @param address the address of the device
+         * @param buffer the array holding the bytes to write
+         * @param offset the index of the first byte to write
+         * @param length the number of bytes to write
+         * @throws IOException if the transfer failed
+         */
+        void write(int address, byte[] buffer, int offset, int length) throws IOException;
+
+        /**
+         * Read bytes from the device with the given address.
+         *
+         * @param address the address of the device
+         * @param buffer the array to read the bytes into
+         * @param offset the index to put the first byte read at
+         * @param length the largest number of bytes to read
+         * @return the number of bytes read
+         * @throws IOException if the transfer failed
+         */
+        int read(int address, byte[] buffer, int offset, int length) throws IOException;
+
+        /**
+         * Release the bus.
+         *
+         * @throws IOException if the bus could not be closed
+         */
+        void close() throws IOException;
+    }
+
+    /**
+     * A single transfer using the bus
+     *
+     * @param <T> the type of the result of the transfer
+     */
+    @FunctionalInterface
+    private interface Transfer<T> {
+        T run() throws IOException;
+    }
+
+    private final Bus bus;
+    /**
+     * The attached channels, in the order they were attached; guarded by {@code this}
+     */
+    private final List<Channel> channels = new ArrayList<>();
+    /**
+     * The channel currently using the bus; guarded by {@code this}
+     */
+    private @Nullable Channel owner;
+    /**
+     * The index of the channel last granted access; guarded by {@code this}
+     */
+    private int lastGranted = -1;
+    /**
+     * The time (in ns) the bus was used for transfers
+     */
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final long createdAt = System.nanoTime();
+    private volatile boolean isTerminated = false;
+
+    /**
+     * Creates a new instance of {@link I2CBusArbiter} owning the given bus.
+     *
+     * @param bus the bus to grant access to
+     */
+    public I2CBusArbiter(Bus bus) {
+        this.bus = bus;
+    }
+
+    /**
+     * Attach a device with the given address to the bus.
+     *
+     * @param address the address of the device
+     * @param priority the priority of the device, devices with a higher
+     *                 priority are granted access to the bus first
+     * @return the channel used by the device to access the bus
+     * @throws IllegalStateException if this arbiter has been terminated
+     */
+    public synchronized Channel attach(int address, int priority) throws IllegalStateException {
+        Channel channel = tryAttach(address, priority);
+        if (channel == null) {
+            throw new IllegalStateException("Bus arbiter has been terminated");
+        }
+        return channel;
+    }
+
+    /**
+     * Attach a device with the given address to the bus, unless this arbiter
+     * has been terminated. As the arbiter is terminated once the last channel
+     * is detached, this allows to attach to a shared arbiter
+     * without racing against its last channel being detached.
+     *
+     * @param address the address of the device
+     * @param priority the priority of the device, see {@link #attach(int, int)}
+     * @return the channel used by the device to access the bus,
+     * or null if this arbiter has been terminated
+     */
+    public synchronized @Nullable Channel tryAttach(int address, int priority) {
+        if (isTerminated) {
+            return null;
+        }
+        Channel channel = new Channel(address, priority);
+        channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * Detach the given channel from the bus. The bus is closed
+     * once the last channel has been detached.
+     *
+     * @param channel the channel to detach
+     */
+    private synchronized void detach(Channel channel) {
+        channel.isDetached = true;
+        int index = channels.indexOf(channel);
+        if (index < 0) {
+            return;
+        }
+        channels.remove(index);
+        if (index <= lastGranted) {
+            --lastGranted;
+        }
+        notifyAll();
+        if (channels.isEmpty()) {
+            terminate();
+        }
+    }
+
+    /**
+     * Wait until the given channel is granted access to the bus,
+     * run the given transfer, and release the bus again.
+     *
+     * @param channel the channel requesting access
+     * @param transfer the transfer to run while holding the bus
+     * @param <T> the type of the result of the transfer
+     * @return the result of the transfer
+     * @throws IOException if the transfer failed, or the channel or arbiter was closed
+     */
+    private <T> T access(Channel channel, Transfer<T> transfer) throws IOException {
+        long requestedAt = System.nanoTime();
+        synchronized (this) {
+            channel.isWaiting = true;
+            try {
+                while (owner != null || next() != channel) {
+                    checkOpen(channel);
+                    wait();
+                }
+                checkOpen(channel);
+                owner = channel;
+                lastGranted = channels.indexOf(channel);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the I2C bus", e);
+            } finally {
+                channel.isWaiting = false;
+                if (owner != channel) {
+                    // the channel gave up, another one may be next now
+                    notifyAll();
+                }
+            }
+        }
+        long grantedAt = System.nanoTime();
+        try {
+            return transfer.run();
+        } finally {
+            long releasedAt = System.nanoTime();
+            channel.record(grantedAt - requestedAt, releasedAt - grantedAt);
+            busyNanos.addAndGet(releasedAt - grantedAt);
+            synchronized (this) {
+                owner = null;
+                notifyAll();
+                if (isTerminated) {
+                    // terminated during the transfer, see terminate()
+                    closeBus();
+                }
+            }
+        }
+    }
+
+    /**
+     * Fail if the given channel may not use the bus anymore.
+     * Has to be called while holding the lock on {@code this}.
+     *
+     * @param channel the channel requesting access
+     * @throws IOException if the channel or arbiter has been closed
+     */
+    private void checkOpen(Channel channel) throws IOException {
+        if (isTerminated || channel.isDetached) {
+            throw new IOException("I2C bus has been closed");
+        }
+    }
+
+    /**
+     * Select the waiting channel which is granted access next:
+     * the one with the highest priority, and of those the first
+     * one after the channel last granted access.
+     * Has to be called while holding the lock on {@code this}.
+     *
+     * @return the channel to grant access next, or null if none is waiting
+     */
+    private @Nullable Channel next() {
+        Channel next = null;
+        int size = channels.size();
+        for (int i = 1; i <= size; ++i) {
+            Channel candidate = channels.get((lastGranted + i) % size);
+            if (candidate.isWaiting && (next == null || candidate.priority > next.priority)) {
+                next = candidate;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @return the fraction of the time since this arbiter has been created
+     * during which the bus was used for transfers
+     */
+    public double getUtilization() {
+        return fractionOf(busyNanos.get(), System.nanoTime() - createdAt);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isTerminated;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Closes the bus, or, if a transfer is running, lets that transfer
+     * close the bus once it is done. Devices still waiting for the
+     * bus fail with an {@link IOException}.
+     */
+    @Override
+    public synchronized void terminate() {
+        if (isTerminated) {
+            return;
+        }
+        isTerminated = true;
+        notifyAll();
+        if (owner == null) {
+            closeBus();
+        }
+    }
+
+    /**
+     * Close the bus, which is not used by any transfer anymore.
+     * Has to be called while holding the lock on {@code this}.
+     */
+    private void closeBus() {
+        try {
+            bus.close();
+        } catch (IOException e) {
+            Logger.instance().debugException(e, "[I2CBusArbiter] Could not close bus");
+        }
+    }
+
+    private static double fractionOf(long part, long total) {
+        return total <= 0 ? 0 : (double) part / total;
+    }
+
+    /**
+     * The access of a single device to the bus of an {@link I2CBusArbiter}.
+     * Transfers using a channel wait until the arbiter grants access to the bus.
+     */
+    public final class Channel {
+
+        private final int address;
+        private final int priority;
+        /**
+         * Whether the channel is waiting for access; guarded by the arbiter
+         */
+        private boolean isWaiting = false;
+        /**
+         * Whether the channel has been detached; guarded by the arbiter
+         */
+        private boolean isDetached = false;
+        private final AtomicLong transferCount = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final long attachedAt = System.nanoTime();
+
+        private Channel(int address, int priority) {
+            this.address = address;
+            this.priority = priority;
+        }
+
+        /**
+         * Write the given bytes to the device, once access to the bus is granted.
+         *
+         * @param buffer the array holding the bytes to write
+         * @param offset the index of the first byte to write
+         * @param length the number of bytes to write
+         * @throws IOException if the transfer failed or the bus has been closed
+         */
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            access(this, () -> {
+                bus.write(address, buffer, offset, length);
+                return length;
+            });
+        }
+
+        /**
+         * Read bytes from the device, once access to the bus is granted.
+         *
+         * @param buffer the array to read the bytes into
+         * @param offset the index to put the first byte read at
+         * @param length the largest number of bytes to read
+         * @return the number of bytes read
+         * @throws IOException if the transfer failed or the bus has been closed
+         */
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return access(this, () -> bus.read(address, buffer, offset, length));
+        }
+
+        /**
+         * Detach this channel from the bus. The bus is
+         * closed once all channels have been detached.
+         */
+        public void detach() {
+            I2CBusArbiter.this.detach(this);
+        }
+
+        private void record(long waited, long busy) {
+            transferCount.incrementAndGet();
+            waitNanos.addAndGet(waited);
+            busyNanos.addAndGet(busy);
+        }
+
+        /**
+         * @return the address of the device
+         */
+        public int getAddress() {
+            return address;
+        }
+
+        /**
+         * @return the priority of the device
+         */
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * @return the number of transfers completed by the device
+         */
+        public long getTransferCount() {
+            return transferCount.get();
+        }
+
+        /**
+         * @return the total time (in ns) the device used the bus
+         */
+        public long getBusyNanos() {
+            return busyNanos.get();
+        }
+
+        /**
+         * @return the total time (in ns) the device waited for access to the bus
+         */
+        public long getWaitNanos() {
+            return waitNanos.get();
+        }
+
+        /**
+         * @return the fraction of the time since the device has
+         * been attached during which it used the bus
+         */
+        public double getUtilization() {
+            return fractionOf(busyNanos.get(), System.nanoTime() - attachedAt);
+        }
+    }
+}
@@ -1,13 +1,11 @@
 /* %FILE_TEMPLATE_TEXT% */
 package de.unia.oc.robotcontrol.device;
 
-import com.pi4j.io.i2c.I2CBus;
-import com.pi4j.io.i2c.I2CDevice;
-import com.pi4j.io.i2c.I2CFactory;
 import de.unia.oc.robotcontrol.coding.Encoding;
 import de.unia.oc.robotcontrol.message.Message;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.function.Supplier;
 
@@ -20,6 +18,10 @@ import java.util.function.Supplier;
  * no attempts to use the communications channel multiple times
  * concurrently.
  *
+ * Several devices connected to the same bus share it through an
+ * {@link I2CBusArbiter}, which serializes their transfers and lets one
+ * device use the bus while another one is waiting for its answer.
+ *
  * @param <Input> the type of input message this can receive.
  * @param <Output> the type of output message this will send.
  */
@@ -32,22 +34,9 @@ public class I2CConnector<Input extends Message, Output extends Message>
      */
     private final int MAX_MESSAGE_SIZE;
     /**
-     * The bus id used to communicate
-     */
-    private final int BUS;
-    /**
-     * The address of the device this is connected to.
+     * The channel of the bus arbiter used for communication
      */
-    private final byte DEVICE_ADDRESS;
-
-    /**
-     * The Pi4J i2c bus instance used for communication
-     */
-    private final I2CBus i2c;
-    /**
-     * The Pi4J i2c device instance used for communication
-     */
-    private final I2CDevice device;
+    private final I2CBusArbiter.Channel channel;
 
     /**
      * Whether this has been terminated using {@link #terminate()}.
@@ -66,6 +55,8 @@ public class I2CConnector<Input extends Message, Output extends Message>
     /**
      * Create a new instance of {@link I2CConnector} with the given
      * maximum message size, bus id and device address.
+     * The bus is shared with all other devices on the same bus
+     * (see {@link Pi4JI2CBus#attach(int, int, int)}).
      * Uses the given encodings and update-request-message supplier
      * to satisfy the needs of the super-constructor
      * {@link LockingDeviceConnector#LockingDeviceConnector(Encoding, Encoding, Supplier)}
@@ -89,23 +80,99 @@ public class I2CConnector<Input extends Message, Output extends Message>
             Encoding<Output> outputEncoding,
             Supplier<Input> updateRequestMessageSupplier)
             throws IOException, IllegalArgumentException {
-        super(inputEncoding, outputEncoding, updateRequestMessageSupplier);
+        this(messageSize, Pi4JI2CBus.attach(bus, deviceAddress, 0),
+                inputEncoding, outputEncoding, updateRequestMessageSupplier, ConnectorSettings.DEFAULT);
+    }
+
+    /**
+     * Create a new instance of {@link I2CConnector} with the given
+     * maximum message size, communicating with the device with the given
+     * address on the bus owned by the given arbiter.
+     *
+     * @param messageSize the maximum size of the messages sent as a
+     *                    number of bytes
+     * @param arbiter the arbiter owning the bus used for communication
+     * @param deviceAddress the address of the device used for communication
+     * @param priority the priority of the device when accessing the bus,
+     *                 see {@link I2CBusArbiter#attach(int, int)}
+     * @param inputEncoding the encoding used to encode the input messages received from the system
+     * @param outputEncoding the encoding used to decode the bytes received from the device
+     * @param updateRequestMessageSupplier the supplier for update-request messages
+     * @throws IllegalStateException if the arbiter has been terminated
+     */
+    public I2CConnector(
+            int messageSize,
+            I2CBusArbiter arbiter,
+            byte deviceAddress,
+            int priority,
+            Encoding<Input> inputEncoding,
+            Encoding<Output> outputEncoding,
+            Supplier<Input> updateRequestMessageSupplier)
+            throws IllegalStateException {
+        this(messageSize, arbiter, deviceAddress, priority,
+                inputEncoding, outputEncoding, updateRequestMessageSupplier, ConnectorSettings.DEFAULT);
+    }
+
+    /**
+     * Create a new instance of {@link I2CConnector} like
+     * {@link #I2CConnector(int, I2CBusArbiter, byte, int, Encoding, Encoding, Supplier)},
+     * configured using the given settings.
+     *
+     * @param messageSize the maximum size of the messages sent as a
+     *                    number of bytes
+     * @param arbiter the arbiter owning the bus used for communication
+     * @param deviceAddress the address of the device used for communication
+     * @param priority the priority of the device when accessing the bus,
+     *                 see {@link I2CBusArbiter#attach(int, int)}
+     * @param inputEncoding the encoding used to encode the input messages received from the system
+     * @param outputEncoding the encoding used to decode the bytes received from the device
+     * @param updateRequestMessageSupplier the supplier for update-request messages
+     * @param settings the settings of the connector, see {@link ConnectorSettings}
+     * @throws IllegalStateException if the arbiter has been terminated
+     */
+    public I2CConnector(
+            int messageSize,
+            I2CBusArbiter arbiter,
+            byte deviceAddress,
+            int priority,
+            Encoding<Input> inputEncoding,
+            Encoding<Output> outputEncoding,
+            Supplier<Input> updateRequestMessageSupplier,
+            ConnectorSettings settings)
+            throws IllegalStateException {
+        this(messageSize, arbiter.attach(deviceAddress, priority),
+                inputEncoding, outputEncoding, updateRequestMessageSupplier, settings);
+    }
+
+    /**
+     * Create a new instance of {@link I2CConnector} communicating
+     * using the given channel of a bus arbiter.
+     *
+     * @param messageSize the maximum size of the messages sent as a
+     *                    number of bytes
+     * @param channel the channel of the bus arbiter used for communication
+     * @param inputEncoding the encoding used to encode the input messages received from the system
+     * @param outputEncoding the encoding used to decode the bytes received from the device
+     * @param updateRequestMessageSupplier the supplier for update-request messages
+     * @param settings the settings of the connector, see {@link ConnectorSettings}
+     */
+    private I2CConnector(
+            int messageSize,
+            I2CBusArbiter.Channel channel,
+            Encoding<Input> inputEncoding,
+            Encoding<Output> outputEncoding,
+            Supplier<Input> updateRequestMessageSupplier,
+            ConnectorSettings settings) {
+        super(inputEncoding, outputEncoding, updateRequestMessageSupplier, settings);
         this.MAX_MESSAGE_SIZE = messageSize;
-        this.DEVICE_ADDRESS = deviceAddress;
-        this.BUS = bus;
-        try {
-            this.i2c = I2CFactory.getInstance(BUS);
-        } catch (I2CFactory.UnsupportedBusNumberException e) {
-            throw new IllegalArgumentException("Unsupported bus number! " + BUS, e);
-        }
-        this.device = i2c.getDevice(DEVICE_ADDRESS);
+        this.channel = channel;
         this.readBuffer = new byte[MAX_MESSAGE_SIZE];
     }
 
     /**
      * {@inheritDoc}
      *
-     * Uses {@link #device} to send the given message using i2c.
+     * Uses {@link #channel} to send the given message using i2c.
      *
      * @param message the bytes to send to the connected device
      * @throws IOException if communication failed. This is the exception thrown by the
@@ -113,13 +180,13 @@ public class I2CConnector<Input extends Message, Output extends Message>
      */
     @Override
     protected synchronized void pushMessage(byte[] message) throws IOException {
-        device.write(message);
+        channel.write(message, 0, message.length);
     }
 
     /**
      * {@inheritDoc}
      *
-     * Uses the {@link #device} to receive bytes from the device.
+     * Uses the {@link #channel} to receive bytes from the device.
      * Also sets {@link #lastRead} and {@link #readBuffer} respectively.
      * Does not return {@link #readBuffer} directly, but makes a copy
      * instead.
@@ -129,7 +196,7 @@ public class I2CConnector<Input extends Message, Output extends Message>
      */
     @Override
     protected synchronized byte[] retrieveMessage() throws IOException {
-        int read = device.read(readBuffer, 0, readBuffer.length);
+        int read = channel.read(readBuffer, 0, readBuffer.length);
         if (read > 0) {
             lastRead = read;
             return Arrays.copyOf(readBuffer, read);
@@ -138,6 +205,57 @@ public class I2CConnector<Input extends Message, Output extends Message>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Writes directly from the backing array of the given buffer
+     * using {@link #channel}, if there is one.
+     *
+     * @param message the buffer holding the bytes to send to the connected device
+     * @throws IOException if communication failed.
+     */
+    @Override
+    protected synchronized void pushMessage(ByteBuffer message) throws IOException {
+        if (!message.hasArray()) {
+            super.pushMessage(message);
+            return;
+        }
+        channel.write(message.array(), message.arrayOffset() + message.position(), message.remaining());
+        message.position(message.limit());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Reads directly into the backing array of the given buffer
+     * using {@link #channel}, if there is one.
+     *
+     * @param target the buffer to put the received bytes into
+     * @throws IOException if communication failed.
+     */
+    @Override
+    protected synchronized void retrieveMessage(ByteBuffer target) throws IOException {
+        if (!target.hasArray()) {
+            super.retrieveMessage(target);
+            return;
+        }
+        int read = channel.read(
+                target.array(),
+                target.arrayOffset() + target.position(),
+                Math.min(target.remaining(), MAX_MESSAGE_SIZE));
+        if (read > 0) {
+            lastRead = read;
+            target.position(target.position() + read);
+        } else {
+            throw new IOException("No bytes were read");
+        }
+    }
+
+    @Override
+    protected int getMaxMessageSize() {
+        return MAX_MESSAGE_SIZE;
+    }
+
     @Override
     public boolean isTerminated() {
         return isTerminated;
@@ -146,17 +264,13 @@ public class I2CConnector<Input extends Message, Output extends Message>
     /**
      * {@inheritDoc}
      *
-     * Closes the communication with the device using Pi4J,
-     * and sets {@link #isTerminated} to true.
+     * Detaches the device from the bus, which is closed once all
+     * devices have been detached, and sets {@link #isTerminated} to true.
      */
     @Override
     public void terminate() {
-        try {
-            i2c.close();
-            isTerminated = true;
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        channel.detach();
+        isTerminated = true;
     }
 
     @Override
@@ -1,6 +1,7 @@
 /* %FILE_TEMPLATE_TEXT% */
 package de.unia.oc.robotcontrol.device;
 
+import de.unia.oc.robotcontrol.coding.BatchEncoding;
 import de.unia.oc.robotcontrol.coding.Encoding;
 import de.unia.oc.robotcontrol.concurrent.ClockState;
 import de.unia.oc.robotcontrol.concurrent.ProcessingClockState;
@@ -9,8 +10,15 @@ import de.unia.oc.robotcontrol.flow.FlowStrategy;
 import de.unia.oc.robotcontrol.flow.function.ProcessorTransformation;
 import de.unia.oc.robotcontrol.flow.function.PublisherTransformation;
 import de.unia.oc.robotcontrol.flow.function.SubscriberTransformation;
+import de.unia.oc.robotcontrol.flow.strategy.BatchingFlowStrategy;
 import de.unia.oc.robotcontrol.flow.strategy.BufferFlowStrategy;
+import de.unia.oc.robotcontrol.message.LatencyTracer;
+import de.unia.oc.robotcontrol.message.LazyDecoding;
 import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
+import de.unia.oc.robotcontrol.util.Logger;
+import de.unia.oc.robotcontrol.visualization.RuntimeMetrics;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signedness.qual.Constant;
 import org.checkerframework.dataflow.qual.Pure;
@@ -21,11 +29,22 @@ import org.reactivestreams.Subscription;
 import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.EmitterProcessor;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
-import java.util.function.BiFunction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -43,6 +62,25 @@ import java.util.function.Supplier;
  * Method. To change this behavior, overwrite {@link #runOnClock(TimeProvider)}
  * and {@link #getFlowStrategy()}.
  *
+ * If {@link #getMaxBatchSize()} is larger than one (see {@link ConnectorSettings}),
+ * the connector sends all messages buffered while the channel was locked in one frame
+ * (see {@link BatchEncoding}), and expects the device to answer with a
+ * frame of messages as well, which are then emitted one by one.
+ * A message arriving while the channel is free is sent right away.
+ *
+ * If {@link #isAsynchronous()} returns true, a transaction does not block
+ * a thread while waiting for the device to answer. Writing the message and
+ * reading the answer run on an I/O thread of the connector, and the
+ * {@link #getMinRequestTimeMillis()} in between are waited on a timer shared
+ * by all connectors (see {@link #sendAndReceiveAsync(Message)}), so that
+ * no thread is blocked while the device prepares its answer. The device stays
+ * reserved for the whole transaction, so transactions of one connector never overlap.
+ *
+ * If {@link #isAdaptivePacing()} returns true, the time waited between writing
+ * a message and reading the answer is not fixed to {@link #getMinRequestTimeMillis()},
+ * but adapted to how quickly the device answers each message type
+ * (see {@link RequestPacing}).
+ *
  * @param <Input> the type of message this device connector can receive
  *               (as an instance of {@link de.unia.oc.robotcontrol.flow.FlowableProcessor})
  * @param <Output> the type of message this device connector will emit
@@ -51,6 +89,25 @@ import java.util.function.Supplier;
 public abstract class LockingDeviceConnector<Input extends Message, Output extends Message>
         implements Device<Input, Output> {
 
+    /**
+     * The timer the delays of asynchronous transactions are waited
+     * on, shared by all connectors (see {@link #isAsynchronous()})
+     */
+    private static final Scheduler TRANSACTION_TIMER =
+            Schedulers.newSingle("deviceTransactionTimer", true);
+
+    /**
+     * The kind of request used to pace frames of messages
+     * if batching is enabled ({@link #getMaxBatchSize()})
+     */
+    private static final String BATCH_PACING_KEY = "batch";
+
+    /**
+     * The maximum number of read buffers kept for reuse
+     * (see {@link #spareReadBuffers})
+     */
+    private static final int MAX_SPARE_READ_BUFFERS = 16;
+
     /**
      * The encoding used for incoming messages (presumably controller commands)
      */
@@ -60,6 +117,17 @@ public abstract class LockingDeviceConnector<Input extends Message, Output exten
      */
     protected final Encoding<Output> outputEncoding;
 
+    /**
+     * The encoding used for frames of incoming messages
+     * if batching is enabled ({@link #getMaxBatchSize()})
+     */
+    protected final Encoding<List<Input>> inputBatchEncoding;
+    /**
+     * The encoding used for frames of outgoing messages
+     * if batching is enabled ({@link #getMaxBatchSize()})
+     */
+    protected final Encoding<List<Output>> outputBatchEncoding;
+
     /**
      * A supplier of update-request messages used to send to the
      * device on a regular interval.
@@ -69,9 +137,57 @@ public abstract class LockingDeviceConnector<Input extends Message, Output exten
     /**
      * The lock used to prevent parallel communication with the
      * connected device / over the connected communications channel.
+     * Held while writing to and reading from the device; asynchronous
+     * transactions release it while waiting for the answer, but keep
+     * the device reserved using {@link #transactionPermit}.
      */
     protected final Object deviceLock;
 
+    /**
+     * Reserves the device for a whole transaction, from writing the
+     * message until the answer has been read, so that no other transaction
+     * writes to the device while an asynchronous one waits for its answer.
+     */
+    private final Semaphore transactionPermit = new Semaphore(1);
+
+    /**
+     * The thread writing to and reading from the device
+     * in asynchronous transactions (see {@link #isAsynchronous()})
+     */
+    private final Scheduler ioScheduler;
+
+    /**
+     * The buffer input messages are encoded into before being pushed
+     * to the device. Reused for every transaction, guarded by {@link #deviceLock}.
+     * Created lazily with a capacity of {@link #getMaxMessageSize()}.
+     */
+    private @Nullable ByteBuffer writeBuffer;
+
+    /**
+     * The buffer bytes retrieved from the device are read into before
+     * being decoded. Reused for every transaction, guarded by {@link #deviceLock}.
+     * Created lazily with a capacity of {@link #getMaxMessageSize()}.
+     */
+    private @Nullable ByteBuffer readBuffer;
+
+    /**
+     * Buffers handed over to lazily decoded answers (see {@link LazyDecoding}),
+     * which can be read into again once the answer has been released.
+     */
+    private final Queue<ByteBuffer> spareReadBuffers = new ArrayBlockingQueue<>(MAX_SPARE_READ_BUFFERS);
+
+    /**
+     * The pacing of transactions if {@link #isAdaptivePacing()} is enabled.
+     * Created lazily by {@link #getRequestPacing()}, guarded by {@link #pacingLock}.
+     */
+    private volatile @MonotonicNonNull RequestPacing pacing;
+
+    /**
+     * The lock used to create the {@link #pacing}, which is separate from the
+     * {@link #deviceLock} so that it is never held during a transaction
+     */
+    private final Object pacingLock = new Object();
+
     /**
      * The uuid of the device.
      * This is generated in the constructor.
@@ -102,6 +218,17 @@ public abstract class LockingDeviceConnector<Input extends Message, Output exten
      */
     protected final ClockState<Input, Input> clockState;
 
+    /**
+     * Decides which of the messages merged with the clock ticks are sent to
+     * the device, dropping update requests whose answer would not be needed.
+     */
+    protected final UpdateRequestCoalescer<Input> coalescer;
+
+    /**
+     * The settings of this connector which were given on construction.
+     */
+    protected final ConnectorSettings settings;
+
     /**
      * Creates a new Instance of {@link LockingDeviceConnector}, using the
      * supplied encodings to encode and decode input and output respectively.
@@ -113,16 +240,40 @@ public abstract class LockingDeviceConnector<Input extends Message, Output exten
      * @param updateRequestMessageProvider the provider fore update-request messages sent to the
      *                                     device when requested by the clock
      */
-    @SuppressWarnings("initialization")
     public LockingDeviceConnector(
             Encoding<Input> inputEncoding,
             Encoding<Output> outputEncoding,
             Supplier<Input> updateRequestMessageProvider) {
+        this(inputEncoding, outputEncoding, updateRequestMessageProvider, ConnectorSettings.DEFAULT);
+    }
+
+    /**
+     * Creates a new Instance of {@link LockingDeviceConnector} like
+     * {@link #LockingDeviceConnector(Encoding, Encoding, Supplier)},
+     * configured using the given settings.
+     *
+     * @param inputEncoding the encoding used to encode input messages to bytes
+     * @param outputEncoding the encoding used to decode messages from bytes received from devices
+     * @param updateRequestMessageProvider the provider fore update-request messages sent to the
+     *                                     device when requested by the clock
+     * @param settings the settings of this connector
+     */
+    @SuppressWarnings("initialization")
+    public LockingDeviceConnector(
+            Encoding<Input> inputEncoding,
+            Encoding<Output> outputEncoding,
+            Supplier<Input> updateRequestMessageProvider,
+            ConnectorSettings settings) {
+        this.settings = settings;
         this.inputEncoding = inputEncoding;
         this.outputEncoding = outputEncoding;
+        this.inputBatchEncoding = new BatchEncoding<>(inputEncoding);
+        this.outputBatchEncoding = new BatchEncoding<>(outputEncoding);
         this.deviceLock = new Object();
+        this.ioScheduler = Schedulers.newSingle("deviceTransaction_" + this.getDeviceName(), true);
 
         this.updateRequestMessageProvider = updateRequestMessageProvider;
+        this.coalescer = new UpdateRequestCoalescer<>(updateRequestMessageProvider, settings.getMaxAnswerAgeMillis());
         this.clockState = createClockState();
 
         this.inputProcessor = createProcessor();
@@ -147,22 +298,153 @@ public abstract class LockingDeviceConnector<Input extends Message, Output exten
 
     /**
      * Convert the given {@link Input} to a {@link Output} by sending it to
-     * the device with the {@link #pushMessage(byte[])} method and then
-     * receiving an answer with the {@link #retrieveMessage()} method.
+     * the device with the {@link #pushMessage(ByteBuffer)} method and then
+     * receiving an answer with the {@link #retrieveMessage(ByteBuffer)} method.
      * The connector waits {@link #getMinRequestTimeMillis()} while this
      * transaction is happening, and locks the communications channel using the
      * {@link #deviceLock}.
      *
+     * Messages are encoded into and decoded from buffers which are reused
+     * between transactions, so that no intermediate byte arrays are allocated.
+     * If the {@link #outputEncoding} is a {@link LazyDecoding}, the answer keeps
+     * the buffer it was read from until it is released, instead of copying it.
+     * The input message is released after the transaction (see {@link ReferenceCounted}).
+     * Both messages are reported to the {@link LatencyTracer}.
+     *
      * @param input the input message to send to the device
      * @return an instance of {@link Output} as decoded by {@link #outputEncoding},
      * using the bytes received from the device.
      */
     private Output sendAndReceive(Input input) {
+        LatencyTracer tracer = LatencyTracer.instance();
+        boolean answered = false;
+        try {
+            tracer.complete(input);
+            Output output = transact(input, input.getType(), inputEncoding, outputEncoding);
+            answered = true;
+            tracer.begin(output);
+            return output;
+        } finally {
+            coalescer.onCompleted(answered);
+            ReferenceCounted.releaseIfCounted(input);
+        }
+    }
+
+    /**
+     * Like {@link #sendAndReceive(Message)}, but sends all the given
+     * messages to the device in one frame using {@link #inputBatchEncoding},
+     * and decodes the answer as a frame of messages using
+     * {@link #outputBatchEncoding}.
+     *
+     * @param inputs the input messages to send to the device
+     * @return the instances of {@link Output} decoded from the frame
+     * received from the device
+     */
+    private List<Output> sendAndReceiveBatch(List<Input> inputs) {
+        LatencyTracer tracer = LatencyTracer.instance();
+        boolean answered = false;
+        try {
+            for (Input input : inputs) {
+                tracer.complete(input);
+            }
+            List<Output> outputs = transact(inputs, BATCH_PACING_KEY, inputBatchEncoding, outputBatchEncoding);
+            answered = true;
+            for (Output output : outputs) {
+                tracer.begin(output);
+            }
+            return outputs;
+        } finally {
+            for (Input input : inputs) {
+                coalescer.onCompleted(answered);
+                ReferenceCounted.releaseIfCounted(input);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #sendAndReceive(Message)}, but without blocking the calling
+     * thread: the message is written on the I/O thread of this connector, and
+     * the answer is read on it {@link #getMinRequestTimeMillis()} later, as
+     * scheduled by a shared timer. No thread waits meanwhile, but the device
+     * stays reserved until the answer has been read.
+     *
+     * Transactions must not be started before the previous one has completed,
+     * which the flow of this connector ensures by subscribing to them one after another.
+     * If the transaction fails, the error is logged and the returned Mono completes empty.
+     *
+     * @param input the input message to send to the device
+     * @return a {@link Mono} emitting the message decoded from the answer of the device
+     */
+    protected Mono<Output> sendAndReceiveAsync(Input input) {
+        LatencyTracer tracer = LatencyTracer.instance();
+        return transactAsync(input, input.getType(), inputEncoding, outputEncoding)
+                .doOnSubscribe((s) -> tracer.complete(input))
+                .doOnNext(tracer::begin)
+                .doOnSuccess((output) -> coalescer.onCompleted(output != null))
+                .doOnCancel(() -> coalescer.onCompleted(false))
+                .doFinally((signal) -> ReferenceCounted.releaseIfCounted(input));
+    }
+
+    /**
+     * Like {@link #sendAndReceiveBatch(List)}, but without blocking
+     * the calling thread, see {@link #sendAndReceiveAsync(Message)}.
+     *
+     * @param inputs the input messages to send to the device
+     * @return a {@link Mono} emitting the messages decoded from the frame
+     * received from the device
+     */
+    protected Mono<List<Output>> sendAndReceiveBatchAsync(List<Input> inputs) {
+        LatencyTracer tracer = LatencyTracer.instance();
+        return transactAsync(inputs, BATCH_PACING_KEY, inputBatchEncoding, outputBatchEncoding)
+                .doOnSubscribe((s) -> inputs.forEach(tracer::complete))
+                .doOnNext((outputs) -> outputs.forEach(tracer::begin))
+                .doOnSuccess((outputs) -> inputs.forEach((input) -> coalescer.onCompleted(outputs != null)))
+                .doOnCancel(() -> inputs.forEach((input) -> coalescer.onCompleted(false)))
+                .doFinally((signal) -> inputs.forEach(ReferenceCounted::releaseIfCounted));
+    }
+
+    /**
+     * Execute a single transaction with the device as described in
+     * {@link #sendAndReceive(Message)}, using the given encodings.
+     *
+     * @param input the value to send to the device
+     * @param pacingKey the kind of request, used to pace it if {@link #isAdaptivePacing()} is enabled
+     * @param encoding the encoding used to encode the value
+     * @param decoding the encoding used to decode the answer of the device
+     * @param <I> the type of value sent
+     * @param <O> the type of value received
+     * @return the value decoded from the bytes received from the device
+     */
+    private <I, O> O transact(I input, Object pacingKey, Encoding<I> encoding, Encoding<O> decoding) {
+        transactionPermit.acquireUninterruptibly();
+        try {
+            return transactLocked(input, pacingKey, encoding, decoding);
+        } finally {
+            transactionPermit.release();
+        }
+    }
+
+    /**
+     * Execute a blocking transaction like {@link #transact(Object, Object, Encoding, Encoding)},
+     * once the device has been reserved.
+     *
+     * @param input the value to send to the device
+     * @param pacingKey the kind of request, used to pace it if {@link #isAdaptivePacing()} is enabled
+     * @param encoding the encoding used to encode the value
+     * @param decoding the encoding used to decode the answer of the device
+     * @param <I> the type of value sent
+     * @param <O> the type of value received
+     * @return the value decoded from the bytes received from the device
+     */
+    private <I, O> O transactLocked(I input, Object pacingKey, Encoding<I> encoding, Encoding<O> decoding) {
         synchronized (deviceLock) {
             try {
-                pushMessage(this.inputEncoding.encode(input));
+                write(input, encoding);
+                if (isAdaptivePacing()) {
+                    return getRequestPacing().await(pacingKey, System.nanoTime(), () -> read(decoding));
+                }
                 Thread.sleep(getMinRequestTimeMillis());
-                return this.outputEncoding.decode(retrieveMessage());
+                return read(decoding);
             } catch (InterruptedException | IOException e) {
                 System.err.println("Error while sending or retrieving message!");
                 e.printStackTrace();
@@ -177,6 +459,175 @@ public abstract class LockingDeviceConnector<Input extends Message, Output exten
         }
     }
 
+    /**
+     * Execute a single transaction with the device as described in
+     * {@link #sendAndReceiveAsync(Message)}, using the given encodings.
+     * The device is reserved using the {@link #transactionPermit} until
+     * the transaction completes, fails or is cancelled, while the
+     * {@link #deviceLock} is only held while writing and while reading.
+     *
+     * @param input the value to send to the device
+     * @param pacingKey the kind of request, used to pace it if {@link #isAdaptivePacing()} is enabled
+     * @param encoding the encoding used to encode the value
+     * @param decoding the encoding used to decode the answer of the device
+     * @param <I> the type of value sent
+     * @param <O> the type of value received
+     * @return a {@link Mono} emitting the value decoded from the bytes received from the device
+     */
+    private <I, O> Mono<O> transactAsync(I input, Object pacingKey, Encoding<I> encoding, Encoding<O> decoding) {
+        return Mono
+                .using(
+                        () -> {
+                            // only waits if a blocking transaction is running
+                            transactionPermit.acquireUninterruptibly();
+                            return transactionPermit;
+                        },
+                        (permit) -> Mono
+                                .fromCallable(() -> {
+                                    synchronized (deviceLock) {
+                                        write(input, encoding);
+                                    }
+                                    return System.nanoTime();
+                                })
+                                .flatMap((sentAt) -> isAdaptivePacing()
+                                        ? readPacedAsync(pacingKey, decoding, sentAt, 0)
+                                        : delayNanos(TimeUnit.MILLISECONDS.toNanos(getMinRequestTimeMillis()))
+                                                .then(readAsync(decoding))),
+                        Semaphore::release)
+                .subscribeOn(ioScheduler)
+                .onErrorResume((e) -> {
+                    Logger.instance().debugException(e, "Error while sending or retrieving message: " + input);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * @param decoding the encoding used to decode the answer of the device
+     * @param <O> the type of value received
+     * @return a {@link Mono} reading the answer of the device on the
+     * {@link #ioScheduler} while holding the {@link #deviceLock}
+     */
+    private <O> Mono<O> readAsync(Encoding<O> decoding) {
+        return Mono
+                .fromCallable(() -> {
+                    synchronized (deviceLock) {
+                        return read(decoding);
+                    }
+                })
+                .subscribeOn(ioScheduler);
+    }
+
+    /**
+     * Read the answer to the request sent at the given time, like
+     * {@link RequestPacing#await(Object, long, RequestPacing.Attempt)}, but
+     * waiting on the {@link #TRANSACTION_TIMER} instead of blocking a thread.
+     *
+     * @param pacingKey the kind of request
+     * @param decoding the encoding used to decode the answer of the device
+     * @param sentAt the time (as {@link System#nanoTime()}) the request was sent
+     * @param retries the number of failed attempts to read the answer so far
+     * @param <O> the type of value received
+     * @return a {@link Mono} emitting the value decoded from the bytes received from the device
+     */
+    private <O> Mono<O> readPacedAsync(Object pacingKey, Encoding<O> decoding, long sentAt, int retries) {
+        RequestPacing requestPacing = getRequestPacing();
+        long delay = retries == 0
+                ? sentAt + requestPacing.getDelayNanos(pacingKey) - System.nanoTime()
+                : requestPacing.getBackoffNanos(retries - 1);
+        return delayNanos(delay)
+                .flatMap((startedAt) -> readAsync(decoding)
+                        .doOnNext((answer) -> requestPacing.onAnswered(pacingKey, startedAt - sentAt, retries)))
+                .onErrorResume(
+                        (e) -> (e instanceof IOException || e instanceof IllegalArgumentException)
+                                && requestPacing.shouldRetry(sentAt, retries),
+                        (e) -> readPacedAsync(pacingKey, decoding, sentAt, retries + 1));
+    }
+
+    /**
+     * Like {@link Mono#delay(Duration, Scheduler)} on the {@link #TRANSACTION_TIMER},
+     * but without rounding the delay down to whole milliseconds, as the delays
+     * of {@link RequestPacing} are usually shorter than a millisecond.
+     *
+     * @param delay the time (in ns) to wait, not waiting at all if not positive
+     * @return a {@link Mono} emitting the time (as {@link System#nanoTime()}) the delay has passed
+     */
+    private static Mono<Long> delayNanos(long delay) {
+        return Mono.create((sink) -> sink.onCancel(TRANSACTION_TIMER.schedule(
+                () -> sink.success(System.nanoTime()),
+                Math.max(delay, 0),
+                TimeUnit.NANOSECONDS)));
+    }
+
+    /**
+     * Encode the given value into the reused write buffer and push it
+     * to the device. Has to be called while holding the {@link #deviceLock}.
+     *
+     * @param input the value to send to the device
+     * @param encoding the encoding used to encode the value
+     * @param <I> the type of value sent
+     * @throws IOException if there was an error while communicating
+     */
+    private <I> void write(I input, Encoding<I> encoding) throws IOException {
+        ByteBuffer out = this.writeBuffer;
+        if (out == null) {
+            out = this.writeBuffer = ByteBuffer.allocate(getMaxMessageSize());
+        }
+        out.clear();
+        encoding.encodeInto(input, out);
+        out.flip();
+        pushMessage(out);
+    }
+
+    /**
+     * Retrieve bytes from the device into the reused read buffer and
+     * decode them. Has to be called while holding the {@link #deviceLock}.
+     *
+     * @param decoding the encoding used to decode the answer of the device
+     * @param <O> the type of value received
+     * @return the value decoded from the bytes received from the device
+     * @throws IOException if there was an error while communicating
+     */
+    private <O> O read(Encoding<O> decoding) throws IOException {
+        if (decoding instanceof LazyDecoding) {
+            return readOwned((LazyDecoding<?>) decoding);
+        }
+        ByteBuffer in = this.readBuffer;
+        if (in == null) {
+            in = this.readBuffer = ByteBuffer.allocate(getMaxMessageSize());
+        }
+        in.clear();
+        retrieveMessage(in);
+        in.flip();
+        return decoding.decodeFrom(in);
+    }
+
+    /**
+     * Like {@link #read(Encoding)}, but reads into a buffer which is handed over
+     * to the lazily decoded answer instead of copying the payload out of it.
+     * The buffer is reused once the answer has been released.
+     *
+     * @param decoding the lazy decoding used to decode the answer of the device
+     * @param <O> the type of value received
+     * @return the lazily decoded answer of the device
+     * @throws IOException if there was an error while communicating
+     */
+    @SuppressWarnings("unchecked")
+    private <O> O readOwned(LazyDecoding<?> decoding) throws IOException {
+        ByteBuffer in = spareReadBuffers.poll();
+        if (in == null) {
+            in = ByteBuffer.allocate(getMaxMessageSize());
+        }
+        in.clear();
+        try {
+            retrieveMessage(in);
+        } catch (IOException | RuntimeException e) {
+            spareReadBuffers.offer(in);
+            throw e;
+        }
+        in.flip();
+        return (O) decoding.decodeOwned(in, spareReadBuffers::offer);
+    }
+
     /**
      * Create the {@link #inputProcessor}; used in the constructor.
      * This can be overridden in subclasses to use a different
@@ -216,36 +667,77 @@ public abstract class LockingDeviceConnector<Input extends Message, Output exten
 
     @Override
     public FlowStrategy<Input, Output> getFlowStrategy() {
-        return BufferFlowStrategy
+        FlowStrategy<Input, Input> buffered = BufferFlowStrategy
                 .<Input>create(getInputBufferSize(), BufferOverflowStrategy.DROP_OLDEST)
                 .with(clockState.getFlowStrategy())
-                .with(PublisherTransformation.liftPublisher(this::sendAndReceive));
+                .with((Publisher<Input> p) -> Flux.from(p).filter(coalescer::shouldSend));
+
+        if (getMaxBatchSize() <= 1) {
+            return isAsynchronous()
+                    ? buffered.with((Publisher<Input> p) -> concatTransactions(
+                            p, this::sendAndReceiveAsync, ReferenceCounted::releaseIfCounted, Queues.XS_BUFFER_SIZE))
+                    : buffered.with(PublisherTransformation.liftPublisher(this::sendAndReceive));
+        }
+        FlowStrategy<Input, List<Input>> batched = buffered
+                .with(BatchingFlowStrategy.<Input>create(getMaxBatchSize()));
+        // request at most one batch ahead of the running transaction, so that the
+        // messages arriving in the meantime form one batch; blocking transactions
+        // run on their own worker so that messages can still arrive meanwhile
+        return (isAsynchronous()
+                ? batched.with((Publisher<List<Input>> p) -> concatTransactions(
+                        p, this::sendAndReceiveBatchAsync, (inputs) -> inputs.forEach(ReferenceCounted::releaseIfCounted), 1))
+                : batched.with((Publisher<List<Input>> p) -> Flux.from(p)
+                        .publishOn(Schedulers.elastic(), 1)
+                        .map(this::sendAndReceiveBatch)))
+                .with((Publisher<List<Output>> p) -> Flux.from(p).flatMapIterable(Function.identity()));
+    }
+
+    /**
+     * Run an asynchronous transaction for each of the given inputs, one after
+     * another, using {@link Flux#concatMap(Function, int)}. The inputs queued
+     * for a transaction are released if the flow is cancelled or fails,
+     * since the queue of {@code concatMap} drops them without notice.
+     *
+     * @param inputs the inputs to run transactions for
+     * @param transaction starts the transaction for an input, releasing it once done
+     * @param release releases an input which is dropped
+     * @param prefetch the number of inputs to queue while a transaction runs
+     * @param <T> the type of input of a transaction
+     * @param <R> the type of result of a transaction
+     * @return a publisher emitting the results of the transactions
+     */
+    private static <T, R> Flux<R> concatTransactions(Publisher<T> inputs,
+                                                     Function<T, Mono<R>> transaction,
+                                                     Consumer<T> release,
+                                                     int prefetch) {
+        return Flux.defer(() -> {
+            Queue<T> queued = new ConcurrentLinkedQueue<>();
+            return Flux.from(inputs)
+                    .doOnNext(queued::offer)
+                    .concatMap((input) -> {
+                        // concatMap takes the inputs in the order they arrived
+                        queued.poll();
+                        return transaction.apply(input);
+                    }, prefetch)
+                    .doFinally((signal) -> {
+                        T input;
+                        while ((input = queued.poll()) != null) {
+                            release.accept(input);
+                        }
+                    });
+        });
     }
 
     /**
      * Create the instance of {@link ClockState} used in {@link #clockState} to
-     * handle clocking and setting the time provider.
+     * handle clocking and setting the time provider. By default, each message is
+     * merged with the clock ticks once, as it arrives, so that reused messages
+     * are not mistaken for repeated ones (see {@link UpdateRequestCoalescer}).
      *
      * @return a new instance of {@link ClockState}
      */
     protected ClockState<Input, Input> createClockState() {
-        return ProcessingClockState.create(updateRequestMessageProvider,
-                new BiFunction<Long, Input, Input>() {
-                    @Nullable Message lastMessage = null;
-                    @Override
-                    public synchronized Input apply(Long time, Input input) {
-                        // if the last message received from upstream is the same
-                        // as the last message sent to the device, use a
-                        // update request instead (because this means that there
-                        // was a tick and now new command)
-                        if (lastMessage == input) {
-                            return updateRequestMessageProvider.get();
-                        }
-                        lastMessage = input;
-                        return input;
-                    }
-                }
-        );
+        return ProcessingClockState.createArriving(updateRequestMessageProvider, coalescer::merge);
     }
 
     @Override
@@ -271,7 +763,8 @@ public abstract class LockingDeviceConnector<Input extends Message, Output exten
     /**
      * @return the time in milliseconds that {@link #sendAndReceive(Message)}
      * waits after sending a message and before trying to retrieve the
-     * answer.
+     * answer. If {@link #isAdaptivePacing()} is enabled, this is
+     * only the initial wait time.
      */
     @Pure
     @Constant
@@ -279,6 +772,165 @@ public abstract class LockingDeviceConnector<Input extends Message, Output exten
         return 10;
     }
 
+    /**
+     * @return the age in milliseconds below which the last answer of the device
+     * is fresh enough that no update request is sent on a clock tick without a
+     * new command (see {@link UpdateRequestCoalescer}), as given by
+     * {@link ConnectorSettings#getMaxAnswerAgeMillis()}. If this is 0, update
+     * requests are only dropped while another request is pending.
+     *
+     * Blocking transactions never overlap the clock: the ticks which occurred while
+     * a transaction was running are only merged after it completed. The update
+     * requests for these ticks are thus only dropped because of the age of the
+     * answer just read, which is why this defaults to
+     * {@link ConnectorSettings#DEFAULT_MAX_ANSWER_AGE_MILLIS}.
+     *
+     * The age is passed to the {@link #coalescer} on construction, so it can
+     * only be changed using the {@link ConnectorSettings}, not by overriding this.
+     */
+    @Pure
+    @Constant
+    protected final int getMaxAnswerAgeMillis() {
+        return settings.getMaxAnswerAgeMillis();
+    }
+
+    /**
+     * @return the maximum number of messages sent to the device in a single
+     * frame, as given by {@link ConnectorSettings#getMaxBatchSize()}.
+     * Batching is disabled if this is not larger than one, which is
+     * the default, because the device has to understand the frames
+     * produced by {@link BatchEncoding}. Frames must fit
+     * into {@link #getMaxMessageSize()} bytes.
+     */
+    @Pure
+    @Constant
+    protected int getMaxBatchSize() {
+        return settings.getMaxBatchSize();
+    }
+
+    /**
+     * @return whether the time waited between sending a message and reading
+     * the answer is adapted to how quickly the device answers (see {@link RequestPacing}),
+     * starting at {@link #getMinRequestTimeMillis()}. Disabled by default.
+     */
+    @Pure
+    protected boolean isAdaptivePacing() {
+        return false;
+    }
+
+    /**
+     * @return the shortest time in microseconds waited between sending a message
+     * and reading the answer if {@link #isAdaptivePacing()} is enabled, a tenth
+     * of {@link #getMinRequestTimeMillis()} by default. The wait time is not
+     * shortened any further even if the device always answers right away.
+     */
+    @Pure
+    @Constant
+    protected int getMinPacedRequestTimeMicros() {
+        return getMinRequestTimeMillis() * 100;
+    }
+
+    /**
+     * @return the longest time in milliseconds to wait for an answer of the
+     * device if {@link #isAdaptivePacing()} is enabled, before reading is not
+     * retried anymore and the transaction fails.
+     */
+    @Pure
+    @Constant
+    protected int getMaxRequestTimeMillis() {
+        return 5 * getMinRequestTimeMillis();
+    }
+
+    /**
+     * @return the pacing of the transactions with the device, which is only
+     * used if {@link #isAdaptivePacing()} is enabled. The current delays are
+     * reported as metrics by {@link #reportTo(RuntimeMetrics)}.
+     */
+    public RequestPacing getRequestPacing() {
+        RequestPacing p = this.pacing;
+        if (p != null) {
+            return p;
+        }
+        synchronized (pacingLock) {
+            p = this.pacing;
+            if (p == null) {
+                p = this.pacing = new RequestPacing(
+                        TimeUnit.MILLISECONDS.toNanos(getMinRequestTimeMillis()),
+                        TimeUnit.MICROSECONDS.toNanos(getMinPacedRequestTimeMicros()),
+                        TimeUnit.MILLISECONDS.toNanos(getMaxRequestTimeMillis()));
+            }
+            return p;
+        }
+    }
+
+    /**
+     * Register the runtime metrics of this connector with the given {@link RuntimeMetrics}:
+     * the delay for each kind of request if {@link #isAdaptivePacing()} is enabled
+     * (see {@link RequestPacing#reportTo(RuntimeMetrics, String)}).
+     *
+     * @param metrics the metrics to register the runtime metrics with
+     */
+    public void reportTo(RuntimeMetrics<String, ?> metrics) {
+        if (isAdaptivePacing()) {
+            getRequestPacing().reportTo(metrics, getDeviceName());
+        }
+    }
+
+    /**
+     * @return whether transactions are executed asynchronously on a shared
+     * timer instead of blocking a thread while waiting for the answer of the
+     * device (see {@link #sendAndReceiveAsync(Message)}). Disabled by default.
+     */
+    @Pure
+    protected boolean isAsynchronous() {
+        return false;
+    }
+
+    /**
+     * @return the maximum number of bytes a single message sent to or
+     * received from the device can have. Used as the capacity of the
+     * buffers reused by {@link #sendAndReceive(Message)}.
+     */
+    @Pure
+    @Constant
+    protected int getMaxMessageSize() {
+        return 256;
+    }
+
+    /**
+     * Sends the remaining bytes of the given buffer to the device,
+     * advancing its position accordingly. Called under the same
+     * conditions as {@link #pushMessage(byte[])}.
+     *
+     * Defaults to copying the bytes into a new array and calling
+     * {@link #pushMessage(byte[])}; subclasses should override this
+     * if their communication channel can write from a buffer directly.
+     *
+     * @param message the buffer holding the bytes to send to the connected device
+     * @throws IOException if there was an error while communicating
+     */
+    protected void pushMessage(ByteBuffer message) throws IOException {
+        byte[] bytes = new byte[message.remaining()];
+        message.get(bytes);
+        pushMessage(bytes);
+    }
+
+    /**
+     * Retrieves bytes from the device into the given buffer at its
+     * current position, advancing it by the number of bytes read.
+     * Called under the same conditions as {@link #retrieveMessage()}.
+     *
+     * Defaults to putting the result of {@link #retrieveMessage()} into
+     * the buffer; subclasses should override this if their communication
+     * channel can read into a buffer directly.
+     *
+     * @param target the buffer to put the received bytes into
+     * @throws IOException if there was an error while communicating
+     */
+    protected void retrieveMessage(ByteBuffer target) throws IOException {
+        target.put(retrieveMessage());
+    }
+
     /**
      * Abstract method to be overridden by subclasses, which sends
      * the given bytes to the device using some specific communication
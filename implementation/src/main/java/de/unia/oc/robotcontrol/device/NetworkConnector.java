@@ -0,0 +1,462 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.flow.FlowStrategy;
+import de.unia.oc.robotcontrol.flow.strategy.TransparentFlowStrategy;
+import de.unia.oc.robotcontrol.message.LatencyTracer;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessageStreamDecoder;
+import de.unia.oc.robotcontrol.message.MessageTypeRegistry;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
+import de.unia.oc.robotcontrol.util.Logger;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A device connected over the network, using a non-blocking
+ * {@link DatagramChannel} (UDP) or {@link SocketChannel} (TCP).
+ * Create instances using {@link #udp(MessageTypeRegistry, SocketAddress)}
+ * or {@link #tcp(MessageTypeRegistry, SocketAddress)}.
+ *
+ * Messages are encoded and decoded using a {@link MessageTypeRegistry}, so
+ * each frame starts with the identifier of its type. Received bytes are split
+ * into frames by a {@link MessageStreamDecoder}; for UDP, every datagram has
+ * to contain whole frames.
+ *
+ * Messages passed to this device are queued, and all queued messages are
+ * written at once (in one datagram for UDP) when the channel is writable,
+ * as far as they fit into the write buffer. All I/O happens on the thread
+ * of a {@link NetworkSelector}, which is shared between devices by default.
+ * Decoded messages are emitted on the parallel scheduler, so that the
+ * subscribers do not block the selector thread.
+ *
+ * Unlike {@link LockingDeviceConnector}, this does not request data from the
+ * device; the device is expected to send its messages on its own.
+ *
+ * @param <I> the type of the identifier used by the registry
+ */
+public class NetworkConnector<I extends Object> implements Device<Message, Message> {
+
+    /**
+     * The default size of the read and write buffers, which keeps
+     * UDP datagrams below the usual MTU of ethernet
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1400;
+
+    /**
+     * The registry used to encode messages passed to this device
+     */
+    private final MessageTypeRegistry<I> registry;
+    /**
+     * The channel connected to the device
+     */
+    private final SelectableChannel channel;
+    /**
+     * The same channel as {@link #channel}, used for reading and writing
+     */
+    private final ByteChannel io;
+    /**
+     * Whether the channel is a datagram channel, whose reads do not
+     * continue frames of previous reads
+     */
+    private final boolean datagram;
+    /**
+     * The address of the device
+     */
+    private final SocketAddress remote;
+    /**
+     * The selector the channel is registered with
+     */
+    private final NetworkSelector selector;
+    /**
+     * Splits the received bytes into frames and decodes them.
+     * Only used on the selector thread.
+     */
+    private final MessageStreamDecoder<I> decoder;
+    /**
+     * The bytes to write to the channel, between writes in 'read mode'.
+     * Only used on the selector thread.
+     */
+    private final ByteBuffer writeBuffer;
+    /**
+     * Messages passed to this device which have not been encoded yet
+     */
+    private final Queue<Message> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * Whether the selector waits for the channel to become writable
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    /**
+     * The sinks of the current subscribers to {@link #output}
+     */
+    private final List<FluxSink<Message>> sinks = new CopyOnWriteArrayList<>();
+
+    private final Subscriber<Message> input;
+    private final Flux<Message> output;
+    private final UUID uuid;
+    private volatile boolean isTerminated = false;
+
+    /**
+     * Creates a new instance of {@link NetworkConnector} communicating over
+     * the given connected channel, and registers it with the given selector.
+     *
+     * @param registry the registry used to encode and decode messages
+     * @param channel the channel connected to the device, which is made non-blocking
+     * @param remote the address of the device
+     * @param selector the selector to register the channel with
+     * @param bufferSize the size of the read and write buffers, which limits
+     *                   the size of frames and of batches of written frames
+     * @param <C> the type of channel
+     * @throws IOException if the channel could not be made non-blocking
+     */
+    @SuppressWarnings("initialization")
+    protected <C extends SelectableChannel & ByteChannel> NetworkConnector(
+            MessageTypeRegistry<I> registry,
+            C channel,
+            SocketAddress remote,
+            NetworkSelector selector,
+            int bufferSize) throws IOException {
+        this.registry = registry;
+        this.channel = channel;
+        this.io = channel;
+        this.datagram = channel instanceof DatagramChannel;
+        this.remote = remote;
+        this.selector = selector;
+        this.uuid = UUID.randomUUID();
+
+        this.decoder = new MessageStreamDecoder<>(registry, bufferSize, this::emit);
+        this.writeBuffer = ByteBuffer.allocate(bufferSize);
+        this.writeBuffer.flip();
+
+        this.input = new Subscriber<Message>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Message message) {
+                enqueue(message);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                Logger.instance().debugException(throwable, "[NetworkConnector] Upstream failed");
+            }
+
+            @Override
+            public void onComplete() { }
+        };
+        this.output = Flux
+                .<Message>create((sink) -> {
+                    sinks.add(sink);
+                    sink.onDispose(() -> sinks.remove(sink));
+                })
+                .publishOn(Schedulers.parallel());
+
+        channel.configureBlocking(false);
+        selector.register(channel, SelectionKey.OP_READ, this::onReady);
+    }
+
+    /**
+     * Create a device which sends and receives datagrams to and from
+     * the given address, using the shared {@link NetworkSelector}.
+     *
+     * @param registry the registry used to encode and decode messages
+     * @param remote the address of the device
+     * @param <I> the type of the identifier used by the registry
+     * @return a new {@link NetworkConnector}
+     * @throws IOException if the channel could not be opened
+     */
+    public static <I extends Object> NetworkConnector<I> udp(
+            MessageTypeRegistry<I> registry, SocketAddress remote) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            channel.connect(remote);
+            return new NetworkConnector<>(registry, channel, remote, NetworkSelector.shared(), DEFAULT_BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Create a device which connects to the given address over TCP,
+     * using the shared {@link NetworkSelector}.
+     * Blocks until the connection has been established.
+     *
+     * @param registry the registry used to encode and decode messages
+     * @param remote the address of the device
+     * @param <I> the type of the identifier used by the registry
+     * @return a new {@link NetworkConnector}
+     * @throws IOException if the connection could not be established
+     */
+    public static <I extends Object> NetworkConnector<I> tcp(
+            MessageTypeRegistry<I> registry, SocketAddress remote) throws IOException {
+        SocketChannel channel = SocketChannel.open(remote);
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            return new NetworkConnector<>(registry, channel, remote, NetworkSelector.shared(), DEFAULT_BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Queue the given message to be written, and make the
+     * selector wait for the channel to become writable.
+     *
+     * @param message the message to write
+     */
+    private void enqueue(Message message) {
+        if (isTerminated) {
+            ReferenceCounted.releaseIfCounted(message);
+            return;
+        }
+        pending.offer(message);
+        if (flushScheduled.compareAndSet(false, true)) {
+            selector.setInterest(channel, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Called on the selector thread when the channel is ready.
+     * Terminates this device if reading or writing failed.
+     *
+     * @param key the key of the channel
+     */
+    private void onReady(SelectionKey key) {
+        try {
+            if (key.isReadable()) {
+                read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(key);
+            }
+        } catch (IOException e) {
+            Logger.instance().debugException(e, "[NetworkConnector] Connection failed: " + remote);
+            terminate();
+        }
+    }
+
+    /**
+     * Read and decode everything available from the channel.
+     * Terminates this device if the device closed the connection.
+     *
+     * @throws IOException if reading failed
+     */
+    private void read() throws IOException {
+        while (true) {
+            if (datagram) {
+                decoder.reset();
+            }
+            int read;
+            try {
+                read = decoder.readFrom(io);
+            } catch (PortUnreachableException e) {
+                // nobody listens at the address (yet), the datagrams are lost
+                Logger.instance().debugException(e, "[NetworkConnector] Device unreachable: " + remote);
+                return;
+            }
+            if (read < 0) {
+                terminate();
+                return;
+            }
+            if (read == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write as many queued messages to the channel as possible, and stop
+     * waiting for writability once all of them have been written.
+     *
+     * @param key the key of the channel
+     * @throws IOException if writing failed
+     */
+    private void flush(SelectionKey key) throws IOException {
+        if (!writeBuffer.hasRemaining()) {
+            fillWriteBuffer();
+        }
+        if (writeBuffer.hasRemaining()) {
+            io.write(writeBuffer);
+        }
+        if (writeBuffer.hasRemaining() || !pending.isEmpty()) {
+            return;
+        }
+        flushScheduled.set(false);
+        key.interestOps(SelectionKey.OP_READ);
+        // a message may have been queued after checking, but before the flag was reset
+        if (!pending.isEmpty() && flushScheduled.compareAndSet(false, true)) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Encode as many queued messages into the {@link #writeBuffer} as fit.
+     * Messages which can not be encoded, or do not fit into the empty
+     * buffer, are logged and dropped. Written messages are released.
+     */
+    private void fillWriteBuffer() {
+        LatencyTracer tracer = LatencyTracer.instance();
+        writeBuffer.clear();
+        Message message;
+        while ((message = pending.peek()) != null) {
+            int start = writeBuffer.position();
+            try {
+                registry.encodeInto(message, writeBuffer);
+                tracer.complete(message);
+            } catch (BufferOverflowException e) {
+                writeBuffer.position(start);
+                if (start > 0) {
+                    break;
+                }
+                Logger.instance().debugException(e, "[NetworkConnector] Message too large: " + message);
+            } catch (IllegalArgumentException e) {
+                writeBuffer.position(start);
+                Logger.instance().debugException(e, "[NetworkConnector] Could not encode message: " + message);
+            }
+            pending.poll();
+            ReferenceCounted.releaseIfCounted(message);
+        }
+        writeBuffer.flip();
+    }
+
+    /**
+     * Pass a decoded message to all subscribers, retaining a reference
+     * for every further subscriber. Releases the message if there are
+     * no subscribers.
+     *
+     * @param message the decoded message
+     */
+    private void emit(Message message) {
+        List<FluxSink<Message>> targets = new ArrayList<>(sinks);
+        if (targets.isEmpty()) {
+            ReferenceCounted.releaseIfCounted(message);
+            return;
+        }
+        ReferenceCounted.retainIfCounted(message, targets.size() - 1);
+        for (FluxSink<Message> sink : targets) {
+            sink.next(message);
+        }
+    }
+
+    @Override
+    public Publisher<Message> asPublisher() {
+        return output;
+    }
+
+    @Override
+    public Subscriber<Message> asSubscriber() {
+        return input;
+    }
+
+    @Override
+    public Processor<Message, Message> asProcessor() {
+        return new Processor<Message, Message>() {
+            @Override
+            public void subscribe(Subscriber<? super Message> subscriber) {
+                output.subscribe(subscriber);
+            }
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                input.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(Message message) {
+                input.onNext(message);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                input.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                input.onComplete();
+            }
+        };
+    }
+
+    @Override
+    public FlowStrategy<Message, Message> getFlowStrategy() {
+        return TransparentFlowStrategy.create();
+    }
+
+    @Override
+    public ClockType getClockType() {
+        return ClockType.UNCLOCKED;
+    }
+
+    @Override
+    public UUID getDeviceUUID() {
+        return this.uuid;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Network Device (" + remote + ")";
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isTerminated;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Closes the channel on the selector thread, completes the
+     * subscribers and releases all messages which have not been written.
+     */
+    @Override
+    public synchronized void terminate() {
+        if (isTerminated) {
+            return;
+        }
+        isTerminated = true;
+        selector.execute(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Logger.instance().debugException(e, "[NetworkConnector] Could not close channel");
+            }
+        });
+        for (FluxSink<Message> sink : sinks) {
+            sink.complete();
+        }
+        Message message;
+        while ((message = pending.poll()) != null) {
+            ReferenceCounted.releaseIfCounted(message);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.concurrent.Terminable;
+import de.unia.oc.robotcontrol.util.Logger;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single thread waiting for I/O readiness of non-blocking channels
+ * using a {@link Selector}, so that many network devices
+ * ({@link NetworkConnector}) can share one thread instead of
+ * blocking one thread each.
+ *
+ * The selector may only be used from its own thread, so registrations
+ * and changes of the interest set are passed to it as tasks using
+ * {@link #execute(Runnable)}, which wakes it up.
+ * Handlers are called on the selector thread and must not block.
+ */
+public final class NetworkSelector implements Terminable {
+
+    /**
+     * Called on the selector thread when a registered channel is ready.
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * Handle the readiness of the channel of the given key.
+         * If this throws, the key is cancelled.
+         *
+         * @param key the selection key of the ready channel
+         * @throws IOException if reading from or writing to the channel failed
+         */
+        void onReady(SelectionKey key) throws IOException;
+    }
+
+    /**
+     * The instance shared by all devices which are not given a selector
+     */
+    private static @MonotonicNonNull NetworkSelector shared;
+
+    private final Selector selector;
+    /**
+     * Tasks to run on the selector thread before the next select
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean isTerminated = false;
+
+    /**
+     * Creates a new instance of {@link NetworkSelector}
+     * and starts its thread.
+     *
+     * @param name the name of the selector thread
+     * @throws IOException if the selector could not be opened
+     */
+    @SuppressWarnings("initialization")
+    public NetworkSelector(String name) throws IOException {
+        this.selector = Selector.open();
+        Thread thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the selector shared by all network devices
+     * which have not been given their own
+     * @throws IOException if the shared selector had to be created and could not be opened
+     */
+    public static synchronized NetworkSelector shared() throws IOException {
+        if (shared == null || shared.isTerminated()) {
+            shared = new NetworkSelector("Shared Network Selector");
+        }
+        return shared;
+    }
+
+    /**
+     * Run the given task on the selector thread
+     * before it waits for readiness the next time.
+     *
+     * @param task the task to run
+     */
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Register the given non-blocking channel with this selector.
+     *
+     * @param channel the channel to register
+     * @param ops the operations to wait for, see {@link SelectionKey}
+     * @param handler called when the channel is ready for one of the operations
+     */
+    public void register(SelectableChannel channel, int ops, Handler handler) {
+        execute(() -> {
+            try {
+                channel.register(selector, ops, handler);
+            } catch (ClosedChannelException e) {
+                Logger.instance().debugException(e, "[NetworkSelector] Channel closed before registration");
+            }
+        });
+    }
+
+    /**
+     * Change the operations the given channel is waiting for.
+     * Does nothing if the channel is not registered (anymore).
+     *
+     * @param channel the registered channel
+     * @param ops the operations to wait for, see {@link SelectionKey}
+     */
+    public void setInterest(SelectableChannel channel, int ops) {
+        execute(() -> {
+            SelectionKey key = channel.keyFor(selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(ops);
+            }
+        });
+    }
+
+    private void run() {
+        while (!isTerminated) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                Logger.instance().debugException(e, "[NetworkSelector] Select failed, stopping");
+                isTerminated = true;
+                break;
+            }
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Logger.instance().debugException(e, "[NetworkSelector] Task failed");
+                }
+            }
+            Iterator<SelectionKey> ready = selector.selectedKeys().iterator();
+            while (ready.hasNext()) {
+                SelectionKey key = ready.next();
+                ready.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                try {
+                    ((Handler) key.attachment()).onReady(key);
+                } catch (IOException | RuntimeException e) {
+                    Logger.instance().debugException(e, "[NetworkSelector] Handler failed, cancelling key");
+                    key.cancel();
+                }
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            Logger.instance().debugException(e, "[NetworkSelector] Could not close selector");
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isTerminated;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Stops the selector thread. The registered channels are not closed.
+     */
+    @Override
+    public void terminate() {
+        isTerminated = true;
+        selector.wakeup();
+    }
+}
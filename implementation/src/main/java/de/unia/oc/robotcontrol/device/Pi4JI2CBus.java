@@ -0,0 +1,100 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import com.pi4j.io.i2c.I2CBus;
+import com.pi4j.io.i2c.I2CDevice;
+import com.pi4j.io.i2c.I2CFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An implementation of {@link I2CBusArbiter.Bus} using the Pi4J library,
+ * which assumes execution on a raspberry pi.
+ *
+ * Use {@link #attach(int, int, int)} to share one bus between all devices
+ * ({@link I2CConnector}) connected to it.
+ */
+public final class Pi4JI2CBus implements I2CBusArbiter.Bus {
+
+    /**
+     * The arbiters created by {@link #attach(int, int, int)}, by bus id
+     */
+    private static final Map<Integer, I2CBusArbiter> ARBITERS = new HashMap<>();
+
+    /**
+     * The Pi4J i2c bus instance used for communication
+     */
+    private final I2CBus i2c;
+    /**
+     * The Pi4J i2c device instances used for communication, by address
+     */
+    private final Map<Integer, I2CDevice> devices = new HashMap<>();
+
+    /**
+     * Creates a new instance of {@link Pi4JI2CBus} opening the bus with the given id.
+     *
+     * @param bus the id of the i2c bus
+     * @throws IOException if the bus could not be opened
+     * @throws IllegalArgumentException if the bus id is not supported by Pi4J
+     */
+    public Pi4JI2CBus(int bus) throws IOException, IllegalArgumentException {
+        try {
+            this.i2c = I2CFactory.getInstance(bus);
+        } catch (I2CFactory.UnsupportedBusNumberException e) {
+            throw new IllegalArgumentException("Unsupported bus number! " + bus, e);
+        }
+    }
+
+    /**
+     * Attach a device to the arbiter owning the bus with the given id, opening
+     * the bus if it is not in use yet. Once all devices have been detached
+     * from the arbiter, the bus is closed and a new one is opened on the next call.
+     *
+     * The arbiter is looked up and attached to at once, so that it can not
+     * be terminated in between by its last device being detached.
+     *
+     * @param bus the id of the i2c bus
+     * @param address the address of the device
+     * @param priority the priority of the device, see {@link I2CBusArbiter#attach(int, int)}
+     * @return the channel used by the device to access the shared bus
+     * @throws IOException if the bus could not be opened
+     * @throws IllegalArgumentException if the bus id is not supported by Pi4J
+     */
+    public static synchronized I2CBusArbiter.Channel attach(int bus, int address, int priority)
+            throws IOException, IllegalArgumentException {
+        I2CBusArbiter arbiter = ARBITERS.get(bus);
+        I2CBusArbiter.Channel channel = arbiter != null ? arbiter.tryAttach(address, priority) : null;
+        if (channel == null) {
+            arbiter = new I2CBusArbiter(new Pi4JI2CBus(bus));
+            ARBITERS.put(bus, arbiter);
+            channel = arbiter.attach(address, priority);
+        }
+        return channel;
+    }
+
+    private synchronized I2CDevice getDevice(int address) throws IOException {
+        I2CDevice device = devices.get(address);
+        if (device == null) {
+            device = i2c.getDevice(address);
+            devices.put(address, device);
+        }
+        return device;
+    }
+
+    @Override
+    public void write(int address, byte[] buffer, int offset, int length) throws IOException {
+        getDevice(address).write(buffer, offset, length);
+    }
+
+    @Override
+    public int read(int address, byte[] buffer, int offset, int length) throws IOException {
+        return getDevice(address).read(buffer, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        i2c.close();
+    }
+}
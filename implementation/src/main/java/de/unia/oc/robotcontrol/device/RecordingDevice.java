@@ -0,0 +1,250 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.coding.Encoding;
+import de.unia.oc.robotcontrol.flow.FlowStrategy;
+import de.unia.oc.robotcontrol.flow.MappedLogFile;
+import de.unia.oc.robotcontrol.flow.function.ProcessorTransformation;
+import de.unia.oc.robotcontrol.message.LazyMessage;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessageTypeRegistry;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
+import de.unia.oc.robotcontrol.util.Logger;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * A device which passes all messages on to and from another device unchanged,
+ * and records them in a {@link MappedLogFile} with the time (in ns since
+ * the recording started) they passed, so that the session can be replayed
+ * without hardware using a {@link ReplayDevice}.
+ *
+ * Messages passed to the device are recorded as {@link #INPUT}, messages
+ * emitted by it as {@link #OUTPUT}. The messages emitted are shared between
+ * all subscribers of {@link #asPublisher()}, so that each is recorded once;
+ * the recorded device is subscribed to with the first subscriber.
+ * Messages are encoded using the given
+ * encoding, usually a {@link MessageTypeRegistry}. {@link LazyMessage}s are
+ * decoded to be recorded. Messages which can not be encoded are logged
+ * and passed on without being recorded.
+ */
+public class RecordingDevice implements Device<Message, Message> {
+
+    /**
+     * The kind of the records of messages passed to the recorded device
+     */
+    public static final int INPUT = 0;
+
+    /**
+     * The kind of the records of messages emitted by the recorded device
+     */
+    public static final int OUTPUT = 1;
+
+    /**
+     * The default largest number of bytes of an encoded message
+     */
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 256;
+
+    private final Device<Message, Message> device;
+    private final Encoding<Message> encoding;
+    private final MappedLogFile log;
+    /**
+     * The buffer messages are encoded into, guarded by itself
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The time (as {@link System#nanoTime()}) the recording started
+     */
+    private final long startedAt;
+
+    private final Subscriber<Message> input;
+    private final Flux<Message> output;
+    private final UUID uuid;
+    private volatile boolean isTerminated = false;
+
+    /**
+     * Creates a new instance of {@link RecordingDevice}.
+     *
+     * @param device the device to record the messages of
+     * @param encoding the encoding used to record the messages
+     * @param log the path of the log to record to, replaced if it exists
+     * @param maxMessageSize the largest number of bytes of an encoded message
+     * @throws IOException if the log could not be created
+     */
+    @SuppressWarnings("initialization")
+    public RecordingDevice(Device<Message, Message> device,
+                           Encoding<Message> encoding,
+                           Path log,
+                           int maxMessageSize) throws IOException {
+        this.device = device;
+        this.encoding = encoding;
+        this.log = MappedLogFile.create(log, MappedLogFile.DEFAULT_REGION_SIZE);
+        this.buffer = ByteBuffer.allocate(Math.min(maxMessageSize, this.log.getMaxRecordSize()));
+        this.startedAt = System.nanoTime();
+
+        this.input = new RecordingSubscriber(device.asSubscriber());
+        this.output = Flux
+                .from(device.asPublisher())
+                .doOnNext((m) -> record(OUTPUT, m))
+                .publish()
+                .autoConnect();
+        this.uuid = UUID.randomUUID();
+    }
+
+    /**
+     * Creates a new instance of {@link RecordingDevice} which records
+     * the messages using the given registry.
+     *
+     * @param device the device to record the messages of
+     * @param registry the registry used to encode the messages
+     * @param log the path of the log to record to, replaced if it exists
+     * @throws IOException if the log could not be created
+     */
+    public RecordingDevice(Device<Message, Message> device, MessageTypeRegistry<?> registry, Path log) throws IOException {
+        this(device, registry, log, DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    /**
+     * Encode the given message and append it to the log.
+     *
+     * @param kind the kind of the record, {@link #INPUT} or {@link #OUTPUT}
+     * @param message the message to record
+     */
+    private void record(int kind, Message message) {
+        long timestamp = System.nanoTime() - startedAt;
+        Message decoded = message;
+        try {
+            decoded = LazyMessage.materialize(message);
+            synchronized (buffer) {
+                if (isTerminated) {
+                    return;
+                }
+                buffer.clear();
+                encoding.encodeInto(decoded, buffer);
+                buffer.flip();
+                log.append(kind, timestamp, buffer);
+            }
+        } catch (IOException | IllegalArgumentException | IllegalStateException | BufferOverflowException e) {
+            Logger.instance().debugException(e, "[RecordingDevice] Could not record message: " + message);
+        } finally {
+            if (decoded != message) {
+                // materializing retained a reference to the decoded message
+                ReferenceCounted.releaseIfCounted(decoded);
+            }
+        }
+    }
+
+    /**
+     * @return the number of messages recorded so far
+     */
+    public long getRecordCount() {
+        return log.getRecordCount();
+    }
+
+    @Override
+    public Publisher<Message> asPublisher() {
+        return output;
+    }
+
+    @Override
+    public Subscriber<Message> asSubscriber() {
+        return input;
+    }
+
+    @Override
+    public Processor<Message, Message> asProcessor() {
+        return ProcessorTransformation.transformProcessor(
+                device.asProcessor(),
+                (Subscriber<Message> s) -> input,
+                (Publisher<Message> p) -> output);
+    }
+
+    @Override
+    public FlowStrategy<Message, Message> getFlowStrategy() {
+        return device.getFlowStrategy();
+    }
+
+    @Override
+    public ClockType getClockType() {
+        return device.getClockType();
+    }
+
+    @Override
+    public UUID getDeviceUUID() {
+        return this.uuid;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Recording " + device.getDeviceName();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isTerminated;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Terminates the recorded device and closes the log.
+     */
+    @Override
+    public synchronized void terminate() {
+        if (isTerminated) {
+            return;
+        }
+        isTerminated = true;
+        device.terminate();
+        synchronized (buffer) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                Logger.instance().debugException(e, "[RecordingDevice] Could not close log");
+            }
+        }
+    }
+
+    /**
+     * Records the messages passed to the recorded device
+     * before passing them on to it.
+     */
+    private final class RecordingSubscriber implements Subscriber<Message> {
+
+        private final Subscriber<Message> target;
+
+        RecordingSubscriber(Subscriber<Message> target) {
+            this.target = target;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            target.onSubscribe(s);
+        }
+
+        @Override
+        public void onNext(Message message) {
+            record(INPUT, message);
+            target.onNext(message);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            target.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            target.onComplete();
+        }
+    }
+}
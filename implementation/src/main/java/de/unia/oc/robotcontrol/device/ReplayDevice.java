@@ -0,0 +1,257 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.coding.Encoding;
+import de.unia.oc.robotcontrol.flow.FlowStrategy;
+import de.unia.oc.robotcontrol.flow.MappedLogFile;
+import de.unia.oc.robotcontrol.flow.WaitStrategy;
+import de.unia.oc.robotcontrol.flow.function.ProcessorTransformation;
+import de.unia.oc.robotcontrol.flow.function.SubscriberTransformation;
+import de.unia.oc.robotcontrol.flow.strategy.TransparentFlowStrategy;
+import de.unia.oc.robotcontrol.message.LatencyTracer;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessageTypeRegistry;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
+import de.unia.oc.robotcontrol.util.Logger;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A device which replays the messages emitted by a device during a session
+ * recorded by a {@link RecordingDevice}, so that observer and controller can
+ * be run and benchmarked against a recorded session without hardware.
+ *
+ * The messages are emitted with the same time between them as they were
+ * recorded with, divided by the given speed: 1 replays the session in real
+ * time, 2 twice as fast, and {@link #MAX_SPEED} emits the messages as fast
+ * as the subscriber requests them. Each subscriber to {@link #asPublisher()}
+ * is served by its own replay thread, starting from the beginning of the log.
+ * The output completes once all messages have been replayed,
+ * or this device has been terminated.
+ *
+ * Messages passed to this device (commands) are counted and released,
+ * as the recorded session can not react to them.
+ */
+public class ReplayDevice implements Device<Message, Message> {
+
+    /**
+     * The speed at which messages are replayed without any delay between them
+     */
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    /**
+     * The longest time (in ns) a replay thread waits
+     * before checking whether it has been stopped
+     */
+    private static final long MAX_PARK_NANOS = 10_000_000;
+
+    private final Encoding<Message> decoding;
+    private final Path log;
+    private final double speed;
+
+    private final EmitterProcessor<Message> inputProcessor;
+    private final Subscriber<Message> input;
+    private final Flux<Message> output;
+    private final UUID uuid;
+    /**
+     * Used to number the replay threads
+     */
+    private final AtomicInteger replayCount = new AtomicInteger();
+    /**
+     * The number of messages passed to this device
+     */
+    private final AtomicLong receivedCount = new AtomicLong();
+    private volatile boolean isTerminated = false;
+
+    /**
+     * Creates a new instance of {@link ReplayDevice}.
+     *
+     * @param decoding the encoding used to decode the recorded messages
+     * @param log the path of the log written by a {@link RecordingDevice}
+     * @param speed the factor by which the replay is faster than the recording,
+     *              or {@link #MAX_SPEED}
+     * @throws IllegalArgumentException if the speed is not positive
+     */
+    @SuppressWarnings("initialization")
+    public ReplayDevice(Encoding<Message> decoding, Path log, double speed) throws IllegalArgumentException {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed has to be positive, was: " + speed);
+        }
+        this.decoding = decoding;
+        this.log = log;
+        this.speed = speed;
+
+        this.inputProcessor = EmitterProcessor.create();
+        this.input = SubscriberTransformation.unboundedSubscription(
+                SubscriberTransformation.anonymizeSubscription(inputProcessor));
+        this.inputProcessor.subscribe(this::receive);
+        this.output = Flux.create(this::replay);
+        this.uuid = UUID.randomUUID();
+    }
+
+    /**
+     * Creates a new instance of {@link ReplayDevice} which decodes
+     * the messages using the given registry and replays them in real time.
+     *
+     * @param registry the registry used to decode the recorded messages
+     * @param log the path of the log written by a {@link RecordingDevice}
+     */
+    public ReplayDevice(MessageTypeRegistry<?> registry, Path log) {
+        this(registry, log, 1);
+    }
+
+    private void receive(Message message) {
+        receivedCount.incrementAndGet();
+        ReferenceCounted.releaseIfCounted(message);
+    }
+
+    /**
+     * Start a replay thread which emits the recorded
+     * messages to the given sink.
+     *
+     * @param sink the sink of a subscriber to {@link #output}
+     */
+    private void replay(FluxSink<Message> sink) {
+        AtomicBoolean running = new AtomicBoolean(true);
+        sink.onDispose(() -> running.set(false));
+
+        Thread replay = new Thread(() -> {
+            try (MappedLogFile file = MappedLogFile.open(log)) {
+                MappedLogFile.Reader records = file.reader();
+                LatencyTracer tracer = LatencyTracer.instance();
+                long startedAt = System.nanoTime();
+                ByteBuffer record;
+                while ((record = records.poll()) != null) {
+                    if (records.getKind() != RecordingDevice.OUTPUT) {
+                        continue;
+                    }
+                    if (!awaitReplayTime(startedAt, records.getTimestamp(), running)
+                            || !awaitDemand(sink, running)) {
+                        break;
+                    }
+                    try {
+                        Message message = decoding.decodeFrom(record);
+                        tracer.begin(message);
+                        sink.next(message);
+                    } catch (IllegalArgumentException e) {
+                        Logger.instance().debugException(e, "[ReplayDevice] Could not decode message");
+                    }
+                }
+                sink.complete();
+            } catch (IOException e) {
+                sink.error(e);
+            }
+        }, "ReplayDevice " + replayCount.incrementAndGet());
+        replay.setDaemon(true);
+        replay.start();
+    }
+
+    /**
+     * Wait until the time the record with the given
+     * timestamp is to be emitted at.
+     *
+     * @return whether the replay is still running
+     */
+    private boolean awaitReplayTime(long startedAt, long timestamp, AtomicBoolean running) {
+        if (Double.isInfinite(speed)) {
+            return isRunning(running);
+        }
+        long deadline = startedAt + (long) (timestamp / speed);
+        long remaining;
+        while (isRunning(running) && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(Math.min(remaining, MAX_PARK_NANOS));
+        }
+        return isRunning(running);
+    }
+
+    /**
+     * Wait until the subscriber has requested another message.
+     *
+     * @return whether the replay is still running
+     */
+    private boolean awaitDemand(FluxSink<Message> sink, AtomicBoolean running) {
+        int idleCount = 0;
+        while (isRunning(running) && sink.requestedFromDownstream() <= 0) {
+            WaitStrategy.PARK.idle(idleCount++);
+        }
+        return isRunning(running);
+    }
+
+    private boolean isRunning(AtomicBoolean running) {
+        return running.get() && !isTerminated;
+    }
+
+    /**
+     * @return the number of messages passed to this device
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    @Override
+    public Publisher<Message> asPublisher() {
+        return output;
+    }
+
+    @Override
+    public Subscriber<Message> asSubscriber() {
+        return input;
+    }
+
+    @Override
+    public Processor<Message, Message> asProcessor() {
+        return ProcessorTransformation.transformProcessor(
+                inputProcessor,
+                (Subscriber<Message> s) -> input,
+                (Publisher<Message> p) -> output);
+    }
+
+    @Override
+    public FlowStrategy<Message, Message> getFlowStrategy() {
+        return TransparentFlowStrategy.create();
+    }
+
+    @Override
+    public ClockType getClockType() {
+        return ClockType.UNCLOCKED;
+    }
+
+    @Override
+    public UUID getDeviceUUID() {
+        return this.uuid;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Replay (" + log + ")";
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isTerminated;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Stops the replay threads, which complete their output.
+     */
+    @Override
+    public void terminate() {
+        isTerminated = true;
+        inputProcessor.onComplete();
+    }
+}
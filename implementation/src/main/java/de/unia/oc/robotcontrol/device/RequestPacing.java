@@ -0,0 +1,294 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.visualization.RuntimeMetrics;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Adapts the time a device connector waits between sending a request
+ * and reading the answer to how quickly the device actually answers,
+ * separately for each kind of request (usually the message type).
+ *
+ * Starting from a safe initial delay, the delay is shortened a little
+ * every {@link #PROBE_INTERVAL} requests which were answered on the first
+ * attempt. If the answer can not be read yet (reading fails), reading is
+ * retried with an exponential backoff, and the delay is raised to the time
+ * after which reading succeeded. The delay thus converges on the smallest
+ * delay after which the device is ready, while only a small fraction of the
+ * requests need a second read. The delay never drops below a minimum delay,
+ * so that a device which always answers right away is not polled ever sooner.
+ *
+ * This relies on the device answering only once it is ready: reading has to
+ * fail without side effects while the answer is not available yet, instead of
+ * returning a stale or partial answer or blocking until the answer arrives
+ * (see {@link Attempt}).
+ *
+ * @see LockingDeviceConnector#isAdaptivePacing()
+ */
+public final class RequestPacing {
+
+    /**
+     * The number of requests answered on the first attempt
+     * after which a shorter delay is tried
+     */
+    public static final int PROBE_INTERVAL = 4;
+
+    /**
+     * The delay is shortened by this fraction of it
+     */
+    private static final int PROBE_DIVISOR = 8;
+
+    /**
+     * The time waited before the first retry, doubled for each further retry
+     */
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * A single attempt to read the answer of the device.
+     *
+     * An attempt has to fail right away if the device is not ready yet, and must
+     * not consume any part of the answer in that case, so that the next attempt
+     * can still read all of it. The device is assumed to have been ready when the
+     * successful attempt was started.
+     *
+     * @param <T> the type of the answer
+     */
+    @FunctionalInterface
+    public interface Attempt<T> {
+
+        /**
+         * @return the answer of the device
+         * @throws IOException if the answer could not be read (yet)
+         * @throws IllegalArgumentException if the answer could not be decoded (yet)
+         */
+        T run() throws IOException, IllegalArgumentException;
+    }
+
+    /**
+     * The source of the current time, and the means to wait for a later time
+     */
+    public interface Timer {
+
+        /**
+         * The timer using {@link System#nanoTime()}, parking the current thread to wait
+         */
+        Timer SYSTEM = new Timer() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void sleepUntil(long deadline) throws InterruptedException {
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(remaining);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+        };
+
+        /**
+         * @return the current time in ns, see {@link System#nanoTime()}
+         */
+        long nanoTime();
+
+        /**
+         * Wait until the given time has passed.
+         *
+         * @param deadline the time (as returned by {@link #nanoTime()}) to wait for
+         * @throws InterruptedException if the thread was interrupted while waiting
+         */
+        void sleepUntil(long deadline) throws InterruptedException;
+    }
+
+    private final long initialDelayNanos;
+    private final long minDelayNanos;
+    private final long maxWaitNanos;
+    private final Timer timer;
+    private final Map<Object, Pace> paces = new ConcurrentHashMap<>();
+    private volatile @Nullable RuntimeMetrics<String, ?> metrics;
+    private volatile String metricsPrefix = "";
+
+    /**
+     * Creates a new instance of {@link RequestPacing} using the {@link Timer#SYSTEM} timer.
+     *
+     * @param initialDelayNanos the delay (in ns) used for the first request of each kind
+     * @param minDelayNanos the shortest delay (in ns) ever used
+     * @param maxWaitNanos the longest time (in ns) to wait for an answer
+     *                     before reading is not retried anymore
+     * @throws IllegalArgumentException if the delays are negative, or not ordered
+     */
+    public RequestPacing(long initialDelayNanos, long minDelayNanos, long maxWaitNanos) {
+        this(initialDelayNanos, minDelayNanos, maxWaitNanos, Timer.SYSTEM);
+    }
+
+    /**
+     * Creates a new instance of {@link RequestPacing}.
+     *
+     * @param initialDelayNanos the delay (in ns) used for the first request of each kind
+     * @param minDelayNanos the shortest delay (in ns) ever used
+     * @param maxWaitNanos the longest time (in ns) to wait for an answer
+     *                     before reading is not retried anymore
+     * @param timer the timer used to measure and wait for the answers
+     * @throws IllegalArgumentException if the delays are negative, or not ordered
+     */
+    public RequestPacing(long initialDelayNanos, long minDelayNanos, long maxWaitNanos, Timer timer) {
+        if (minDelayNanos < 0 || initialDelayNanos < minDelayNanos || maxWaitNanos < initialDelayNanos) {
+            throw new IllegalArgumentException(
+                    "The delays have to satisfy 0 <= minimum delay <= initial delay <= maximum wait time!");
+        }
+        this.initialDelayNanos = initialDelayNanos;
+        this.minDelayNanos = minDelayNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.timer = timer;
+    }
+
+    /**
+     * @param key the kind of request
+     * @return the time (in ns) to wait after sending a request
+     * of the given kind before trying to read the answer
+     */
+    public long getDelayNanos(Object key) {
+        return paceOf(key).delayNanos;
+    }
+
+    /**
+     * @param retries the number of retries so far
+     * @return the time (in ns) to wait before the next retry
+     */
+    public long getBackoffNanos(int retries) {
+        return INITIAL_BACKOFF_NANOS << Math.min(retries, 16);
+    }
+
+    /**
+     * @param sentAt the time (as {@link Timer#nanoTime()}) the request was sent
+     * @param retries the number of retries so far
+     * @return whether reading should be retried after {@link #getBackoffNanos(int)}
+     */
+    public boolean shouldRetry(long sentAt, int retries) {
+        return timer.nanoTime() + getBackoffNanos(retries) - sentAt <= maxWaitNanos;
+    }
+
+    /**
+     * Record that the answer to a request of the given kind could be read.
+     * The delay is kept between the minimum delay and the maximum wait time.
+     *
+     * @param key the kind of request
+     * @param readyAfterNanos the time (in ns) between sending the request
+     *                        and starting the successful attempt to read
+     * @param retries the number of failed attempts before
+     */
+    public void onAnswered(Object key, long readyAfterNanos, int retries) {
+        Pace pace = paceOf(key);
+        synchronized (pace) {
+            if (retries > 0) {
+                pace.delayNanos = Math.max(minDelayNanos, Math.min(readyAfterNanos, maxWaitNanos));
+                pace.answeredCount = 0;
+            } else if (++pace.answeredCount >= PROBE_INTERVAL) {
+                pace.answeredCount = 0;
+                if (pace.delayNanos <= minDelayNanos) {
+                    return;
+                }
+                pace.delayNanos = Math.max(minDelayNanos, pace.delayNanos - pace.delayNanos / PROBE_DIVISOR);
+            } else {
+                return;
+            }
+            pace.report();
+        }
+    }
+
+    /**
+     * Wait for the answer to a request of the given kind, which has just been sent.
+     * Waits {@link #getDelayNanos(Object)}, then tries to read the answer,
+     * retrying as described in {@link RequestPacing}.
+     *
+     * @param key the kind of request
+     * @param sentAt the time (as {@link Timer#nanoTime()}) the request was sent
+     * @param attempt reads the answer, see {@link Attempt} for when it has to fail
+     * @param <T> the type of the answer
+     * @return the answer of the device
+     * @throws IOException if the answer could not be read before the maximum wait time
+     * @throws IllegalArgumentException if the answer could not be decoded before the maximum wait time
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public <T> T await(Object key, long sentAt, Attempt<T> attempt)
+            throws IOException, IllegalArgumentException, InterruptedException {
+        timer.sleepUntil(sentAt + getDelayNanos(key));
+        for (int retries = 0; ; ++retries) {
+            long startedAt = timer.nanoTime();
+            try {
+                T answer = attempt.run();
+                onAnswered(key, startedAt - sentAt, retries);
+                return answer;
+            } catch (IOException | IllegalArgumentException e) {
+                if (!shouldRetry(sentAt, retries)) {
+                    throw e;
+                }
+                timer.sleepUntil(timer.nanoTime() + getBackoffNanos(retries));
+            }
+        }
+    }
+
+    /**
+     * Pass the delay (in milliseconds) for each kind of request
+     * to the given metrics whenever it changes.
+     *
+     * @param metrics the metrics to register the delays with
+     * @param prefix the prefix of the names of the metrics, usually the name of the device
+     */
+    public void reportTo(RuntimeMetrics<String, ?> metrics, String prefix) {
+        this.metricsPrefix = prefix;
+        this.metrics = metrics;
+        paces.values().forEach(Pace::register);
+    }
+
+    private Pace paceOf(Object key) {
+        return paces.computeIfAbsent(key, Pace::new);
+    }
+
+    /**
+     * The current delay for one kind of request
+     */
+    private final class Pace {
+
+        private final Object key;
+        private volatile long delayNanos = initialDelayNanos;
+        /**
+         * The number of requests answered on the first attempt
+         * since the delay was changed; guarded by {@code this}
+         */
+        private int answeredCount = 0;
+        private volatile @Nullable Consumer<Double> callback;
+
+        @SuppressWarnings("initialization")
+        Pace(Object key) {
+            this.key = key;
+            register();
+        }
+
+        synchronized void register() {
+            RuntimeMetrics<String, ?> m = metrics;
+            if (m != null && callback == null) {
+                callback = m.registerCallback(metricsPrefix + " request delay " + key + " (ms)");
+                report();
+            }
+        }
+
+        void report() {
+            Consumer<Double> c = callback;
+            if (c != null) {
+                c.accept(delayNanos / 1e6);
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.coding.Encoding;
+import de.unia.oc.robotcontrol.flow.FlowStrategy;
+import de.unia.oc.robotcontrol.flow.MappedRingFile;
+import de.unia.oc.robotcontrol.flow.WaitStrategy;
+import de.unia.oc.robotcontrol.flow.function.ProcessorTransformation;
+import de.unia.oc.robotcontrol.flow.function.SubscriberTransformation;
+import de.unia.oc.robotcontrol.flow.strategy.TransparentFlowStrategy;
+import de.unia.oc.robotcontrol.message.LatencyTracer;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessageTypeRegistry;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
+import de.unia.oc.robotcontrol.util.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A device which mirrors messages to another process on the same host
+ * through a pair of memory-mapped ring files ({@link MappedRingFile}),
+ * so that device I/O, observer and controller can run in separate JVMs.
+ *
+ * Messages passed to this device are encoded (usually with a
+ * {@link MessageTypeRegistry}) and written to the outgoing file. Messages
+ * written to the incoming file by the other process are decoded and emitted.
+ * Both processes register a bridge with their {@link de.unia.oc.robotcontrol.oc.RobotControl}
+ * for the message types the other process needs, with the files swapped:
+ *
+ * <pre>
+ *     // device process
+ *     .withDevice(new SharedMemoryBridge(REGISTRY, toControl, toDevices), DISTANCE_DATA)
+ *     // control process
+ *     .withDevice(new SharedMemoryBridge(REGISTRY, toDevices, toControl), SPEED_CMD)
+ * </pre>
+ *
+ * Each subscriber to {@link #asPublisher()} is served by its own reader thread,
+ * which waits for new records using the given {@link WaitStrategy}. It starts with
+ * the records written after it subscribed, and waits for the incoming file to be
+ * created if the other process has not been started yet. If the reader lags behind
+ * by more than the capacity of the file, the overwritten messages are lost.
+ */
+public class SharedMemoryBridge implements Device<Message, Message> {
+
+    /**
+     * The default number of bytes of the outgoing ring file
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    /**
+     * The default largest number of bytes of an encoded message
+     */
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 256;
+
+    /**
+     * The time (in ms) between the attempts to open the incoming file
+     */
+    private static final long OPEN_RETRY_MILLIS = 100;
+
+    /**
+     * The encoding used for messages written to the outgoing file
+     */
+    private final Encoding<Message> encoding;
+    /**
+     * The encoding used for messages read from the incoming file
+     */
+    private final Encoding<Message> decoding;
+    /**
+     * The file messages passed to this device are written to
+     */
+    private final MappedRingFile outgoing;
+    /**
+     * The path of the file messages are read from
+     */
+    private final Path incoming;
+    /**
+     * The strategy the reader threads use to wait for records
+     */
+    private final WaitStrategy waitStrategy;
+    /**
+     * The buffer messages are encoded into, guarded by itself
+     */
+    private final ByteBuffer writeBuffer;
+
+    private final EmitterProcessor<Message> inputProcessor;
+    private final Subscriber<Message> input;
+    private final Flux<Message> output;
+    private final UUID uuid;
+    /**
+     * Used to number the reader threads
+     */
+    private final AtomicInteger readerCount = new AtomicInteger();
+    private volatile boolean isTerminated = false;
+
+    /**
+     * Creates a new instance of {@link SharedMemoryBridge}.
+     *
+     * @param encoding the encoding used for messages written to the outgoing file
+     * @param decoding the encoding used for messages read from the incoming file
+     * @param outgoing the path of the file to write to, created if it does not exist
+     * @param incoming the path of the file to read from
+     * @param capacity the number of bytes of the outgoing file, has to be a multiple of 8
+     * @param maxMessageSize the largest number of bytes of an encoded message
+     * @param waitStrategy the strategy the reader threads use to wait for new records
+     * @throws IOException if the outgoing file could not be created
+     * @throws IllegalArgumentException if the capacity is not a multiple of 8
+     */
+    @SuppressWarnings("initialization")
+    public SharedMemoryBridge(Encoding<Message> encoding,
+                              Encoding<Message> decoding,
+                              Path outgoing,
+                              Path incoming,
+                              int capacity,
+                              int maxMessageSize,
+                              WaitStrategy waitStrategy) throws IOException, IllegalArgumentException {
+        this.encoding = encoding;
+        this.decoding = decoding;
+        this.outgoing = MappedRingFile.create(outgoing, capacity);
+        this.incoming = incoming;
+        this.waitStrategy = waitStrategy;
+        this.writeBuffer = ByteBuffer.allocate(Math.min(maxMessageSize, this.outgoing.getMaxRecordSize()));
+
+        this.inputProcessor = EmitterProcessor.create();
+        this.input = SubscriberTransformation.unboundedSubscription(
+                SubscriberTransformation.anonymizeSubscription(inputProcessor));
+        this.inputProcessor.subscribe(this::write);
+        this.output = Flux.create(this::read);
+        this.uuid = UUID.randomUUID();
+    }
+
+    /**
+     * Creates a new instance of {@link SharedMemoryBridge} which encodes and
+     * decodes messages using the given registry, with a {@link #DEFAULT_CAPACITY}
+     * and reader threads waiting using {@link WaitStrategy#YIELD}.
+     *
+     * @param registry the registry used to encode and decode messages
+     * @param outgoing the path of the file to write to, created if it does not exist
+     * @param incoming the path of the file to read from
+     * @throws IOException if the outgoing file could not be created
+     */
+    public SharedMemoryBridge(MessageTypeRegistry<?> registry, Path outgoing, Path incoming) throws IOException {
+        this(registry, registry, outgoing, incoming,
+                DEFAULT_CAPACITY, DEFAULT_MAX_MESSAGE_SIZE, WaitStrategy.YIELD);
+    }
+
+    /**
+     * Encode the given message and write it to the outgoing file.
+     * Messages which can not be encoded are logged and dropped.
+     * The message is released afterwards (see {@link ReferenceCounted}).
+     *
+     * @param message the message to write
+     */
+    private void write(Message message) {
+        try {
+            synchronized (writeBuffer) {
+                writeBuffer.clear();
+                encoding.encodeInto(message, writeBuffer);
+                writeBuffer.flip();
+                outgoing.write(writeBuffer);
+            }
+        } catch (IllegalArgumentException | IllegalStateException | BufferOverflowException e) {
+            Logger.instance().debugException(e, "[SharedMemoryBridge] Could not write message: " + message);
+        } finally {
+            ReferenceCounted.releaseIfCounted(message);
+        }
+    }
+
+    /**
+     * Start a reader thread which emits the messages
+     * read from the incoming file to the given sink.
+     *
+     * @param sink the sink of a subscriber to {@link #output}
+     */
+    private void read(FluxSink<Message> sink) {
+        AtomicBoolean running = new AtomicBoolean(true);
+        sink.onDispose(() -> running.set(false));
+
+        Thread reader = new Thread(() -> {
+            MappedRingFile file = openIncoming(running);
+            if (file == null) {
+                sink.complete();
+                return;
+            }
+            try {
+                MappedRingFile.Reader records = file.reader();
+                LatencyTracer tracer = LatencyTracer.instance();
+                int idleCount = 0;
+                while (running.get() && !isTerminated) {
+                    if (sink.requestedFromDownstream() <= 0) {
+                        waitStrategy.idle(idleCount++);
+                        continue;
+                    }
+                    ByteBuffer record = records.poll();
+                    if (record == null) {
+                        waitStrategy.idle(idleCount++);
+                        continue;
+                    }
+                    idleCount = 0;
+                    try {
+                        Message message = decoding.decodeFrom(record);
+                        tracer.begin(message);
+                        sink.next(message);
+                    } catch (IllegalArgumentException e) {
+                        Logger.instance().debugException(e, "[SharedMemoryBridge] Could not decode message");
+                    }
+                }
+            } finally {
+                closeQuietly(file);
+            }
+            sink.complete();
+        }, "SharedMemoryBridge reader " + readerCount.incrementAndGet());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Open the incoming file, waiting until it has been
+     * created by the other process.
+     *
+     * @param running whether the reader is still running
+     * @return the opened file, or null if the reader stopped before it could be opened
+     */
+    private @Nullable MappedRingFile openIncoming(AtomicBoolean running) {
+        while (running.get() && !isTerminated) {
+            try {
+                return MappedRingFile.open(incoming);
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(OPEN_RETRY_MILLIS);
+                } catch (InterruptedException ie) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void closeQuietly(MappedRingFile file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            Logger.instance().debugException(e, "[SharedMemoryBridge] Could not close ring file");
+        }
+    }
+
+    @Override
+    public Publisher<Message> asPublisher() {
+        return output;
+    }
+
+    @Override
+    public Subscriber<Message> asSubscriber() {
+        return input;
+    }
+
+    @Override
+    public Processor<Message, Message> asProcessor() {
+        return ProcessorTransformation.transformProcessor(
+                inputProcessor,
+                (Subscriber<Message> s) -> input,
+                (Publisher<Message> p) -> output);
+    }
+
+    @Override
+    public FlowStrategy<Message, Message> getFlowStrategy() {
+        return TransparentFlowStrategy.create();
+    }
+
+    @Override
+    public ClockType getClockType() {
+        return ClockType.UNCLOCKED;
+    }
+
+    @Override
+    public UUID getDeviceUUID() {
+        return this.uuid;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Shared Memory Bridge (" + incoming + ")";
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isTerminated;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Stops the reader threads and closes the outgoing file.
+     * The files are not deleted, so that the other process can keep
+     * reading the messages written before.
+     */
+    @Override
+    public synchronized void terminate() {
+        if (isTerminated) {
+            return;
+        }
+        isTerminated = true;
+        inputProcessor.onComplete();
+        synchronized (writeBuffer) {
+            closeQuietly(outgoing);
+        }
+    }
+}
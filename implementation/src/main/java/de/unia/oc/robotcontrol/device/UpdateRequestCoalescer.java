@@ -0,0 +1,170 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Decides which messages a clocked device connector sends to its device.
+ *
+ * On every clock tick, {@link #merge(Long, Message)} passes on the message newly
+ * received from upstream, if any (a command), and an update request (a poll)
+ * otherwise. Whether a message is new is decided by the clock, as it arrives
+ * (see {@link de.unia.oc.robotcontrol.concurrent.ProcessingClockState#createArriving}),
+ * not by its identity, as messages may be reused. Polls are only used to get a new answer from the device though, so
+ * {@link #shouldSend(Message)} drops them if another request is still pending,
+ * whose answer will be fresh anyway, or if the last answer of the device
+ * is younger than a maximum age. Requests are only pending while polls are
+ * filtered if they are queued or run asynchronously; the polls for the ticks
+ * which occurred during a blocking transaction are dropped by the answer age.
+ *
+ * The connector has to report each request passed by {@link #shouldSend(Message)}
+ * as completed using {@link #onCompleted(boolean)}.
+ *
+ * @param <Input> the type of message sent to the device
+ */
+public class UpdateRequestCoalescer<Input extends Message> {
+
+    /**
+     * A supplier of update-request messages
+     */
+    private final Supplier<Input> updateRequestMessageProvider;
+    /**
+     * The age (in ns) below which an answer is fresh enough
+     * that no polls are sent; 0 to always send them
+     */
+    private final long maxAnswerAgeNanos;
+    /**
+     * The source of the current time in ns, usually {@link System#nanoTime()}
+     */
+    private final LongSupplier nanoTime;
+
+    /**
+     * The last update request created by {@link #merge(Long, Message)}
+     */
+    private volatile @Nullable Input lastPoll = null;
+    /**
+     * The time (as returned by {@link #nanoTime}) the device last answered,
+     * valid if {@link #hasAnswered}
+     */
+    private volatile long lastAnswerAt;
+    private volatile boolean hasAnswered = false;
+    /**
+     * The number of requests sent to the device which have not completed yet
+     */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    /**
+     * The number of polls which were not sent
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * Creates a new instance of {@link UpdateRequestCoalescer}.
+     *
+     * @param updateRequestMessageProvider the supplier of update-request messages
+     * @param maxAnswerAgeMillis the age (in ms) below which the last answer of the
+     *                           device is fresh enough that no polls are sent;
+     *                           0 to send them regardless of the age of the last answer
+     */
+    public UpdateRequestCoalescer(Supplier<Input> updateRequestMessageProvider, long maxAnswerAgeMillis) {
+        this(updateRequestMessageProvider, maxAnswerAgeMillis, System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance of {@link UpdateRequestCoalescer} like
+     * {@link #UpdateRequestCoalescer(Supplier, long)}, measuring
+     * the age of the answers using the given source of time.
+     *
+     * @param updateRequestMessageProvider the supplier of update-request messages
+     * @param maxAnswerAgeMillis the age (in ms) below which the last answer of the
+     *                           device is fresh enough that no polls are sent;
+     *                           0 to send them regardless of the age of the last answer
+     * @param nanoTime the source of the current time in ns, like {@link System#nanoTime()}
+     */
+    public UpdateRequestCoalescer(Supplier<Input> updateRequestMessageProvider,
+                                  long maxAnswerAgeMillis,
+                                  LongSupplier nanoTime) {
+        this.updateRequestMessageProvider = updateRequestMessageProvider;
+        this.maxAnswerAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAnswerAgeMillis);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Merge a clock tick with the message newly received from upstream.
+     *
+     * @param time the tick of the clock
+     * @param input the message newly received from upstream,
+     *              or null if there was a tick but no new command
+     * @return the given message if there is one,
+     * a new update request otherwise
+     */
+    public Input merge(Long time, @Nullable Input input) {
+        if (input != null) {
+            return input;
+        }
+        Input poll = updateRequestMessageProvider.get();
+        lastPoll = poll;
+        return poll;
+    }
+
+    /**
+     * Decide whether the given message, as returned by {@link #merge(Long, Message)},
+     * is sent to the device. Commands are always sent. Polls which are not sent
+     * are released (see {@link ReferenceCounted}).
+     *
+     * @param input the message to send
+     * @return whether the message should be sent to the device
+     */
+    public boolean shouldSend(Input input) {
+        if (input == lastPoll && (pendingCount.get() > 0 || isFresh())) {
+            coalescedCount.incrementAndGet();
+            ReferenceCounted.releaseIfCounted(input);
+            return false;
+        }
+        pendingCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Record that a request passed by {@link #shouldSend(Message)} completed.
+     *
+     * @param answered whether the device answered the request
+     */
+    public void onCompleted(boolean answered) {
+        if (answered) {
+            lastAnswerAt = nanoTime.getAsLong();
+            hasAnswered = true;
+        }
+        pendingCount.updateAndGet((count) -> Math.max(count - 1, 0));
+    }
+
+    /**
+     * @return whether the last answer of the device is younger than the maximum age
+     */
+    private boolean isFresh() {
+        return maxAnswerAgeNanos > 0
+                && hasAnswered
+                && nanoTime.getAsLong() - lastAnswerAt < maxAnswerAgeNanos;
+    }
+
+    /**
+     * @return the number of requests sent to the device which have not completed yet
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * @return the number of update requests which were not sent to the device
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+}
@@ -0,0 +1,243 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A variant of {@link FilteringMulticast} which does not evaluate a filter
+ * for every subscriber and every value. Instead, a single subscription to the
+ * main processor looks up the subscribers of the topic of each value in an index,
+ * and passes the value only to them. The work per value is thus proportional to
+ * the number of subscribers of its topic, not to the number of all subscribers.
+ *
+ * Routing does not wait for slow subscribers. Instead, each subscriber is only
+ * passed as many values as it requested; up to {@link #topicBufferSize()} further
+ * values are buffered for it, dropping the oldest ones if it can not keep up.
+ * The publishers returned by {@link #subscribeTo(Object)} then apply the same
+ * {@link #getFlowStrategy()} (scheduling and buffering) as in {@link FilteringMulticast}.
+ *
+ * Completion and errors received by the main processor are forwarded to all
+ * subscribers once they have emitted the values buffered for them, and to
+ * subscribers subscribing afterwards.
+ *
+ * Topics are indexed using {@link Object#hashCode()} and {@link Object#equals(Object)},
+ * so {@link #areTopicsEqual(Object, Object)} is not used.
+ *
+ * @param <Topic> the type to use for topics
+ * @param <Value> the type of values this receives and sends
+ */
+public abstract class IndexedFilteringMulticast<Topic extends Object, Value extends Object>
+        extends FilteringMulticast<Topic, Value> {
+
+    /**
+     * Maps each topic to the subscribers of the publishers
+     * returned by {@link #subscribeTo(Object)} for that topic
+     */
+    private final ConcurrentMap<Topic, List<TopicSubscriber>> subscribers = new ConcurrentHashMap<>();
+    /**
+     * Whether the main processor has terminated
+     */
+    private volatile boolean isDone = false;
+    /**
+     * The error the main processor terminated with, if any
+     */
+    private volatile @Nullable Throwable error = null;
+
+    /**
+     * Creates a new instance of {@link IndexedFilteringMulticast} which
+     * runs on the passed scheduler, and subscribes to the main processor
+     * to route the values.
+     *
+     * @param scheduler the execution context this should run on
+     */
+    @SuppressWarnings("initialization")
+    public IndexedFilteringMulticast(Scheduler scheduler) {
+        super(scheduler);
+        Flux.from(asProcessor())
+                .subscribe(this::route, this::terminate, () -> terminate(null));
+    }
+
+    /**
+     * Creates a new instance of {@link IndexedFilteringMulticast} which
+     * runs on the passed Executor.
+     *
+     * @param executor the execution context to run on
+     */
+    public IndexedFilteringMulticast(Executor executor) {
+        this(Schedulers.fromExecutor(executor));
+    }
+
+    /**
+     * Creates a new instance of {@link IndexedFilteringMulticast} which
+     * runs on a dynamically parallel scheduler.
+     */
+    public IndexedFilteringMulticast() {
+        this(Schedulers.parallel());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Registers a subscriber for the given topic in the index right away, so
+     * that the values routed before the returned publisher is subscribed to are
+     * buffered for it. Further subscriptions to the returned publisher register
+     * their own subscribers. Subscribers are removed from the index again when
+     * their subscription is cancelled, and topics without subscribers are removed.
+     *
+     * @param topic the topic to subscribe to
+     * @return an instance of {@link Publisher} emitting the values of the topic
+     */
+    @Override
+    public Publisher<Value> subscribeTo(Topic topic) {
+        TopicSubscriber first = register(topic);
+        AtomicBoolean isFirstClaimed = new AtomicBoolean(false);
+        return Flux
+                .<Value>create((sink) -> {
+                    TopicSubscriber subscriber = isFirstClaimed.compareAndSet(false, true)
+                            ? first
+                            : register(topic);
+                    subscriber.attach(sink);
+                }, FluxSink.OverflowStrategy.ERROR)
+                .as(getFlowStrategy());
+    }
+
+    /**
+     * Add a new subscriber for the given topic to the index.
+     *
+     * @param topic the topic to subscribe to
+     * @return the new subscriber
+     */
+    private TopicSubscriber register(Topic topic) {
+        TopicSubscriber subscriber = new TopicSubscriber(topic);
+        subscribers.compute(topic, (t, list) -> {
+            List<TopicSubscriber> result = list != null ? list : new CopyOnWriteArrayList<>();
+            result.add(subscriber);
+            return result;
+        });
+        return subscriber;
+    }
+
+    /**
+     * Remove the given subscriber from the index, removing
+     * the topic as well if it has no subscribers left.
+     *
+     * @param subscriber the subscriber to remove
+     */
+    private void unregister(TopicSubscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.topic, (t, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * @return the number of topics which currently have subscribers
+     */
+    int getSubscribedTopicCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Pass the given value to all subscribers of its topic.
+     * Called serially for all values received by the main processor.
+     *
+     * @param value the value to route
+     */
+    private void route(Value value) {
+        List<TopicSubscriber> list = subscribers.get(topicFromValue(value));
+        if (list == null) {
+            return;
+        }
+        for (TopicSubscriber subscriber : list) {
+            subscriber.offer(value);
+        }
+    }
+
+    /**
+     * Forward the terminal signal of the main processor to all subscribers.
+     * Called once the main processor has completed or failed.
+     *
+     * @param e the error the main processor failed with, or null if it completed
+     */
+    private void terminate(@Nullable Throwable e) {
+        error = e;
+        isDone = true;
+        for (List<TopicSubscriber> list : subscribers.values()) {
+            for (TopicSubscriber subscriber : list) {
+                subscriber.drain();
+            }
+        }
+    }
+
+    /**
+     * A subscriber of a single topic, which buffers the values
+     * routed to it until they are requested.
+     */
+    private final class TopicSubscriber {
+
+        private final Topic topic;
+        /**
+         * The values not requested yet; guarded by {@code this}
+         */
+        private final ArrayDeque<Value> buffer = new ArrayDeque<>();
+        /**
+         * The sink to emit values to, once subscribed; guarded by {@code this}
+         */
+        private @Nullable FluxSink<Value> sink = null;
+
+        TopicSubscriber(Topic topic) {
+            this.topic = topic;
+        }
+
+        @SuppressWarnings("initialization")
+        synchronized void attach(FluxSink<Value> sink) {
+            this.sink = sink;
+            sink.onRequest((n) -> drain());
+            sink.onDispose(() -> unregister(this));
+            drain();
+        }
+
+        synchronized void offer(Value value) {
+            if (buffer.size() >= topicBufferSize()) {
+                buffer.poll();
+            }
+            buffer.offer(value);
+            drain();
+        }
+
+        /**
+         * Emit as many buffered values as have been requested, and
+         * the terminal signal once all values have been emitted.
+         */
+        synchronized void drain() {
+            FluxSink<Value> target = this.sink;
+            if (target == null) {
+                return;
+            }
+            while (!buffer.isEmpty() && target.requestedFromDownstream() > 0) {
+                target.next(buffer.poll());
+            }
+            if (buffer.isEmpty() && isDone) {
+                Throwable e = error;
+                if (e != null) {
+                    target.error(e);
+                } else {
+                    target.complete();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only log of timestamped records in a memory-mapped file,
+ * used to record the messages passed to and from devices
+ * so that they can be replayed later.
+ *
+ * The file starts with a header holding the size of the regions the rest
+ * of the file is divided into. The regions are mapped one at a time,
+ * the file grows by one region whenever the current one is full.
+ * Each record consists of its size (written last), a kind chosen by the
+ * writer, a timestamp and its bytes, padded to 8 bytes. A record never
+ * spans two regions; if it does not fit into the rest of the current
+ * region, the rest is skipped. A size of 0 marks the end of the log.
+ *
+ * Unlike {@link MappedRingFile}, records are never overwritten,
+ * so the log is meant to be read after it has been written.
+ */
+public final class MappedLogFile implements Closeable {
+
+    /**
+     * The default number of bytes of each region
+     */
+    public static final int DEFAULT_REGION_SIZE = 1 << 20;
+
+    /**
+     * Identifies files created by this class ("MLOG")
+     */
+    private static final int MAGIC = 0x4D4C4F47;
+    private static final int REGION_SIZE_OFFSET = 4;
+    /**
+     * The size of the file header, one cache line
+     */
+    private static final int HEADER_SIZE = 64;
+    /**
+     * The size of the size, kind and timestamp preceding each record
+     */
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int KIND_OFFSET = 4;
+    private static final int TIMESTAMP_OFFSET = 8;
+    /**
+     * The size of records which mark the rest of a region as skipped
+     */
+    private static final int SKIP = -1;
+    private static final int ALIGNMENT = 8;
+
+    private final FileChannel channel;
+    private final int regionSize;
+    private final boolean writable;
+    /**
+     * The region records are currently appended to; guarded by {@code this}
+     */
+    private @Nullable MappedByteBuffer region;
+    /**
+     * The index of the current region; guarded by {@code this}
+     */
+    private long regionIndex = -1;
+    /**
+     * The offset in the current region to append the next record at; guarded by {@code this}
+     */
+    private int offset;
+    /**
+     * The number of records appended; guarded by {@code this}
+     */
+    private long recordCount;
+
+    private MappedLogFile(FileChannel channel, int regionSize, boolean writable) {
+        this.channel = channel;
+        this.regionSize = regionSize;
+        this.writable = writable;
+    }
+
+    /**
+     * Create an empty log at the given path to append records to,
+     * replacing the file if it already exists.
+     *
+     * @param path the path of the file
+     * @param regionSize the number of bytes mapped at once, has to be a multiple of 8
+     * @return a writable {@link MappedLogFile}
+     * @throws IOException if the file could not be created or mapped
+     * @throws IllegalArgumentException if the region size is not a positive multiple of 8
+     */
+    public static MappedLogFile create(Path path, int regionSize) throws IOException, IllegalArgumentException {
+        if (regionSize <= RECORD_HEADER_SIZE || regionSize % ALIGNMENT != 0) {
+            throw new IllegalArgumentException(
+                    "Region size has to be a multiple of " + ALIGNMENT
+                            + " larger than " + RECORD_HEADER_SIZE + ", was: " + regionSize);
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putInt(REGION_SIZE_OFFSET, regionSize);
+            header.putInt(0, MAGIC);
+            return new MappedLogFile(channel, regionSize, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing log to read records from.
+     *
+     * @param path the path of the file
+     * @return a read-only {@link MappedLogFile}
+     * @throws IOException if the file does not exist, could not be
+     * mapped or has not been created using {@link #create(Path, int)}
+     */
+    public static MappedLogFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEADER_SIZE));
+            if (size < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a log file: " + path);
+            }
+            return new MappedLogFile(channel, header.getInt(REGION_SIZE_OFFSET), false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the largest number of bytes a single record can have
+     */
+    public int getMaxRecordSize() {
+        return regionSize - RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * @return the number of records appended to this log since it was created
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Append the remaining bytes of the given buffer as a record.
+     * The position of the buffer is advanced to its limit.
+     *
+     * @param kind the kind of the record, chosen by the writer
+     * @param timestamp the timestamp of the record
+     * @param record the bytes of the record
+     * @throws IOException if the file could not be extended
+     * @throws IllegalArgumentException if the record is larger than {@link #getMaxRecordSize()}
+     * @throws IllegalStateException if this file has been opened for reading only
+     */
+    public synchronized void append(int kind, long timestamp, ByteBuffer record)
+            throws IOException, IllegalArgumentException, IllegalStateException {
+        if (!writable) {
+            throw new IllegalStateException("Log file has been opened for reading only");
+        }
+        int length = record.remaining();
+        if (length > getMaxRecordSize()) {
+            throw new IllegalArgumentException(
+                    "Record of " + length + " bytes does not fit into region of " + regionSize + " bytes");
+        }
+        int size = align(RECORD_HEADER_SIZE + length);
+        MappedByteBuffer target = this.region;
+        if (target == null || offset + size > regionSize) {
+            if (target != null && offset + RECORD_HEADER_SIZE <= regionSize) {
+                target.putInt(offset, SKIP);
+            }
+            target = this.region = map(++regionIndex, FileChannel.MapMode.READ_WRITE);
+            offset = 0;
+        }
+        target.putInt(offset + KIND_OFFSET, kind);
+        target.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        ByteBuffer view = target.duplicate();
+        view.position(offset + RECORD_HEADER_SIZE);
+        view.put(record);
+        // publish the record by writing its size last
+        target.putInt(offset, RECORD_HEADER_SIZE + length);
+        offset += size;
+        ++recordCount;
+    }
+
+    private MappedByteBuffer map(long index, FileChannel.MapMode mode) throws IOException {
+        return channel.map(mode, HEADER_SIZE + index * regionSize, regionSize);
+    }
+
+    /**
+     * @return a new reader, which reads the records from the start of the log
+     * @throws IllegalStateException if this file has been opened for writing
+     */
+    public Reader reader() throws IllegalStateException {
+        if (writable) {
+            throw new IllegalStateException("Log file has been opened for writing only");
+        }
+        return new Reader();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Writes the appended records to the storage device before closing the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        MappedByteBuffer target = this.region;
+        if (target != null) {
+            target.force();
+        }
+        channel.close();
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Reads the records of a {@link MappedLogFile} in order.
+     * A reader is not thread-safe.
+     */
+    public final class Reader {
+
+        /**
+         * The region records are currently read from
+         */
+        private @Nullable MappedByteBuffer region;
+        private long regionIndex = -1;
+        /**
+         * The offset of the next record in the current region
+         */
+        private int offset;
+        private int kind;
+        private long timestamp;
+
+        private Reader() {
+        }
+
+        /**
+         * Read the next record.
+         *
+         * @return a read-only buffer holding the bytes of the next record, which
+         * is only valid until the next call, or null if the end of the log was reached
+         * @throws IOException if the next region could not be mapped
+         */
+        public @Nullable ByteBuffer poll() throws IOException {
+            while (true) {
+                MappedByteBuffer source = this.region;
+                if (source == null || offset + RECORD_HEADER_SIZE > regionSize) {
+                    // the next region ends beyond the file if it has not been written to
+                    if (HEADER_SIZE + (regionIndex + 2) * regionSize > channel.size()) {
+                        return null;
+                    }
+                    source = this.region = map(++regionIndex, FileChannel.MapMode.READ_ONLY);
+                    offset = 0;
+                }
+                int size = source.getInt(offset);
+                if (size == 0) {
+                    return null;
+                }
+                if (size == SKIP) {
+                    offset = regionSize;
+                    continue;
+                }
+                if (size < RECORD_HEADER_SIZE || offset + size > regionSize) {
+                    throw new IOException("Corrupt log record at region " + regionIndex + ", offset " + offset);
+                }
+                kind = source.getInt(offset + KIND_OFFSET);
+                timestamp = source.getLong(offset + TIMESTAMP_OFFSET);
+                ByteBuffer view = source.asReadOnlyBuffer();
+                view.limit(offset + size);
+                view.position(offset + RECORD_HEADER_SIZE);
+                offset += align(size);
+                return view.slice();
+            }
+        }
+
+        /**
+         * @return the kind of the record last read
+         */
+        public int getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the timestamp of the record last read
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A ring of variable-length records in a memory-mapped file, used to pass
+ * bytes from one writing process to any number of reading processes
+ * on the same host without copying them through the kernel.
+ *
+ * The file starts with a header holding the capacity and the position
+ * after the last reserved record (the tail), followed by the records.
+ * Positions grow monotonically, the offset of a position in the ring is
+ * {@code position % capacity}. Each record consists of a marker
+ * ({@code position + 1}, written last), its length and its bytes, padded to
+ * 8 bytes. Records which do not fit before the end of the ring are
+ * preceded by a padding record, and start at the beginning of the ring.
+ *
+ * The writer never waits for readers. It reserves space by advancing the tail
+ * before overwriting any bytes, so a reader which lagged behind by more than
+ * the capacity notices this, skips to the tail and counts an overrun.
+ *
+ * Java 8 has no fences for memory-mapped buffers, so the order of the
+ * accesses is enforced using volatile accesses, which are implemented
+ * using hardware fences by HotSpot.
+ */
+public final class MappedRingFile implements Closeable {
+
+    /**
+     * Identifies files created by this class ("RING")
+     */
+    private static final int MAGIC = 0x52494E47;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int TAIL_OFFSET = 8;
+    /**
+     * The size of the file header, one cache line
+     */
+    private static final int HEADER_SIZE = 64;
+    /**
+     * The size of the marker and length preceding each record
+     */
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int LENGTH_OFFSET = 8;
+    /**
+     * The length of records which pad the ring up to its end
+     */
+    private static final int PADDING = -1;
+    private static final int ALIGNMENT = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    /**
+     * View on the {@link #buffer} used to copy the bytes of records
+     * into the ring, guarded by {@code this}
+     */
+    private final ByteBuffer writeView;
+    private final int capacity;
+    private final boolean writable;
+    /**
+     * Only accessed to order the accesses to the {@link #buffer}
+     */
+    private volatile int fence;
+
+    private MappedRingFile(FileChannel channel, MappedByteBuffer buffer, int capacity, boolean writable) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.writeView = buffer.duplicate();
+        this.capacity = capacity;
+        this.writable = writable;
+    }
+
+    /**
+     * Create the ring file at the given path to write records to.
+     * If the file already exists with the same capacity, writing
+     * continues after its last record, so that readers which have
+     * opened it keep working.
+     *
+     * @param path the path of the file
+     * @param capacity the number of bytes of the ring, has to be a multiple of 8
+     * @return a writable {@link MappedRingFile}
+     * @throws IOException if the file could not be created or mapped
+     * @throws IllegalArgumentException if the capacity is not a positive multiple of 8
+     */
+    public static MappedRingFile create(Path path, int capacity) throws IOException, IllegalArgumentException {
+        if (capacity <= RECORD_HEADER_SIZE || capacity % ALIGNMENT != 0) {
+            throw new IllegalArgumentException(
+                    "Ring capacity has to be a multiple of " + ALIGNMENT
+                            + " larger than " + RECORD_HEADER_SIZE + ", was: " + capacity);
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean reuse = channel.size() == HEADER_SIZE + capacity;
+            if (channel.size() > HEADER_SIZE + capacity) {
+                channel.truncate(HEADER_SIZE + capacity);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+            if (!reuse || buffer.getInt(0) != MAGIC || buffer.getInt(CAPACITY_OFFSET) != capacity) {
+                buffer.putLong(TAIL_OFFSET, 0);
+                buffer.putInt(CAPACITY_OFFSET, capacity);
+                buffer.putInt(0, MAGIC);
+            }
+            return new MappedRingFile(channel, buffer, capacity, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing ring file to read records from.
+     *
+     * @param path the path of the file
+     * @return a read-only {@link MappedRingFile}
+     * @throws IOException if the file does not exist, could not be
+     * mapped or has not been created using {@link #create(Path, int)}
+     */
+    public static MappedRingFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEADER_SIZE));
+            if (size < HEADER_SIZE || header.getInt(0) != MAGIC
+                    || header.getInt(CAPACITY_OFFSET) != size - HEADER_SIZE) {
+                throw new IOException("Not a ring file: " + path);
+            }
+            int capacity = header.getInt(CAPACITY_OFFSET);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new MappedRingFile(channel, buffer, capacity, false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of bytes of the ring
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the largest number of bytes a single record can have
+     */
+    public int getMaxRecordSize() {
+        return capacity - RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * @return the position after the last reserved record
+     */
+    public long getTail() {
+        loadFence();
+        return buffer.getLong(TAIL_OFFSET);
+    }
+
+    /**
+     * Append the remaining bytes of the given buffer as a record,
+     * overwriting the oldest records if necessary.
+     * The position of the buffer is advanced to its limit.
+     *
+     * @param record the bytes of the record
+     * @throws IllegalArgumentException if the record is larger than {@link #getMaxRecordSize()}
+     * @throws IllegalStateException if this file has been opened for reading only
+     */
+    public synchronized void write(ByteBuffer record) throws IllegalArgumentException, IllegalStateException {
+        if (!writable) {
+            throw new IllegalStateException("Ring file has been opened for reading only");
+        }
+        int length = record.remaining();
+        if (length > getMaxRecordSize()) {
+            throw new IllegalArgumentException(
+                    "Record of " + length + " bytes does not fit into ring of " + capacity + " bytes");
+        }
+        int size = align(RECORD_HEADER_SIZE + length);
+        long position = buffer.getLong(TAIL_OFFSET);
+        int offset = offsetOf(position);
+        long padding = offset + size > capacity ? capacity - offset : 0;
+
+        // reserve the space first, so that lagging readers notice the overwrite
+        buffer.putLong(TAIL_OFFSET, position + padding + size);
+        storeFence();
+        if (padding > 0) {
+            // a padding record needs at least its marker and length
+            if (padding >= RECORD_HEADER_SIZE) {
+                commit(offset, position, PADDING);
+            }
+            position += padding;
+            offset = 0;
+        }
+        writeView.limit(HEADER_SIZE + offset + RECORD_HEADER_SIZE + length);
+        writeView.position(HEADER_SIZE + offset + RECORD_HEADER_SIZE);
+        writeView.put(record);
+        commit(offset, position, length);
+    }
+
+    /**
+     * Write the length of a record, then publish it by writing its marker.
+     */
+    private void commit(int offset, long position, int length) {
+        buffer.putInt(HEADER_SIZE + offset + LENGTH_OFFSET, length);
+        storeFence();
+        buffer.putLong(HEADER_SIZE + offset, position + 1);
+    }
+
+    /**
+     * @return a new reader, which reads all records written from now on
+     */
+    public Reader reader() {
+        return new Reader(getTail());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Ensures the accesses to the buffer before this call
+     * are not reordered with the loads after it.
+     */
+    private int loadFence() {
+        return fence;
+    }
+
+    /**
+     * Ensures the stores to the buffer before this call
+     * are not reordered with the stores after it.
+     */
+    private void storeFence() {
+        fence = 0;
+    }
+
+    private int offsetOf(long position) {
+        return (int) (position % capacity);
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Reads the records of a {@link MappedRingFile} in order.
+     * A reader is not thread-safe, each thread should use its own reader.
+     */
+    public final class Reader {
+
+        /**
+         * The position of the next record to read
+         */
+        private long position;
+        /**
+         * The number of times the writer overwrote records not yet read
+         */
+        private long overrunCount;
+        /**
+         * The buffer records are copied into, reused for every record
+         */
+        private final ByteBuffer record = ByteBuffer.allocate(getMaxRecordSize());
+        /**
+         * View on the ring used to copy records out of it
+         */
+        private final ByteBuffer readView = buffer.duplicate();
+
+        private Reader(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Read the next record, if it has been written already.
+         * If the writer overwrote records before they could be read,
+         * skips to the newest record and counts an overrun.
+         *
+         * @return a buffer holding the bytes of the next record, which is
+         * reused by the next call, or null if there is no new record
+         */
+        public @Nullable ByteBuffer poll() {
+            while (true) {
+                int offset = offsetOf(position);
+                if (capacity - offset < RECORD_HEADER_SIZE) {
+                    // the rest of the ring was too small for a padding record
+                    position += capacity - offset;
+                    continue;
+                }
+                long marker = buffer.getLong(HEADER_SIZE + offset);
+                loadFence();
+                if (marker != position + 1) {
+                    if (isOverrun()) {
+                        continue;
+                    }
+                    return null;
+                }
+                int length = buffer.getInt(HEADER_SIZE + offset + LENGTH_OFFSET);
+                if (length == PADDING) {
+                    position += capacity - offset;
+                    continue;
+                }
+                if (length < 0 || length > getMaxRecordSize()) {
+                    // torn by the writer, only possible if overrun
+                    if (!isOverrun()) {
+                        return null;
+                    }
+                    continue;
+                }
+                record.clear();
+                readView.limit(HEADER_SIZE + offset + RECORD_HEADER_SIZE + length);
+                readView.position(HEADER_SIZE + offset + RECORD_HEADER_SIZE);
+                record.put(readView);
+                record.flip();
+                if (isOverrun()) {
+                    continue;
+                }
+                position += align(RECORD_HEADER_SIZE + length);
+                return record;
+            }
+        }
+
+        /**
+         * Skip to the tail if the writer may have overwritten
+         * the record at the current position.
+         *
+         * @return whether there was an overrun
+         */
+        private boolean isOverrun() {
+            long tail = getTail();
+            if (tail - position > capacity) {
+                position = tail;
+                ++overrunCount;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return the position of the next record to read
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * @return the number of times records were overwritten before they could be read
+         */
+        public long getOverrunCount() {
+            return overrunCount;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import de.unia.oc.robotcontrol.util.Logger;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A set of queues ("lanes") which values are put into depending on their
+ * priority, and which are drained serially into a single consumer.
+ *
+ * Lanes are numbered in descending priority, so lane {@code 0} is drained first.
+ * While values are waiting, the lanes are drained in rounds: in each round,
+ * every lane passes on up to its weight values, starting with lane {@code 0}.
+ * Lanes with a higher weight thus get a larger share of the consumer, without
+ * starving the other lanes.
+ *
+ * The drain runs on the executor passed on construction, and only ever on
+ * one thread at a time, so the consumer is called serially.
+ *
+ * The time values spend waiting in their lane (the queueing delay) is
+ * recorded per lane, and can optionally be reported to a callback
+ * (e.g. from {@link de.unia.oc.robotcontrol.visualization.RuntimeMetrics#registerCallback(Object)}).
+ *
+ * @param <Value> the type of values passed through the lanes
+ */
+public final class PriorityLanes<Value extends Object> {
+
+    /**
+     * The queues of the lanes, holding the values together with their enqueue time
+     */
+    private final Queue<Entry<Value>>[] queues;
+    /**
+     * The number of values each lane may pass on per round
+     */
+    private final int[] weights;
+    /**
+     * The consumer values are drained into
+     */
+    private final Consumer<? super Value> consumer;
+    /**
+     * The executor the drain runs on
+     */
+    private final Executor executor;
+    /**
+     * The number of times the drain has been requested, but not yet run
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+    /**
+     * Per lane: the number of values drained
+     */
+    private final AtomicLongArray drainedCounts;
+    /**
+     * Per lane: the sum of the queueing delays of the drained values, in nanoseconds
+     */
+    private final AtomicLongArray totalDelays;
+    /**
+     * Per lane: the maximum queueing delay of a drained value, in nanoseconds
+     */
+    private final AtomicLongArray maxDelays;
+    /**
+     * Per lane: the callback the queueing delay in milliseconds is passed to, if any
+     */
+    private final @Nullable Consumer<Double>[] delayCallbacks;
+
+    /**
+     * Create new lanes.
+     *
+     * @param weights the weight of each lane, in descending priority
+     * @param consumer the consumer the values are drained into
+     * @param executor the executor the drain runs on
+     * @throws IllegalArgumentException if there is no lane or a weight is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityLanes(int[] weights, Consumer<? super Value> consumer, Executor executor)
+            throws IllegalArgumentException {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("There has to be at least one lane!");
+        }
+        for (int weight : weights) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Lane weights have to be positive, was: " + weight);
+            }
+        }
+        this.weights = weights.clone();
+        this.queues = new Queue[weights.length];
+        for (int i = 0; i < weights.length; ++i) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.consumer = consumer;
+        this.executor = executor;
+        this.drainedCounts = new AtomicLongArray(weights.length);
+        this.totalDelays = new AtomicLongArray(weights.length);
+        this.maxDelays = new AtomicLongArray(weights.length);
+        this.delayCallbacks = new Consumer[weights.length];
+    }
+
+    /**
+     * Put the given value into the given lane, and make sure the lanes are drained.
+     *
+     * @param lane the lane to put the value into
+     * @param value the value
+     * @throws IndexOutOfBoundsException if there is no such lane
+     */
+    public void offer(@NonNegative int lane, Value value) throws IndexOutOfBoundsException {
+        queues[lane].offer(new Entry<>(value, System.nanoTime()));
+        if (pending.getAndIncrement() == 0) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Pass the queueing delay (in milliseconds) of every value drained
+     * from the given lane to the given callback.
+     *
+     * @param lane the lane to report the queueing delays of
+     * @param callback the callback to pass the delays to
+     * @throws IndexOutOfBoundsException if there is no such lane
+     */
+    public void reportDelays(@NonNegative int lane, Consumer<Double> callback) throws IndexOutOfBoundsException {
+        delayCallbacks[lane] = callback;
+    }
+
+    /**
+     * @return the number of lanes
+     */
+    public int getLaneCount() {
+        return queues.length;
+    }
+
+    /**
+     * @param lane the lane
+     * @return the number of values currently waiting in the lane
+     */
+    public int getQueuedCount(@NonNegative int lane) {
+        return queues[lane].size();
+    }
+
+    /**
+     * @param lane the lane
+     * @return the number of values drained from the lane
+     */
+    public long getDrainedCount(@NonNegative int lane) {
+        return drainedCounts.get(lane);
+    }
+
+    /**
+     * @param lane the lane
+     * @return the mean queueing delay of the values drained from
+     * the lane in nanoseconds, or 0 if none were drained yet
+     */
+    public double getMeanDelayNanos(@NonNegative int lane) {
+        long count = drainedCounts.get(lane);
+        return count == 0 ? 0 : (double) totalDelays.get(lane) / count;
+    }
+
+    /**
+     * @param lane the lane
+     * @return the maximum queueing delay of the values drained from the lane in nanoseconds
+     */
+    public long getMaxDelayNanos(@NonNegative int lane) {
+        return maxDelays.get(lane);
+    }
+
+    /**
+     * Drain the lanes in rounds until no more values are waiting,
+     * and the drain has not been requested again in the meantime.
+     */
+    private void drain() {
+        int missed = 1;
+        do {
+            boolean drained;
+            do {
+                drained = false;
+                for (int lane = 0; lane < queues.length; ++lane) {
+                    for (int i = 0; i < weights[lane]; ++i) {
+                        Entry<Value> entry = queues[lane].poll();
+                        if (entry == null) {
+                            break;
+                        }
+                        record(lane, System.nanoTime() - entry.enqueued);
+                        pass(entry.value);
+                        drained = true;
+                    }
+                }
+            } while (drained);
+            missed = pending.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void record(int lane, long delay) {
+        drainedCounts.incrementAndGet(lane);
+        totalDelays.addAndGet(lane, delay);
+        if (delay > maxDelays.get(lane)) {
+            // only the draining thread writes, so there is no lost update
+            maxDelays.set(lane, delay);
+        }
+        Consumer<Double> callback = delayCallbacks[lane];
+        if (callback != null) {
+            callback.accept(delay / 1e6);
+        }
+    }
+
+    private void pass(Value value) {
+        try {
+            consumer.accept(value);
+        } catch (RuntimeException e) {
+            // do not stop draining the other values
+            Logger.instance().debugException(e, "[PriorityLanes] Consumer threw an exception");
+        }
+    }
+
+    /**
+     * A value waiting in a lane
+     */
+    private static final class Entry<Value> {
+        final Value value;
+        final long enqueued;
+
+        Entry(Value value, long enqueued) {
+            this.value = value;
+            this.enqueued = enqueued;
+        }
+    }
+}
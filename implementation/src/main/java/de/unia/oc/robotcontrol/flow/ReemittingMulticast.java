@@ -5,6 +5,7 @@ import de.unia.oc.robotcontrol.flow.function.SubscriberTransformation;
 import de.unia.oc.robotcontrol.flow.strategy.LoggingFlowStrategy;
 import de.unia.oc.robotcontrol.flow.strategy.SchedulingFlowStrategy;
 import de.unia.oc.robotcontrol.util.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.reactivestreams.Processor;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
@@ -14,16 +15,22 @@ import reactor.core.publisher.FluxProcessor;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.Arrays;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
-import java.util.logging.Level;
 
 /**
  * A multicast which receives values using a {@link Processor} and
  * then re-emits them on a new processor for each {@link Topic} that
  * has been subscribed to (one processor per topic).
  *
+ * The processors are held in an immutable {@link TopicTable}, which is
+ * replaced when a new topic is subscribed to, so that dispatching a
+ * value does not take any locks. Subscribers of {@link #asPublisher()}
+ * are served by another processor, which is passed all values, so that
+ * every consumer of a value is known when it is dispatched.
+ *
  * @param <Topic> the type to use for topics
  * @param <Value> the type of values this receives and sends
  */
@@ -31,14 +38,35 @@ public abstract class ReemittingMulticast<Topic extends Object, Value extends Ob
         implements ValueBoundMulticast<Topic, Value> {
 
     /**
-     * Maps {@link Topic} instances to Processors used for re-emitting
+     * Maps {@link Topic} instances to Processors used for re-emitting.
+     * Never modified, only replaced in {@link #subscribeTo(Object)}.
+     */
+    private volatile TopicTable<Topic, Value> topicTable;
+    /**
+     * Lock held while replacing the {@link #topicTable}
+     */
+    private final Object subscriptionLock = new Object();
+    /**
+     * The maximum number of topics remembered in {@link #unroutedTopics}
+     */
+    static final int MAX_UNROUTED_TOPICS = 64;
+
+    /**
+     * Topics for which values were received without any subscriber,
+     * used to only log the first of these values. A topic is removed once
+     * it is subscribed to, and no more than {@link #MAX_UNROUTED_TOPICS}
+     * topics are remembered; values of further topics are not logged.
      */
-    private final ConcurrentMap<Topic, FluxProcessor<Value, Value>> multicastMap;
+    private final Set<Topic> unroutedTopics = ConcurrentHashMap.newKeySet();
     /**
      * The main processor which receives messages and puts them on
-     * the other processors in the {@link #multicastMap}
+     * the other processors in the {@link #topicTable}
      */
     private final FluxProcessor<Value, Value> mainProcessor;
+    /**
+     * The processor re-emitting all values to the subscribers of {@link #asPublisher()}
+     */
+    private final FluxProcessor<Value, Value> allProcessor;
     /**
      * The side-effect flux used to transfer values from the {@link #mainProcessor}
      * to the emitting processors using {@link #dispatch(Object)}
@@ -58,8 +86,9 @@ public abstract class ReemittingMulticast<Topic extends Object, Value extends Ob
     @SuppressWarnings("initialization")
     public ReemittingMulticast(Scheduler scheduler) {
         this.scheduler = scheduler;
-        this.multicastMap = createMulticastMap();
+        this.topicTable = TopicTable.empty();
         this.mainProcessor = createMainProcessor();
+        this.allProcessor = createMainProcessor();
         this.sideEffect = mainProcessor
                 .doOnNext(this::dispatch)
                 .subscribeOn(scheduler);
@@ -87,9 +116,9 @@ public abstract class ReemittingMulticast<Topic extends Object, Value extends Ob
     /**
      * {@inheritDoc}
      *
-     * Modifies the {@link #multicastMap}, inserting a new processor
-     * using {@link #createTopicProcessor()} if there has been no
-     * subscription to that topic yet.
+     * Replaces the {@link #topicTable} with one containing a new processor
+     * created using {@link #createTopicProcessor()} if there has been no
+     * subscription to that topic yet, or its processor has terminated.
      *
      * Ensures the processor publishes on {@link #scheduler}.
      *
@@ -99,12 +128,18 @@ public abstract class ReemittingMulticast<Topic extends Object, Value extends Ob
      */
     @Override
     public Publisher<Value> subscribeTo(Topic topic) {
-        return multicastMap.compute(topic, (t, current) -> {
-            if (current == null || current.hasCompleted() || current.isTerminated() || current.isDisposed()) {
-                return createTopicProcessor();
+        FluxProcessor<Value, Value> processor = topicTable.get(topic);
+        if (processor == null || isTerminated(processor)) {
+            synchronized (subscriptionLock) {
+                processor = topicTable.get(topic);
+                if (processor == null || isTerminated(processor)) {
+                    processor = createTopicProcessor();
+                    topicTable = topicTable.with(topic, processor);
+                    unroutedTopics.remove(topic);
+                }
             }
-            return current;
-        }).publishOn(scheduler);
+        }
+        return processor.publishOn(scheduler);
     }
 
     @Override
@@ -116,14 +151,14 @@ public abstract class ReemittingMulticast<Topic extends Object, Value extends Ob
      * {@inheritDoc}
      *
      * Applies the {@link FlowStrategy} from {@link #getFlowStrategy()} to the
-     * {@link #mainProcessor}, and adds a retry mechanism, so that there is
+     * {@link #allProcessor}, and adds a retry mechanism, so that there is
      * a re-subscription when errors occur.
      *
      * @return an instance of {@link Publisher}
      */
     @Override
     public Publisher<Value> asPublisher() {
-        return getFlowStrategy().apply(mainProcessor.retry());
+        return getFlowStrategy().apply(allProcessor.retry());
     }
 
     @Override
@@ -140,38 +175,85 @@ public abstract class ReemittingMulticast<Topic extends Object, Value extends Ob
 
     /**
      * Dispatches the given value to the correct processor
-     * stored in {@link #multicastMap}, where the correct
+     * stored in {@link #topicTable}, where the correct
      * topic is determined from {@link #topicFromValue(Object)}
-     * applied to the passed value. If there is no matching
-     * re-emitting processor in the {@link #multicastMap}, simply
-     * logs a debug message.
+     * applied to the passed value, and to the subscribers of
+     * {@link #asPublisher()}. If there is no matching
+     * re-emitting processor in the {@link #topicTable}, logs
+     * a debug message the first time this happens for a topic
+     * (see {@link #unroutedTopics}).
+     *
+     * Called serially by the {@link #mainProcessor}, and does not lock.
+     *
+     * Calls {@link #handOver(Object, long)} with the number of all these
+     * subscribers before re-emitting the value. Processors without subscribers
+     * only buffer the value for later subscribers if it allows to.
      *
      * @param value the value to dispatch
      */
     protected void dispatch(Value value) {
         Topic topic = topicFromValue(value);
-        synchronized (multicastMap) {
-            if (multicastMap.containsKey(topic)) {
-                multicastMap.get(topic).onNext(value);
-            } else {
-                Logger.instance().debug("[Multicast] No subscriber found for topic " + topic);
+        FluxProcessor<Value, Value> processor = topicTable.get(topic);
+        long allCount = allProcessor.downstreamCount();
+        long topicCount = processor != null ? processor.downstreamCount() : 0;
+        boolean isBuffered = handOver(value, allCount + topicCount);
+        if (allCount > 0) {
+            allProcessor.onNext(value);
+        }
+        if (processor != null) {
+            if (topicCount > 0 || isBuffered) {
+                processor.onNext(value);
             }
+        } else if (Logger.DEBUG
+                && !unroutedTopics.contains(topic)
+                && unroutedTopics.size() < MAX_UNROUTED_TOPICS
+                && unroutedTopics.add(topic)) {
+            Logger.instance().debug("[Multicast] No subscriber found for topic " + topic);
         }
     }
 
     /**
-     * Initially create the Map used as {@link #multicastMap}.
-     * Can be overridden in subclasses to use a different map implementation.
-     * Uses a {@link ConcurrentHashMap} by default.
+     * @return the number of topics values were received for without any
+     * subscriber, which are remembered to only log them once
+     */
+    int getUnroutedTopicCount() {
+        return unroutedTopics.size();
+    }
+
+    /**
+     * Called by {@link #dispatch(Object)} right before the given value is
+     * re-emitted to the subscribers of its topic and of {@link #asPublisher()}.
+     * Can be overridden in subclasses to track which values are still in use.
+     * Does nothing by default.
      *
-     * @return a new instance of {@link ConcurrentMap}
+     * @param value the value which is re-emitted
+     * @param subscribers the number of subscribers the value is re-emitted to
+     * @return whether the value may be buffered for later subscribers by
+     * a processor which has no subscribers yet; true by default
+     */
+    protected boolean handOver(Value value, long subscribers) {
+        return true;
+    }
+
+    /**
+     * @return the execution context on which values are dispatched and re-emitted
+     */
+    protected Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @param processor the processor to check
+     * @return whether the processor can not emit values anymore,
+     * and has to be replaced
      */
-    protected ConcurrentMap<Topic, FluxProcessor<Value, Value>> createMulticastMap() {
-        return new ConcurrentHashMap<>();
+    protected static boolean isTerminated(FluxProcessor<?, ?> processor) {
+        return processor.hasCompleted() || processor.isTerminated() || processor.isDisposed();
     }
 
      /**
-      * Initially create the Processor used as {@link #mainProcessor}.
+      * Initially create the Processors used as {@link #mainProcessor}
+      * and as {@link #allProcessor}.
       * Can be overridden in subclasses to use a different processor implementation.
       * Uses a {@link EmitterProcessor} by default.
       *
@@ -182,7 +264,7 @@ public abstract class ReemittingMulticast<Topic extends Object, Value extends Ob
     }
 
     /**
-     * Create the processors used in the {@link #multicastMap} for
+     * Create the processors used in the {@link #topicTable} for
      * re-emitting the values.
      * Can be overridden in subclasses to use a different processor implementation.
      * Uses a {@link EmitterProcessor} by default.
@@ -192,4 +274,74 @@ public abstract class ReemittingMulticast<Topic extends Object, Value extends Ob
     protected FluxProcessor<Value, Value> createTopicProcessor() {
         return EmitterProcessor.create();
     }
+
+    /**
+     * Immutable table mapping topics to their processors.
+     * Topics are looked up by identity first, which matches for
+     * singleton topics such as message types, and by equality otherwise.
+     *
+     * @param <Topic> the type of topics
+     * @param <Value> the type of values the processors emit
+     */
+    private static final class TopicTable<Topic extends Object, Value extends Object> {
+
+        private static final TopicTable<?, ?> EMPTY = new TopicTable<>(new Object[0], new FluxProcessor[0]);
+
+        private final Object[] topics;
+        private final FluxProcessor[] processors;
+
+        private TopicTable(Object[] topics, FluxProcessor[] processors) {
+            this.topics = topics;
+            this.processors = processors;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <Topic extends Object, Value extends Object> TopicTable<Topic, Value> empty() {
+            return (TopicTable<Topic, Value>) EMPTY;
+        }
+
+        private int indexOf(Topic topic) {
+            for (int i = 0; i < topics.length; ++i) {
+                if (topics[i] == topic) {
+                    return i;
+                }
+            }
+            for (int i = 0; i < topics.length; ++i) {
+                if (topics[i].equals(topic)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param topic the topic to look up
+         * @return the processor for the topic, or null if there is none
+         */
+        @SuppressWarnings("unchecked")
+        @Nullable FluxProcessor<Value, Value> get(Topic topic) {
+            int index = indexOf(topic);
+            return index < 0 ? null : (FluxProcessor<Value, Value>) processors[index];
+        }
+
+        /**
+         * @param topic the topic to set the processor for
+         * @param processor the processor for the topic
+         * @return a new table with the processor for the given topic
+         * replaced or added
+         */
+        TopicTable<Topic, Value> with(Topic topic, FluxProcessor<Value, Value> processor) {
+            int index = indexOf(topic);
+            if (index >= 0) {
+                FluxProcessor[] newProcessors = processors.clone();
+                newProcessors[index] = processor;
+                return new TopicTable<>(topics, newProcessors);
+            }
+            Object[] newTopics = Arrays.copyOf(topics, topics.length + 1);
+            FluxProcessor[] newProcessors = Arrays.copyOf(processors, processors.length + 1);
+            newTopics[topics.length] = topic;
+            newProcessors[processors.length] = processor;
+            return new TopicTable<>(newTopics, newProcessors);
+        }
+    }
 }
@@ -0,0 +1,233 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A preallocated ring buffer with sequence numbers, as used by {@link RingBufferMulticast}.
+ *
+ * Producers claim a sequence number using an atomic increment, wait until
+ * all consumers have processed the value previously stored in the slot for
+ * that sequence, store the value and mark the slot as published.
+ * Multiple producers can publish at the same time.
+ *
+ * Each consumer owns a sequence (the last sequence it has processed)
+ * registered with {@link #addConsumer()}, and reads values using
+ * {@link #isAvailable(long)} and {@link #get(long)}. Slots processed by all
+ * consumers are cleared using {@link #clearConsumed()}, so that the buffer
+ * does not keep references to consumed values; only cleared slots are reused
+ * by the producers. Each value is passed to a callback once its slot is cleared.
+ *
+ * @param <T> the type of values stored in the buffer
+ */
+final class RingBuffer<T extends Object> {
+
+    /**
+     * The slots of the buffer
+     */
+    private final Object[] entries;
+    /**
+     * For each slot, the round ({@code sequence >>> shift}) of
+     * the last value published to it
+     */
+    private final AtomicIntegerArray published;
+    /**
+     * Mask used to get the slot index of a sequence
+     */
+    private final int mask;
+    /**
+     * Shift used to get the round of a sequence
+     */
+    private final int shift;
+    /**
+     * The last sequence claimed by a producer
+     */
+    private final AtomicLong claimed = new AtomicLong(-1);
+    /**
+     * The last sequence whose slot has been cleared, which gates the producers
+     */
+    private final AtomicLong cleared = new AtomicLong(-1);
+    /**
+     * Whether a thread is currently clearing slots
+     */
+    private final AtomicBoolean clearing = new AtomicBoolean(false);
+    /**
+     * The sequences of all consumers
+     */
+    private final List<AtomicLong> consumers = new CopyOnWriteArrayList<>();
+    /**
+     * The strategy producers use to wait for consumers
+     */
+    private final WaitStrategy waitStrategy;
+    /**
+     * Called with each value whose slot is cleared
+     */
+    private final Consumer<? super T> onCleared;
+
+    /**
+     * Create a new ring buffer with the given number of slots.
+     *
+     * @param size the number of slots, has to be a power of two
+     * @param waitStrategy the strategy producers use to wait for consumers
+     * @throws IllegalArgumentException if the size is not a power of two
+     */
+    RingBuffer(int size, WaitStrategy waitStrategy) throws IllegalArgumentException {
+        this(size, waitStrategy, (value) -> { });
+    }
+
+    /**
+     * Create a new ring buffer with the given number of slots.
+     *
+     * @param size the number of slots, has to be a power of two
+     * @param waitStrategy the strategy producers use to wait for consumers
+     * @param onCleared called with each value once all consumers have processed it,
+     *                  when its slot is cleared, by the thread clearing the slot
+     * @throws IllegalArgumentException if the size is not a power of two
+     */
+    RingBuffer(int size, WaitStrategy waitStrategy, Consumer<? super T> onCleared) throws IllegalArgumentException {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring buffer size has to be a power of two, was: " + size);
+        }
+        this.entries = new Object[size];
+        this.published = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; ++i) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.shift = Integer.numberOfTrailingZeros(size);
+        this.waitStrategy = waitStrategy;
+        this.onCleared = onCleared;
+    }
+
+    /**
+     * Publish the given value, waiting until its slot has been
+     * cleared if the buffer is full.
+     *
+     * @param value the value to publish
+     */
+    void publish(T value) {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - entries.length;
+        int idleCount = 0;
+        while (wrapPoint > cleared.get()) {
+            clearConsumed();
+            if (wrapPoint > cleared.get()) {
+                waitStrategy.idle(idleCount++);
+            }
+        }
+        int index = (int) sequence & mask;
+        entries[index] = value;
+        // ordered store, makes the value visible to consumers reading the flag
+        published.lazySet(index, (int) (sequence >>> shift));
+    }
+
+    /**
+     * @param sequence the sequence to check
+     * @return whether the value with the given sequence has been published
+     */
+    boolean isAvailable(long sequence) {
+        return published.get((int) sequence & mask) == (int) (sequence >>> shift);
+    }
+
+    /**
+     * Get the value with the given sequence. Only valid if
+     * {@link #isAvailable(long)} returned true for the sequence,
+     * and the calling consumer has not yet processed the sequence.
+     *
+     * @param sequence the sequence of the value
+     * @return the value stored for the sequence
+     */
+    @SuppressWarnings("unchecked")
+    T get(long sequence) {
+        return (T) entries[(int) sequence & mask];
+    }
+
+    /**
+     * Clear the slots of all values processed by all consumers, unless
+     * another thread is already doing so. Called by the consumers after
+     * processing values, and by producers waiting for a slot.
+     *
+     * Stops at the first value which has been claimed, but not published yet,
+     * so that each value is passed to the callback given on construction.
+     */
+    void clearConsumed() {
+        if (!clearing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long last = cleared.get();
+            long to = minimumConsumerSequence();
+            while (last < to && isAvailable(last + 1)) {
+                int index = (int) ++last & mask;
+                @SuppressWarnings("unchecked")
+                T value = (T) entries[index];
+                entries[index] = null;
+                onCleared.accept(value);
+            }
+            if (last > cleared.get()) {
+                // volatile store, makes the cleared slots visible to producers
+                cleared.set(last);
+            }
+        } finally {
+            clearing.set(false);
+        }
+    }
+
+    /**
+     * @return the last sequence claimed by a producer
+     */
+    long getClaimed() {
+        return claimed.get();
+    }
+
+    /**
+     * Register a new consumer, which starts after the last claimed sequence.
+     * The consumer has to update the returned sequence after processing
+     * each value, and has to be removed using {@link #removeConsumer(AtomicLong)}
+     * once it stops consuming, as it would block the producers otherwise.
+     *
+     * @return the sequence of the new consumer
+     */
+    AtomicLong addConsumer() {
+        AtomicLong sequence = new AtomicLong(claimed.get());
+        consumers.add(sequence);
+        return sequence;
+    }
+
+    /**
+     * Remove a consumer added using {@link #addConsumer()}.
+     *
+     * @param sequence the sequence of the consumer
+     */
+    void removeConsumer(AtomicLong sequence) {
+        consumers.remove(sequence);
+    }
+
+    /**
+     * @return the number of slots of the buffer
+     */
+    int size() {
+        return entries.length;
+    }
+
+    /**
+     * Get the last sequence processed by all consumers. Without consumers,
+     * this is the last claimed sequence, as consumers added later start
+     * after it. The claimed sequence is read first, so that a consumer
+     * added concurrently is either seen or starts after the result.
+     *
+     * @return the last sequence processed by all consumers
+     */
+    private long minimumConsumerSequence() {
+        long minimum = claimed.get();
+        for (AtomicLong sequence : consumers) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+}
@@ -0,0 +1,243 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import de.unia.oc.robotcontrol.flow.strategy.TransparentFlowStrategy;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * A multicast which passes values through a preallocated {@link RingBuffer}
+ * instead of reactor processors.
+ *
+ * Every publisher returned by {@link #subscribeTo(Object)} or {@link #asPublisher()}
+ * is served by its own consumer thread, which waits for new values using the
+ * given {@link WaitStrategy} and emits the values of its topic directly,
+ * without switching to another scheduler. A consumer only advances once its
+ * subscriber requested more values, so slow subscribers make the producers
+ * wait when the buffer is full. The thread stops once the subscription
+ * is cancelled.
+ *
+ * Each subscriber registers its own consumer of the ring buffer when it
+ * subscribes, and receives the values published from then on; values
+ * published before are not kept for later subscribers. The consumer is
+ * removed once the subscription is cancelled, so that publishers which are
+ * not subscribed to never hold up the producers.
+ *
+ * Meant for setups where the latency between sensors and controller matters
+ * more than the CPU time used by the waiting consumer threads; the default
+ * {@link WaitStrategy#PARK} keeps idle consumers from occupying a core.
+ *
+ * Completion and errors received by {@link #asProcessor()} are forwarded
+ * to all subscribers once they have emitted the values published before.
+ *
+ * Subclasses can track which values are still in use by overriding
+ * {@link #handOver(Object)}, called for each subscriber a value is emitted
+ * to, and {@link #onConsumed(Object)}, called once all consumers passed it.
+ *
+ * @param <Topic> the type to use for topics
+ * @param <Value> the type of values this receives and sends
+ */
+public abstract class RingBufferMulticast<Topic extends Object, Value extends Object>
+        implements ValueBoundMulticast<Topic, Value> {
+
+    /**
+     * The default number of slots of the ring buffer
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    /**
+     * The buffer values are passed through
+     */
+    private final RingBuffer<Value> ringBuffer;
+    /**
+     * The strategy the consumer threads use to wait for values
+     */
+    private final WaitStrategy waitStrategy;
+    /**
+     * The processor which publishes values to the ring buffer
+     */
+    private final Processor<Value, Value> processor;
+    /**
+     * Used to number the consumer threads
+     */
+    private final AtomicInteger consumerCount = new AtomicInteger();
+    /**
+     * Whether a terminal signal has been received
+     */
+    private volatile boolean isDone = false;
+    /**
+     * The error received, if any
+     */
+    private volatile @Nullable Throwable error = null;
+
+    /**
+     * Creates a new instance of {@link RingBufferMulticast}.
+     *
+     * @param bufferSize the number of slots of the ring buffer, has to be a power of two
+     * @param waitStrategy the strategy used by producers and consumers to wait
+     * @throws IllegalArgumentException if the buffer size is not a power of two
+     */
+    @SuppressWarnings("initialization")
+    public RingBufferMulticast(int bufferSize, WaitStrategy waitStrategy) throws IllegalArgumentException {
+        this.ringBuffer = new RingBuffer<>(bufferSize, waitStrategy, this::onConsumed);
+        this.waitStrategy = waitStrategy;
+        this.processor = new Processor<Value, Value>() {
+            @Override
+            public void subscribe(Subscriber<? super Value> subscriber) {
+                subscribeWhere((value) -> true).subscribe(subscriber);
+            }
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Value value) {
+                ringBuffer.publish(value);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error = throwable;
+                isDone = true;
+            }
+
+            @Override
+            public void onComplete() {
+                isDone = true;
+            }
+        };
+    }
+
+    /**
+     * Creates a new instance of {@link RingBufferMulticast} with
+     * {@link #DEFAULT_BUFFER_SIZE} slots, using {@link WaitStrategy#PARK}.
+     */
+    public RingBufferMulticast() {
+        this(DEFAULT_BUFFER_SIZE, WaitStrategy.PARK);
+    }
+
+    @Override
+    public Publisher<Value> subscribeTo(Topic topic) {
+        return subscribeWhere((value) -> topic.equals(topicFromValue(value)));
+    }
+
+    @Override
+    public Processor<Value, Value> asProcessor() {
+        return processor;
+    }
+
+    @Override
+    public Publisher<Value> asPublisher() {
+        return getFlowStrategy().apply(subscribeWhere((value) -> true));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The consumer threads already emit on their own thread,
+     * so the values are passed on as they are.
+     *
+     * @return an instance of {@link TransparentFlowStrategy}
+     */
+    @Override
+    public FlowStrategy<Value, Value> getFlowStrategy() {
+        return TransparentFlowStrategy.create();
+    }
+
+    /**
+     * Called by a consumer thread right before the given value is emitted
+     * to its subscriber, while the value is still held by the ring buffer.
+     * Can be overridden in subclasses to track which values are still in use.
+     * Does nothing by default.
+     *
+     * @param value the value which is emitted
+     */
+    protected void handOver(Value value) {
+    }
+
+    /**
+     * Called once all consumers have passed the given value, whether any of
+     * them emitted it or not, when it is removed from the ring buffer.
+     * Can be overridden in subclasses to track which values are still in use.
+     * Does nothing by default.
+     *
+     * @param value the value which is removed from the ring buffer
+     */
+    protected void onConsumed(Value value) {
+    }
+
+    /**
+     * @return the number of slots of the ring buffer
+     */
+    public int getBufferSize() {
+        return ringBuffer.size();
+    }
+
+    /**
+     * Create a publisher which registers a consumer and starts a consumer
+     * thread for each subscriber, emitting all values matching the given
+     * predicate which are published after subscribing. The predicate is
+     * called on the consumer thread only.
+     *
+     * @param filter the predicate values have to match to be emitted
+     * @return a new {@link Publisher}
+     */
+    protected Flux<Value> subscribeWhere(Predicate<? super Value> filter) {
+        return Flux.create((sink) -> {
+            AtomicLong sequence = ringBuffer.addConsumer();
+            AtomicBoolean running = new AtomicBoolean(true);
+
+            Thread consumer = new Thread(() -> {
+                long next = sequence.get() + 1;
+                int idleCount = 0;
+                while (running.get()) {
+                    if (!ringBuffer.isAvailable(next)) {
+                        if (isDone && next > ringBuffer.getClaimed()) {
+                            Throwable e = error;
+                            if (e != null) {
+                                sink.error(e);
+                            } else {
+                                sink.complete();
+                            }
+                            return;
+                        }
+                        waitStrategy.idle(idleCount++);
+                        continue;
+                    }
+                    Value value = ringBuffer.get(next);
+                    if (filter.test(value)) {
+                        if (sink.requestedFromDownstream() <= 0) {
+                            waitStrategy.idle(idleCount++);
+                            continue;
+                        }
+                        handOver(value);
+                        sink.next(value);
+                    }
+                    idleCount = 0;
+                    sequence.lazySet(next++);
+                    ringBuffer.clearConsumed();
+                }
+            }, "RingBufferMulticast consumer " + consumerCount.incrementAndGet());
+            consumer.setDaemon(true);
+
+            sink.onDispose(() -> {
+                running.set(false);
+                ringBuffer.removeConsumer(sequence);
+                LockSupport.unpark(consumer);
+            });
+            consumer.start();
+        });
+    }
+}
@@ -0,0 +1,72 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The ways a {@link RingBufferMulticast} can wait for values to be
+ * published (consumers) or slots to be freed (producers), also used
+ * by readers of a {@link MappedRingFile} waiting for new records.
+ * Trades the latency until a waiting thread notices the change
+ * against the CPU time used while waiting.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spin continuously. Lowest latency, but occupies
+     * one CPU core for each waiting thread.
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int idleCount) {
+            // spin
+        }
+    },
+
+    /**
+     * Spin for a short while, then yield to other threads.
+     * Low latency, and frees the core if other threads need it.
+     */
+    YIELD {
+        @Override
+        public void idle(int idleCount) {
+            if (idleCount >= SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    },
+
+    /**
+     * Spin and yield for a short while, then park the thread for
+     * {@link #PARK_NANOS} each time. Uses the least CPU time when
+     * idle, at the cost of higher latency.
+     */
+    PARK {
+        @Override
+        public void idle(int idleCount) {
+            if (idleCount >= 2 * SPIN_TRIES) {
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (idleCount >= SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    };
+
+    /**
+     * The number of times to spin before yielding or parking
+     */
+    static final int SPIN_TRIES = 100;
+
+    /**
+     * The time (in ns) a thread is parked by {@link #PARK}
+     */
+    static final long PARK_NANOS = 100_000;
+
+    /**
+     * Wait once.
+     *
+     * @param idleCount the number of times the calling thread
+     *                  has already waited for the same condition
+     */
+    public abstract void idle(int idleCount);
+}
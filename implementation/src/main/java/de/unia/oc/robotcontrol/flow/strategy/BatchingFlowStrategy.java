@@ -0,0 +1,163 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow.strategy;
+
+import de.unia.oc.robotcontrol.flow.FlowStrategy;
+import de.unia.oc.robotcontrol.flow.FlowStrategyType;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of {@link FlowStrategy} used for collecting the values
+ * of a publisher into batches, so that values which arrive while the
+ * recipient is busy can be processed together: {@code (Publisher<T>) -> (Publisher<List<T>>)}
+ *
+ * Batches are never waited for: as soon as the recipient is ready to receive,
+ * all pending values (at most the maximum batch size) are passed as one batch,
+ * so a single pending value is passed on right away. Only as many values
+ * as fit into one batch are requested from the transformed publisher,
+ * so it keeps buffering the others as defined by its own flow strategy.
+ *
+ * @param <T> the type of object received by the Publisher
+ *           which is to be transformed by this flow strategy
+ */
+public class BatchingFlowStrategy<T extends Object> implements FlowStrategy<T, List<T>> {
+
+    /**
+     * The maximum number of values in a batch.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * Create a new instance of {@link BatchingFlowStrategy}.
+     *
+     * @param maxBatchSize the maximum number of values in a batch
+     */
+    private BatchingFlowStrategy(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size has to be positive!");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Create a new instance of {@link BatchingFlowStrategy}.
+     *
+     * @param maxBatchSize the maximum number of values in a batch
+     * @param <T> the type of object received by the Publisher
+     *           which is to be transformed by this flow strategy
+     * @return a new instance of {@link BatchingFlowStrategy}
+     * @throws IllegalArgumentException if the batch size is not positive
+     */
+    public static <T> BatchingFlowStrategy<T> create(int maxBatchSize) {
+        return new BatchingFlowStrategy<>(maxBatchSize);
+    }
+
+    @Override
+    public FlowStrategyType getType() {
+        return FlowStrategyType.BUFFER;
+    }
+
+    @Override
+    public Publisher<List<T>> apply(Publisher<T> publisher) {
+        return Flux
+                .<List<T>>create((sink) -> Flux.from(publisher).subscribe(new BatchingSubscriber(sink)),
+                        FluxSink.OverflowStrategy.ERROR)
+                .tag(PROPERTY_NAME, getType().name());
+    }
+
+    /**
+     * Collects the values received from the transformed publisher
+     * and emits them as batches whenever the recipient requests.
+     */
+    private final class BatchingSubscriber extends BaseSubscriber<T> {
+
+        private final FluxSink<List<T>> sink;
+        /**
+         * The values received, but not emitted yet;
+         * never more than {@link #maxBatchSize}
+         */
+        private final Queue<T> pending = new ConcurrentLinkedQueue<>();
+        /**
+         * The number of calls to {@link #drain()} that still have to be
+         * worked off, so that only one thread emits at the same time
+         */
+        private final AtomicInteger workInProgress = new AtomicInteger();
+
+        private volatile boolean done = false;
+        private volatile @Nullable Throwable error = null;
+
+        @SuppressWarnings("initialization")
+        BatchingSubscriber(FluxSink<List<T>> sink) {
+            this.sink = sink;
+            sink.onRequest((n) -> drain());
+            sink.onDispose(this::dispose);
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(maxBatchSize);
+        }
+
+        @Override
+        protected void hookOnNext(T value) {
+            pending.offer(value);
+            drain();
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error = throwable;
+            done = true;
+            drain();
+        }
+
+        /**
+         * Emit all pending values as one batch if the recipient is ready,
+         * and request as many new values as were emitted.
+         */
+        private void drain() {
+            if (workInProgress.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!pending.isEmpty() && sink.requestedFromDownstream() > 0) {
+                    List<T> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+                    T value;
+                    while (batch.size() < maxBatchSize && (value = pending.poll()) != null) {
+                        batch.add(value);
+                    }
+                    sink.next(batch);
+                    if (!done) {
+                        request(batch.size());
+                    }
+                }
+                if (done && pending.isEmpty()) {
+                    Throwable e = error;
+                    if (e != null) {
+                        sink.error(e);
+                    } else {
+                        sink.complete();
+                    }
+                }
+                missed = workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
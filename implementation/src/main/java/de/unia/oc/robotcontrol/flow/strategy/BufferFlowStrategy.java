@@ -3,6 +3,7 @@ package de.unia.oc.robotcontrol.flow.strategy;
 
 import de.unia.oc.robotcontrol.flow.FlowStrategy;
 import de.unia.oc.robotcontrol.flow.FlowStrategyType;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
@@ -57,7 +58,8 @@ public class BufferFlowStrategy<T extends Object> implements FlowStrategy<T, T>
     /**
      * Creates a new {@link BufferFlowStrategy} with a bounded buffer. Uses
      * the given overflow strategy to determine what happens when the buffer
-     * overflows.
+     * overflows. Values dropped because of an overflow are released
+     * (see {@link ReferenceCounted}).
      * @param bufSize the buffer size to use
      * @param overflowStrategy the overflow strategy to use to determine what
      *                         should happen when the buffer overflows
@@ -66,7 +68,7 @@ public class BufferFlowStrategy<T extends Object> implements FlowStrategy<T, T>
      * @return a new instance of {@link BufferFlowStrategy}
      */
     public static <T> BufferFlowStrategy<T> create(int bufSize, BufferOverflowStrategy overflowStrategy) {
-        return new BufferFlowStrategy<>((f) -> f.onBackpressureBuffer(bufSize, overflowStrategy));
+        return new BufferFlowStrategy<>((f) -> f.onBackpressureBuffer(bufSize, ReferenceCounted::releaseIfCounted, overflowStrategy));
     }
 
     @Override
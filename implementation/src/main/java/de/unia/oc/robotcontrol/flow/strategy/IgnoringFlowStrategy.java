@@ -3,13 +3,15 @@ package de.unia.oc.robotcontrol.flow.strategy;
 
 import de.unia.oc.robotcontrol.flow.FlowStrategy;
 import de.unia.oc.robotcontrol.flow.FlowStrategyType;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 
 /**
  * Implementation of {@link FlowStrategy} used for ignoring values
  * that cannot be processed by a recipient. The values are not held,
- * but simply dropped while the recipient is not ready
+ * but simply dropped (and released, see {@link ReferenceCounted})
+ * while the recipient is not ready
  *
  * @param <T> the type of object received and published by the Publisher
  *           which is to be transformed by this flow strategy
@@ -37,7 +39,7 @@ public class IgnoringFlowStrategy<T extends Object> implements FlowStrategy<T, T
     public Publisher<T> apply(Publisher<T> publisher) {
         return Flux
                 .from(publisher)
-                .onBackpressureDrop()
+                .onBackpressureDrop(ReferenceCounted::releaseIfCounted)
                 .tag(PROPERTY_NAME, getType().name());
     }
 }
@@ -3,13 +3,16 @@ package de.unia.oc.robotcontrol.flow.strategy;
 
 import de.unia.oc.robotcontrol.flow.FlowStrategy;
 import de.unia.oc.robotcontrol.flow.FlowStrategyType;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
 import org.reactivestreams.Publisher;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
 
 /**
  * Implementation of {@link FlowStrategy} used for holding the last
  * received object while a recipient of the transformed Publisher is not ready,
- * then passing it once it is ready.
+ * then passing it once it is ready. Objects replaced by a newer one are released
+ * (see {@link ReferenceCounted}).
  *
  * @param <T> the type of object received and published by the Publisher
  *           which is to be transformed by this flow strategy
@@ -37,7 +40,7 @@ public class LatestFlowStrategy<T extends Object> implements FlowStrategy<T, T>
     public Publisher<T> apply(Publisher<T> publisher) {
         return Flux
                 .from(publisher)
-                .onBackpressureLatest()
+                .onBackpressureBuffer(1, ReferenceCounted::releaseIfCounted, BufferOverflowStrategy.DROP_OLDEST)
                 .tag(PROPERTY_NAME, getType().name());
     }
 }
@@ -3,6 +3,7 @@ package de.unia.oc.robotcontrol.flow.strategy;
 
 import de.unia.oc.robotcontrol.flow.FlowStrategy;
 import de.unia.oc.robotcontrol.flow.FlowStrategyType;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
@@ -18,6 +19,11 @@ import java.util.function.Supplier;
  * at a certain interval, then merges that Publisher with the Publisher
  * to be transformed using a merging function.
  *
+ * By default, the merging function is passed the last value of the transformed
+ * Publisher on every tick. Strategies created using
+ * {@link #createArriving(Publisher, Supplier, BiFunction)} only pass each value
+ * once, as it arrives, and null on ticks without a new value.
+ *
  * @param <Input> the type of object published by the Publisher
  *           which is to be transformed by this flow strategy
  * @param <Output> the type of object published by the transformed Publisher
@@ -39,6 +45,10 @@ public class TimedFlowStrategy<Input extends Object, Output extends Object> impl
      * values published by the transformed publisher.
      */
     private final BiFunction<Long, Input, Output> mergingFunction;
+    /**
+     * Whether each value is only passed to the {@link #mergingFunction} once
+     */
+    private final boolean isPassingArrivals;
 
     /**
      * Create a new instance of {@link TimedFlowStrategy} using the given {@link Publisher}
@@ -53,9 +63,17 @@ public class TimedFlowStrategy<Input extends Object, Output extends Object> impl
     private TimedFlowStrategy(Publisher<Long> timer,
                               Supplier<Input> initialInput,
                               BiFunction<Long, Input, Output> mergingFunction) {
+        this(timer, initialInput, mergingFunction, false);
+    }
+
+    private TimedFlowStrategy(Publisher<Long> timer,
+                              Supplier<Input> initialInput,
+                              BiFunction<Long, Input, Output> mergingFunction,
+                              boolean isPassingArrivals) {
         this.timer = timer;
         this.initialInput = initialInput;
         this.mergingFunction = mergingFunction;
+        this.isPassingArrivals = isPassingArrivals;
     }
 
     /**
@@ -79,6 +97,31 @@ public class TimedFlowStrategy<Input extends Object, Output extends Object> impl
         return new TimedFlowStrategy<>(timer, initialInput, mergingFunction);
     }
 
+    /**
+     * Like {@link #createTimed(Publisher, Supplier, BiFunction)}, but the merging function
+     * is passed each value of the transformed Publisher only once, when it arrives or on the
+     * next tick, whichever comes first, and null otherwise. New values are thus told apart
+     * from repeated ones by their arrival, not by their identity, which is needed for values
+     * which are reused (see {@link ReferenceCounted}).
+     *
+     * A reference to the last value is retained until it is replaced by the next one, so
+     * that it is not reused meanwhile. Values replaced before they were passed on are released.
+     *
+     * @param timer the timer used for the ticks
+     * @param initialInput the provider of the initial input
+     * @param mergingFunction the function used to merge the tick with the newly arrived
+     *                        value of the transformed Publisher, or null if there is none
+     * @param <I> the type of object published by the Publisher
+     *           which is to be transformed by this flow strategy
+     * @param <O> the type of object published by the transformed Publisher
+     * @return a new instance of {@link TimedFlowStrategy}
+     */
+    public static <I, O> TimedFlowStrategy<I, O> createArriving(Publisher<Long> timer,
+                                                                Supplier<I> initialInput,
+                                                                BiFunction<Long, @Nullable I, O> mergingFunction) {
+        return new TimedFlowStrategy<>(timer, initialInput, mergingFunction, true);
+    }
+
     /**
      * Create a new instance of {@link TimedFlowStrategy}, using the given {@link Publisher} as
      * {@link #timer} and the given {@link Supplier} as {@link #initialInput}.
@@ -168,9 +211,59 @@ public class TimedFlowStrategy<Input extends Object, Output extends Object> impl
 
     @Override
     public Publisher<Output> apply(Publisher<Input> publisher) {
-        return Flux.combineLatest(
-                timer,
-                Flux.from(publisher).startWith(initialInput.get()),
-                mergingFunction);
+        if (!isPassingArrivals) {
+            return Flux.combineLatest(
+                    timer,
+                    Flux.from(publisher).startWith(initialInput.get()),
+                    mergingFunction);
+        }
+        return Flux.defer(() -> {
+            Arrivals<Input> arrivals = new Arrivals<>();
+            return Flux.combineLatest(
+                    timer,
+                    Flux.from(publisher).startWith(initialInput.get()).doOnNext(arrivals::arrive),
+                    (Long tick, Input latest) -> mergingFunction.apply(tick, arrivals.take()))
+                    .doFinally((signal) -> arrivals.clear());
+        });
+    }
+
+    /**
+     * Holds the last value which arrived, retaining a reference to it until it
+     * is replaced, and whether it has been passed to the merging function yet.
+     *
+     * @param <T> the type of values held
+     */
+    private static final class Arrivals<T> {
+
+        /**
+         * The last value which arrived; guarded by {@code this}
+         */
+        private @Nullable T latest = null;
+        /**
+         * The last value if it has not been taken yet; guarded by {@code this}
+         */
+        private @Nullable T arrived = null;
+
+        synchronized void arrive(T value) {
+            ReferenceCounted.retainIfCounted(value, 1);
+            // a value replaced before it was taken is never passed on
+            ReferenceCounted.releaseIfCounted(arrived);
+            ReferenceCounted.releaseIfCounted(latest);
+            latest = value;
+            arrived = value;
+        }
+
+        synchronized @Nullable T take() {
+            T value = arrived;
+            arrived = null;
+            return value;
+        }
+
+        synchronized void clear() {
+            ReferenceCounted.releaseIfCounted(arrived);
+            ReferenceCounted.releaseIfCounted(latest);
+            latest = null;
+            arrived = null;
+        }
     }
 }
@@ -3,6 +3,7 @@ package de.unia.oc.robotcontrol.flow.strategy;
 
 import de.unia.oc.robotcontrol.flow.FlowStrategy;
 import de.unia.oc.robotcontrol.flow.FlowStrategyType;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 
@@ -11,6 +12,7 @@ import reactor.core.publisher.Flux;
  * types of values that continue down the line using their {@link Class}.
  * By consequence, for an input element (of type {@link Input}) to pass,
  * the class of {@link Output} must be one of its super-classes.
+ * Values which are filtered out are released (see {@link ReferenceCounted}).
  *
  * @param <Input> the type of object published by the Publisher
  *                which is to be transformed by this flow strategy
@@ -55,10 +57,14 @@ public class TypeFilterFlowStrategy<Input extends Object, Output extends Object>
 
     @Override
     public Publisher<Output> apply(Publisher<Input> inputPublisher) {
-        final Object unique = new Object();
         return Flux.from(inputPublisher)
-                .map((i) -> outputCls.isInstance(i) ? i : unique)
-                .filter((i) -> i != unique)
+                .filter((i) -> {
+                    if (outputCls.isInstance(i)) {
+                        return true;
+                    }
+                    ReferenceCounted.releaseIfCounted(i);
+                    return false;
+                })
                 .cast(outputCls);
     }
 }
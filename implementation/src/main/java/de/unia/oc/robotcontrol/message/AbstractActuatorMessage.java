@@ -1,6 +1,8 @@
 /* %FILE_TEMPLATE_TEXT% */
 package de.unia.oc.robotcontrol.message;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 /**
  * Abstract superclass for an actuator message.
  * Utility class simplifying the creation of concrete
@@ -10,4 +12,17 @@ package de.unia.oc.robotcontrol.message;
 public abstract class AbstractActuatorMessage<T extends ActuatorMessage>
         extends AbstractDeviceMessage<T>
         implements ActuatorMessage<T> {
+
+    protected AbstractActuatorMessage() {
+        super();
+    }
+
+    /**
+     * See {@link AbstractMessage#AbstractMessage(MessagePool)}.
+     *
+     * @param pool the pool this message belongs to, or null if it is not pooled
+     */
+    protected AbstractActuatorMessage(@Nullable MessagePool<?> pool) {
+        super(pool);
+    }
 }
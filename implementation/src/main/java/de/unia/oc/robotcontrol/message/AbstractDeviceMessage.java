@@ -21,6 +21,19 @@ public abstract class AbstractDeviceMessage<T extends Message>
 
     private volatile @MonotonicNonNull UUID deviceUUID;
 
+    protected AbstractDeviceMessage() {
+        super();
+    }
+
+    /**
+     * See {@link AbstractMessage#AbstractMessage(MessagePool)}.
+     *
+     * @param pool the pool this message belongs to, or null if it is not pooled
+     */
+    protected AbstractDeviceMessage(@Nullable MessagePool<?> pool) {
+        super(pool);
+    }
+
     @Override
     public void setDeviceUUID(UUID uuid) {
         this.deviceUUID = uuid;
@@ -1,19 +1,59 @@
 /* %FILE_TEMPLATE_TEXT% */
 package de.unia.oc.robotcontrol.message;
 
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * Abstract super-class for messages which handles setting
  * the timestamp used by {@link #getCreationTime()} on
  * creation of the object.
  *
+ * Messages created with a {@link MessagePool} are {@link ReferenceCounted}
+ * and returned to their pool once the last reference has been released.
+ * For all other messages, the reference counting methods do nothing, so
+ * that they can be passed to code which releases the messages it consumed.
+ *
  * @param <T> the concrete type of the message this represents
  */
-public abstract class AbstractMessage<T extends Message> implements Message<T>{
+public abstract class AbstractMessage<T extends Message> implements Message<T>, ReferenceCounted, Traceable {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<AbstractMessage> REF_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(AbstractMessage.class, "refCount");
 
     private long creationTime;
 
+    /**
+     * The pool this message is returned to, or null if it is not pooled
+     */
+    private final @Nullable MessagePool<?> pool;
+
+    /**
+     * The number of references to this message, only used if it is pooled
+     */
+    private volatile int refCount = 1;
+
+    /**
+     * The trace of the control loop iteration this message is part of, if any
+     */
+    private volatile @Nullable LatencyTrace trace;
+
     protected AbstractMessage() {
+        this(null);
+    }
+
+    /**
+     * Create a message which is returned to the given pool
+     * once its last reference is released.
+     *
+     * @param pool the pool this message belongs to, or null if it is not pooled
+     */
+    protected AbstractMessage(@Nullable MessagePool<?> pool) {
        this.creationTime = System.currentTimeMillis();
+       this.pool = pool;
     }
 
     @Override
@@ -21,4 +61,80 @@ public abstract class AbstractMessage<T extends Message> implements Message<T>{
         return creationTime;
     }
 
+    /**
+     * @return whether this message belongs to a {@link MessagePool}
+     */
+    public boolean isPooled() {
+        return pool != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return whether this message belongs to a {@link MessagePool}
+     */
+    @Override
+    public boolean isRecyclable() {
+        return isPooled();
+    }
+
+    @Override
+    public @Nullable LatencyTrace getTrace() {
+        return trace;
+    }
+
+    @Override
+    public void setTrace(@Nullable LatencyTrace trace) {
+        this.trace = trace;
+    }
+
+    @Override
+    public int refCount() {
+        return refCount;
+    }
+
+    @Override
+    public void retain(@NonNegative int increment) throws IllegalStateException {
+        if (pool == null) {
+            return;
+        }
+        int current;
+        do {
+            current = refCount;
+            if (current <= 0) {
+                throw new IllegalStateException("Message has already been released: " + this);
+            }
+        } while (!REF_COUNT.compareAndSet(this, current, current + increment));
+    }
+
+    @Override
+    public boolean release() throws IllegalStateException {
+        if (pool == null) {
+            return false;
+        }
+        int current;
+        do {
+            current = refCount;
+            if (current <= 0) {
+                throw new IllegalStateException("Message has already been released: " + this);
+            }
+        } while (!REF_COUNT.compareAndSet(this, current, current - 1));
+        if (current == 1) {
+            pool.recycle(this);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called by the {@link MessagePool} when this message is acquired
+     * again after being released. Resets the reference count, the
+     * creation time and the trace.
+     */
+    void reuse() {
+        this.creationTime = System.currentTimeMillis();
+        this.trace = null;
+        REF_COUNT.set(this, 1);
+    }
+
 }
@@ -0,0 +1,223 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Frozen implementation of {@link MessageTypeRegistry} for small
+ * identifiers such as characters, which stores the registered types in
+ * an array indexed by the numeric value of the identifier.
+ *
+ * All entries are passed on creation; registering further types is
+ * not possible. As the registry never changes, looking up types does not
+ * need any locks, and encoding and decoding messages with
+ * {@link #encodeInto(Message, ByteBuffer)} and {@link #decodeFrom(ByteBuffer)}
+ * does not allocate any intermediate objects. Types are mapped back to their
+ * identifiers by identity, so that the lookup does not depend on how
+ * the types implement {@link Object#equals(Object)}.
+ *
+ * Use one of the Methods in {@link Messaging} to create instances of this
+ * from outside of the package.
+ * @param <I> the type of value used for the {@link MessageIdentifier}
+ */
+final class ArrayMessageTypeRegistry<I extends Object> implements MessageTypeRegistry<I> {
+
+    /**
+     * The maximum index an identifier may have, bounding
+     * the size of the {@link #typesByIndex} array.
+     */
+    static final int MAX_INDEX = 0x3FF;
+
+    /**
+     * The Encoding used to separate the identifier
+     * from the actual message data.
+     */
+    private final MessageIdentifier<I> identifier;
+
+    /**
+     * The registered types, indexed by the numeric
+     * value of their identifier (see {@link #indexOf(Object)}).
+     */
+    private final @Nullable MessageType[] typesByIndex;
+
+    /**
+     * The registered types, in the same order as {@link #keys}.
+     */
+    private final MessageType[] types;
+
+    /**
+     * The identifiers of the registered types, in the same order as {@link #types}.
+     */
+    private final Object[] keys;
+
+    /**
+     * The identifiers of the registered types, looked up by the identity of the type.
+     * Never changed after construction.
+     */
+    private final Map<MessageType, I> keysByType;
+
+    /**
+     * Create a new instance of {@link ArrayMessageTypeRegistry} with the
+     * given entries. Every identifier has to be indexable (see {@link #canIndex(Collection)}).
+     *
+     * @param identifier the identifier encoding used to separate the
+     *                   message identifier from the actual message data
+     * @param entries the types to register with their identifiers
+     */
+    ArrayMessageTypeRegistry(MessageIdentifier<I> identifier, Map<I, MessageType> entries) {
+        this(identifier, entries.keySet().toArray(), entries.values().toArray(new MessageType[0]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArrayMessageTypeRegistry(MessageIdentifier<I> identifier, Object[] keys, MessageType[] types) {
+        int maxIndex = -1;
+        for (Object key : keys) {
+            maxIndex = Math.max(maxIndex, indexOf(key));
+        }
+        this.identifier = identifier;
+        this.keys = keys;
+        this.types = types;
+        this.typesByIndex = new MessageType[maxIndex + 1];
+        this.keysByType = new IdentityHashMap<>(types.length);
+        for (int i = 0; i < keys.length; ++i) {
+            this.typesByIndex[indexOf(keys[i])] = types[i];
+            this.keysByType.put(types[i], (I) keys[i]);
+        }
+    }
+
+    /**
+     * The index of the given identifier in the {@link #typesByIndex} array.
+     *
+     * @param key the identifier to get the index of
+     * @return the index, or -1 if the identifier can not be indexed
+     */
+    private static int indexOf(@Nullable Object key) {
+        int index;
+        if (key instanceof Character) {
+            index = (Character) key;
+        } else if (key instanceof Byte) {
+            index = (Byte) key & 0xFF;
+        } else if (key instanceof Short || key instanceof Integer) {
+            index = ((Number) key).intValue();
+        } else {
+            return -1;
+        }
+        return index >= 0 && index <= MAX_INDEX ? index : -1;
+    }
+
+    /**
+     * Check whether all the given identifiers can be used as
+     * indices into an array, that is, are small characters or integers.
+     *
+     * @param keys the identifiers to check
+     * @return whether a {@link ArrayMessageTypeRegistry} can be created
+     * for these identifiers
+     */
+    static boolean canIndex(Collection<?> keys) {
+        for (Object key : keys) {
+            if (indexOf(key) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Look up the type registered for the given identifier without wrapping it.
+     *
+     * @param key the identifier to look up
+     * @return the registered type, or null if there is none
+     */
+    private @Nullable MessageType typeFor(@Nullable Object key) {
+        int index = indexOf(key);
+        return index >= 0 && index < typesByIndex.length ? typesByIndex[index] : null;
+    }
+
+    /**
+     * Look up the identifier registered for the given type without wrapping it.
+     *
+     * @param type the type to look up
+     * @return the registered identifier, or null if there is none
+     */
+    private @Nullable I keyFor(@Nullable MessageType type) {
+        return keysByType.get(type);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The registry is frozen, so this does not register anything.
+     *
+     * @param key the key under which to store the value
+     * @param value the value to store
+     * @return never returns normally
+     * @throws IllegalStateException always, as the registry is frozen
+     */
+    @Override
+    public boolean register(I key, MessageType value) throws IllegalStateException {
+        throw new IllegalStateException("The registry is frozen, no types can be registered: " + key);
+    }
+
+    @Override
+    public Optional<MessageType> getValueFor(I key) {
+        return Optional.ofNullable(typeFor(key));
+    }
+
+    @Override
+    public Optional<I> getKeyFor(MessageType value) {
+        return Optional.ofNullable(keyFor(value));
+    }
+
+    @Override
+    public MessageIdentifier<I> getIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void encodeInto(Message object, ByteBuffer target) throws IllegalArgumentException {
+        MessageType type = object.getType();
+        I key = keyFor(type);
+        if (key == null) {
+            throw new IllegalArgumentException("Message type is not registered: " + type);
+        }
+        identifier.encodeIdentifier(key, target);
+        type.encodeInto(object, target);
+    }
+
+    @Override
+    public Message decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        I key = identifier.decodeIdentifier(source);
+        MessageType<?> type = typeFor(key);
+        if (type == null) {
+            throw new IllegalArgumentException("No message type registered for identifier: " + key);
+        }
+        return type.decodeFrom(source);
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return this.identifier.getContext();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Creates a new registry with the same entries,
+     * setting the context of the identifier.
+     *
+     * @param context The coding context that has to be set
+     * @return a new instance of {@link ArrayMessageTypeRegistry}
+     */
+    @Override
+    public ArrayMessageTypeRegistry<I> withContext(CodingContext context) {
+        return new ArrayMessageTypeRegistry<>(identifier.withContext(context), keys, types);
+    }
+}
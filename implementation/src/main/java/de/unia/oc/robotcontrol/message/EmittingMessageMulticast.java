@@ -2,35 +2,121 @@
 package de.unia.oc.robotcontrol.message;
 
 import de.unia.oc.robotcontrol.flow.FlowStrategy;
+import de.unia.oc.robotcontrol.flow.PriorityLanes;
 import de.unia.oc.robotcontrol.flow.ReemittingMulticast;
 import de.unia.oc.robotcontrol.flow.strategy.LatestFlowStrategy;
+import de.unia.oc.robotcontrol.visualization.RuntimeMetrics;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.FluxProcessor;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 
 /**
  * Message multicast following the same semantics as {@link ReemittingMulticast}.
  * The only notable difference is the {@link #topicFromValue(Message)} function,
  * which can be implemented using {@link Message#getType()}.
+ *
+ * {@link ReferenceCounted} messages (see {@link MessagePool}) are handed over
+ * to all their subscribers (of their type, of their classes and of
+ * {@link #asPublisher()}): a reference is retained for each subscriber, and the
+ * reference of the publisher is released. Subscribers which are done with a
+ * message should release it, so that it can be reused. Messages which can be
+ * reused are not buffered for later subscribers, so a message without any
+ * subscriber is reused right away.
+ *
+ * If created with a map of {@link MessagePriority priorities}, messages are
+ * dispatched through {@link PriorityLanes}, one lane per priority class, so that
+ * a burst of messages of a lower priority (e.g. sensor data) does not delay
+ * messages of a higher priority (e.g. actuator commands). Types which are not
+ * in the map get the priority {@link MessagePriority#defaultFor(Message)}.
+ *
+ * Subscriptions to a class ({@link #subscribeToClass(Class)}) get a processor
+ * each, held in an immutable {@link ClassTable}. The processors matching a
+ * message type are resolved once, on the first message of that type, so that
+ * dispatching a message only takes a single lookup of its type.
  * @param <T> the subtype of Message this processes
  */
 public class EmittingMessageMulticast<T extends Message>
     extends ReemittingMulticast<MessageType<? extends T>, T>
-        implements MessageMulticast<T> {
+        implements ClassMessageMulticast<T> {
 
     private final FlowStrategy<T, T> flowStrategy = LatestFlowStrategy.create();
 
+    /**
+     * The priority class of each message type, only used with {@link #lanes}
+     */
+    private final Map<MessageType<?>, MessagePriority> priorities;
+
+    /**
+     * The lanes messages are dispatched through, one per {@link MessagePriority},
+     * or null if messages are dispatched in order of arrival
+     */
+    private final @Nullable PriorityLanes<T> lanes;
+
+    /**
+     * The processors of the subscriptions to a class.
+     * Never modified, only replaced in {@link #subscribeToClass(Class)}.
+     */
+    private volatile ClassTable classTable = ClassTable.EMPTY;
+
+    /**
+     * Lock held while replacing the {@link #classTable}
+     */
+    private final Object classLock = new Object();
+
     public EmittingMessageMulticast(Scheduler scheduler) {
         super(scheduler);
+        this.priorities = Collections.emptyMap();
+        this.lanes = null;
     }
 
     public EmittingMessageMulticast(Executor executor) {
         super(executor);
+        this.priorities = Collections.emptyMap();
+        this.lanes = null;
     }
 
     public EmittingMessageMulticast() {
-        super(Schedulers.newParallel("parallelMessageMulticast"));
+        this(Schedulers.newParallel("parallelMessageMulticast"));
+    }
+
+    /**
+     * Creates a new instance of {@link EmittingMessageMulticast} which
+     * dispatches messages through priority lanes on the given scheduler.
+     *
+     * @param scheduler the execution context to run on
+     * @param priorities the priority class of each message type
+     */
+    @SuppressWarnings("initialization")
+    public EmittingMessageMulticast(Scheduler scheduler, Map<? extends MessageType<?>, MessagePriority> priorities) {
+        super(scheduler);
+        this.priorities = Collections.unmodifiableMap(new HashMap<>(priorities));
+        MessagePriority[] classes = MessagePriority.values();
+        int[] weights = new int[classes.length];
+        for (MessagePriority priority : classes) {
+            weights[priority.ordinal()] = priority.getWeight();
+        }
+        this.lanes = new PriorityLanes<>(weights, this::route, scheduler::schedule);
+    }
+
+    /**
+     * Creates a new instance of {@link EmittingMessageMulticast} which
+     * dispatches messages through priority lanes.
+     *
+     * @param priorities the priority class of each message type
+     */
+    public EmittingMessageMulticast(Map<? extends MessageType<?>, MessagePriority> priorities) {
+        this(Schedulers.newParallel("parallelMessageMulticast"), priorities);
     }
 
     @Override
@@ -39,8 +125,233 @@ public class EmittingMessageMulticast<T extends Message>
         return message.getType();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * If priority lanes are used, puts the message into the lane of its
+     * priority instead, from which it is dispatched later.
+     *
+     * @param message the message to dispatch
+     */
+    @Override
+    protected void dispatch(T message) {
+        if (lanes == null) {
+            route(message);
+        } else {
+            lanes.offer(priorityOf(message).ordinal(), message);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Replaces the {@link #classTable} with one containing a new processor
+     * if there has been no subscription to that class yet, or its processor
+     * has terminated.
+     *
+     * @param messageClass the class of messages to subscribe to
+     * @return a publisher emitting all messages of the given class
+     */
+    @Override
+    public Publisher<T> subscribeToClass(Class<?> messageClass) {
+        FluxProcessor<T, T> processor = classTable.get(messageClass);
+        if (processor == null || isTerminated(processor)) {
+            synchronized (classLock) {
+                processor = classTable.get(messageClass);
+                if (processor == null || isTerminated(processor)) {
+                    processor = EmitterProcessor.create();
+                    classTable = classTable.with(messageClass, processor);
+                }
+            }
+        }
+        return processor.publishOn(getScheduler());
+    }
+
+    /**
+     * Re-emit the given message to the subscribers of its type
+     * and to the subscribers of the classes it is an instance of.
+     *
+     * For {@link ReferenceCounted} messages, a reference is retained for every
+     * subscriber of a class before the message is handed over to the
+     * subscribers of its type (see {@link #handOver(Message, long)}), and
+     * classes without subscribers are skipped if the message can be reused.
+     *
+     * @param message the message to re-emit
+     */
+    private void route(T message) {
+        LatencyTracer.instance().stamp(message, LatencyTrace.Stage.MULTICAST_DISPATCH);
+        FluxProcessor[] targets = classTable.targetsFor(message);
+        boolean isRecyclable = ReferenceCounted.isRecyclable(message);
+        long[] counts = new long[targets.length];
+        long subscribers = 0;
+        for (int i = 0; i < targets.length; ++i) {
+            counts[i] = targets[i].downstreamCount();
+            subscribers += counts[i];
+        }
+        ReferenceCounted.retainIfCounted(message, (int) subscribers);
+        super.dispatch(message);
+        for (int i = 0; i < targets.length; ++i) {
+            if (counts[i] > 0 || !isRecyclable) {
+                @SuppressWarnings("unchecked")
+                FluxProcessor<T, T> processor = (FluxProcessor<T, T>) targets[i];
+                processor.onNext(message);
+            }
+        }
+    }
+
+    /**
+     * @param message the message to get the priority of
+     * @return the priority class the message is dispatched with
+     * if priority lanes are used
+     */
+    public MessagePriority priorityOf(T message) {
+        MessagePriority priority = priorities.get(message.getType());
+        return priority != null ? priority : MessagePriority.defaultFor(message);
+    }
+
+    /**
+     * @return the priority lanes messages are dispatched through,
+     * which record the queueing delay per lane, if they are used
+     */
+    public Optional<PriorityLanes<T>> getPriorityLanes() {
+        return Optional.ofNullable(lanes);
+    }
+
+    /**
+     * Register a metric for the queueing delay (in milliseconds)
+     * of each priority lane with the given {@link RuntimeMetrics}.
+     * Does nothing if priority lanes are not used.
+     *
+     * @param metrics the metrics to register the queueing delays with
+     */
+    public void reportQueueingDelays(RuntimeMetrics<String, ?> metrics) {
+        if (lanes == null) {
+            return;
+        }
+        for (MessagePriority priority : MessagePriority.values()) {
+            lanes.reportDelays(
+                    priority.ordinal(),
+                    metrics.registerCallback("Multicast " + priority + " Lane Queueing Delay (ms)"));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Retains a reference for every subscriber, then releases the reference
+     * of the publisher, so that a message without subscribers can be reused
+     * right away. Such messages are thus not buffered for later subscribers.
+     *
+     * @param message the message which is re-emitted
+     * @param subscribers the number of subscribers the message is re-emitted to
+     * @return whether the message can not be reused, and may be buffered
+     */
+    @Override
+    protected boolean handOver(T message, long subscribers) {
+        ReferenceCounted.retainIfCounted(message, (int) subscribers);
+        ReferenceCounted.releaseIfCounted(message);
+        return !ReferenceCounted.isRecyclable(message);
+    }
+
     @Override
     public FlowStrategy<T, T> getFlowStrategy() {
         return flowStrategy;
     }
+
+    /**
+     * Immutable table mapping classes to the processors of their subscriptions,
+     * which caches the processors each message type is re-emitted to.
+     */
+    private static final class ClassTable {
+
+        private static final FluxProcessor[] NONE = new FluxProcessor[0];
+
+        static final ClassTable EMPTY = new ClassTable(new Class<?>[0], NONE);
+
+        private final Class<?>[] classes;
+        private final FluxProcessor[] processors;
+        /**
+         * The processors each message type is re-emitted to
+         */
+        private final Map<MessageType<?>, FluxProcessor[]> fanOut = new ConcurrentHashMap<>();
+
+        private ClassTable(Class<?>[] classes, FluxProcessor[] processors) {
+            this.classes = classes;
+            this.processors = processors;
+        }
+
+        private int indexOf(Class<?> messageClass) {
+            for (int i = 0; i < classes.length; ++i) {
+                if (classes[i] == messageClass) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param messageClass the class to look up
+         * @return the processor for the class, or null if there is none
+         */
+        @SuppressWarnings("unchecked")
+        <T> @Nullable FluxProcessor<T, T> get(Class<?> messageClass) {
+            int index = indexOf(messageClass);
+            return index < 0 ? null : (FluxProcessor<T, T>) processors[index];
+        }
+
+        /**
+         * Get the processors the given message is re-emitted to, decoding
+         * the message only if its type has not been seen before.
+         * If the message can not be decoded, it is not re-emitted to
+         * any class, and its type is resolved again on the next message.
+         *
+         * @param message the message to re-emit
+         * @return the processors of all classes the message is an instance of
+         */
+        FluxProcessor[] targetsFor(Message message) {
+            if (classes.length == 0) {
+                return NONE;
+            }
+            FluxProcessor[] targets = fanOut.get(message.getType());
+            if (targets != null) {
+                return targets;
+            }
+            Class<?> messageClass;
+            try {
+                messageClass = LazyMessage.classOf(message);
+            } catch (IllegalArgumentException e) {
+                return NONE;
+            }
+            int count = 0;
+            targets = new FluxProcessor[classes.length];
+            for (int i = 0; i < classes.length; ++i) {
+                if (classes[i].isAssignableFrom(messageClass)) {
+                    targets[count++] = processors[i];
+                }
+            }
+            targets = count == 0 ? NONE : Arrays.copyOf(targets, count);
+            fanOut.put(message.getType(), targets);
+            return targets;
+        }
+
+        /**
+         * @param messageClass the class to set the processor for
+         * @param processor the processor for the class
+         * @return a new table with the processor for the given class
+         * replaced or added, and without any resolved message types
+         */
+        ClassTable with(Class<?> messageClass, FluxProcessor<?, ?> processor) {
+            int index = indexOf(messageClass);
+            if (index >= 0) {
+                FluxProcessor[] newProcessors = processors.clone();
+                newProcessors[index] = processor;
+                return new ClassTable(classes, newProcessors);
+            }
+            Class<?>[] newClasses = Arrays.copyOf(classes, classes.length + 1);
+            FluxProcessor[] newProcessors = Arrays.copyOf(processors, processors.length + 1);
+            newClasses[classes.length] = messageClass;
+            newProcessors[processors.length] = processor;
+            return new ClassTable(newClasses, newProcessors);
+        }
+    }
 }
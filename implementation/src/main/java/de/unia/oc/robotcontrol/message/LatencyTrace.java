@@ -0,0 +1,89 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The times ({@link System#nanoTime()}) at which a piece of sensor data
+ * passed the stages of the control loop, from being decoded on the device
+ * to the resulting actuator command being encoded.
+ *
+ * A trace is started for a received message by {@link LatencyTracer#begin(Message)},
+ * and handed on to the messages caused by it, so that an actuator message
+ * can be correlated with the sensor message which caused it.
+ * Only the first time a stage is passed is recorded.
+ */
+public final class LatencyTrace {
+
+    /**
+     * The stages of the control loop, in the order they are passed.
+     */
+    public enum Stage {
+        /**
+         * The sensor message was decoded from the bytes received from the device
+         */
+        DEVICE_DECODE,
+        /**
+         * The sensor message was dispatched to its subscribers by the multicast
+         */
+        MULTICAST_DISPATCH,
+        /**
+         * The observer published a state updated using the sensor message
+         */
+        OBSERVER_OUTPUT,
+        /**
+         * The controller computed a command from that state
+         */
+        CONTROLLER_TICK,
+        /**
+         * The resulting actuator message was encoded to be sent to the device
+         */
+        DEVICE_ENCODE
+    }
+
+    /**
+     * The time each stage was passed, or 0 if it has not been passed yet
+     */
+    private final AtomicLongArray stamps = new AtomicLongArray(Stage.values().length);
+    /**
+     * Whether the trace has been completed and recorded
+     */
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    /**
+     * Record the current time for the given stage,
+     * if it has not been recorded before.
+     *
+     * @param stage the stage which has been passed
+     * @return whether the time has been recorded
+     */
+    public boolean stamp(Stage stage) {
+        return stamps.compareAndSet(stage.ordinal(), 0, System.nanoTime());
+    }
+
+    /**
+     * @param stage the stage to get the time for
+     * @return the time at which the stage was passed, or 0 if it has not been passed yet
+     */
+    public long getStamp(Stage stage) {
+        return stamps.get(stage.ordinal());
+    }
+
+    /**
+     * @return whether this trace has been completed
+     */
+    public boolean isCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * Mark this trace as completed.
+     *
+     * @return whether this call completed the trace, false
+     * if it had already been completed before
+     */
+    boolean complete() {
+        return completed.compareAndSet(false, true);
+    }
+}
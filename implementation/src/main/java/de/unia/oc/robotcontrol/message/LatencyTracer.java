@@ -0,0 +1,271 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.util.LatencyHistogram;
+import de.unia.oc.robotcontrol.visualization.RuntimeMetrics;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Traces the latency of the control loop, from a sensor message being
+ * decoded to the actuator message caused by it being encoded, and
+ * records the time spent in each {@link LatencyTrace.Stage} in a
+ * {@link LatencyHistogram}.
+ *
+ * The devices, the multicast and {@link de.unia.oc.robotcontrol.oc.RobotControl}
+ * report the stages they pass to the singleton instance ({@link #instance()}).
+ * The sensor message which last reached the observer is assumed to have caused
+ * the next state published by the observer, and thus the next command
+ * of the controller and the next actuator message.
+ *
+ * The time spent in a stage is only recorded if the trace passed the stage
+ * right before it as well, so that stages which are not stamped in a setup
+ * (like {@link LatencyTrace.Stage#MULTICAST_DISPATCH} with multicasts not
+ * reporting it) do not attribute the time of several stages to the next one.
+ *
+ * Tracing is disabled by default, in which case all methods return immediately.
+ */
+public final class LatencyTracer {
+
+    /**
+     * The singleton instance
+     */
+    private static final LatencyTracer INSTANCE = new LatencyTracer();
+
+    /**
+     * Whether messages are traced
+     */
+    private volatile boolean enabled;
+    /**
+     * The trace of the sensor message which last reached the observer
+     */
+    private volatile @Nullable LatencyTrace current;
+    /**
+     * For each stage, the time between passing the previous stage and this stage,
+     * for the traces which passed both
+     */
+    private final LatencyHistogram[] stageHistograms;
+    /**
+     * The time between the first and the last stage
+     */
+    private final LatencyHistogram totalHistogram = new LatencyHistogram();
+    /**
+     * The number of completed traces
+     */
+    private final AtomicLong completedCount = new AtomicLong();
+    /**
+     * Receives the percentiles of the histograms, if they are reported
+     */
+    private volatile @Nullable Reporter reporter;
+
+    private LatencyTracer() {
+        LatencyTrace.Stage[] stages = LatencyTrace.Stage.values();
+        this.stageHistograms = new LatencyHistogram[stages.length];
+        for (int i = 0; i < stages.length; ++i) {
+            stageHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @return the singleton instance
+     */
+    public static LatencyTracer instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return whether messages are traced
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable tracing.
+     *
+     * @param enabled whether messages should be traced
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Start a new trace for a message which has been decoded from a device.
+     *
+     * @param message the decoded message
+     */
+    public void begin(Message message) {
+        if (enabled && message instanceof Traceable) {
+            LatencyTrace trace = new LatencyTrace();
+            trace.stamp(LatencyTrace.Stage.DEVICE_DECODE);
+            ((Traceable) message).setTrace(trace);
+        }
+    }
+
+    /**
+     * Record that the given message passed the given stage.
+     *
+     * @param message the message which passed the stage
+     * @param stage the stage which was passed
+     */
+    public void stamp(Message message, LatencyTrace.Stage stage) {
+        if (enabled) {
+            LatencyTrace trace = traceOf(message);
+            if (trace != null) {
+                trace.stamp(stage);
+            }
+        }
+    }
+
+    /**
+     * Record that the given message reached the observer, so that
+     * the following stages are attributed to it.
+     *
+     * @param message the message which reached the observer
+     */
+    public void observe(Message message) {
+        if (enabled) {
+            LatencyTrace trace = traceOf(message);
+            if (trace != null) {
+                current = trace;
+            }
+        }
+    }
+
+    /**
+     * Record that the message which last reached the observer passed the given stage.
+     *
+     * @param stage the stage which was passed
+     */
+    public void stampCurrent(LatencyTrace.Stage stage) {
+        LatencyTrace trace = current;
+        if (enabled && trace != null) {
+            trace.stamp(stage);
+        }
+    }
+
+    /**
+     * Attach the trace of the message which last reached the observer
+     * to the given message, which has been caused by it.
+     *
+     * @param message the message caused by the traced message
+     */
+    public void attachCurrent(Message message) {
+        LatencyTrace trace = current;
+        if (enabled && trace != null && message instanceof Traceable) {
+            ((Traceable) message).setTrace(trace);
+        }
+    }
+
+    /**
+     * Record that the given message is being encoded to be sent to a device,
+     * and record the stages of its trace in the histograms if this is the
+     * first message completing the trace.
+     *
+     * @param message the message which is being encoded
+     */
+    public void complete(Message message) {
+        if (!enabled) {
+            return;
+        }
+        LatencyTrace trace = traceOf(message);
+        if (trace == null) {
+            return;
+        }
+        trace.stamp(LatencyTrace.Stage.DEVICE_ENCODE);
+        if (!trace.complete()) {
+            return;
+        }
+        long first = 0;
+        long last = 0;
+        long previous = 0;
+        for (LatencyTrace.Stage stage : LatencyTrace.Stage.values()) {
+            long time = trace.getStamp(stage);
+            if (time != 0) {
+                if (first == 0) {
+                    first = time;
+                }
+                if (previous != 0) {
+                    stageHistograms[stage.ordinal()].record(time - previous);
+                }
+                last = time;
+            }
+            previous = time;
+        }
+        totalHistogram.record(last - first);
+
+        Reporter r = reporter;
+        if (r != null && completedCount.incrementAndGet() % r.interval == 0) {
+            r.report();
+        }
+    }
+
+    /**
+     * @param stage the stage
+     * @return the histogram of the times between passing the stage
+     * before the given one and passing the given stage, for the traces which
+     * passed both stages. Empty for the first stage.
+     */
+    public LatencyHistogram getHistogram(LatencyTrace.Stage stage) {
+        return stageHistograms[stage.ordinal()];
+    }
+
+    /**
+     * @return the histogram of the times between passing
+     * the first and the last stage of the traces
+     */
+    public LatencyHistogram getTotalHistogram() {
+        return totalHistogram;
+    }
+
+    /**
+     * Enable tracing, and pass the median and the 99th percentile (in milliseconds)
+     * of each histogram to the given metrics every {@code interval} completed traces.
+     *
+     * @param metrics the metrics to register the percentiles with
+     * @param interval the number of completed traces between reports
+     */
+    public void reportTo(RuntimeMetrics<String, ?> metrics, @Positive int interval) {
+        this.reporter = new Reporter(metrics, interval);
+        this.enabled = true;
+    }
+
+    private static @Nullable LatencyTrace traceOf(Message message) {
+        return message instanceof Traceable ? ((Traceable) message).getTrace() : null;
+    }
+
+    /**
+     * Passes the percentiles of the histograms to callbacks registered with a {@link RuntimeMetrics}
+     */
+    private final class Reporter {
+
+        private final int interval;
+        private final Consumer<Double>[] medians;
+        private final Consumer<Double>[] tails;
+
+        @SuppressWarnings("unchecked")
+        Reporter(RuntimeMetrics<String, ?> metrics, int interval) {
+            LatencyTrace.Stage[] stages = LatencyTrace.Stage.values();
+            this.interval = interval;
+            // the first stage has no latency of its own, so its slot holds the total latency
+            this.medians = new Consumer[stages.length];
+            this.tails = new Consumer[stages.length];
+            for (int i = 0; i < stages.length; ++i) {
+                String name = i == 0 ? "TOTAL" : stages[i].toString();
+                medians[i] = metrics.registerCallback("Latency " + name + " p50 (ms)");
+                tails[i] = metrics.registerCallback("Latency " + name + " p99 (ms)");
+            }
+        }
+
+        void report() {
+            for (int i = 0; i < medians.length; ++i) {
+                LatencyHistogram histogram = i == 0 ? totalHistogram : stageHistograms[i];
+                medians[i].accept(histogram.getPercentile(0.5) / 1e6);
+                tails[i].accept(histogram.getPercentile(0.99) / 1e6);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.Encoding;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * An encoding which encodes messages like a {@link MessageTypeRegistry},
+ * but decodes them lazily: only the identifier is decoded to resolve
+ * the {@link MessageType}, and a {@link LazyMessage} holding the remaining
+ * bytes is returned.
+ *
+ * As the buffers passed to {@link #decodeFrom(ByteBuffer)} may be reused by
+ * the caller, the payload is copied there. Callers which can hand over the
+ * buffer they read into use {@link #decodeOwned(ByteBuffer, Consumer)} instead,
+ * which does not copy anything.
+ *
+ * Use {@link Messaging#lazyDecoding(MessageTypeRegistry)} to create instances of this.
+ *
+ * @param <I> the type of the identifier used
+ */
+public final class LazyDecoding<I extends Object> implements Encoding<Message> {
+
+    /**
+     * The registry used to encode messages and resolve types
+     */
+    private final MessageTypeRegistry<I> registry;
+
+    /**
+     * Create a new instance of {@link LazyDecoding}.
+     *
+     * @param registry the registry used to encode messages and resolve types
+     */
+    LazyDecoding(MessageTypeRegistry<I> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public byte[] encode(Message object) throws IllegalArgumentException {
+        return registry.encode(object);
+    }
+
+    @Override
+    public void encodeInto(Message object, ByteBuffer target) throws IllegalArgumentException {
+        registry.encodeInto(object, target);
+    }
+
+    @Override
+    public @NonNull Message decode(byte[] raw) throws IllegalArgumentException {
+        return decodeFrom(ByteBuffer.wrap(raw));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Copies the payload, as the given buffer may be reused once this returns.
+     *
+     * @param source the buffer to decode the message from
+     * @return a {@link LazyMessage} holding a copy of the payload
+     * @throws IllegalArgumentException if no type is registered for the identifier
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NonNull Message decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        MessageType type = typeOf(source);
+        byte[] payload = new byte[source.remaining()];
+        source.get(payload);
+        return new LazyMessage<>(type, payload);
+    }
+
+    /**
+     * Like {@link #decodeFrom(ByteBuffer)}, but takes over the given buffer
+     * instead of copying the payload out of it. The buffer must not be
+     * changed until it is passed to the given callback, which happens once
+     * the returned message has been released (or right away if decoding fails).
+     *
+     * @param source the buffer to decode the message from
+     * @param recycler called with the buffer once it is not used anymore
+     * @return a {@link LazyMessage} reading its payload from the given buffer
+     * @throws IllegalArgumentException if no type is registered for the identifier
+     */
+    @SuppressWarnings("unchecked")
+    public @NonNull Message decodeOwned(ByteBuffer source, Consumer<ByteBuffer> recycler) throws IllegalArgumentException {
+        MessageType type;
+        try {
+            type = typeOf(source);
+        } catch (IllegalArgumentException e) {
+            recycler.accept(source);
+            throw e;
+        }
+        LazyMessage<?> message = new LazyMessage<>(type, source, () -> recycler.accept(source));
+        source.position(source.limit());
+        return message;
+    }
+
+    /**
+     * Decode the identifier at the position of the given
+     * buffer and look up the type registered for it.
+     *
+     * @param source the buffer to decode the identifier from
+     * @return the type registered for the identifier
+     * @throws IllegalArgumentException if no type is registered for the identifier
+     */
+    private MessageType typeOf(ByteBuffer source) throws IllegalArgumentException {
+        I id = registry.getIdentifier().decodeIdentifier(source);
+        return registry.getValueFor(id).orElseThrow(
+                () -> new IllegalArgumentException("No message type registered for identifier: " + id));
+    }
+
+    @Override
+    public CodingContext getContext() {
+        return registry.getContext();
+    }
+}
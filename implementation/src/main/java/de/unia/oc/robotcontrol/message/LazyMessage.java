@@ -0,0 +1,264 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A message which has been received from a device, but whose payload
+ * has not been decoded yet. Holds the raw bytes of the payload together with
+ * the already resolved {@link MessageType}, so that it can be dispatched using
+ * {@link #getType()} and dropped (for example by a
+ * {@link de.unia.oc.robotcontrol.flow.strategy.LatestFlowStrategy}) without
+ * decoding it.
+ *
+ * The payload is decoded using the type on the first call to {@link #get()},
+ * the decoded message is then cached. Use {@link #materialize(Message)}
+ * before accessing the fields of a message which might be lazy.
+ *
+ * Should not be used for stateful encodings, which rely on every
+ * message being decoded in order.
+ *
+ * Lazy messages are {@link ReferenceCounted}. The payload is not copied, but
+ * read from the buffer passed on construction, which is handed back to its owner
+ * once the last reference to the lazy message has been released. If the decoded
+ * message is {@link ReferenceCounted}, the reference obtained by decoding it is held
+ * by the lazy message and released together with it, and every call to {@link #get()}
+ * retains an additional reference for the caller.
+ *
+ * @param <T> the type of the message once decoded
+ */
+public final class LazyMessage<T extends Message> implements Message<T>, ReferenceCounted, Traceable {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<LazyMessage> REF_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(LazyMessage.class, "refCount");
+
+    /**
+     * The type used to decode the payload.
+     */
+    private final MessageType<T> type;
+
+    /**
+     * The raw bytes of the payload, without the identifier,
+     * between the position and the limit of the buffer.
+     * Never read from directly, only using duplicates.
+     */
+    private final ByteBuffer payload;
+
+    /**
+     * Called once the last reference has been released, so that the
+     * buffer holding the payload can be reused; or null if there is nothing to do.
+     */
+    private final @Nullable Runnable onRelease;
+
+    /**
+     * The time this message was received.
+     */
+    private final long creationTime;
+
+    /**
+     * The number of references to this message
+     */
+    private volatile int refCount = 1;
+
+    /**
+     * The decoded message, or null if it has not been decoded yet.
+     */
+    private volatile @Nullable T decoded;
+
+    /**
+     * The trace of this message, passed on to the decoded message
+     */
+    private volatile @Nullable LatencyTrace trace;
+
+    /**
+     * Create a new instance of {@link LazyMessage}.
+     *
+     * @param type the type used to decode the payload
+     * @param raw the raw bytes of the payload. Not copied.
+     */
+    public LazyMessage(MessageType<T> type, byte[] raw) {
+        this(type, ByteBuffer.wrap(raw), null);
+    }
+
+    /**
+     * Create a new instance of {@link LazyMessage} which reads its payload
+     * from the given buffer. The buffer must not be changed until the last
+     * reference to the message has been released, and the given callback is called.
+     *
+     * @param type the type used to decode the payload
+     * @param payload the buffer holding the payload between its position and limit. Not copied.
+     * @param onRelease called once the last reference has been released, or null
+     */
+    public LazyMessage(MessageType<T> type, ByteBuffer payload, @Nullable Runnable onRelease) {
+        this.type = type;
+        this.payload = payload.slice().asReadOnlyBuffer();
+        this.onRelease = onRelease;
+        this.creationTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Decode the payload, or return the message decoded on a previous call.
+     * Retains a reference to the decoded message for the caller.
+     *
+     * @return the decoded message
+     * @throws IllegalArgumentException if the payload could not be decoded
+     * @throws IllegalStateException if this message has already been released
+     */
+    public T get() throws IllegalArgumentException, IllegalStateException {
+        T result = decode();
+        ReferenceCounted.retainIfCounted(result, 1);
+        return result;
+    }
+
+    /**
+     * Decode the payload, or return the message decoded on a previous call,
+     * without retaining a reference to it.
+     *
+     * @return the decoded message
+     * @throws IllegalArgumentException if the payload could not be decoded
+     * @throws IllegalStateException if this message has already been released
+     */
+    private T decode() throws IllegalArgumentException, IllegalStateException {
+        T result = decoded;
+        if (result == null) {
+            synchronized (this) {
+                if (refCount <= 0) {
+                    throw new IllegalStateException("Message has already been released: " + this);
+                }
+                result = decoded;
+                if (result == null) {
+                    result = type.decodeFrom(payload.duplicate());
+                    if (result instanceof Traceable) {
+                        ((Traceable) result).setTrace(trace);
+                    }
+                    decoded = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return whether the payload has already been decoded
+     */
+    public boolean isDecoded() {
+        return decoded != null;
+    }
+
+    @Override
+    public int refCount() {
+        return refCount;
+    }
+
+    @Override
+    public void retain(@NonNegative int increment) throws IllegalStateException {
+        int current;
+        do {
+            current = refCount;
+            if (current <= 0) {
+                throw new IllegalStateException("Message has already been released: " + this);
+            }
+        } while (!REF_COUNT.compareAndSet(this, current, current + increment));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Once the last reference has been released, the decoded message is released
+     * as well, and the buffer holding the payload is handed back to its owner.
+     *
+     * @return whether this was the last reference
+     * @throws IllegalStateException if the message has already been released
+     */
+    @Override
+    public boolean release() throws IllegalStateException {
+        int remaining = REF_COUNT.decrementAndGet(this);
+        if (remaining < 0) {
+            throw new IllegalStateException("Message has already been released: " + this);
+        }
+        if (remaining > 0) {
+            return false;
+        }
+        T result;
+        synchronized (this) {
+            result = decoded;
+            decoded = null;
+        }
+        ReferenceCounted.releaseIfCounted(result);
+        if (onRelease != null) {
+            onRelease.run();
+        }
+        return true;
+    }
+
+    /**
+     * Decode the given message if it is a {@link LazyMessage},
+     * or return it unchanged otherwise. A reference to the decoded
+     * message is retained for the caller (see {@link #get()}).
+     *
+     * @param message the message to materialize
+     * @return the decoded message
+     * @throws IllegalArgumentException if the payload could not be decoded
+     */
+    public static Message materialize(Message message) throws IllegalArgumentException {
+        return message instanceof LazyMessage ? ((LazyMessage<?>) message).get() : message;
+    }
+
+    /**
+     * Get the class of the given message once decoded,
+     * decoding it if it is a {@link LazyMessage}.
+     *
+     * @param message the message to get the class of
+     * @return the class of the decoded message
+     * @throws IllegalArgumentException if the payload could not be decoded
+     */
+    public static Class<?> classOf(Message message) throws IllegalArgumentException {
+        return message instanceof LazyMessage
+                ? ((LazyMessage<?>) message).decode().getClass()
+                : message.getClass();
+    }
+
+    @Override
+    public @Nullable LatencyTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Also attaches the trace to the decoded message, if it has already been decoded.
+     *
+     * @param trace the trace to attach, or null to remove the current trace
+     */
+    @Override
+    public void setTrace(@Nullable LatencyTrace trace) {
+        this.trace = trace;
+        T result = decoded;
+        if (result instanceof Traceable) {
+            ((Traceable) result).setTrace(trace);
+        }
+    }
+
+    @Override
+    public MessageType<T> getType() {
+        return type;
+    }
+
+    @Override
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public String toString() {
+        T result = decoded;
+        return result != null
+                ? result.toString()
+                : "LazyMessage of type " + type + " (" + payload.remaining() + " bytes)";
+    }
+}
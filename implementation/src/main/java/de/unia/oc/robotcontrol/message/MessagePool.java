@@ -0,0 +1,132 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.function.Function;
+
+/**
+ * A bounded pool of message instances of a single type, which are
+ * reused once their last reference has been released
+ * (see {@link AbstractMessage#release()}).
+ *
+ * Messages are created using the factory passed on construction,
+ * which has to pass the pool to {@link AbstractMessage#AbstractMessage(MessagePool)}.
+ * A message returned by {@link #acquire()} holds a single reference and
+ * has to be filled with its contents before it is published.
+ *
+ * If more messages are released than the pool can hold,
+ * the surplus messages are left to the garbage collector.
+ *
+ * @param <T> the type of messages held by this pool
+ */
+public final class MessagePool<T extends AbstractMessage<?>> {
+
+    /**
+     * The default number of messages held by a pool
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The released messages which can be reused, guarded by {@code this}
+     */
+    private final @Nullable Object[] available;
+    /**
+     * Creates new messages if there is no message to be reused
+     */
+    private final Function<MessagePool<T>, T> factory;
+    /**
+     * The number of messages in {@link #available}
+     */
+    private int size;
+    /**
+     * The number of messages created by the factory
+     */
+    private long createdCount;
+    /**
+     * The number of messages which were reused
+     */
+    private long reusedCount;
+
+    /**
+     * Create a new pool.
+     *
+     * @param capacity the maximum number of released messages held by the pool
+     * @param factory creates a new message belonging to the passed pool
+     */
+    public MessagePool(@NonNegative int capacity, Function<MessagePool<T>, T> factory) {
+        this.available = new Object[capacity];
+        this.factory = factory;
+    }
+
+    /**
+     * Create a new pool holding up to {@link #DEFAULT_CAPACITY} messages.
+     *
+     * @param factory creates a new message belonging to the passed pool
+     */
+    public MessagePool(Function<MessagePool<T>, T> factory) {
+        this(DEFAULT_CAPACITY, factory);
+    }
+
+    /**
+     * Take a released message from the pool, or create a new one
+     * if there is none. The message holds a single reference.
+     *
+     * @return a message which is not used by anyone else
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        T message = null;
+        synchronized (this) {
+            if (size > 0) {
+                message = (T) available[--size];
+                available[size] = null;
+                ++reusedCount;
+            } else {
+                ++createdCount;
+            }
+        }
+        if (message == null) {
+            return factory.apply(this);
+        }
+        message.reuse();
+        return message;
+    }
+
+    /**
+     * Put the given message back into the pool, called once
+     * its last reference has been released.
+     *
+     * @param message the released message
+     */
+    void recycle(AbstractMessage<?> message) {
+        synchronized (this) {
+            if (size < available.length) {
+                available[size++] = message;
+            }
+        }
+    }
+
+    /**
+     * @return the number of released messages currently held by the pool
+     */
+    public synchronized int getAvailableCount() {
+        return size;
+    }
+
+    /**
+     * @return the number of messages which have been created
+     * because there was no released message to reuse
+     */
+    public synchronized long getCreatedCount() {
+        return createdCount;
+    }
+
+    /**
+     * @return the number of messages which have been reused
+     */
+    public synchronized long getReusedCount() {
+        return reusedCount;
+    }
+}
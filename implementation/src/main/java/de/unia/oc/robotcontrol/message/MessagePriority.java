@@ -0,0 +1,51 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+/**
+ * Priority classes for messages dispatched by an {@link EmittingMessageMulticast}
+ * using priority lanes. Each class has its own lane, which is drained
+ * with the weight of the class (see {@link de.unia.oc.robotcontrol.flow.PriorityLanes}).
+ *
+ * Declared in descending priority.
+ */
+public enum MessagePriority {
+
+    /**
+     * Messages which should reach their recipient as fast as possible,
+     * such as commands to actuators.
+     */
+    HIGH(4),
+    /**
+     * Regular messages, such as sensor data.
+     */
+    NORMAL(2),
+    /**
+     * Messages which may wait for others, such as update requests.
+     */
+    LOW(1);
+
+    private final int weight;
+
+    MessagePriority(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * @return the number of messages of this class dispatched in each
+     * round while messages of other classes are waiting
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * The default priority of the given message: {@link #HIGH} for
+     * {@link ActuatorMessage}s, {@link #NORMAL} otherwise.
+     *
+     * @param message the message to get the priority for
+     * @return the default priority of the message
+     */
+    public static MessagePriority defaultFor(Message message) {
+        return message instanceof ActuatorMessage ? HIGH : NORMAL;
+    }
+}
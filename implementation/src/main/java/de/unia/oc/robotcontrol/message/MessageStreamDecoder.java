@@ -0,0 +1,226 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.util.Logger;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally decodes messages from a byte stream which arrives in
+ * chunks of arbitrary size, as is the case for serial lines or sockets.
+ *
+ * Bytes are collected in a single internal buffer. Frames are split using
+ * the {@link MessageIdentifier} of the given {@link MessageTypeRegistry}
+ * and the {@link MessageType#getFixedSize()} of the resolved type, and are
+ * decoded directly from the internal buffer, so no byte arrays are created
+ * for incomplete or complete frames. Types of variable size are decoded
+ * speculatively. If that fails after all received bytes were used, decoding
+ * is retried once more bytes arrived; if it fails before, the frame is malformed,
+ * which is reported (see {@link #getMalformedFrameCount()}) and skipped.
+ *
+ * Bytes which do not start a known frame are skipped one at a time, so the
+ * decoder resynchronizes on the next valid identifier after garbage or
+ * lost bytes.
+ *
+ * Every decoded message is passed to the given sink,
+ * on the thread that supplied the bytes.
+ *
+ * @param <I> the type of the identifier used by the registry
+ */
+public class MessageStreamDecoder<I extends Object> {
+
+    /**
+     * The registry used to resolve identifiers to message types
+     */
+    private final MessageTypeRegistry<I> registry;
+
+    /**
+     * The buffer collecting received bytes. Between calls, this is
+     * in 'write mode', with all bytes before its position not yet decoded.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The function every decoded message is passed to
+     */
+    private final Consumer<? super Message> sink;
+
+    /**
+     * The number of bytes the identifier of every message uses
+     */
+    private final int identifierSize;
+
+    /**
+     * The number of frames which could not be decoded; guarded by {@code this}
+     */
+    private long malformedFrameCount = 0;
+
+    /**
+     * Create a new instance of {@link MessageStreamDecoder}.
+     *
+     * @param registry the registry used to resolve the message types
+     * @param bufferSize the maximum number of bytes to hold at once. Frames
+     *                   larger than this can not be decoded and are skipped.
+     * @param sink the function every decoded message is passed to
+     * @throws IllegalArgumentException if the buffer can not hold a single identifier
+     */
+    public MessageStreamDecoder(MessageTypeRegistry<I> registry, int bufferSize, Consumer<? super Message> sink) {
+        this.registry = registry;
+        this.identifierSize = registry.getIdentifier().getIdentifierEncoding().numBytes();
+        if (bufferSize <= identifierSize) {
+            throw new IllegalArgumentException("Buffer size has to be larger than the identifier size " + identifierSize);
+        }
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.sink = sink;
+    }
+
+    /**
+     * Pass the remaining bytes of the given chunk to the decoder,
+     * decoding and emitting every frame that is complete afterwards.
+     * The position of the chunk is advanced to its limit.
+     *
+     * @param chunk the received bytes
+     */
+    public synchronized void accept(ByteBuffer chunk) {
+        while (chunk.hasRemaining()) {
+            int count = Math.min(buffer.remaining(), chunk.remaining());
+            ByteBuffer part = chunk.duplicate();
+            part.limit(part.position() + count);
+            buffer.put(part);
+            chunk.position(chunk.position() + count);
+            drain();
+        }
+    }
+
+    /**
+     * Read as many bytes as are available from the given channel
+     * directly into the internal buffer, decoding and emitting every
+     * frame that is complete afterwards.
+     *
+     * @param channel the channel to read from
+     * @return the number of bytes read, or -1 if the channel reached the end of the stream
+     * @throws IOException if reading from the channel fails
+     */
+    public synchronized int readFrom(ReadableByteChannel channel) throws IOException {
+        int read = channel.read(buffer);
+        drain();
+        return read;
+    }
+
+    /**
+     * @return the number of received bytes which are not decoded yet
+     */
+    public synchronized int getPendingBytes() {
+        return buffer.position();
+    }
+
+    /**
+     * @return the number of frames which had a known identifier,
+     * but could not be decoded and were skipped
+     */
+    public synchronized long getMalformedFrameCount() {
+        return malformedFrameCount;
+    }
+
+    /**
+     * Discard all received bytes which are not decoded yet.
+     */
+    public synchronized void reset() {
+        buffer.clear();
+    }
+
+    /**
+     * Decode all complete frames in the buffer and compact it afterwards.
+     * If the buffer is full without holding a single complete frame, one
+     * byte is skipped so that the next call can make progress.
+     */
+    private void drain() {
+        buffer.flip();
+        while (buffer.remaining() >= identifierSize) {
+            int start = buffer.position();
+            if (!decodeNext(start)) {
+                buffer.position(start);
+                break;
+            }
+        }
+        if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+            Logger.instance().debug("[StreamDecoder] Frame does not fit into buffer, skipping byte");
+            buffer.position(1);
+        }
+        buffer.compact();
+    }
+
+    /**
+     * Try to decode the frame starting at the given position of the buffer.
+     *
+     * @param start the position the frame starts at
+     * @return true if the bytes were consumed, either by emitting a message
+     *         or by skipping them, false if more bytes are required
+     */
+    private boolean decodeNext(int start) {
+        I id = registry.getIdentifier().decodeIdentifier(buffer);
+        Optional<MessageType> registered = registry.getValueFor(id);
+        if (!registered.isPresent()) {
+            Logger.instance().debug("[StreamDecoder] Unknown identifier " + id + ", skipping byte");
+            buffer.position(start + 1);
+            return true;
+        }
+        MessageType<?> type = registered.get();
+
+        int size = type.getFixedSize();
+        if (size != MessageType.VARIABLE_SIZE) {
+            if (buffer.remaining() < size) {
+                return false;
+            }
+            int end = buffer.position() + size;
+            Message message;
+            try {
+                message = type.decodeFrom(buffer);
+            } catch (IllegalArgumentException e) {
+                reportMalformed(e, type);
+                buffer.position(end);
+                return true;
+            }
+            buffer.position(end);
+            LatencyTracer.instance().begin(message);
+            sink.accept(message);
+            return true;
+        }
+
+        Message message;
+        try {
+            message = type.decodeFrom(buffer);
+        } catch (BufferUnderflowException e) {
+            return false;
+        } catch (IllegalArgumentException e) {
+            if (!buffer.hasRemaining()) {
+                // all received bytes were used, so the frame may be incomplete
+                return false;
+            }
+            // the frame is invalid before its end, so more bytes do not help;
+            // resynchronize on the next byte
+            reportMalformed(e, type);
+            buffer.position(start + 1);
+            return true;
+        }
+        LatencyTracer.instance().begin(message);
+        sink.accept(message);
+        return true;
+    }
+
+    /**
+     * Report that a frame of the given type could not be decoded.
+     *
+     * @param e the exception thrown while decoding the frame
+     * @param type the type of the frame
+     */
+    private void reportMalformed(IllegalArgumentException e, MessageType<?> type) {
+        ++malformedFrameCount;
+        Logger.instance().debugException(e, "[StreamDecoder] Could not decode frame of type " + type);
+    }
+}
@@ -1,8 +1,20 @@
 package de.unia.oc.robotcontrol.message;
 
+import de.unia.oc.robotcontrol.util.Logger;
 import de.unia.oc.robotcontrol.util.Tuple;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
@@ -15,6 +27,12 @@ import java.util.function.Consumer;
  */
 public final class Messaging {
 
+    /**
+     * The longest time (in ms) a stream decoded by {@link #decodeStream}
+     * waits for its channel before checking whether it has been cancelled
+     */
+    private static final long STREAM_IDLE_MILLIS = 100;
+
     private Messaging() {}
 
     /**
@@ -22,43 +40,140 @@ public final class Messaging {
      * identifier encoding, and adding the entries passed as vararg to
      * it right away.
      *
+     * See {@link #createRegistry(MessageIdentifier, Consumer)} for the type of registry created.
+     *
      * @param identifier the identifier encoding to use to separate the
      *                   message identifier from the actual message data
      * @param entries the entries to add to the registry right away
      * @param <I> the type of the identifier used
-     * @return a new instance of {@link MapMessageTypeRegistry}
+     * @return a new instance of {@link MessageTypeRegistry}
      */
     @SafeVarargs
     public static <I extends Object> MessageTypeRegistry<I> createRegistry(
             MessageIdentifier<I> identifier,
             Tuple<I, MessageType>... entries) {
-        MapMessageTypeRegistry<I> reg = new MapMessageTypeRegistry<>(identifier);
-        for (Tuple<I, MessageType> e : entries) {
-            reg.register(e.first, e.second);
-        }
-        return reg;
-    };
+        return createRegistry(identifier, (register) -> {
+            for (Tuple<I, MessageType> e : entries) {
+                register.apply(e.first, e.second);
+            }
+        });
+    }
 
     /**
      * Create a new {@link MessageTypeRegistry} instance using the given
      * identifier encoding, and passes it to the given function so that
      * it can be used to directly add entries to the registry.
      *
+     * If all identifiers are small characters or integers, the returned
+     * registry is a frozen {@link ArrayMessageTypeRegistry}, which looks up
+     * types without locking or allocating, and to which no further types can be
+     * registered once the function returns. Otherwise, a {@link MapMessageTypeRegistry}
+     * is returned.
+     *
      * @param identifier the identifier encoding to use to separate the
      *                   message identifier from the actual message data
      * @param registration the function which is passed the {@link MessageTypeRegistry},
      *                    so it can register entries in the registry.
      * @param <I> the type of the identifier used
-     * @return a new instance of {@link MapMessageTypeRegistry}
+     * @return a new instance of {@link MessageTypeRegistry}
+     * @throws IllegalArgumentException if a type is registered for multiple identifiers
      */
     public static <I extends Object> MessageTypeRegistry<I> createRegistry(
             MessageIdentifier<I> identifier,
             Consumer<BiFunction<I, MessageType, Boolean>> registration) {
+        Map<I, MessageType> entries = new LinkedHashMap<>();
+        registration.accept((key, type) -> {
+            if (entries.containsKey(key)) {
+                return false;
+            }
+            if (entries.containsValue(type)) {
+                throw new IllegalArgumentException("Type is already registered: " + type);
+            }
+            entries.put(key, type);
+            return true;
+        });
+
+        if (ArrayMessageTypeRegistry.canIndex(entries.keySet())) {
+            return new ArrayMessageTypeRegistry<>(identifier, entries);
+        }
         MapMessageTypeRegistry<I> reg = new MapMessageTypeRegistry<>(identifier);
-        registration.accept(reg::register);
+        entries.forEach(reg::register);
         return reg;
     }
 
+    /**
+     * Create an encoding which encodes messages like the given registry,
+     * but decodes them lazily: only the identifier is decoded to resolve
+     * the {@link MessageType}, and a {@link LazyMessage} holding the
+     * remaining bytes is returned (see {@link LazyDecoding}).
+     *
+     * @param registry the registry used to encode messages and resolve types
+     * @param <I> the type of the identifier used
+     * @return a new instance of {@link LazyDecoding}
+     */
+    public static <I extends Object> LazyDecoding<I> lazyDecoding(MessageTypeRegistry<I> registry) {
+        return new LazyDecoding<>(registry);
+    }
+
+    /**
+     * Create a {@link Publisher} which reads the given channel until it
+     * reaches the end of the stream, and emits every message decoded from it
+     * using a {@link MessageStreamDecoder}.
+     *
+     * Reading blocks the subscribing thread if the channel is blocking,
+     * so the publisher should be subscribed to on a separate scheduler.
+     * If the channel is a non-blocking {@link SelectableChannel}, the thread
+     * waits for the channel to become readable instead of polling it,
+     * and other channels which have no bytes available are polled
+     * again after a short pause.
+     *
+     * @param registry the registry used to resolve the message types
+     * @param channel the channel to read the byte stream from
+     * @param bufferSize the maximum number of bytes to hold at once
+     * @param <I> the type of the identifier used
+     * @return a new {@link Publisher} of the decoded messages
+     */
+    public static <I extends Object> Publisher<Message> decodeStream(
+            MessageTypeRegistry<I> registry,
+            ReadableByteChannel channel,
+            int bufferSize) {
+        return Flux.create((sink) -> {
+            MessageStreamDecoder<I> decoder = new MessageStreamDecoder<>(registry, bufferSize, sink::next);
+            Selector selector = null;
+            try {
+                int read;
+                while (!sink.isCancelled() && (read = decoder.readFrom(channel)) >= 0) {
+                    if (read > 0) {
+                        continue;
+                    }
+                    if (selector == null && channel instanceof SelectableChannel
+                            && !((SelectableChannel) channel).isBlocking()) {
+                        selector = Selector.open();
+                        ((SelectableChannel) channel).register(selector, SelectionKey.OP_READ);
+                    }
+                    if (selector != null) {
+                        // time out regularly to notice cancellation
+                        selector.select(STREAM_IDLE_MILLIS);
+                        selector.selectedKeys().clear();
+                    } else {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    }
+                }
+                sink.complete();
+            } catch (IOException e) {
+                sink.error(e);
+            } finally {
+                if (selector != null) {
+                    try {
+                        selector.close();
+                    } catch (IOException e) {
+                        Logger.instance().debugException(e, "[Messaging] Could not close selector");
+                    }
+                }
+            }
+        });
+    }
+
     /**
      * Create a new {@link MessageMulticast}
      * @param executor the {@link Executor} to run the multicast on
@@ -0,0 +1,92 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.flow.RingBufferMulticast;
+import de.unia.oc.robotcontrol.flow.WaitStrategy;
+import org.reactivestreams.Publisher;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Message multicast following the same semantics as {@link RingBufferMulticast},
+ * using {@link Message#getType()} as the topic of each message.
+ *
+ * Subscriptions to a class resolve whether a message type matches the class
+ * once, on the first message of that type, and only compare the type afterwards.
+ *
+ * For {@link ReferenceCounted} messages, a reference is retained for every
+ * subscriber a message is emitted to, and the reference passed to this
+ * multicast is released once all consumers passed the message, so that
+ * messages no subscriber matches are recycled as well.
+ *
+ * @param <T> the subtype of Message this processes
+ */
+public class RingBufferMessageMulticast<T extends Message>
+        extends RingBufferMulticast<MessageType<? extends T>, T>
+        implements ClassMessageMulticast<T> {
+
+    public RingBufferMessageMulticast(int bufferSize, WaitStrategy waitStrategy) {
+        super(bufferSize, waitStrategy);
+    }
+
+    public RingBufferMessageMulticast() {
+        super();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public MessageType topicFromValue(T message) {
+        return message.getType();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Retains a reference to the message for the subscriber.
+     *
+     * @param message the message which is emitted
+     */
+    @Override
+    protected void handOver(T message) {
+        ReferenceCounted.retainIfCounted(message, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Releases the reference to the message passed to this multicast.
+     *
+     * @param message the message which is removed from the ring buffer
+     */
+    @Override
+    protected void onConsumed(T message) {
+        ReferenceCounted.releaseIfCounted(message);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Messages which can not be decoded are skipped, without
+     * remembering whether their type matches.
+     *
+     * @param messageClass the class of messages to subscribe to
+     * @return a publisher emitting all messages of the given class
+     */
+    @Override
+    public Publisher<T> subscribeToClass(Class<?> messageClass) {
+        Map<MessageType<?>, Boolean> matches = new ConcurrentHashMap<>();
+        return subscribeWhere((message) -> {
+            Boolean match = matches.get(message.getType());
+            if (match == null) {
+                try {
+                    match = messageClass.isAssignableFrom(LazyMessage.classOf(message));
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+                matches.put(message.getType(), match);
+            }
+            return match;
+        });
+    }
+}
@@ -2,6 +2,9 @@ package de.unia.oc.robotcontrol.message;
 
 import de.unia.oc.robotcontrol.coding.CodingContext;
 import de.unia.oc.robotcontrol.coding.Encoding;
+import de.unia.oc.robotcontrol.coding.FixedEncoding;
+
+import java.nio.ByteBuffer;
 
 /**
  * Implementation of {@link MessageType} for a {@link SingleValueMessage}.
@@ -53,6 +56,16 @@ public class SingleValueMessageType<T> implements MessageType<SingleValueMessage
         return produce(encoding.decode(raw));
     }
 
+    @Override
+    public void encodeInto(SingleValueMessage<T> object, ByteBuffer target) throws IllegalArgumentException {
+        encoding.encodeInto(object.getValue(), target);
+    }
+
+    @Override
+    public SingleValueMessage<T> decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+        return produce(encoding.decodeFrom(source));
+    }
+
     /**
      * Create a new instance of {@link SingleValueMessage} with
      * the {@link MessageType} set to {@code this} from the
@@ -75,6 +88,11 @@ public class SingleValueMessageType<T> implements MessageType<SingleValueMessage
         };
     }
 
+    @Override
+    public int getFixedSize() {
+        return encoding instanceof FixedEncoding ? ((FixedEncoding) encoding).numBytes() : VARIABLE_SIZE;
+    }
+
     @Override
     public CodingContext getContext() {
         return encoding.getContext();
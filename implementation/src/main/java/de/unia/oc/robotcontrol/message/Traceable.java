@@ -0,0 +1,23 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A message which can carry a {@link LatencyTrace},
+ * see {@link LatencyTracer}.
+ */
+public interface Traceable {
+
+    /**
+     * @return the trace attached to this message, or null if there is none
+     */
+    @Nullable LatencyTrace getTrace();
+
+    /**
+     * Attach the given trace to this message.
+     *
+     * @param trace the trace to attach, or null to remove the current trace
+     */
+    void setTrace(@Nullable LatencyTrace trace);
+}
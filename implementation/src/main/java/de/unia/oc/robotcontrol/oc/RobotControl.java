@@ -4,15 +4,29 @@ package de.unia.oc.robotcontrol.oc;
 import de.unia.oc.robotcontrol.concurrent.Terminable;
 import de.unia.oc.robotcontrol.concurrent.TimeProvider;
 import de.unia.oc.robotcontrol.device.Device;
+import de.unia.oc.robotcontrol.device.LockingDeviceConnector;
 import de.unia.oc.robotcontrol.flow.FlowStrategy;
+import de.unia.oc.robotcontrol.flow.PriorityLanes;
+import de.unia.oc.robotcontrol.flow.WaitStrategy;
 import de.unia.oc.robotcontrol.flow.strategy.TransparentFlowStrategy;
 import de.unia.oc.robotcontrol.flow.strategy.TypeFilterFlowStrategy;
+import de.unia.oc.robotcontrol.message.ClassMessageMulticast;
 import de.unia.oc.robotcontrol.message.EmittingMessageMulticast;
+import de.unia.oc.robotcontrol.message.LatencyTrace;
+import de.unia.oc.robotcontrol.message.LatencyTracer;
+import de.unia.oc.robotcontrol.message.LazyMessage;
 import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessageMulticast;
+import de.unia.oc.robotcontrol.message.MessagePriority;
 import de.unia.oc.robotcontrol.message.MessageType;
+import de.unia.oc.robotcontrol.message.ReferenceCounted;
+import de.unia.oc.robotcontrol.message.RingBufferMessageMulticast;
 import de.unia.oc.robotcontrol.util.Logger;
+import de.unia.oc.robotcontrol.visualization.RuntimeMetrics;
 import org.checkerframework.checker.nullness.qual.EnsuresNonNull;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.reactivestreams.Publisher;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Scheduler;
@@ -83,6 +97,12 @@ public class RobotControl<
      * before the messages are passed to the observer.
      */
     private final Map<MessageType<? extends Message>, FlowStrategy<Message, Message>> messageStrategies;
+    /**
+     * The strategy used on all messages before they are passed to the observer,
+     * if the observer subscribes to its accepted class instead of message types,
+     * or null if it subscribes to the {@link #observerMessageTypes}.
+     */
+    private final @Nullable FlowStrategy<Message, Message> observerClassStrategy;
     /**
      * Associates the different devices used to communicate with external
      * resources with the {@link MessageType} instances they are interested in
@@ -97,7 +117,7 @@ public class RobotControl<
     /**
      * The multicast used to dispatch messages between devices, observer an controller
      */
-    private final EmittingMessageMulticast<Message> multicast;
+    private final MessageMulticast<Message> multicast;
     /**
      * The overall inflow coming from the devices
      */
@@ -121,14 +141,19 @@ public class RobotControl<
      * @param actionInterpreter the systems action interpreter for controller actions {@link #actionInterpreter}
      * @param observerMessageTypes the message types the observer subscribes to {@link #observerMessageTypes}
      * @param messageStrategies the message strategy association {@link #messageStrategies}
+     * @param observerClassStrategy the strategy used on the messages of the observers class,
+     *                              if it subscribes to its class {@link #observerClassStrategy}
      * @param deviceMap the association of {@code device <-> [message type]}  {@link #deviceMap}
+     * @param multicast the multicast used to dispatch messages {@link #multicast}
      */
     RobotControl(OCObserver observer,
                  OCController controller,
                  Function<? super ControllerAction, ? extends Message> actionInterpreter,
                  Set<MessageType<? extends ObserverMessage>> observerMessageTypes,
                  HashMap<MessageType<? extends Message>, FlowStrategy<Message, Message>> messageStrategies,
-                 HashMap<Device<? extends Message, ? extends Message>, Collection<? extends MessageType<? extends Message>>> deviceMap) {
+                 @Nullable FlowStrategy<Message, Message> observerClassStrategy,
+                 HashMap<Device<? extends Message, ? extends Message>, Collection<? extends MessageType<? extends Message>>> deviceMap,
+                 MessageMulticast<Message> multicast) {
 
         this.observer = observer;
         this.controller = controller;
@@ -140,12 +165,13 @@ public class RobotControl<
 
         this.observerMessageTypes = Collections.unmodifiableSet(observerMessageTypes);
         this.messageStrategies = Collections.unmodifiableMap(messageStrategies);
+        this.observerClassStrategy = observerClassStrategy;
         deviceMap.replaceAll((device, mts) -> Collections.unmodifiableCollection(mts));
         this.deviceMap = Collections.unmodifiableMap(deviceMap);
 
         this.ioScheduler = Schedulers.newElastic("device io scheduler");
 
-        this.multicast = new EmittingMessageMulticast<>();
+        this.multicast = multicast;
         // create the device in flow and try to run the devices
         // tasks on the ioScheduler
         this.deviceInFlow = Flux.merge(
@@ -178,9 +204,9 @@ public class RobotControl<
                         entry.getValue()
                                 .stream()
                                 .map((mt) ->
-                                        this.messageStrategies
+                                        materialize(this.messageStrategies
                                                 .getOrDefault(mt, TransparentFlowStrategy.create())
-                                                .apply(multicast.subscribeTo(mt)))
+                                                .apply(multicast.subscribeTo(mt))))
                                 .collect(Collectors.toList())
                         ).subscribe((msg) -> {
                             if(!entry.getKey().castOnNext(msg)) {
@@ -194,23 +220,24 @@ public class RobotControl<
         // Pass messages from devices to the multicast
         deviceInFlow.subscribe(multicast.asSubscriber());
 
+        LatencyTracer tracer = LatencyTracer.instance();
+
         // the overall in flow from the multicast to the observer
-        Flux<ObserverMessage> observerInFlow = Flux.merge(
-                this.observerMessageTypes
-                        .stream()
-                        .map(mt ->
-                                this.messageStrategies
-                                        .getOrDefault(mt, TransparentFlowStrategy.create())
-                                        .andThen(TypeFilterFlowStrategy.create(observer.getAcceptedClass()))
-                                        .apply(multicast.subscribeTo(mt))
-                        ).collect(Collectors.toList())
-        );
+        FlowStrategy<Message, Message> classStrategy = this.observerClassStrategy;
+        Flux<ObserverMessage> observerInFlow = (classStrategy != null
+                ? subscribeObserverToClass(classStrategy)
+                : subscribeObserverToTypes()
+        ).doOnNext(tracer::observe);
 
         // the overall flow from multicast -> observer -> controller -> action interpreter ->
+        // the tracer attributes the stages to the message which last reached the observer
         Flux<? extends Message> controllerOutFlow = observerInFlow
                 .transform(observer::apply)
+                .doOnNext((state) -> tracer.stampCurrent(LatencyTrace.Stage.OBSERVER_OUTPUT))
                 .transform(controller::apply)
+                .doOnNext((command) -> tracer.stampCurrent(LatencyTrace.Stage.CONTROLLER_TICK))
                 .map(actionInterpreter)
+                .doOnNext(tracer::attachCurrent)
                 .subscribeOn(Schedulers.newSingle("Controller Subscription"));
 
         // Pass Controller Messages to the Multicast
@@ -221,6 +248,108 @@ public class RobotControl<
         isStarting = false;
     }
 
+    /**
+     * Subscribe to each of the {@link #observerMessageTypes} separately,
+     * applying the strategy registered for it, and filter out all
+     * messages the observer does not accept.
+     *
+     * @return the merged flow of messages to the observer
+     */
+    private Flux<ObserverMessage> subscribeObserverToTypes() {
+        return Flux.merge(
+                this.observerMessageTypes
+                        .stream()
+                        .map(mt ->
+                                this.messageStrategies
+                                        .getOrDefault(mt, TransparentFlowStrategy.create())
+                                        .andThen(RobotControl::materialize)
+                                        .andThen(TypeFilterFlowStrategy.create(observer.getAcceptedClass()))
+                                        .apply(multicast.subscribeTo(mt))
+                        ).collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Subscribe to all messages of the class the observer accepts using
+     * {@link ClassMessageMulticast#subscribeToClass(Class)}, applying the
+     * given strategy. The multicast only emits messages of that
+     * class, so they do not need to be filtered again.
+     * The multicast has been checked to be a {@link ClassMessageMulticast}
+     * when this was built.
+     *
+     * @param strategy the strategy to apply to the messages of the class
+     * @return the flow of messages to the observer
+     */
+    private Flux<ObserverMessage> subscribeObserverToClass(FlowStrategy<Message, Message> strategy) {
+        Class<ObserverMessage> accepted = observer.getAcceptedClass();
+        return Flux.from(
+                strategy
+                        .andThen(RobotControl::materialize)
+                        .apply(((ClassMessageMulticast<Message>) multicast).subscribeToClass(accepted))
+        ).cast(accepted);
+    }
+
+    /**
+     * Decode all lazily decoded messages ({@link LazyMessage}) passing
+     * the given publisher. Used after the message strategies were applied,
+     * so that messages dropped by them are never decoded.
+     * Messages which can not be decoded are logged and dropped.
+     * The reference to a lazy message is passed on to the decoded
+     * message, so the lazy message is released.
+     *
+     * @param messages the publisher of possibly lazy messages
+     * @return a publisher of decoded messages
+     */
+    private static Publisher<Message> materialize(Publisher<Message> messages) {
+        return Flux.from(messages).handle((msg, sink) -> {
+            Message decoded;
+            try {
+                decoded = LazyMessage.materialize(msg);
+            } catch (IllegalArgumentException e) {
+                Logger.instance().debugException(e, "Could not decode message: " + msg);
+                ReferenceCounted.releaseIfCounted(msg);
+                return;
+            }
+            if (decoded != msg) {
+                ReferenceCounted.releaseIfCounted(msg);
+            }
+            sink.next(decoded);
+        });
+    }
+
+    /**
+     * @return the priority lanes the multicast dispatches messages through,
+     * if it is an {@link EmittingMessageMulticast} using priority lanes
+     * (see {@link Builder#withMessagePriority(MessageType, MessagePriority)})
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<PriorityLanes<Message>> getPriorityLanes() {
+        return multicast instanceof EmittingMessageMulticast
+                ? ((EmittingMessageMulticast<Message>) multicast).getPriorityLanes()
+                : Optional.empty();
+    }
+
+    /**
+     * Register the runtime metrics of the system with the given {@link RuntimeMetrics}:
+     * the queueing delay of each priority lane, if the multicast uses priority lanes
+     * (see {@link EmittingMessageMulticast#reportQueueingDelays(RuntimeMetrics)}),
+     * and the metrics of each device which is a {@link LockingDeviceConnector}
+     * (see {@link LockingDeviceConnector#reportTo(RuntimeMetrics)}).
+     *
+     * @param metrics the metrics to register the runtime metrics with
+     */
+    @SuppressWarnings("unchecked")
+    public void reportTo(RuntimeMetrics<String, ?> metrics) {
+        if (multicast instanceof EmittingMessageMulticast) {
+            ((EmittingMessageMulticast<Message>) multicast).reportQueueingDelays(metrics);
+        }
+        for (Device<? extends Message, ? extends Message> device : deviceMap.keySet()) {
+            if (device instanceof LockingDeviceConnector) {
+                ((LockingDeviceConnector<?, ?>) device).reportTo(metrics);
+            }
+        }
+    }
+
     @Override
     public boolean isTerminated() {
         return isTerminated;
@@ -304,7 +433,10 @@ public class RobotControl<
         private @MonotonicNonNull Function<? super CA, ? extends Message> actionInterpreter;
         private Set<MessageType<? extends OM>> observerMessageTypes;
         private HashMap<MessageType<? extends Message>, FlowStrategy<Message, Message>> messageStrategies;
+        private @Nullable FlowStrategy<Message, Message> observerClassStrategy;
         private HashMap<Device<? extends Message, ? extends Message>, Collection<? extends MessageType<? extends Message>>> deviceMap;
+        private @MonotonicNonNull MessageMulticast<Message> multicast;
+        private HashMap<MessageType<? extends Message>, MessagePriority> messagePriorities;
 
         /**
          * Create a new builder instance from the given observer and controller,
@@ -318,7 +450,9 @@ public class RobotControl<
             this.controller = controller;
             this.observerMessageTypes = new HashSet<>();
             this.messageStrategies = new HashMap<>();
+            this.observerClassStrategy = null;
             this.deviceMap = new HashMap<>();
+            this.messagePriorities = new HashMap<>();
         }
 
         /**
@@ -381,6 +515,22 @@ public class RobotControl<
             return this;
         }
 
+        /**
+         * Subscribe the observer to all messages of its accepted class instead of
+         * registering message types using {@link #registerObserverMessages(MessageType[])},
+         * see {@link ClassMessageMulticast#subscribeToClass(Class)}.
+         * The multicast has to be a {@link ClassMessageMulticast}.
+         *
+         * @param flowStrategy the flow strategy used on the messages passed to the observer
+         * @return this {@link Builder} for method chaining
+         */
+        public final Builder<OM, WS, CA, M, OCO, OCC> registerObserverClass(
+                FlowStrategy<Message, Message> flowStrategy
+        ) {
+            this.observerClassStrategy = flowStrategy;
+            return this;
+        }
+
         /**
          * Registers a new device together with the {@link MessageType}s the given
          * device is interested in to receive from the controller.
@@ -416,26 +566,94 @@ public class RobotControl<
             return this;
         }
 
+        /**
+         * Set the multicast used to dispatch messages between the devices,
+         * the observer and the controller. Uses an {@link EmittingMessageMulticast}
+         * if not set.
+         *
+         * @param multicast the multicast to use
+         * @return this {@link Builder} for method chaining
+         */
+        public final Builder<OM, WS, CA, M, OCO, OCC> withMulticast(MessageMulticast<Message> multicast) {
+            this.multicast = multicast;
+            return this;
+        }
+
+        /**
+         * Use a {@link RingBufferMessageMulticast} to dispatch messages, which
+         * has a lower latency than the default multicast, but uses one thread
+         * per subscription (waiting using the given strategy).
+         *
+         * @param bufferSize the number of slots of the ring buffer, has to be a power of two
+         * @param waitStrategy the strategy the threads use to wait for messages
+         * @return this {@link Builder} for method chaining
+         * @throws IllegalArgumentException if the buffer size is not a power of two
+         */
+        public final Builder<OM, WS, CA, M, OCO, OCC> withRingBufferMulticast(
+                int bufferSize, WaitStrategy waitStrategy
+        ) throws IllegalArgumentException {
+            return withMulticast(new RingBufferMessageMulticast<>(bufferSize, waitStrategy));
+        }
+
+        /**
+         * Set the priority class messages of the given type are dispatched with.
+         * If any priority is set and no multicast is passed using
+         * {@link #withMulticast(MessageMulticast)}, an {@link EmittingMessageMulticast}
+         * with priority lanes is used.
+         *
+         * @param type the message type to set the priority for
+         * @param priority the priority class of the message type
+         * @return this {@link Builder} for method chaining
+         */
+        public final Builder<OM, WS, CA, M, OCO, OCC> withMessagePriority(
+                MessageType<? extends Message> type, MessagePriority priority
+        ) {
+            this.messagePriorities.put(type, priority);
+            return this;
+        }
+
         /**
          * Reifies this builder into an instance of {@link RobotControl} with the parameters
          * that have been given to it using the other methods.
          *
          * @return a new instance of {@link RobotControl}
          * @throws IllegalStateException if not all required parameters have been passed
-         * to build a working system
+         * to build a working system, or the observer is subscribed to its class as well as
+         * to message types, or to its class with a multicast not supporting that
          */
         public final RobotControl<OM, WS, CA, M, OCO, OCC> create() throws IllegalStateException {
             if (this.actionInterpreter == null) {
                 throw new IllegalStateException("Robot Control Builder was not fully initialized!");
             }
+            MessageMulticast<Message> multicast = this.multicast != null ? this.multicast : createDefaultMulticast();
+            if (observerClassStrategy != null) {
+                if (!observerMessageTypes.isEmpty()) {
+                    throw new IllegalStateException("The observer can not subscribe to its class and to message types at once!");
+                }
+                if (!(multicast instanceof ClassMessageMulticast)) {
+                    throw new IllegalStateException("The multicast does not support subscriptions to classes: " + multicast);
+                }
+            }
             return new RobotControl<OM, WS, CA, M, OCO, OCC>(
                     observer,
                     controller,
                     actionInterpreter,
                     observerMessageTypes,
                     messageStrategies,
-                    deviceMap
+                    observerClassStrategy,
+                    deviceMap,
+                    multicast
             );
         }
+
+        /**
+         * @return the multicast used if none has been set: an {@link EmittingMessageMulticast},
+         * with priority lanes if any priority has been set
+         */
+        private MessageMulticast<Message> createDefaultMulticast() {
+            return messagePriorities.isEmpty()
+                    ? new EmittingMessageMulticast<>()
+                    : new EmittingMessageMulticast<>(messagePriorities);
+        }
     }
 }
@@ -0,0 +1,138 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.util;
+
+import org.checkerframework.checker.index.qual.NonNegative;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies (in nanoseconds) with logarithmic buckets,
+ * which can be recorded into concurrently without locking or allocating.
+ *
+ * Each power of two is split into {@link #SUB_BUCKETS} linear buckets,
+ * so that percentiles are accurate to within 12.5% of the actual value,
+ * while the whole range of {@code long} only needs a few hundred buckets.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of buckets each power of two is split into
+     */
+    private static final int SUB_BUCKETS = 8;
+    /**
+     * {@code log2(SUB_BUCKETS)}
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    /**
+     * The number of buckets needed for all non-negative longs
+     */
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The number of recorded values per bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    /**
+     * The total number of recorded values
+     */
+    private final AtomicLong totalCount = new AtomicLong();
+    /**
+     * The largest recorded value
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record the given latency. Negative values are recorded as 0.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        totalCount.incrementAndGet();
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry until the maximum is at least the value
+        }
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * @return the largest recorded value in nanoseconds, or 0 if none were recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the value below which the given fraction of recorded values lies.
+     * Returns the lower bound of the bucket of that value, so the result
+     * is never larger than the actual value.
+     *
+     * @param percentile the fraction of values, between 0 and 1
+     * @return the approximate percentile in nanoseconds, or 0 if no values were recorded
+     * @throws IllegalArgumentException if the percentile is not between 0 and 1
+     */
+    public long getPercentile(double percentile) throws IllegalArgumentException {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile has to be between 0 and 1, was: " + percentile);
+        }
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return lowerBoundOf(i);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Remove all recorded values. Values recorded concurrently may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        max.set(0);
+    }
+
+    /**
+     * @param value a non-negative value
+     * @return the index of the bucket the value is counted in
+     */
+    static int bucketOf(@NonNegative long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @param bucket the index of a bucket
+     * @return the smallest value counted in the bucket
+     */
+    static long lowerBoundOf(@NonNegative int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+}
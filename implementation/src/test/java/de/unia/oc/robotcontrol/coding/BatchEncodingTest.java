@@ -0,0 +1,72 @@
+package de.unia.oc.robotcontrol.coding;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchEncodingTest {
+
+    /**
+     * An encoding which is not self-delimiting, decoding all remaining bytes.
+     */
+    private static final Encoding<String> REST_ENCODING = new Encoding<String>() {
+        @Override
+        public byte[] encode(String object) {
+            return object.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public @NonNull String decode(byte[] raw) {
+            return new String(raw, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public CodingContext getContext() {
+            return CodingTestUtil.BE_ENCODING;
+        }
+    };
+
+    @Test
+    void framesEntriesWithoutDelimiters() {
+        BatchEncoding<String> encoding = new BatchEncoding<>(REST_ENCODING);
+        char[] longEntry = new char[300];
+        Arrays.fill(longEntry, 'x');
+        List<String> batch = Arrays.asList("s1", "", new String(longEntry), "u");
+
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        encoding.encodeInto(batch, buffer);
+        assertEquals(encoding.sizeOf(batch), buffer.position());
+        buffer.put((byte) 42);
+        buffer.flip();
+
+        assertEquals(batch, encoding.decodeFrom(buffer));
+        assertEquals(42, buffer.get());
+    }
+
+    @Test
+    void usesSizesOfFixedEntries() {
+        BatchEncoding<Integer> encoding = new BatchEncoding<>(new IntegerEncoding(CodingTestUtil.BE_ENCODING));
+        List<Integer> batch = Arrays.asList(1, 2, 3);
+        byte[] bytes = encoding.encode(batch);
+        assertEquals(1 + 3 * (1 + 2), bytes.length);
+        assertEquals(batch, encoding.decode(bytes));
+        assertEquals(Collections.emptyList(), encoding.decode(new byte[]{0}));
+    }
+
+    @Test
+    void rejectsTruncatedFrames() {
+        BatchEncoding<Integer> encoding = new BatchEncoding<>(new IntegerEncoding(CodingTestUtil.BE_ENCODING));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoding.decode(new byte[]{2, 2, 0, 1, 2, 0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoding.encodeInto(Arrays.asList(1, 2), ByteBuffer.allocate(4)));
+    }
+}
@@ -0,0 +1,91 @@
+package de.unia.oc.robotcontrol.coding;
+
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessageTypeRegistry;
+import de.unia.oc.robotcontrol.message.Messaging;
+import de.unia.oc.robotcontrol.message.SimpleMessageIdentifier;
+import de.unia.oc.robotcontrol.message.SingleValueMessage;
+import de.unia.oc.robotcontrol.message.SingleValueMessageType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DeltaEncodingTest {
+
+    private static DeltaEncoding<int[]> distances(int keyframeInterval) {
+        return DeltaEncoding.ofInts(
+                new IntListEncoding(new IntCodec(CodingTestUtil.BE_ENCODING), 3),
+                3,
+                keyframeInterval);
+    }
+
+    @Test
+    void writesKeyframesAndSmallDeltas() {
+        DeltaEncoding<int[]> encoding = distances(3);
+        int[][] values = { {100, 200, 300}, {101, 198, 300}, {90, 250, 1000}, {91, 250, 1000} };
+
+        byte[] first = encoding.encode(values[0]);
+        byte[] second = encoding.encode(values[1]);
+        byte[] third = encoding.encode(values[2]);
+        byte[] fourth = encoding.encode(values[3]);
+
+        assertEquals(1 + 6, first.length);
+        assertEquals(1 + 3, second.length);
+        assertEquals(1 + 1 + 1 + 2, third.length);
+        // keyframe interval reached
+        assertEquals(1 + 6, fourth.length);
+
+        DeltaEncoding<int[]> decoder = distances(3);
+        assertArrayEquals(values[0], decoder.decode(first));
+        assertArrayEquals(values[1], decoder.decode(second));
+        assertArrayEquals(values[2], decoder.decode(third));
+        assertArrayEquals(values[3], decoder.decode(fourth));
+    }
+
+    @Test
+    void resyncsOnNextKeyframe() {
+        DeltaEncoding<int[]> encoding = distances(10);
+        DeltaEncoding<int[]> decoder = distances(10);
+
+        assertArrayEquals(new int[]{1, 2, 3}, decoder.decode(encoding.encode(new int[]{1, 2, 3})));
+        // lost frame
+        encoding.encode(new int[]{2, 3, 4});
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        encoding.encodeInto(new int[]{3, 4, 5}, buffer);
+        encoding.encodeInto(new int[]{4, 5, 6}, buffer);
+        encoding.requestKeyframe();
+        encoding.encodeInto(new int[]{5, 6, 7}, buffer);
+        buffer.flip();
+
+        assertThrows(IllegalArgumentException.class, () -> decoder.decodeFrom(buffer));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decodeFrom(buffer));
+        assertArrayEquals(new int[]{5, 6, 7}, decoder.decodeFrom(buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    void decodesThroughRegistry() {
+        SimpleMessageIdentifier<Character> identifier =
+                new SimpleMessageIdentifier<>(new CharEncoding(CodingTestUtil.BE_ENCODING));
+        SingleValueMessageType<int[]> type = new SingleValueMessageType<>(distances(4));
+        MessageTypeRegistry<Character> registry =
+                Messaging.createRegistry(identifier, (p) -> p.apply('x', type));
+
+        DeltaEncoding<int[]> sender = distances(4);
+        for (int i = 0; i < 10; ++i) {
+            int[] value = { 500 - i, 500 + i, i };
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            identifier.encodeIdentifier('x', buffer);
+            sender.encodeInto(value, buffer);
+            buffer.flip();
+
+            Message decoded = registry.decodeFrom(buffer);
+            assertArrayEquals(value, ((SingleValueMessage<int[]>) decoded).getValue());
+        }
+    }
+}
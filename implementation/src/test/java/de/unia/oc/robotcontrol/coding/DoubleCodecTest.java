@@ -0,0 +1,28 @@
+package de.unia.oc.robotcontrol.coding;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DoubleCodecTest {
+
+    @Test
+    void encodesArduinoDoubleAsFloat() {
+        DoubleCodec codec = new DoubleCodec(CodingTestUtil.BE_ENCODING);
+        ByteBuffer buffer = ByteBuffer.allocate(codec.numBytes());
+        codec.encodeDouble(1.5, buffer);
+        assertArrayEquals(ByteBuffer.allocate(4).putFloat(1.5f).array(), buffer.array());
+        buffer.flip();
+        assertEquals(1.5, codec.decodeDouble(buffer));
+    }
+
+    @Test
+    public void isReversible() {
+        double myDouble = Math.random() * 4096;
+        DoubleCodec codec = new DoubleCodec(CodingContext.NATIVE);
+        assertEquals(myDouble, (double) codec.decode(codec.encode(myDouble)));
+    }
+}
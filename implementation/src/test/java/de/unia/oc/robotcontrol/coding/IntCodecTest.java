@@ -0,0 +1,46 @@
+package de.unia.oc.robotcontrol.coding;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntCodecTest {
+
+    @Test
+    void encodesArduino() {
+        IntCodec codec = new IntCodec(CodingTestUtil.BE_ENCODING);
+        ByteBuffer buffer = ByteBuffer.allocate(codec.numBytes());
+        codec.encodeInt(258, buffer);
+        byte[] expected = {1, 2};
+        assertArrayEquals(expected, buffer.array());
+    }
+
+    @Test
+    void decodesArduino() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0, 7, -1, -1});
+        IntCodec codec = new IntCodec(CodingTestUtil.BE_ENCODING);
+        assertEquals(7, codec.decodeInt(buffer));
+        assertEquals(65535, codec.decodeInt(buffer));
+    }
+
+    @Test
+    void signExtendsArduino() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{-1, -2});
+        IntCodec codec = IntCodec.signed(CodingTestUtil.BE_ENCODING);
+        assertEquals(-2, codec.decodeInt(buffer));
+    }
+
+    @Test
+    void matchesIntegerEncoding() {
+        int myInt = (int) (Math.random() * Integer.MAX_VALUE);
+        for (CodingContext context : new CodingContext[]{ CodingContext.NATIVE, CodingContext.ARDUINO }) {
+            IntCodec codec = new IntCodec(context);
+            IntegerEncoding encoding = new IntegerEncoding(context);
+            assertArrayEquals(encoding.encode(myInt), codec.encode(myInt));
+            assertEquals(encoding.decode(encoding.encode(myInt)), codec.decode(codec.encode(myInt)));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package de.unia.oc.robotcontrol.coding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class IntListEncodingTest {
+
+    @Test
+    void encodesArray() {
+        int[] ints = { 3, 1024, 77 };
+        IntListEncoding encoding = new IntListEncoding(new IntCodec(CodingTestUtil.BE_ENCODING), ints.length);
+        assertArrayEquals(ints, encoding.decode(encoding.encode(ints)));
+    }
+
+    @Test
+    void matchesListEncoding() {
+        int[] ints = { 3, 1024, 77 };
+        List<Integer> list = new ArrayList<>();
+        for (int i : ints) list.add(i);
+        IntListEncoding encoding = new IntListEncoding(new IntCodec(CodingTestUtil.BE_ENCODING), ints.length);
+        ListEncoding<Integer> listEncoding = new ListEncoding<>(new IntegerEncoding(CodingTestUtil.BE_ENCODING), ints.length);
+        assertArrayEquals(listEncoding.encode(list), encoding.encode(ints));
+    }
+}
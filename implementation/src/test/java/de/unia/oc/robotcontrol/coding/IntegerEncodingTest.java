@@ -2,6 +2,8 @@ package de.unia.oc.robotcontrol.coding;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -39,6 +41,27 @@ class IntegerEncodingTest {
         assertArrayEquals(expected, result);
     }
 
+    @Test
+    void encodesIntoBuffer() {
+        IntegerEncoding encoding = new IntegerEncoding(CodingTestUtil.BE_ENCODING);
+        ByteBuffer buffer = ByteBuffer.allocate(5);
+        buffer.put((byte) 1);
+        encoding.encodeInto(7, buffer);
+        encoding.encodeInto(258, buffer);
+        byte[] expected = {1, 0, 7, 1, 2};
+        assertEquals(5, buffer.position());
+        assertArrayEquals(expected, buffer.array());
+    }
+
+    @Test
+    void decodesFromBuffer() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0, 7, 1, 2});
+        IntegerEncoding encoding = new IntegerEncoding(CodingTestUtil.BE_ENCODING);
+        assertEquals(7, (int) encoding.decodeFrom(buffer));
+        assertEquals(258, (int) encoding.decodeFrom(buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
     @Test
     public void isReversible() {
         int myInt = (int) (Math.random() * 256);
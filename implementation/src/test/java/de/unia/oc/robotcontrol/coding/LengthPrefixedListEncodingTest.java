@@ -0,0 +1,66 @@
+package de.unia.oc.robotcontrol.coding;
+
+import de.unia.oc.robotcontrol.util.Bijection;
+import de.unia.oc.robotcontrol.util.Tuple;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LengthPrefixedListEncodingTest {
+
+    @Test
+    void encodesVariableLists() {
+        LengthPrefixedListEncoding<Integer> encoding =
+                new LengthPrefixedListEncoding<>(VarIntEncoding.zigZag(CodingTestUtil.BE_ENCODING));
+        List<Integer> list = Arrays.asList(3, -7, 1000);
+        byte[] bytes = encoding.encode(list);
+        assertEquals(1 + 1 + 1 + 2, bytes.length);
+        assertEquals(list, encoding.decode(bytes));
+        assertEquals(Collections.emptyList(), encoding.decode(encoding.encode(Collections.emptyList())));
+    }
+
+    @Test
+    void encodesFixedElements() {
+        LengthPrefixedListEncoding<Integer> encoding = new LengthPrefixedListEncoding<>(
+                VariableEncoding.fromFixed(new IntegerEncoding(CodingTestUtil.BE_ENCODING)));
+        List<Integer> list = Arrays.asList(1, 2, 3);
+        assertEquals(1 + 3 * 2, encoding.sizeOf(list));
+        assertEquals(list, encoding.decode(encoding.encode(list)));
+    }
+
+    @Test
+    void rejectsTooManyElements() {
+        LengthPrefixedListEncoding<Integer> encoding =
+                new LengthPrefixedListEncoding<>(new VarIntEncoding(CodingTestUtil.BE_ENCODING), 2);
+        assertThrows(IllegalArgumentException.class,
+                () -> encoding.encode(Arrays.asList(1, 2, 3)));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoding.decode(new byte[]{3, 1, 2, 3}));
+    }
+
+    @Test
+    void appendsStackedEncodings() {
+        VariableEncoding<Tuple<String, List<Integer>>> encoding =
+                new StringEncoding(CodingTestUtil.BE_ENCODING)
+                        .append(new LengthPrefixedListEncoding<>(new VarIntEncoding(CodingTestUtil.BE_ENCODING)));
+        VariableEncoding<String> stacked = encoding.stack(Bijection.create(
+                (String s) -> Tuple.create(s, Collections.singletonList(s.length())),
+                (Tuple<String, List<Integer>> t) -> t.first
+        ));
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        stacked.encodeInto("h\u00f6he", buffer);
+        stacked.encodeInto("", buffer);
+        assertEquals(stacked.sizeOf("h\u00f6he") + stacked.sizeOf(""), buffer.position());
+        buffer.flip();
+        assertEquals("h\u00f6he", stacked.decodeFrom(buffer));
+        assertEquals("", stacked.decodeFrom(buffer));
+        assertEquals(0, buffer.remaining());
+    }
+}
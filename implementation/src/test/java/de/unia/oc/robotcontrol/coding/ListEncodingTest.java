@@ -2,10 +2,12 @@ package de.unia.oc.robotcontrol.coding;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class ListEncodingTest {
 
@@ -18,6 +20,18 @@ class ListEncodingTest {
         assertArrayEquals(ints.toArray(), result.toArray());
     }
 
+    @Test
+    void encodesListIntoBuffer() {
+        List<Integer> ints = genInts(3);
+        ListEncoding<Integer> encoding = new ListEncoding<>(new IntegerEncoding(), ints.size());
+        ByteBuffer buffer = ByteBuffer.allocate(encoding.numBytes());
+        encoding.encodeInto(ints, buffer);
+        assertEquals(0, buffer.remaining());
+        assertArrayEquals(encoding.encode(ints), buffer.array());
+        buffer.flip();
+        assertArrayEquals(ints.toArray(), encoding.decodeFrom(buffer).toArray());
+    }
+
     private List<Integer> genInts(int amount) {
         List<Integer> ints = new ArrayList<>(amount) ;
         for (int i = 0; i < amount; ++i) {
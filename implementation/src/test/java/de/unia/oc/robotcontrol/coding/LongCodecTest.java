@@ -0,0 +1,39 @@
+package de.unia.oc.robotcontrol.coding;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongCodecTest {
+
+    @Test
+    void decodesArduino() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0, 0, 0, 7, -1, -1, -1, -2});
+        LongCodec codec = new LongCodec(CodingTestUtil.BE_ENCODING);
+        assertEquals(7L, codec.decodeLong(buffer));
+        assertEquals(4294967294L, codec.decodeLong(buffer));
+    }
+
+    @Test
+    void signExtendsArduino() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{-1, -1, -1, -2});
+        LongCodec codec = LongCodec.signed(CodingTestUtil.BE_ENCODING);
+        assertEquals(-2L, codec.decodeLong(buffer));
+        assertEquals(-2L, codec.withContext(CodingTestUtil.BE_ENCODING).decodeLong(ByteBuffer.wrap(new byte[]{-1, -1, -1, -2})));
+    }
+
+    @Test
+    void matchesLongEncoding() {
+        long myLong = (long) (Math.random() * Integer.MAX_VALUE);
+        for (CodingContext context : new CodingContext[]{ CodingContext.NATIVE, CodingContext.ARDUINO }) {
+            LongCodec codec = new LongCodec(context);
+            LongEncoding encoding = new LongEncoding(context);
+            assertArrayEquals(encoding.encode(myLong), codec.encode(myLong));
+            assertEquals(encoding.decode(encoding.encode(myLong)), codec.decode(codec.encode(myLong)));
+            assertEquals(encoding.decode(new byte[codec.numBytes()]), codec.decode(new byte[codec.numBytes()]));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package de.unia.oc.robotcontrol.coding;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VarIntEncodingTest {
+
+    @Test
+    void smallValuesUseOneByte() {
+        VarIntEncoding encoding = new VarIntEncoding(CodingTestUtil.BE_ENCODING);
+        assertArrayEquals(new byte[]{0}, encoding.encode(0));
+        assertArrayEquals(new byte[]{127}, encoding.encode(127));
+        assertArrayEquals(new byte[]{(byte) 0x80, 1}, encoding.encode(128));
+        assertArrayEquals(new byte[]{(byte) 0xAC, 0x02}, encoding.encode(300));
+        assertEquals(5, encoding.sizeOfInt(-1));
+    }
+
+    @Test
+    void zigZagKeepsSmallNegativeValuesShort() {
+        VarIntEncoding encoding = VarIntEncoding.zigZag(CodingTestUtil.BE_ENCODING);
+        assertArrayEquals(new byte[]{1}, encoding.encode(-1));
+        assertArrayEquals(new byte[]{2}, encoding.encode(1));
+        assertArrayEquals(new byte[]{3}, encoding.encode(-2));
+    }
+
+    @Test
+    void roundTrips() {
+        int[] values = { 0, 1, -1, 127, 128, 65535, Integer.MAX_VALUE, Integer.MIN_VALUE };
+        for (VarIntEncoding encoding : new VarIntEncoding[]{
+                new VarIntEncoding(CodingTestUtil.BE_ENCODING),
+                VarIntEncoding.zigZag(CodingTestUtil.BE_ENCODING) }) {
+            ByteBuffer buffer = ByteBuffer.allocate(values.length * VarIntEncoding.MAX_BYTES);
+            for (int value : values) {
+                encoding.encodeInt(value, buffer);
+            }
+            buffer.flip();
+            for (int value : values) {
+                assertEquals(value, encoding.decodeInt(buffer));
+            }
+            assertEquals(0, buffer.remaining());
+        }
+    }
+
+    @Test
+    void rejectsTruncatedAndOverlongVarints() {
+        VarIntEncoding encoding = new VarIntEncoding(CodingTestUtil.BE_ENCODING);
+        assertThrows(IllegalArgumentException.class,
+                () -> encoding.decode(new byte[]{(byte) 0x80}));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoding.decode(new byte[]{-1, -1, -1, -1, -1, 1}));
+    }
+
+    @Test
+    void rejectsVarintsOverflowingAnInt() {
+        VarIntEncoding encoding = new VarIntEncoding(CodingTestUtil.BE_ENCODING);
+        // the largest value, -1, fits
+        assertEquals(-1, (int) encoding.decode(new byte[]{-1, -1, -1, -1, 0x0F}));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoding.decode(new byte[]{-1, -1, -1, -1, 0x1F}));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoding.decode(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10}));
+    }
+}
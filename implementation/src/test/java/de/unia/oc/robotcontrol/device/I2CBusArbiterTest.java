@@ -0,0 +1,162 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+class I2CBusArbiterTest {
+
+    @Test
+    void echoesThroughChannels() throws IOException {
+        MockI2CBus bus = new MockI2CBus();
+        I2CBusArbiter arbiter = new I2CBusArbiter(bus);
+        I2CBusArbiter.Channel first = arbiter.attach(4, 0);
+        I2CBusArbiter.Channel second = arbiter.attach(5, 0);
+
+        first.write(new byte[] { 1, 2, 3 }, 0, 3);
+        second.write(new byte[] { 4, 5 }, 0, 2);
+        byte[] read = new byte[8];
+        Assertions.assertEquals(3, first.read(read, 0, read.length));
+        Assertions.assertArrayEquals(new byte[] { 1, 2, 3 }, Arrays.copyOf(read, 3));
+        Assertions.assertEquals(2, second.read(read, 0, read.length));
+        Assertions.assertArrayEquals(new byte[] { 4, 5 }, Arrays.copyOf(read, 2));
+
+        Assertions.assertEquals(2, first.getTransferCount());
+        Assertions.assertTrue(first.getBusyNanos() > 0);
+        Assertions.assertTrue(arbiter.getUtilization() > 0);
+
+        // the bus is only closed once all devices are detached
+        first.detach();
+        Assertions.assertThrows(IOException.class, () -> first.write(new byte[1], 0, 1));
+        Assertions.assertFalse(bus.isClosed());
+        second.detach();
+        Assertions.assertTrue(bus.isClosed());
+        Assertions.assertTrue(arbiter.isTerminated());
+        Assertions.assertThrows(IllegalStateException.class, () -> arbiter.attach(6, 0));
+    }
+
+    @Test
+    void neverOverlapsTransfers() throws InterruptedException {
+        MockI2CBus bus = new MockI2CBus();
+        I2CBusArbiter arbiter = new I2CBusArbiter(bus);
+        int transactions = 50;
+        List<Thread> threads = new ArrayList<>();
+        List<I2CBusArbiter.Channel> channels = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int address = 0; address < 4; ++address) {
+            I2CBusArbiter.Channel channel = arbiter.attach(address, 0);
+            channels.add(channel);
+            threads.add(new Thread(() -> {
+                byte[] read = new byte[4];
+                try {
+                    for (int i = 0; i < transactions; ++i) {
+                        byte[] request = { (byte) channel.getAddress(), (byte) i };
+                        channel.write(request, 0, request.length);
+                        Thread.sleep(1);
+                        Assertions.assertEquals(2, channel.read(read, 0, read.length));
+                        Assertions.assertArrayEquals(request, Arrays.copyOf(read, 2));
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertNull(failure.get());
+        Assertions.assertEquals(1, bus.getMaxActive());
+        for (I2CBusArbiter.Channel channel : channels) {
+            Assertions.assertEquals(2 * transactions, channel.getTransferCount());
+            Assertions.assertTrue(channel.getUtilization() > 0);
+        }
+    }
+
+    @Test
+    void grantsByPriorityThenRoundRobin() throws InterruptedException {
+        MockI2CBus bus = new MockI2CBus();
+        I2CBusArbiter arbiter = new I2CBusArbiter(bus);
+        I2CBusArbiter.Channel holding = arbiter.attach(1, 0);
+        I2CBusArbiter.Channel second = arbiter.attach(2, 0);
+        I2CBusArbiter.Channel third = arbiter.attach(3, 0);
+        I2CBusArbiter.Channel urgent = arbiter.attach(4, 5);
+
+        CountDownLatch gate = bus.gate(1);
+        List<Thread> threads = new ArrayList<>();
+        // queue the waiting devices in a different order than they were attached
+        for (I2CBusArbiter.Channel channel : Arrays.asList(holding, third, second, urgent)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    channel.write(new byte[1], 0, 1);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+            awaitWaiting(thread);
+        }
+        gate.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertEquals(Arrays.asList(1, 4, 2, 3), bus.getTransfers());
+    }
+
+    @Test
+    void failsWaitingTransfersOnTermination() throws InterruptedException {
+        MockI2CBus bus = new MockI2CBus();
+        I2CBusArbiter arbiter = new I2CBusArbiter(bus);
+        I2CBusArbiter.Channel holding = arbiter.attach(1, 0);
+        I2CBusArbiter.Channel waiting = arbiter.attach(2, 0);
+
+        CountDownLatch gate = bus.gate(1);
+        Thread holder = new Thread(() -> {
+            try {
+                holding.write(new byte[1], 0, 1);
+            } catch (IOException ignored) {
+            }
+        });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                waiting.write(new byte[1], 0, 1);
+            } catch (IOException e) {
+                failure.set(e);
+            }
+        });
+        holder.start();
+        awaitWaiting(holder);
+        waiter.start();
+        awaitWaiting(waiter);
+
+        arbiter.terminate();
+        waiter.join();
+        Assertions.assertTrue(failure.get() instanceof IOException);
+        // the running transfer closes the bus once it is done
+        Assertions.assertFalse(bus.isClosed());
+        Assertions.assertNull(arbiter.tryAttach(3, 0));
+        gate.countDown();
+        holder.join();
+
+        Assertions.assertTrue(bus.isClosed());
+        Assertions.assertEquals(Arrays.asList(1), bus.getTransfers());
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -2,17 +2,39 @@
 package de.unia.oc.robotcontrol.device;
 
 import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.concurrent.ClockState;
+import de.unia.oc.robotcontrol.concurrent.Concurrency;
 import de.unia.oc.robotcontrol.coding.IntegerEncoding;
 import de.unia.oc.robotcontrol.message.CallbackMessageRecipient;
 import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessagePool;
+import de.unia.oc.robotcontrol.message.PooledValueMessage;
 import de.unia.oc.robotcontrol.message.SingleValueMessage;
 import de.unia.oc.robotcontrol.message.SingleValueMessageType;
+import de.unia.oc.robotcontrol.visualization.IgnoringRuntimeMetrics;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class LockingDeviceConnectorTest {
 
@@ -48,4 +70,432 @@ public class LockingDeviceConnectorTest {
 
         connector.asSubscriber().onNext(msgType.produce(sentValue));
     }
+
+    @Test
+    void transactsAsynchronously() {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+
+        MockLockingDeviceConnector connector = new MockLockingDeviceConnector(
+                msgType.asEncoding(),
+                () -> msgType.produce(0)) {
+            @Override
+            protected boolean isAsynchronous() {
+                return true;
+            }
+        };
+
+        Message answer = connector.sendAndReceiveAsync(msgType.produce(42)).block(Duration.ofSeconds(1));
+        Assertions.assertNotNull(answer);
+        Assertions.assertEquals(42, (int) msgType.cast(answer).getValue());
+    }
+
+    @Test
+    void batchesMessagesArrivingWhileBusy() throws InterruptedException {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+        List<Integer> frameSizes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstFrameSent = new CountDownLatch(1);
+        CountDownLatch deviceReady = new CountDownLatch(1);
+
+        MockLockingDeviceConnector connector = new MockLockingDeviceConnector(
+                msgType.asEncoding(),
+                () -> msgType.produce(0),
+                ConnectorSettings.DEFAULT.withMaxBatchSize(4)) {
+            @Override
+            protected ClockState<Message, Message> createClockState() {
+                return Concurrency.createUnclockedClockState();
+            }
+
+            @Override
+            protected synchronized void pushMessage(byte[] m) {
+                // each frame starts with the number of messages in it
+                frameSizes.add(inputBatchEncoding.decode(m).size());
+                super.pushMessage(m);
+                firstFrameSent.countDown();
+                try {
+                    deviceReady.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        Flux<Message> answers = Flux.from(connector.asPublisher()).take(5).cache();
+        answers.subscribe();
+
+        // a single message is sent right away instead of waiting for a batch to fill up
+        connector.asSubscriber().onNext(msgType.produce(1));
+        Assertions.assertTrue(firstFrameSent.await(1, TimeUnit.SECONDS));
+        // these arrive while the device is busy, and are sent in (at most two) frames
+        for (int i = 2; i <= 5; ++i) {
+            connector.asSubscriber().onNext(msgType.produce(i));
+        }
+        Thread.sleep(50);
+        deviceReady.countDown();
+
+        List<Message> received = answers.collectList().block(Duration.ofSeconds(1));
+        Assertions.assertNotNull(received);
+        Assertions.assertEquals(Arrays.asList(1, 2, 3, 4, 5), received.stream()
+                .map((m) -> msgType.cast(m).getValue())
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(1, (int) frameSizes.get(0));
+        Assertions.assertTrue(frameSizes.size() <= 3, "too many frames: " + frameSizes);
+    }
+
+    @Test
+    void sendsReusedCommandsOneAfterAnother() throws InterruptedException {
+        MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(4);
+        MockLockingDeviceConnector connector = new MockLockingDeviceConnector(
+                PooledValueMessage.TYPE.asEncoding(),
+                () -> new PooledValueMessage(0));
+        Assertions.assertTrue(connector.runOnClock(Concurrency.createClock(Duration.ofMillis(10))));
+
+        // the device echoes update requests as 0, and commands as their value
+        BlockingQueue<Integer> answers = new LinkedBlockingQueue<>();
+        Flux.from(connector.asPublisher())
+                .map((m) -> PooledValueMessage.TYPE.cast(m).getValue())
+                .filter((value) -> value != 0)
+                .subscribe(answers::add);
+
+        for (int i = 1; i <= 4; ++i) {
+            connector.asSubscriber().onNext(PooledValueMessage.acquire(pool, i));
+            Assertions.assertEquals(i, (int) answers.poll(1, TimeUnit.SECONDS));
+        }
+        // each command is released once sent and replaced by the next one,
+        // so that the later commands reuse the instances of the earlier ones
+        Assertions.assertTrue(pool.getReusedCount() > 0);
+        Assertions.assertNull(answers.poll(50, TimeUnit.MILLISECONDS));
+        connector.terminate();
+    }
+
+    @Test
+    void neverOverlapsAsynchronousTransactions() {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean(false);
+
+        MockLockingDeviceConnector connector = new MockLockingDeviceConnector(
+                msgType.asEncoding(),
+                () -> msgType.produce(0)) {
+            @Override
+            protected boolean isAsynchronous() {
+                return true;
+            }
+
+            @Override
+            protected ClockState<Message, Message> createClockState() {
+                return Concurrency.createUnclockedClockState();
+            }
+
+            @Override
+            protected synchronized void pushMessage(byte[] m) {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                super.pushMessage(m);
+            }
+
+            @Override
+            protected byte[] retrieveMessage() throws IOException {
+                try {
+                    return super.retrieveMessage();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+
+        Flux<Message> answers = Flux.from(connector.asPublisher()).take(8).cache();
+        answers.subscribe();
+        for (int i = 1; i <= 8; ++i) {
+            connector.asSubscriber().onNext(msgType.produce(i));
+        }
+
+        List<Message> received = answers.collectList().block(Duration.ofSeconds(2));
+        Assertions.assertNotNull(received);
+        Assertions.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), received.stream()
+                .map((m) -> msgType.cast(m).getValue())
+                .collect(Collectors.toList()));
+        Assertions.assertFalse(overlapped.get());
+    }
+
+    @Test
+    void reservesDeviceDuringAsynchronousTransaction() throws InterruptedException {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+        List<String> writingThreads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstWritten = new CountDownLatch(1);
+
+        MockLockingDeviceConnector connector = new MockLockingDeviceConnector(
+                msgType.asEncoding(),
+                () -> msgType.produce(0)) {
+            @Override
+            protected ClockState<Message, Message> createClockState() {
+                return Concurrency.createUnclockedClockState();
+            }
+
+            @Override
+            protected int getMinRequestTimeMillis() {
+                return 50;
+            }
+
+            @Override
+            protected synchronized void pushMessage(byte[] m) {
+                super.pushMessage(m);
+                writingThreads.add(Thread.currentThread().getName());
+                firstWritten.countDown();
+            }
+        };
+
+        Mono<Message> asyncAnswer = connector.sendAndReceiveAsync(msgType.produce(1)).cache();
+        asyncAnswer.subscribe();
+        Assertions.assertTrue(firstWritten.await(1, TimeUnit.SECONDS));
+
+        // a blocking transaction started while the asynchronous one waits for
+        // the answer must not overwrite the message the device answers to
+        Flux<Message> answers = Flux.from(connector.asPublisher()).take(1).cache();
+        answers.subscribe();
+        connector.asSubscriber().onNext(msgType.produce(2));
+
+        Message first = asyncAnswer.block(Duration.ofSeconds(1));
+        Message second = answers.blockFirst(Duration.ofSeconds(1));
+        Assertions.assertNotNull(first);
+        Assertions.assertNotNull(second);
+        Assertions.assertEquals(1, (int) msgType.cast(first).getValue());
+        Assertions.assertEquals(2, (int) msgType.cast(second).getValue());
+        // the shared timer only waits, the connector writes on its own thread
+        Assertions.assertTrue(writingThreads.get(0).startsWith("deviceTransaction_"), writingThreads.toString());
+    }
+
+    @Test
+    void releasesQueuedInputsOnCancel() throws InterruptedException {
+        MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(4);
+        MockLockingDeviceConnector connector = new MockLockingDeviceConnector(
+                PooledValueMessage.TYPE.asEncoding(),
+                () -> new PooledValueMessage(0)) {
+            @Override
+            protected boolean isAsynchronous() {
+                return true;
+            }
+
+            @Override
+            protected ClockState<Message, Message> createClockState() {
+                return Concurrency.createUnclockedClockState();
+            }
+        };
+        DirectProcessor<Message> inputs = DirectProcessor.create();
+
+        StepVerifier.create(inputs.transform(connector.getFlowStrategy()), 1)
+                .then(() -> {
+                    for (int i = 1; i <= 4; ++i) {
+                        inputs.onNext(PooledValueMessage.acquire(pool, i));
+                    }
+                })
+                .expectNextCount(1)
+                .thenCancel()
+                .verify(Duration.ofSeconds(1));
+
+        // the running transaction releases its input once cancelled,
+        // the queued inputs are released right away
+        long deadline = System.currentTimeMillis() + 1000;
+        while (pool.getAvailableCount() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(4, pool.getAvailableCount());
+    }
+
+    @Test
+    void coalescesPollsQueuedBehindSlowTransactions() throws InterruptedException {
+        // the ticks occurring while the device is busy are merged only after
+        // the transaction completed, right after the device answered
+        Assertions.assertTrue(countPollsCoalescedBySlowDevice(ConnectorSettings.DEFAULT) > 0);
+        Assertions.assertEquals(0, countPollsCoalescedBySlowDevice(ConnectorSettings.DEFAULT.withMaxAnswerAgeMillis(0)));
+    }
+
+    /**
+     * Run a mock device which takes 20ms for each transaction on a clock ticking every 2ms.
+     *
+     * @return the number of update requests which were not sent to the device
+     */
+    private static long countPollsCoalescedBySlowDevice(ConnectorSettings settings) throws InterruptedException {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+        AtomicInteger pushed = new AtomicInteger();
+        MockLockingDeviceConnector connector = new MockLockingDeviceConnector(
+                msgType.asEncoding(),
+                () -> msgType.produce(0),
+                settings) {
+            @Override
+            protected synchronized void pushMessage(byte[] m) {
+                super.pushMessage(m);
+                pushed.incrementAndGet();
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        Disposable answers = Flux.from(connector.asPublisher()).subscribe();
+        Assertions.assertTrue(connector.runOnClock(Concurrency.createClock(Duration.ofMillis(2))));
+        Thread.sleep(300);
+        answers.dispose();
+        connector.terminate();
+        Assertions.assertTrue(pushed.get() > 1, "the device was not polled");
+        return connector.coalescer.getCoalescedCount();
+    }
+
+    @Test
+    void retriesReadingUntilDeviceIsReady() {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+        SlowDevice connector = new SlowDevice(msgType, false, 2);
+
+        Flux<Message> answers = Flux.from(connector.asPublisher()).take(1).cache();
+        answers.subscribe();
+        connector.asSubscriber().onNext(msgType.produce(42));
+
+        Message answer = answers.blockFirst(Duration.ofSeconds(1));
+        Assertions.assertNotNull(answer);
+        Assertions.assertEquals(42, (int) msgType.cast(answer).getValue());
+        Assertions.assertEquals(3, connector.attempts.get());
+        // the delay is raised to the time the device became ready
+        Assertions.assertTrue(connector.getRequestPacing().getDelayNanos(msgType) > TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    void retriesReadingAsynchronouslyUntilDeviceIsReady() {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+        SlowDevice connector = new SlowDevice(msgType, true, 2);
+
+        Message answer = connector.sendAndReceiveAsync(msgType.produce(42)).block(Duration.ofSeconds(1));
+        Assertions.assertNotNull(answer);
+        Assertions.assertEquals(42, (int) msgType.cast(answer).getValue());
+        Assertions.assertEquals(3, connector.attempts.get());
+        Assertions.assertTrue(connector.getRequestPacing().getDelayNanos(msgType) > TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    void givesUpAsynchronousTransactionAfterMaxWaitTime() {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+        SlowDevice connector = new SlowDevice(msgType, true, Integer.MAX_VALUE);
+
+        long startedAt = System.nanoTime();
+        Assertions.assertNull(connector.sendAndReceiveAsync(msgType.produce(42)).block(Duration.ofSeconds(2)));
+        long waited = System.nanoTime() - startedAt;
+        // reading is retried with a doubling backoff until the maximum wait time would be exceeded
+        Assertions.assertTrue(connector.attempts.get() > 1, "reading was not retried");
+        Assertions.assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(SlowDevice.MAX_WAIT_MILLIS / 2),
+                "gave up too early: " + waited);
+        // the delay is only changed by answered requests
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(1), connector.getRequestPacing().getDelayNanos(msgType));
+    }
+
+    @Test
+    void reportsRequestDelays() {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+        SlowDevice connector = new SlowDevice(msgType, true, 0);
+        List<String> registered = new ArrayList<>();
+
+        connector.reportTo(new IgnoringRuntimeMetrics<String>() {
+            @Override
+            public Consumer<Double> registerCallback(String metric) {
+                registered.add(metric);
+                return super.registerCallback(metric);
+            }
+        });
+        Assertions.assertNotNull(connector.sendAndReceiveAsync(msgType.produce(42)).block(Duration.ofSeconds(1)));
+        Assertions.assertEquals(
+                Collections.singletonList("Mock Locking Device request delay " + msgType + " (ms)"),
+                registered);
+    }
+
+    @Test
+    void reportsDelaysWhileTransactionIsRunning() throws InterruptedException {
+        SingleValueMessageType<Integer> msgType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch deviceReady = new CountDownLatch(1);
+        SlowDevice connector = new SlowDevice(msgType, false, 0) {
+            @Override
+            protected synchronized void pushMessage(byte[] m) {
+                super.pushMessage(m);
+                written.countDown();
+                try {
+                    deviceReady.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        Flux<Message> answers = Flux.from(connector.asPublisher()).take(1).cache();
+        answers.subscribe();
+        connector.asSubscriber().onNext(msgType.produce(42));
+        Assertions.assertTrue(written.await(1, TimeUnit.SECONDS));
+        try {
+            // the blocking transaction holds the device lock, which reporting does not wait for
+            Assertions.assertTimeoutPreemptively(Duration.ofMillis(500),
+                    () -> connector.reportTo(new IgnoringRuntimeMetrics<>()));
+        } finally {
+            deviceReady.countDown();
+        }
+        Assertions.assertNotNull(answers.blockFirst(Duration.ofSeconds(1)));
+    }
+
+    /**
+     * Mock device with adaptive pacing, which fails reading the
+     * given number of times after each message before it answers.
+     * The maximum wait time is long enough to retry reading even
+     * if the first transaction on the shared timer starts slowly.
+     */
+    private static class SlowDevice extends MockLockingDeviceConnector {
+
+        private static final int MAX_WAIT_MILLIS = 250;
+
+        private final boolean isAsynchronous;
+        private final int notReadyReads;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        SlowDevice(SingleValueMessageType<Integer> msgType, boolean isAsynchronous, int notReadyReads) {
+            super(msgType.asEncoding(), () -> msgType.produce(0));
+            this.isAsynchronous = isAsynchronous;
+            this.notReadyReads = notReadyReads;
+        }
+
+        @Override
+        protected ClockState<Message, Message> createClockState() {
+            return Concurrency.createUnclockedClockState();
+        }
+
+        @Override
+        protected boolean isAdaptivePacing() {
+            return true;
+        }
+
+        @Override
+        protected boolean isAsynchronous() {
+            return isAsynchronous;
+        }
+
+        @Override
+        protected int getMinRequestTimeMillis() {
+            return 1;
+        }
+
+        @Override
+        protected int getMaxRequestTimeMillis() {
+            return MAX_WAIT_MILLIS;
+        }
+
+        @Override
+        protected synchronized void pushMessage(byte[] m) {
+            attempts.set(0);
+            super.pushMessage(m);
+        }
+
+        @Override
+        protected byte[] retrieveMessage() throws IOException {
+            if (attempts.incrementAndGet() <= notReadyReads) {
+                throw new IOException("The device is not ready yet");
+            }
+            return super.retrieveMessage();
+        }
+    }
 }
@@ -0,0 +1,77 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Stand-in for a robot reachable over the network, listening on the
+ * loopback interface and echoing all bytes it receives back to the sender,
+ * using blocking I/O on its own thread.
+ */
+public class LoopbackRobot implements AutoCloseable {
+
+    private final Channel channel;
+    private final InetSocketAddress address;
+
+    private LoopbackRobot(Channel channel, InetSocketAddress address, Runnable echo) {
+        this.channel = channel;
+        this.address = address;
+        Thread thread = new Thread(echo, "Loopback Robot");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static LoopbackRobot udp() throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return new LoopbackRobot(channel, (InetSocketAddress) channel.getLocalAddress(), () -> {
+            ByteBuffer buffer = ByteBuffer.allocate(2048);
+            try {
+                while (channel.isOpen()) {
+                    buffer.clear();
+                    SocketAddress sender = channel.receive(buffer);
+                    buffer.flip();
+                    channel.send(buffer, sender);
+                }
+            } catch (IOException e) {
+                // closed
+            }
+        });
+    }
+
+    public static LoopbackRobot tcp() throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return new LoopbackRobot(server, (InetSocketAddress) server.getLocalAddress(), () -> {
+            ByteBuffer buffer = ByteBuffer.allocate(2048);
+            try (SocketChannel client = server.accept()) {
+                while (client.read(buffer) >= 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        client.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                // closed
+            }
+        });
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,97 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mock I2C bus on which every device echoes the bytes last written to it.
+ * Records the order of the transfers and whether transfers overlapped.
+ */
+public class MockI2CBus implements I2CBusArbiter.Bus {
+
+    private final Map<Integer, byte[]> written = new ConcurrentHashMap<>();
+    private final List<Integer> transfers = new CopyOnWriteArrayList<>();
+    private final Map<Integer, CountDownLatch> gates = new ConcurrentHashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private volatile boolean isClosed = false;
+
+    /**
+     * Make writes to the device with the given address wait until the returned latch is opened.
+     */
+    public CountDownLatch gate(int address) {
+        CountDownLatch gate = new CountDownLatch(1);
+        gates.put(address, gate);
+        return gate;
+    }
+
+    @Override
+    public void write(int address, byte[] buffer, int offset, int length) throws IOException {
+        begin(address);
+        try {
+            CountDownLatch gate = gates.get(address);
+            if (gate != null) {
+                gate.await();
+            }
+            written.put(address, Arrays.copyOfRange(buffer, offset, offset + length));
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    @Override
+    public int read(int address, byte[] buffer, int offset, int length) throws IOException {
+        begin(address);
+        try {
+            byte[] answer = written.get(address);
+            if (answer == null) {
+                throw new IOException("Nothing written to device " + address);
+            }
+            int read = Math.min(length, answer.length);
+            System.arraycopy(answer, 0, buffer, offset, read);
+            return read;
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private void begin(int address) throws IOException {
+        if (isClosed) {
+            throw new IOException("Bus closed");
+        }
+        transfers.add(address);
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+    }
+
+    @Override
+    public void close() {
+        isClosed = true;
+    }
+
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    /**
+     * @return the addresses of the devices in the order they were accessed
+     */
+    public List<Integer> getTransfers() {
+        return transfers;
+    }
+
+    /**
+     * @return the largest number of transfers which ran at the same time
+     */
+    public int getMaxActive() {
+        return maxActive.get();
+    }
+}
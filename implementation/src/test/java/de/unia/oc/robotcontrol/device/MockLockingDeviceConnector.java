@@ -18,7 +18,13 @@ public class MockLockingDeviceConnector extends LockingDeviceConnector<Message,
 
     public MockLockingDeviceConnector(Encoding<Message> encoding,
                                       Supplier<Message> updateMessageSupplier) {
-        super(encoding, encoding, updateMessageSupplier);
+        this(encoding, updateMessageSupplier, ConnectorSettings.DEFAULT);
+    }
+
+    public MockLockingDeviceConnector(Encoding<Message> encoding,
+                                      Supplier<Message> updateMessageSupplier,
+                                      ConnectorSettings settings) {
+        super(encoding, encoding, updateMessageSupplier, settings);
     }
 
     @Override
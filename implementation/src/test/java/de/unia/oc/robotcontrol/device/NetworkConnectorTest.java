@@ -0,0 +1,165 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.coding.CharEncoding;
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessagePool;
+import de.unia.oc.robotcontrol.message.MessageType;
+import de.unia.oc.robotcontrol.message.MessageTypeRegistry;
+import de.unia.oc.robotcontrol.message.Messaging;
+import de.unia.oc.robotcontrol.message.PooledValueMessage;
+import de.unia.oc.robotcontrol.message.SimpleMessageIdentifier;
+import de.unia.oc.robotcontrol.message.SingleValueMessage;
+import de.unia.oc.robotcontrol.message.SingleValueMessageType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class NetworkConnectorTest {
+
+    private final SingleValueMessageType<Integer> type =
+            new SingleValueMessageType<>(new IntegerEncoding(CodingContext.NATIVE));
+
+    private final MessageTypeRegistry<Character> registry = Messaging.createRegistry(
+            new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE)),
+            (p) -> p.apply('i', type));
+
+    @Test
+    void exchangesMessagesOverUdp() throws Exception {
+        try (LoopbackRobot robot = LoopbackRobot.udp()) {
+            assertEchoes(NetworkConnector.udp(registry, robot.getAddress()));
+        }
+    }
+
+    @Test
+    void exchangesMessagesOverTcp() throws Exception {
+        try (LoopbackRobot robot = LoopbackRobot.tcp()) {
+            assertEchoes(NetworkConnector.tcp(registry, robot.getAddress()));
+        }
+    }
+
+    @Test
+    void terminatesWhenConnectionFails() throws Exception {
+        try (ServerSocketChannel server = openServer()) {
+            NetworkConnector<Character> connector = NetworkConnector.tcp(registry, server.getLocalAddress());
+            try {
+                Mono<List<Message>> received = Flux.from(connector.asPublisher()).collectList().cache();
+                received.subscribe();
+                try (SocketChannel robot = server.accept()) {
+                    // reset the connection instead of closing it
+                    robot.setOption(StandardSocketOptions.SO_LINGER, 0);
+                }
+                Assertions.assertEquals(Collections.emptyList(), received.block(Duration.ofSeconds(5)));
+                Assertions.assertTrue(connector.isTerminated());
+            } finally {
+                connector.terminate();
+            }
+        }
+    }
+
+    @Test
+    void releasesMessagesWithoutSubscribers() throws Exception {
+        MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(1);
+        MessageTypeRegistry<Character> pooledRegistry = Messaging.createRegistry(
+                new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE)),
+                (p) -> p.apply('p', decodingInto(pool)));
+        MessageTypeRegistry<Character> plainRegistry = Messaging.createRegistry(
+                new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE)),
+                (p) -> p.apply('p', PooledValueMessage.TYPE));
+
+        try (ServerSocketChannel server = openServer()) {
+            NetworkConnector<Character> connector = NetworkConnector.tcp(pooledRegistry, server.getLocalAddress());
+            try (SocketChannel robot = server.accept()) {
+                robot.write(ByteBuffer.wrap(plainRegistry.encode(new PooledValueMessage(7))));
+
+                long deadline = System.currentTimeMillis() + 5000;
+                while (pool.getAvailableCount() < 1 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                Assertions.assertEquals(1, pool.getCreatedCount());
+                Assertions.assertEquals(1, pool.getAvailableCount());
+            } finally {
+                connector.terminate();
+            }
+        }
+    }
+
+    private static ServerSocketChannel openServer() throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return server;
+    }
+
+    /**
+     * Create a message type which decodes the data of
+     * {@link PooledValueMessage#TYPE} into messages from the given pool.
+     */
+    private static MessageType<PooledValueMessage> decodingInto(MessagePool<PooledValueMessage> pool) {
+        return new MessageType<PooledValueMessage>() {
+            @Override
+            public PooledValueMessage decode(byte[] raw) throws IllegalArgumentException {
+                return decodeFrom(ByteBuffer.wrap(raw));
+            }
+
+            @Override
+            public byte[] encode(PooledValueMessage object) throws IllegalArgumentException {
+                return PooledValueMessage.TYPE.encode(object);
+            }
+
+            @Override
+            public void encodeInto(PooledValueMessage object, ByteBuffer target) throws IllegalArgumentException {
+                PooledValueMessage.TYPE.encodeInto(object, target);
+            }
+
+            @Override
+            public PooledValueMessage decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+                return PooledValueMessage.acquire(pool, PooledValueMessage.TYPE.decodeFrom(source).getValue());
+            }
+
+            @Override
+            public CodingContext getContext() {
+                return PooledValueMessage.TYPE.getContext();
+            }
+
+            @Override
+            public int getFixedSize() {
+                return PooledValueMessage.TYPE.getFixedSize();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertEchoes(NetworkConnector<Character> connector) {
+        try {
+            Flux<Message> received = Flux.from(connector.asPublisher()).take(3).cache();
+            received.subscribe();
+            for (int i = 1; i <= 3; ++i) {
+                connector.asSubscriber().onNext(type.produce(i));
+            }
+            List<Message> messages = received.collectList().block(Duration.ofSeconds(5));
+            Assertions.assertNotNull(messages);
+            Assertions.assertEquals(Arrays.asList(1, 2, 3), messages.stream()
+                    .map((m) -> ((SingleValueMessage<Integer>) m).getValue())
+                    .collect(Collectors.toList()));
+        } finally {
+            connector.terminate();
+        }
+        Assertions.assertTrue(connector.isTerminated());
+    }
+}
@@ -0,0 +1,78 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.coding.CharEncoding;
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessageTypeRegistry;
+import de.unia.oc.robotcontrol.message.Messaging;
+import de.unia.oc.robotcontrol.message.SimpleMessageIdentifier;
+import de.unia.oc.robotcontrol.message.SingleValueMessage;
+import de.unia.oc.robotcontrol.message.SingleValueMessageType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class RecordingDeviceTest {
+
+    private final SingleValueMessageType<Integer> type =
+            new SingleValueMessageType<>(new IntegerEncoding(CodingContext.NATIVE));
+
+    private final MessageTypeRegistry<Character> registry = Messaging.createRegistry(
+            new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE)),
+            (p) -> p.apply('i', type));
+
+    @Test
+    void replaysRecordedSession() throws Exception {
+        Path log = Files.createTempFile("session", ".log");
+        try {
+            RecordingDevice recording = new RecordingDevice(new MockDeviceConnector(registry), registry, log);
+            Flux<Message> echoed = Flux.from(recording.asPublisher()).take(3).cache();
+            echoed.subscribe();
+            Flux<Message> observed = Flux.from(recording.asPublisher()).take(3).cache();
+            observed.subscribe();
+            for (int i = 1; i <= 3; ++i) {
+                recording.asSubscriber().onNext(type.produce(i));
+            }
+            Assertions.assertEquals(Arrays.asList(1, 2, 3), valuesOf(echoed));
+            Assertions.assertEquals(Arrays.asList(1, 2, 3), valuesOf(observed));
+            // each message was recorded once on the way in and once on the way out,
+            // however many subscribers received it
+            Assertions.assertEquals(6, recording.getRecordCount());
+            recording.terminate();
+
+            ReplayDevice replay = new ReplayDevice(registry, log, ReplayDevice.MAX_SPEED);
+            replay.asSubscriber().onNext(type.produce(4));
+            Assertions.assertEquals(Arrays.asList(1, 2, 3), valuesOf(Flux.from(replay.asPublisher())));
+            Assertions.assertEquals(1, replay.getReceivedCount());
+            replay.terminate();
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+
+    @Test
+    void rejectsInvalidReplaySpeeds() {
+        Path log = Paths.get("session.log");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ReplayDevice(registry, log, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ReplayDevice(registry, log, Double.NaN));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Integer> valuesOf(Flux<Message> messages) {
+        List<Message> received = messages.collectList().block(Duration.ofSeconds(5));
+        Assertions.assertNotNull(received);
+        return received.stream()
+                .map((m) -> ((SingleValueMessage<Integer>) m).getValue())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,123 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RequestPacingTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void convergesOnDeviceLatency() throws Exception {
+        FakeTimer timer = new FakeTimer();
+        RequestPacing pacing = new RequestPacing(10 * MILLIS, 0, 50 * MILLIS, timer);
+
+        int retried = 0;
+        for (int i = 0; i < 100; ++i) {
+            retried += transact(pacing, timer, "fast", 2 * MILLIS) > 1 ? 1 : 0;
+        }
+        // the last request may have probed a delay slightly too short
+        long delay = pacing.getDelayNanos("fast");
+        Assertions.assertTrue(delay >= 2 * MILLIS * 7 / 8, "delay too short: " + delay);
+        Assertions.assertTrue(delay < 3 * MILLIS, "delay too long: " + delay);
+        Assertions.assertTrue(retried <= 100 / RequestPacing.PROBE_INTERVAL, "retried too often: " + retried);
+
+        // other kinds of requests are paced separately
+        Assertions.assertEquals(10 * MILLIS, pacing.getDelayNanos("slow"));
+    }
+
+    @Test
+    void raisesDelayWhenDeviceSlowsDown() throws Exception {
+        FakeTimer timer = new FakeTimer();
+        RequestPacing pacing = new RequestPacing(MILLIS, 0, 50 * MILLIS, timer);
+
+        Assertions.assertTrue(transact(pacing, timer, "request", 5 * MILLIS) > 1);
+        long delay = pacing.getDelayNanos("request");
+        Assertions.assertTrue(delay >= 5 * MILLIS, "delay too short: " + delay);
+        // the next request is answered on the first attempt
+        Assertions.assertEquals(1, transact(pacing, timer, "request", 5 * MILLIS));
+    }
+
+    @Test
+    void neverShortensDelayBelowMinimum() throws Exception {
+        FakeTimer timer = new FakeTimer();
+        RequestPacing pacing = new RequestPacing(4 * MILLIS, MILLIS, 50 * MILLIS, timer);
+
+        for (int i = 0; i < 100; ++i) {
+            Assertions.assertEquals(1, transact(pacing, timer, "instant", 0));
+        }
+        Assertions.assertEquals(MILLIS, pacing.getDelayNanos("instant"));
+
+        // a device answering faster than the minimum after a retry does not lower it either
+        pacing.onAnswered("instant", MILLIS / 2, 1);
+        Assertions.assertEquals(MILLIS, pacing.getDelayNanos("instant"));
+    }
+
+    @Test
+    void failsAfterMaxWaitTime() {
+        FakeTimer timer = new FakeTimer();
+        RequestPacing pacing = new RequestPacing(MILLIS, 0, 5 * MILLIS, timer);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long sentAt = timer.nanoTime();
+        Assertions.assertThrows(IOException.class, () -> pacing.await("request", sentAt, () -> {
+            attempts.incrementAndGet();
+            throw new IOException("No bytes were read");
+        }));
+        long waited = timer.nanoTime() - sentAt;
+        Assertions.assertTrue(waited <= 5 * MILLIS, "waited too long: " + waited);
+        Assertions.assertTrue(attempts.get() > 1, "reading was not retried");
+        Assertions.assertEquals(MILLIS, pacing.getDelayNanos("request"));
+    }
+
+    @Test
+    void rejectsUnorderedDelays() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RequestPacing(MILLIS, 2 * MILLIS, 5 * MILLIS));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RequestPacing(10 * MILLIS, 0, 5 * MILLIS));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RequestPacing(MILLIS, -1, 5 * MILLIS));
+    }
+
+    /**
+     * Send a request to a mock device which answers
+     * the given time after the request was sent.
+     *
+     * @return the number of attempts needed to read the answer
+     */
+    private static int transact(RequestPacing pacing, FakeTimer timer, String key, long latency) throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        long sentAt = timer.nanoTime();
+        long answer = pacing.await(key, sentAt, () -> {
+            attempts.incrementAndGet();
+            if (timer.nanoTime() - sentAt < latency) {
+                throw new IOException("No bytes were read");
+            }
+            return sentAt;
+        });
+        Assertions.assertEquals(sentAt, answer);
+        return attempts.get();
+    }
+
+    /**
+     * A timer which only advances while waiting, so that
+     * reading takes no time at all.
+     */
+    private static final class FakeTimer implements RequestPacing.Timer {
+
+        private long now = 0;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void sleepUntil(long deadline) {
+            now = Math.max(now, deadline);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.coding.CharEncoding;
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.flow.WaitStrategy;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessageTypeRegistry;
+import de.unia.oc.robotcontrol.message.Messaging;
+import de.unia.oc.robotcontrol.message.SimpleMessageIdentifier;
+import de.unia.oc.robotcontrol.message.SingleValueMessage;
+import de.unia.oc.robotcontrol.message.SingleValueMessageType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+class SharedMemoryBridgeTest {
+
+    private final SingleValueMessageType<Integer> type =
+            new SingleValueMessageType<>(new IntegerEncoding(CodingContext.NATIVE));
+
+    private final MessageTypeRegistry<Character> registry = Messaging.createRegistry(
+            new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE)),
+            (p) -> p.apply('i', type));
+
+    @Test
+    void exchangesMessagesInBothDirections() throws IOException {
+        Path directory = Files.createTempDirectory("bridge");
+        Path toControl = directory.resolve("toControl");
+        Path toDevices = directory.resolve("toDevices");
+        try {
+            SharedMemoryBridge devices = createBridge(toControl, toDevices);
+            SharedMemoryBridge control = createBridge(toDevices, toControl);
+
+            Assertions.assertEquals(1, exchange(devices, control, 1));
+            Assertions.assertEquals(2, exchange(control, devices, 2));
+
+            // terminating a bridge completes its subscribers
+            Mono<List<Message>> remaining = Flux.from(control.asPublisher()).collectList().cache();
+            remaining.subscribe();
+            devices.terminate();
+            control.terminate();
+            Assertions.assertNotNull(remaining.block(Duration.ofSeconds(1)));
+            Assertions.assertTrue(devices.isTerminated());
+            Assertions.assertTrue(control.isTerminated());
+        } finally {
+            Files.deleteIfExists(toControl);
+            Files.deleteIfExists(toDevices);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private SharedMemoryBridge createBridge(Path outgoing, Path incoming) throws IOException {
+        return new SharedMemoryBridge(registry, registry, outgoing, incoming,
+                4096, SharedMemoryBridge.DEFAULT_MAX_MESSAGE_SIZE, WaitStrategy.PARK);
+    }
+
+    /**
+     * Send messages with the given value from one bridge until the
+     * other bridge receives one, as its reader only receives the
+     * messages written after it opened the file.
+     *
+     * @return the value of the received message
+     */
+    @SuppressWarnings("unchecked")
+    private int exchange(SharedMemoryBridge from, SharedMemoryBridge to, int value) {
+        Mono<Message> received = Flux.from(to.asPublisher()).next().cache();
+        received.subscribe();
+        Disposable sending = Flux.interval(Duration.ofMillis(10))
+                .subscribe((i) -> from.asSubscriber().onNext(type.produce(value)));
+        try {
+            Message message = received.block(Duration.ofSeconds(5));
+            Assertions.assertNotNull(message);
+            return ((SingleValueMessage<Integer>) message).getValue();
+        } finally {
+            sending.dispose();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.device;
+
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.SingleValueMessageType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class UpdateRequestCoalescerTest {
+
+    private final SingleValueMessageType<Integer> msgType =
+            new SingleValueMessageType<>(new IntegerEncoding(CodingContext.ARDUINO));
+
+    @Test
+    void pollsOnTicksWithoutNewCommand() {
+        UpdateRequestCoalescer<Message> coalescer = new UpdateRequestCoalescer<>(() -> msgType.produce(0), 0);
+        Message command = msgType.produce(42);
+
+        Assertions.assertSame(command, coalescer.merge(0L, command));
+        Message poll = coalescer.merge(1L, null);
+        Assertions.assertNotSame(command, poll);
+        Assertions.assertEquals(0, (int) msgType.cast(poll).getValue());
+    }
+
+    @Test
+    void passesReusedCommands() {
+        UpdateRequestCoalescer<Message> coalescer = new UpdateRequestCoalescer<>(() -> msgType.produce(0), 0);
+        Message command = msgType.produce(42);
+
+        // the same instance arriving again (e.g. reused from a pool) is a new command
+        Assertions.assertSame(command, coalescer.merge(0L, command));
+        Assertions.assertSame(command, coalescer.merge(1L, command));
+    }
+
+    @Test
+    void dropsPollsWhileRequestIsPending() {
+        UpdateRequestCoalescer<Message> coalescer = new UpdateRequestCoalescer<>(() -> msgType.produce(0), 0);
+        Message command = msgType.produce(42);
+
+        Assertions.assertTrue(coalescer.shouldSend(coalescer.merge(0L, command)));
+        Assertions.assertEquals(1, coalescer.getPendingCount());
+        Assertions.assertFalse(coalescer.shouldSend(coalescer.merge(1L, null)));
+        Assertions.assertEquals(1, coalescer.getCoalescedCount());
+
+        // commands are always sent
+        Assertions.assertTrue(coalescer.shouldSend(coalescer.merge(2L, msgType.produce(43))));
+
+        coalescer.onCompleted(true);
+        coalescer.onCompleted(true);
+        Assertions.assertEquals(0, coalescer.getPendingCount());
+        Assertions.assertTrue(coalescer.shouldSend(coalescer.merge(3L, null)));
+    }
+
+    @Test
+    void dropsPollsWhileAnswerIsFresh() {
+        AtomicLong now = new AtomicLong();
+        UpdateRequestCoalescer<Message> coalescer = new UpdateRequestCoalescer<>(() -> msgType.produce(0), 50, now::get);
+        Message command = msgType.produce(42);
+
+        // no answer yet, so the poll is sent
+        coalescer.merge(0L, command);
+        Assertions.assertTrue(coalescer.shouldSend(coalescer.merge(1L, null)));
+        coalescer.onCompleted(true);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(49));
+        Assertions.assertFalse(coalescer.shouldSend(coalescer.merge(2L, null)));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        Assertions.assertTrue(coalescer.shouldSend(coalescer.merge(3L, null)));
+        Assertions.assertEquals(1, coalescer.getCoalescedCount());
+    }
+}
@@ -0,0 +1,88 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxProcessor;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@SuppressWarnings("initialization")
+class IndexedFilteringMulticastTest {
+
+    private final IndexedFilteringMulticast<Character, String> multicast =
+            new IndexedFilteringMulticast<Character, String>(Schedulers.immediate()) {
+                @Override
+                public Character topicFromValue(String v) {
+                    return v.charAt(0);
+                }
+
+                // route the values synchronously
+                @Override
+                protected FluxProcessor<String, String> createProcessor() {
+                    return DirectProcessor.create();
+                }
+
+                @Override
+                protected int topicBufferSize() {
+                    return 2;
+                }
+            };
+
+    @Test
+    void removesTopicsWithoutSubscribers() {
+        Flux.from(multicast.subscribeTo('A')).subscribe().dispose();
+        Flux.from(multicast.subscribeTo('A')).take(1).subscribe();
+        Assertions.assertEquals(1, multicast.getSubscribedTopicCount());
+
+        multicast.asSubscriber().onNext("ABC");
+        StepVerifier.create(multicast.subscribeTo('B'))
+                .then(() -> multicast.asSubscriber().onNext("BCD"))
+                .expectNext("BCD")
+                .thenCancel()
+                .verify();
+        Assertions.assertEquals(0, multicast.getSubscribedTopicCount());
+    }
+
+    @Test
+    void buffersOnlyNewestValuesForSlowSubscribers() {
+        StepVerifier.create(multicast.subscribeTo('A'), 0)
+                .then(() -> {
+                    multicast.asSubscriber().onNext("A1");
+                    multicast.asSubscriber().onNext("A2");
+                    multicast.asSubscriber().onNext("A3");
+                })
+                .thenRequest(3)
+                .expectNext("A2", "A3")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void forwardsCompletionToAllSubscribers() {
+        Publisher<String> a = multicast.subscribeTo('A');
+        Publisher<String> b = multicast.subscribeTo('B');
+        multicast.asSubscriber().onNext("A1");
+        multicast.asSubscriber().onNext("B1");
+        multicast.asSubscriber().onComplete();
+
+        StepVerifier.create(a).expectNext("A1").verifyComplete();
+        StepVerifier.create(b).expectNext("B1").verifyComplete();
+        StepVerifier.create(multicast.subscribeTo('C')).verifyComplete();
+    }
+
+    @Test
+    void forwardsErrorsToAllSubscribers() {
+        Publisher<String> a = multicast.subscribeTo('A');
+        Publisher<String> b = multicast.subscribeTo('B');
+        multicast.asSubscriber().onNext("A1");
+        multicast.asSubscriber().onError(new IllegalStateException("failed"));
+
+        StepVerifier.create(a).expectNext("A1").verifyErrorMessage("failed");
+        StepVerifier.create(b).verifyErrorMessage("failed");
+        StepVerifier.create(multicast.subscribeTo('C')).verifyErrorMessage("failed");
+    }
+}
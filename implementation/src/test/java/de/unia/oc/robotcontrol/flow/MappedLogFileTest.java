@@ -0,0 +1,94 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class MappedLogFileTest {
+
+    @Test
+    void rejectsInvalidRegionSizes() throws IOException {
+        Path path = Files.createTempFile("log", ".bin");
+        try {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> MappedLogFile.create(path, 16));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> MappedLogFile.create(path, 100));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void readsRecordsAcrossRegions() throws IOException {
+        Path path = Files.createTempFile("log", ".bin");
+        // records of 24, 40 and 64 bytes, so that some regions
+        // end with a skipped rest and some are filled exactly
+        int[] lengths = { 8, 8, 8, 20, 48, 8, 20, 20 };
+        try {
+            try (MappedLogFile writer = MappedLogFile.create(path, 64)) {
+                for (int i = 0; i < lengths.length; ++i) {
+                    writer.append(i % 2, 1000L * i, record(i, lengths[i]));
+                }
+                Assertions.assertEquals(lengths.length, writer.getRecordCount());
+            }
+            try (MappedLogFile file = MappedLogFile.open(path)) {
+                MappedLogFile.Reader reader = file.reader();
+                for (int i = 0; i < lengths.length; ++i) {
+                    ByteBuffer read = reader.poll();
+                    Assertions.assertNotNull(read);
+                    Assertions.assertEquals(record(i, lengths[i]), read);
+                    Assertions.assertEquals(i % 2, reader.getKind());
+                    Assertions.assertEquals(1000L * i, reader.getTimestamp());
+                }
+                Assertions.assertNull(reader.poll());
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void readsEmptyLog() throws IOException {
+        Path path = Files.createTempFile("log", ".bin");
+        try {
+            MappedLogFile.create(path, 64).close();
+            try (MappedLogFile file = MappedLogFile.open(path)) {
+                Assertions.assertNull(file.reader().poll());
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void separatesWritingAndReading() throws IOException {
+        Path path = Files.createTempFile("log", ".bin");
+        try {
+            try (MappedLogFile writer = MappedLogFile.create(path, 64)) {
+                Assertions.assertThrows(IllegalStateException.class, writer::reader);
+                Assertions.assertThrows(IllegalArgumentException.class,
+                        () -> writer.append(0, 0, ByteBuffer.allocate(writer.getMaxRecordSize() + 1)));
+                writer.append(0, 0, ByteBuffer.allocate(writer.getMaxRecordSize()));
+            }
+            try (MappedLogFile file = MappedLogFile.open(path)) {
+                Assertions.assertThrows(IllegalStateException.class,
+                        () -> file.append(0, 0, record(1, 4)));
+            }
+            Files.write(path, new byte[64]);
+            Assertions.assertThrows(IOException.class, () -> MappedLogFile.open(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static ByteBuffer record(int value, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(value);
+        buffer.rewind();
+        return buffer;
+    }
+}
@@ -0,0 +1,108 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class MappedRingFileTest {
+
+    @Test
+    void rejectsInvalidCapacities() throws IOException {
+        Path path = Files.createTempFile("ring", ".bin");
+        try {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> MappedRingFile.create(path, 8));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> MappedRingFile.create(path, 100));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void readsRecordsAcrossLaps() throws IOException {
+        Path path = Files.createTempFile("ring", ".bin");
+        try (MappedRingFile writer = MappedRingFile.create(path, 64);
+             MappedRingFile file = MappedRingFile.open(path)) {
+            MappedRingFile.Reader reader = file.reader();
+            Assertions.assertNull(reader.poll());
+
+            // records of 24 bytes, so that every other lap needs a padding record
+            for (int i = 0; i < 20; ++i) {
+                writer.write(record(i, 9));
+                ByteBuffer read = reader.poll();
+                Assertions.assertNotNull(read);
+                Assertions.assertEquals(record(i, 9), read);
+                Assertions.assertNull(reader.poll());
+            }
+            Assertions.assertEquals(0, reader.getOverrunCount());
+            Assertions.assertEquals(writer.getTail(), reader.getPosition());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void skipsOverwrittenRecords() throws IOException {
+        Path path = Files.createTempFile("ring", ".bin");
+        try (MappedRingFile writer = MappedRingFile.create(path, 64);
+             MappedRingFile file = MappedRingFile.open(path)) {
+            MappedRingFile.Reader reader = file.reader();
+            for (int i = 0; i < 10; ++i) {
+                writer.write(record(i, 4));
+            }
+            Assertions.assertNull(reader.poll());
+            Assertions.assertEquals(1, reader.getOverrunCount());
+
+            writer.write(record(10, 4));
+            Assertions.assertEquals(record(10, 4), reader.poll());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void continuesExistingFile() throws IOException {
+        Path path = Files.createTempFile("ring", ".bin");
+        try (MappedRingFile file = MappedRingFile.open(initialize(path))) {
+            MappedRingFile.Reader reader = file.reader();
+            try (MappedRingFile writer = MappedRingFile.create(path, 64)) {
+                Assertions.assertEquals(reader.getPosition(), writer.getTail());
+                writer.write(record(1, 4));
+            }
+            Assertions.assertEquals(record(1, 4), reader.poll());
+            Assertions.assertThrows(IllegalStateException.class, () -> file.write(record(2, 4)));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void rejectsOversizedRecords() throws IOException {
+        Path path = Files.createTempFile("ring", ".bin");
+        try (MappedRingFile writer = MappedRingFile.create(path, 64)) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> writer.write(ByteBuffer.allocate(writer.getMaxRecordSize() + 1)));
+            writer.write(ByteBuffer.allocate(writer.getMaxRecordSize()));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static Path initialize(Path path) throws IOException {
+        try (MappedRingFile writer = MappedRingFile.create(path, 64)) {
+            writer.write(record(0, 4));
+        }
+        return path;
+    }
+
+    private static ByteBuffer record(int value, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(value);
+        buffer.rewind();
+        return buffer;
+    }
+}
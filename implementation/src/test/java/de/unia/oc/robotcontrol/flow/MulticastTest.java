@@ -8,6 +8,7 @@ import org.reactivestreams.Subscriber;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
@@ -52,10 +53,14 @@ class MulticastTest {
                 .expectNextCount(0)
                 .thenCancel();
 
+        // the verifiers subscribe when verifying, so they are run in parallel
+        // to have all of them subscribed before the values are published
         multicastValuesDelayed(multicast);
-        verifierA.verify();
-        verifierD.verify();
-        verifierZ.verify();
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(verifierA::verify),
+                CompletableFuture.runAsync(verifierD::verify),
+                CompletableFuture.runAsync(verifierZ::verify))
+                .join();
     }
 
     private void multicastValuesDelayed(FlowableMulticast<Character, String> multicast) {
@@ -71,7 +76,9 @@ class MulticastTest {
     private static Stream<Arguments> multicastProvider() {
         return Stream
                 .of(createReemittingMulticast(),
-                    createFilteringMulticast())
+                    createFilteringMulticast(),
+                    createIndexedFilteringMulticast(),
+                    createRingBufferMulticast())
                 .map(Arguments::of);
     }
 
@@ -94,4 +101,22 @@ class MulticastTest {
 
     }
 
+    private static FlowableMulticast<Character, String> createIndexedFilteringMulticast() {
+        return new IndexedFilteringMulticast<Character, String>(Schedulers.immediate()) {
+            @Override
+            public Character topicFromValue(String v) {
+                return v.toCharArray()[0];
+            }
+        };
+    }
+
+    private static FlowableMulticast<Character, String> createRingBufferMulticast() {
+        return new RingBufferMulticast<Character, String>() {
+            @Override
+            public Character topicFromValue(String v) {
+                return v.toCharArray()[0];
+            }
+        };
+    }
+
 }
\ No newline at end of file
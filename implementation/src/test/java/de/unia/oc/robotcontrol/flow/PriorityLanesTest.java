@@ -0,0 +1,80 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+class PriorityLanesTest {
+
+    @Test
+    void rejectsInvalidWeights() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new PriorityLanes<>(new int[0], (v) -> {}, Runnable::run));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new PriorityLanes<>(new int[]{1, 0}, (v) -> {}, Runnable::run));
+    }
+
+    @Test
+    void drainsByWeight() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        List<String> drained = new ArrayList<>();
+        PriorityLanes<String> lanes = new PriorityLanes<>(new int[]{2, 1}, drained::add, tasks::add);
+
+        for (int i = 1; i <= 3; ++i) {
+            lanes.offer(1, "L" + i);
+        }
+        for (int i = 1; i <= 5; ++i) {
+            lanes.offer(0, "H" + i);
+        }
+        Assertions.assertEquals(1, tasks.size());
+        Assertions.assertEquals(5, lanes.getQueuedCount(0));
+        Assertions.assertEquals(3, lanes.getQueuedCount(1));
+
+        tasks.poll().run();
+        Assertions.assertEquals(
+                Arrays.asList("H1", "H2", "L1", "H3", "H4", "L2", "H5", "L3"),
+                drained);
+        Assertions.assertEquals(5, lanes.getDrainedCount(0));
+        Assertions.assertEquals(3, lanes.getDrainedCount(1));
+        Assertions.assertEquals(0, lanes.getQueuedCount(0));
+        Assertions.assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    void recordsQueueingDelay() throws InterruptedException {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        List<Double> delays = new ArrayList<>();
+        PriorityLanes<Integer> lanes = new PriorityLanes<>(new int[]{1}, (v) -> {}, tasks::add);
+        lanes.reportDelays(0, delays::add);
+
+        lanes.offer(0, 1);
+        Thread.sleep(20);
+        tasks.poll().run();
+
+        Assertions.assertEquals(1, delays.size());
+        Assertions.assertTrue(delays.get(0) >= 20, "delay was " + delays.get(0));
+        Assertions.assertTrue(lanes.getMaxDelayNanos(0) >= 20_000_000);
+        Assertions.assertEquals((double) lanes.getMaxDelayNanos(0), lanes.getMeanDelayNanos(0));
+    }
+
+    @Test
+    void continuesAfterConsumerError() {
+        List<Integer> drained = new ArrayList<>();
+        PriorityLanes<Integer> lanes = new PriorityLanes<>(new int[]{1}, (v) -> {
+            if (v == 1) {
+                throw new IllegalStateException();
+            }
+            drained.add(v);
+        }, Runnable::run);
+
+        lanes.offer(0, 1);
+        lanes.offer(0, 2);
+        Assertions.assertEquals(Arrays.asList(2), drained);
+    }
+}
@@ -0,0 +1,77 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.FluxProcessor;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SuppressWarnings("initialization")
+class ReemittingMulticastTest {
+
+    private final List<FluxProcessor<String, String>> topicProcessors = new ArrayList<>();
+
+    private final ReemittingMulticast<Character, String> multicast =
+            new ReemittingMulticast<Character, String>(Schedulers.immediate()) {
+                @Override
+                public Character topicFromValue(String v) {
+                    return v.charAt(0);
+                }
+
+                @Override
+                protected FluxProcessor<String, String> createTopicProcessor() {
+                    FluxProcessor<String, String> processor = EmitterProcessor.create();
+                    topicProcessors.add(processor);
+                    return processor;
+                }
+            };
+
+    @Test
+    void keepsTopicsWhenAddingOthers() {
+        StepVerifier verifierA = StepVerifier.create(multicast.subscribeTo('A'))
+                .expectNext("A1", "A2")
+                .thenCancel();
+        StepVerifier verifierB = StepVerifier.create(multicast.subscribeTo('B'))
+                .expectNext("B1")
+                .thenCancel();
+        multicast.subscribeTo('A');
+        Assertions.assertEquals(2, topicProcessors.size());
+
+        multicast.asSubscriber().onNext("A1");
+        multicast.asSubscriber().onNext("B1");
+        multicast.asSubscriber().onNext("A2");
+        verifierA.verify();
+        verifierB.verify();
+    }
+
+    @Test
+    void replacesTerminatedTopicProcessors() {
+        multicast.subscribeTo('A');
+        topicProcessors.get(0).onComplete();
+
+        StepVerifier verifier = StepVerifier.create(multicast.subscribeTo('A'))
+                .expectNext("A1")
+                .thenCancel();
+        Assertions.assertEquals(2, topicProcessors.size());
+
+        multicast.asSubscriber().onNext("A1");
+        verifier.verify();
+    }
+
+    @Test
+    void remembersBoundedNumberOfUnroutedTopics() {
+        int topics = ReemittingMulticast.MAX_UNROUTED_TOPICS + 10;
+        for (int i = 0; i < topics; ++i) {
+            multicast.asSubscriber().onNext(String.valueOf((char) ('0' + i)));
+        }
+        Assertions.assertEquals(ReemittingMulticast.MAX_UNROUTED_TOPICS, multicast.getUnroutedTopicCount());
+
+        multicast.subscribeTo('0');
+        Assertions.assertEquals(ReemittingMulticast.MAX_UNROUTED_TOPICS - 1, multicast.getUnroutedTopicCount());
+    }
+}
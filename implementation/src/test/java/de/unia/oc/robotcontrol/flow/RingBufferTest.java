@@ -0,0 +1,148 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+class RingBufferTest {
+
+    @Test
+    void rejectsInvalidSizes() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0, WaitStrategy.YIELD));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(12, WaitStrategy.YIELD));
+    }
+
+    @Test
+    void publishesInSequence() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4, WaitStrategy.BUSY_SPIN);
+        AtomicLong consumer = buffer.addConsumer();
+        long next = consumer.get() + 1;
+
+        for (int round = 0; round < 3; ++round) {
+            for (int i = 0; i < 4; ++i) {
+                buffer.publish(round * 4 + i);
+            }
+            Assertions.assertFalse(buffer.isAvailable(next + 4));
+            for (int i = 0; i < 4; ++i, ++next) {
+                Assertions.assertTrue(buffer.isAvailable(next));
+                Assertions.assertEquals(round * 4 + i, (int) buffer.get(next));
+                consumer.set(next);
+            }
+        }
+    }
+
+    @Test
+    void producersWaitForConsumers() throws InterruptedException {
+        int producers = 3;
+        int perProducer = 10_000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(8, WaitStrategy.YIELD);
+        AtomicLong consumer = buffer.addConsumer();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; ++p) {
+            int offset = p * perProducer;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perProducer; ++i) {
+                    buffer.publish(offset + i);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+
+        int[] lastSeen = new int[producers];
+        Arrays.fill(lastSeen, -1);
+        long next = consumer.get() + 1;
+        for (int received = 0; received < producers * perProducer; ++received, ++next) {
+            while (!buffer.isAvailable(next)) {
+                Thread.yield();
+            }
+            int value = buffer.get(next);
+            int producer = value / perProducer;
+            // values of a single producer arrive in order, none are lost or duplicated
+            Assertions.assertEquals(lastSeen[producer] + 1, value % perProducer);
+            lastSeen[producer] = value % perProducer;
+            consumer.set(next);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    @Test
+    void clearsSlotsConsumedByAllConsumers() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4, WaitStrategy.BUSY_SPIN);
+        AtomicLong first = buffer.addConsumer();
+        AtomicLong second = buffer.addConsumer();
+        buffer.publish(1);
+        buffer.publish(2);
+
+        first.set(1);
+        buffer.clearConsumed();
+        Assertions.assertEquals(1, (int) buffer.get(0));
+
+        second.set(0);
+        buffer.clearConsumed();
+        Assertions.assertNull(buffer.get(0));
+        Assertions.assertEquals(2, (int) buffer.get(1));
+
+        buffer.removeConsumer(second);
+        buffer.clearConsumed();
+        Assertions.assertNull(buffer.get(1));
+    }
+
+    @Test
+    void multicastForwardsTerminalSignalsAfterValues() {
+        RingBufferMulticast<Character, String> multicast = new RingBufferMulticast<Character, String>(8, WaitStrategy.PARK) {
+            @Override
+            public Character topicFromValue(String value) {
+                return value.charAt(0);
+            }
+        };
+        // subscribe before publishing, as values published before are not emitted
+        Flux<String> received = Flux.from(multicast.subscribeTo('A')).replay().autoConnect(0);
+        multicast.asSubscriber().onNext("A1");
+        multicast.asSubscriber().onNext("B1");
+        multicast.asSubscriber().onNext("A2");
+        multicast.asSubscriber().onComplete();
+
+        StepVerifier.create(received)
+                .expectNext("A1", "A2")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        StepVerifier.create(multicast.asPublisher())
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void multicastDoesNotWaitForPublishersWithoutSubscribers() {
+        RingBufferMulticast<Character, String> multicast = new RingBufferMulticast<Character, String>(8, WaitStrategy.PARK) {
+            @Override
+            public Character topicFromValue(String value) {
+                return value.charAt(0);
+            }
+        };
+        multicast.subscribeTo('A');
+        // a cancelled subscriber does not hold up the producers either
+        StepVerifier.create(multicast.subscribeTo('A'))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 3 * multicast.getBufferSize(); ++i) {
+                multicast.asSubscriber().onNext("A" + i);
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.flow.strategy;
+
+import de.unia.oc.robotcontrol.message.MessagePool;
+import de.unia.oc.robotcontrol.message.PooledValueMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.DirectProcessor;
+import reactor.test.StepVerifier;
+
+class DroppingFlowStrategyTest {
+
+    private final MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(4);
+
+    private final DirectProcessor<PooledValueMessage> source = DirectProcessor.create();
+
+    private final PooledValueMessage[] messages = {
+            PooledValueMessage.acquire(pool, 1),
+            PooledValueMessage.acquire(pool, 2),
+            PooledValueMessage.acquire(pool, 3)
+    };
+
+    private void emitAll() {
+        for (PooledValueMessage message : messages) {
+            source.onNext(message);
+        }
+        source.onComplete();
+    }
+
+    @Test
+    void latestReleasesReplacedValues() {
+        StepVerifier.create(source.transform(LatestFlowStrategy.create()), 0)
+                .then(this::emitAll)
+                .then(() -> Assertions.assertEquals(2, pool.getAvailableCount()))
+                .thenRequest(1)
+                .expectNext(messages[2])
+                .verifyComplete();
+    }
+
+    @Test
+    void ignoringReleasesDroppedValues() {
+        StepVerifier.create(source.transform(IgnoringFlowStrategy.create()), 0)
+                .then(this::emitAll)
+                .verifyComplete();
+        Assertions.assertEquals(3, pool.getAvailableCount());
+    }
+
+    @Test
+    void bufferReleasesOverflowingValues() {
+        StepVerifier.create(source.transform(
+                BufferFlowStrategy.create(1, BufferOverflowStrategy.DROP_LATEST)), 0)
+                .then(this::emitAll)
+                .then(() -> Assertions.assertEquals(2, pool.getAvailableCount()))
+                .thenRequest(1)
+                .expectNext(messages[0])
+                .verifyComplete();
+    }
+}
@@ -1,8 +1,11 @@
 package de.unia.oc.robotcontrol.flow.strategy;/* %FILE_TEMPLATE_TEXT% */
 
 import de.unia.oc.robotcontrol.flow.FlowStrategy;
+import de.unia.oc.robotcontrol.message.MessagePool;
+import de.unia.oc.robotcontrol.message.PooledValueMessage;
 import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
+import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
@@ -30,4 +33,40 @@ class TimedFlowStrategyTest {
                 .verify(Duration.ofMillis(dur.toMillis() * 5));
     }
 
-}
\ No newline at end of file
+    @Test
+    void passesEachArrivalOnce() {
+        MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(4);
+        DirectProcessor<Long> timer = DirectProcessor.create();
+        DirectProcessor<PooledValueMessage> inputs = DirectProcessor.create();
+        // passes on -1 on ticks without a new input, and releases the inputs it is passed
+        FlowStrategy<PooledValueMessage, Integer> strategy = TimedFlowStrategy.createArriving(
+                timer,
+                () -> new PooledValueMessage(0),
+                (tick, input) -> {
+                    if (input == null) {
+                        return -1;
+                    }
+                    int value = input.getValue();
+                    input.release();
+                    return value;
+                });
+
+        StepVerifier.create(inputs.transform(strategy))
+                .then(() -> timer.onNext(0L))
+                .expectNext(0)
+                .then(() -> timer.onNext(1L))
+                .expectNext(-1)
+                .then(() -> inputs.onNext(PooledValueMessage.acquire(pool, 1)))
+                .expectNext(1)
+                .then(() -> timer.onNext(2L))
+                .expectNext(-1)
+                // the last input is held until it is replaced
+                .then(() -> assertEquals(0, pool.getAvailableCount()))
+                .then(() -> inputs.onNext(PooledValueMessage.acquire(pool, 2)))
+                .expectNext(2)
+                .then(() -> assertEquals(1, pool.getAvailableCount()))
+                .thenCancel()
+                .verify();
+        assertEquals(2, pool.getAvailableCount());
+    }
+}
@@ -0,0 +1,129 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.coding.CharEncoding;
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.Encoding;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.util.Bijection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class EmittingMessageMulticastTest {
+
+    private final MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(4);
+
+    private final EmittingMessageMulticast<Message> multicast = new EmittingMessageMulticast<>(Schedulers.immediate());
+
+    @Test
+    void recyclesMessagesWithoutSubscribers() {
+        Publisher<Message> ofType = multicast.subscribeTo(PooledValueMessage.TYPE);
+        multicast.asSubscriber().onNext(PooledValueMessage.acquire(pool, 1));
+        Assertions.assertEquals(1, pool.getAvailableCount());
+
+        // a message which can be reused is not buffered for later subscribers
+        List<Message> received = new ArrayList<>();
+        Flux.from(ofType).subscribe(received::add);
+        Assertions.assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void retainsForEverySubscriber() {
+        List<Message> all = new ArrayList<>();
+        List<Message> ofType = new ArrayList<>();
+        List<Message> ofClass = new ArrayList<>();
+        Flux.from(multicast.asPublisher()).subscribe(all::add);
+        Flux.from(multicast.subscribeTo(PooledValueMessage.TYPE)).subscribe(ofType::add);
+        Flux.from(multicast.subscribeToClass(PooledValueMessage.class)).subscribe(ofClass::add);
+
+        PooledValueMessage message = PooledValueMessage.acquire(pool, 1);
+        multicast.asSubscriber().onNext(message);
+        Assertions.assertEquals(3, message.refCount());
+        Assertions.assertEquals(1, all.size());
+        Assertions.assertEquals(1, ofType.size());
+        Assertions.assertEquals(1, ofClass.size());
+
+        all.forEach(ReferenceCounted::releaseIfCounted);
+        ofType.forEach(ReferenceCounted::releaseIfCounted);
+        Assertions.assertEquals(0, pool.getAvailableCount());
+        ofClass.forEach(ReferenceCounted::releaseIfCounted);
+        Assertions.assertEquals(1, pool.getAvailableCount());
+    }
+
+    @Test
+    void keepsMessagesWhichAreNotReused() {
+        Publisher<Message> ofType = multicast.subscribeTo(PooledValueMessage.TYPE);
+        PooledValueMessage message = new PooledValueMessage(1);
+        multicast.asSubscriber().onNext(message);
+
+        List<Message> received = new ArrayList<>();
+        Flux.from(ofType).subscribe(received::add);
+        Assertions.assertEquals(1, received.size());
+        Assertions.assertSame(message, received.get(0));
+    }
+
+    @Test
+    void emitsMessagesOfSubscribedClasses() {
+        SingleValueMessageType<Integer> type = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.NATIVE));
+        List<Message> pooled = new ArrayList<>();
+        List<Message> singleValued = new ArrayList<>();
+        List<Message> all = new ArrayList<>();
+        Flux.from(multicast.subscribeToClass(PooledValueMessage.class)).subscribe(pooled::add);
+        Flux.from(multicast.subscribeToClass(SingleValueMessage.class)).subscribe(singleValued::add);
+        Flux.from(multicast.subscribeToClass(Message.class)).subscribe(all::add);
+
+        Message first = new PooledValueMessage(1);
+        Message second = type.produce(2);
+        multicast.asSubscriber().onNext(first);
+        multicast.asSubscriber().onNext(second);
+        multicast.asSubscriber().onNext(first);
+
+        Assertions.assertEquals(2, pooled.size());
+        Assertions.assertSame(first, pooled.get(1));
+        Assertions.assertEquals(1, singleValued.size());
+        Assertions.assertSame(second, singleValued.get(0));
+        Assertions.assertEquals(3, all.size());
+
+        // a class subscribed to later gets the messages of known types as well
+        List<Message> later = new ArrayList<>();
+        Flux.from(multicast.subscribeToClass(PooledValueMessage.class)).subscribe(later::add);
+        multicast.asSubscriber().onNext(first);
+        Assertions.assertEquals(1, later.size());
+        Assertions.assertEquals(3, pooled.size());
+    }
+
+    @Test
+    void decodesOnlyFirstLazyMessageOfType() {
+        AtomicInteger decodeCount = new AtomicInteger();
+        SingleValueMessageType<Integer> type = new SingleValueMessageType<>(
+                new IntegerEncoding(CodingContext.NATIVE).stack(
+                        Bijection.create(
+                                (Integer i) -> i,
+                                (Integer i) -> {
+                                    decodeCount.incrementAndGet();
+                                    return i;
+                                })));
+        MessageTypeRegistry<Character> registry = Messaging.createRegistry(
+                new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE)),
+                (p) -> p.apply('i', type));
+        Encoding<Message> lazy = Messaging.lazyDecoding(registry);
+
+        List<Message> received = new ArrayList<>();
+        Flux.from(multicast.subscribeToClass(SingleValueMessage.class)).subscribe(received::add);
+        for (int i = 0; i < 3; ++i) {
+            multicast.asSubscriber().onNext(lazy.decode(registry.encode(type.produce(i))));
+        }
+
+        // the class of the type is resolved using the first message only
+        Assertions.assertEquals(1, decodeCount.get());
+        Assertions.assertEquals(3, received.size());
+        Assertions.assertFalse(((LazyMessage<?>) received.get(2)).isDecoded());
+    }
+}
@@ -0,0 +1,89 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyTracerTest {
+
+    @Test
+    void correlatesActuatorWithSensorMessage() {
+        LatencyTracer tracer = LatencyTracer.instance();
+        long before = tracer.getTotalHistogram().getCount();
+        long controllerBefore = tracer.getHistogram(LatencyTrace.Stage.CONTROLLER_TICK).getCount();
+        tracer.setEnabled(true);
+        try {
+            PooledValueMessage sensor = new PooledValueMessage(1);
+            tracer.begin(sensor);
+            LatencyTrace trace = sensor.getTrace();
+            Assertions.assertNotNull(trace);
+            tracer.stamp(sensor, LatencyTrace.Stage.MULTICAST_DISPATCH);
+            tracer.observe(sensor);
+            tracer.stampCurrent(LatencyTrace.Stage.OBSERVER_OUTPUT);
+            tracer.stampCurrent(LatencyTrace.Stage.CONTROLLER_TICK);
+
+            PooledValueMessage actuator = new PooledValueMessage(2);
+            tracer.attachCurrent(actuator);
+            Assertions.assertSame(trace, actuator.getTrace());
+
+            tracer.complete(actuator);
+            Assertions.assertTrue(trace.isCompleted());
+            for (LatencyTrace.Stage stage : LatencyTrace.Stage.values()) {
+                Assertions.assertNotEquals(0, trace.getStamp(stage), stage.toString());
+            }
+            Assertions.assertEquals(before + 1, tracer.getTotalHistogram().getCount());
+            Assertions.assertEquals(controllerBefore + 1,
+                    tracer.getHistogram(LatencyTrace.Stage.CONTROLLER_TICK).getCount());
+
+            // a second command caused by the same sensor message is not recorded again
+            PooledValueMessage second = new PooledValueMessage(3);
+            tracer.attachCurrent(second);
+            tracer.complete(second);
+            Assertions.assertEquals(before + 1, tracer.getTotalHistogram().getCount());
+        } finally {
+            tracer.setEnabled(false);
+        }
+    }
+
+    @Test
+    void recordsOnlyStagesFollowingStampedStages() {
+        LatencyTracer tracer = LatencyTracer.instance();
+        long before = tracer.getTotalHistogram().getCount();
+        long dispatchBefore = tracer.getHistogram(LatencyTrace.Stage.MULTICAST_DISPATCH).getCount();
+        long observerBefore = tracer.getHistogram(LatencyTrace.Stage.OBSERVER_OUTPUT).getCount();
+        long controllerBefore = tracer.getHistogram(LatencyTrace.Stage.CONTROLLER_TICK).getCount();
+        tracer.setEnabled(true);
+        try {
+            // the multicast does not report dispatching the message
+            PooledValueMessage sensor = new PooledValueMessage(1);
+            tracer.begin(sensor);
+            tracer.observe(sensor);
+            tracer.stampCurrent(LatencyTrace.Stage.OBSERVER_OUTPUT);
+            tracer.stampCurrent(LatencyTrace.Stage.CONTROLLER_TICK);
+
+            PooledValueMessage actuator = new PooledValueMessage(2);
+            tracer.attachCurrent(actuator);
+            tracer.complete(actuator);
+
+            Assertions.assertEquals(before + 1, tracer.getTotalHistogram().getCount());
+            Assertions.assertEquals(dispatchBefore,
+                    tracer.getHistogram(LatencyTrace.Stage.MULTICAST_DISPATCH).getCount());
+            // the time since decoding is not attributed to the observer alone
+            Assertions.assertEquals(observerBefore,
+                    tracer.getHistogram(LatencyTrace.Stage.OBSERVER_OUTPUT).getCount());
+            Assertions.assertEquals(controllerBefore + 1,
+                    tracer.getHistogram(LatencyTrace.Stage.CONTROLLER_TICK).getCount());
+        } finally {
+            tracer.setEnabled(false);
+        }
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        LatencyTracer tracer = LatencyTracer.instance();
+        tracer.setEnabled(false);
+        PooledValueMessage message = new PooledValueMessage(1);
+        tracer.begin(message);
+        Assertions.assertNull(message.getTrace());
+    }
+}
@@ -0,0 +1,110 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.coding.CharEncoding;
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.Encoding;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.util.Bijection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LazyMessageTest {
+
+    @Test
+    void decodesOnFirstAccessOnly() {
+        AtomicInteger decodeCount = new AtomicInteger();
+        SingleValueMessageType<Integer> type = new SingleValueMessageType<>(
+                new IntegerEncoding(CodingContext.NATIVE).stack(
+                        Bijection.create(
+                                (Integer i) -> i,
+                                (Integer i) -> {
+                                    decodeCount.incrementAndGet();
+                                    return i;
+                                })));
+        MessageIdentifier<Character> id = new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE));
+        MessageTypeRegistry<Character> registry = Messaging.createRegistry(id, (p) -> p.apply('i', type));
+        Encoding<Message> lazy = Messaging.lazyDecoding(registry);
+
+        byte[] raw = registry.encode(type.produce(42));
+        Message message = lazy.decode(raw);
+
+        Assertions.assertTrue(message instanceof LazyMessage);
+        Assertions.assertEquals(type, message.getType());
+        Assertions.assertFalse(((LazyMessage<?>) message).isDecoded());
+        Assertions.assertEquals(0, decodeCount.get());
+
+        Message decoded = LazyMessage.materialize(message);
+        Assertions.assertEquals(42, (int) ((SingleValueMessage<Integer>) decoded).getValue());
+        Assertions.assertSame(decoded, LazyMessage.materialize(message));
+        Assertions.assertEquals(1, decodeCount.get());
+
+        Assertions.assertArrayEquals(raw, lazy.encode(decoded));
+    }
+
+    @Test
+    void resolvesClassOfDecodedMessage() {
+        SingleValueMessageType<Integer> type = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.NATIVE));
+        MessageIdentifier<Character> id = new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE));
+        MessageTypeRegistry<Character> registry = Messaging.createRegistry(id, (p) -> p.apply('i', type));
+
+        Message message = Messaging.lazyDecoding(registry).decode(registry.encode(type.produce(7)));
+
+        Class<?> decodedClass = LazyMessage.classOf(message);
+        Assertions.assertTrue(SingleValueMessage.class.isAssignableFrom(decodedClass));
+        Assertions.assertFalse(LazyMessage.class.isAssignableFrom(decodedClass));
+        Assertions.assertEquals(type.produce(7).getClass(), decodedClass);
+    }
+
+    @Test
+    void failsForUnknownIdentifiers() {
+        MessageIdentifier<Character> id = new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE));
+        MessageTypeRegistry<Character> registry = Messaging.createRegistry(id);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Messaging.lazyDecoding(registry).decode(new byte[]{0, 'x', 1, 2}));
+    }
+
+    @Test
+    void readsPayloadFromOwnedBufferUntilReleased() {
+        SingleValueMessageType<Integer> type = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.NATIVE));
+        MessageIdentifier<Character> id = new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE));
+        MessageTypeRegistry<Character> registry = Messaging.createRegistry(id, (p) -> p.apply('i', type));
+        List<ByteBuffer> recycled = new ArrayList<>();
+
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        registry.encodeInto(type.produce(42), buffer);
+        buffer.flip();
+        Message message = Messaging.lazyDecoding(registry).decodeOwned(buffer, recycled::add);
+
+        Assertions.assertTrue(message instanceof LazyMessage);
+        Assertions.assertFalse(buffer.hasRemaining());
+        Message decoded = LazyMessage.materialize(message);
+        Assertions.assertEquals(42, (int) ((SingleValueMessage<Integer>) decoded).getValue());
+
+        ((LazyMessage<?>) message).retain(1);
+        Assertions.assertFalse(((LazyMessage<?>) message).release());
+        Assertions.assertTrue(recycled.isEmpty());
+        Assertions.assertTrue(((LazyMessage<?>) message).release());
+        Assertions.assertEquals(1, recycled.size());
+        Assertions.assertSame(buffer, recycled.get(0));
+
+        Assertions.assertThrows(IllegalStateException.class, ((LazyMessage<?>) message)::get);
+        Assertions.assertThrows(IllegalStateException.class, () -> ((LazyMessage<?>) message).retain(1));
+    }
+
+    @Test
+    void recyclesBufferIfIdentifierIsUnknown() {
+        MessageIdentifier<Character> id = new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE));
+        MessageTypeRegistry<Character> registry = Messaging.createRegistry(id);
+        List<ByteBuffer> recycled = new ArrayList<>();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Messaging.lazyDecoding(registry).decodeOwned(ByteBuffer.wrap(new byte[]{0, 'x', 1, 2}), recycled::add));
+        Assertions.assertEquals(1, recycled.size());
+    }
+}
@@ -0,0 +1,65 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MessagePoolTest {
+
+    @Test
+    void reusesReleasedMessages() {
+        MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(MessagePool.DEFAULT_CAPACITY);
+        PooledValueMessage first = PooledValueMessage.acquire(pool, 1);
+        Assertions.assertTrue(first.isPooled());
+        Assertions.assertEquals(1, first.refCount());
+        Assertions.assertTrue(first.release());
+        Assertions.assertEquals(1, pool.getAvailableCount());
+
+        PooledValueMessage second = PooledValueMessage.acquire(pool, 2);
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, second.refCount());
+        // the reused message is encoded with its new value
+        Assertions.assertEquals(2, second.getType().decode(second.getType().encode(second)).getValue());
+        Assertions.assertEquals(1, pool.getCreatedCount());
+        Assertions.assertEquals(1, pool.getReusedCount());
+        Assertions.assertEquals(0, pool.getAvailableCount());
+    }
+
+    @Test
+    void recyclesAfterLastReference() {
+        MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(MessagePool.DEFAULT_CAPACITY);
+        PooledValueMessage message = PooledValueMessage.acquire(pool, 1);
+        message.retain(2);
+        Assertions.assertFalse(message.release());
+        Assertions.assertFalse(message.release());
+        Assertions.assertEquals(0, pool.getAvailableCount());
+        Assertions.assertTrue(message.release());
+        Assertions.assertEquals(1, pool.getAvailableCount());
+
+        Assertions.assertThrows(IllegalStateException.class, message::release);
+        Assertions.assertThrows(IllegalStateException.class, () -> message.retain(1));
+        // a failed retain does not revive the message
+        Assertions.assertEquals(0, message.refCount());
+    }
+
+    @Test
+    void dropsMessagesExceedingCapacity() {
+        MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(1);
+        PooledValueMessage first = PooledValueMessage.acquire(pool, 1);
+        PooledValueMessage second = PooledValueMessage.acquire(pool, 2);
+        first.release();
+        second.release();
+        Assertions.assertEquals(1, pool.getAvailableCount());
+        Assertions.assertEquals(2, pool.getCreatedCount());
+    }
+
+    @Test
+    void ignoresUnpooledMessages() {
+        PooledValueMessage message = new PooledValueMessage(1);
+        Assertions.assertFalse(message.isPooled());
+        message.retain(3);
+        Assertions.assertFalse(message.release());
+        Assertions.assertFalse(message.release());
+        Assertions.assertFalse(ReferenceCounted.releaseIfCounted("not counted"));
+    }
+}
@@ -0,0 +1,159 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.coding.CharEncoding;
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.coding.VarIntEncoding;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+public class MessageStreamDecoderTest {
+
+    private final SingleValueMessageType<Integer> fixedType =
+            new SingleValueMessageType<>(new IntegerEncoding(CodingContext.NATIVE));
+
+    private final SingleValueMessageType<Integer> variableType =
+            new SingleValueMessageType<>(VarIntEncoding.zigZag(CodingContext.NATIVE));
+
+    private final MessageTypeRegistry<Character> registry = Messaging.createRegistry(
+            new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE)),
+            (p) -> {
+                p.apply('f', fixedType);
+                p.apply('v', variableType);
+            });
+
+    private static List<Integer> values(List<Message> messages) {
+        List<Integer> result = new ArrayList<>(messages.size());
+        for (Message m : messages) {
+            result.add(((SingleValueMessage<Integer>) m).getValue());
+        }
+        return result;
+    }
+
+    private byte[] stream(List<Integer> values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < values.size(); ++i) {
+            SingleValueMessageType<Integer> type = i % 2 == 0 ? fixedType : variableType;
+            byte[] frame = registry.encode(type.produce(values.get(i)));
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void reportsFixedSizes() {
+        Assertions.assertEquals(4, fixedType.getFixedSize());
+        Assertions.assertEquals(MessageType.VARIABLE_SIZE, variableType.getFixedSize());
+        Assertions.assertEquals(4, fixedType.withName("Fixed").asSimpleType().getFixedSize());
+    }
+
+    @Test
+    void reassemblesArbitraryChunks() {
+        List<Integer> expected = Arrays.asList(1, -1, 300, 1 << 20, Integer.MIN_VALUE, 0, 42, -70000);
+        byte[] raw = stream(expected);
+        Random random = new Random(7);
+
+        for (int run = 0; run < 50; ++run) {
+            List<Message> received = new ArrayList<>();
+            MessageStreamDecoder<Character> decoder = new MessageStreamDecoder<>(registry, 16, received::add);
+            int pos = 0;
+            while (pos < raw.length) {
+                int len = Math.min(raw.length - pos, 1 + random.nextInt(9));
+                decoder.accept(ByteBuffer.wrap(raw, pos, len));
+                pos += len;
+            }
+            Assertions.assertEquals(expected, values(received));
+            Assertions.assertEquals(0, decoder.getPendingBytes());
+        }
+    }
+
+    @Test
+    void skipsUnknownBytes() {
+        List<Message> received = new ArrayList<>();
+        MessageStreamDecoder<Character> decoder = new MessageStreamDecoder<>(registry, 32, received::add);
+        byte[] frames = stream(Arrays.asList(5, 6));
+        byte[] raw = new byte[frames.length + 3];
+        raw[0] = 'x';
+        raw[1] = 'y';
+        raw[2] = 'z';
+        System.arraycopy(frames, 0, raw, 3, frames.length);
+
+        decoder.accept(ByteBuffer.wrap(raw));
+        Assertions.assertEquals(Arrays.asList(5, 6), values(received));
+    }
+
+    @Test
+    void readsFromChannel() throws IOException {
+        List<Integer> expected = Arrays.asList(10, -20, 30, -40);
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(stream(expected)));
+        List<Message> received = new ArrayList<>();
+        MessageStreamDecoder<Character> decoder = new MessageStreamDecoder<>(registry, 8, received::add);
+
+        while (decoder.readFrom(channel) >= 0) {
+            // read until the end of the stream
+        }
+        Assertions.assertEquals(expected, values(received));
+    }
+
+    @Test
+    void skipsMalformedVariableSizeFrames() {
+        List<Message> received = new ArrayList<>();
+        MessageStreamDecoder<Character> decoder = new MessageStreamDecoder<>(registry, 64, received::add);
+        byte[] identifier = registry.getIdentifier().getIdentifierEncoding().encode('v');
+        byte[] frames = stream(Arrays.asList(5, 6));
+        // a varint which is longer than five bytes is invalid
+        ByteBuffer raw = ByteBuffer.allocate(identifier.length + 6 + frames.length);
+        raw.put(identifier);
+        for (int i = 0; i < 6; ++i) {
+            raw.put((byte) 0xFF);
+        }
+        raw.put(frames);
+        raw.flip();
+
+        decoder.accept(raw);
+        Assertions.assertEquals(Arrays.asList(5, 6), values(received));
+        Assertions.assertEquals(1, decoder.getMalformedFrameCount());
+        Assertions.assertEquals(0, decoder.getPendingBytes());
+    }
+
+    @Test
+    void waitsForNonBlockingChannels() throws IOException, InterruptedException {
+        List<Integer> expected = Arrays.asList(1, -2, 3);
+        Pipe pipe = Pipe.open();
+        pipe.source().configureBlocking(false);
+        byte[] raw = stream(expected);
+
+        CompletableFuture<List<Message>> received = CompletableFuture.supplyAsync(() ->
+                Flux.from(Messaging.decodeStream(registry, pipe.source(), 32))
+                        .take(expected.size())
+                        .collectList()
+                        .block(Duration.ofSeconds(5)));
+        // the bytes arrive in two parts, after the decoder started waiting
+        try {
+            Thread.sleep(50);
+            pipe.sink().write(ByteBuffer.wrap(raw, 0, 3));
+            Thread.sleep(50);
+            pipe.sink().write(ByteBuffer.wrap(raw, 3, raw.length - 3));
+            Assertions.assertEquals(expected, values(received.join()));
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A message holding a single integer, which is taken from a
+ * {@link MessagePool} if created using {@link #acquire(MessagePool, int)}.
+ * Decoded messages are not pooled.
+ */
+public final class PooledValueMessage extends AbstractMessage<PooledValueMessage> {
+
+    private static final IntegerEncoding ENCODING = new IntegerEncoding(CodingContext.ARDUINO);
+
+    /**
+     * The type of all instances of {@link PooledValueMessage}
+     */
+    public static final MessageType<PooledValueMessage> TYPE = new MessageType<PooledValueMessage>() {
+        @Override
+        public PooledValueMessage decode(byte[] raw) throws IllegalArgumentException {
+            return new PooledValueMessage(ENCODING.decode(raw));
+        }
+
+        @Override
+        public byte[] encode(PooledValueMessage object) throws IllegalArgumentException {
+            return ENCODING.encode(object.getValue());
+        }
+
+        @Override
+        public void encodeInto(PooledValueMessage object, ByteBuffer target) throws IllegalArgumentException {
+            ENCODING.encodeInto(object.getValue(), target);
+        }
+
+        @Override
+        public PooledValueMessage decodeFrom(ByteBuffer source) throws IllegalArgumentException {
+            return new PooledValueMessage(ENCODING.decodeFrom(source));
+        }
+
+        @Override
+        public CodingContext getContext() {
+            return ENCODING.getContext();
+        }
+
+        @Override
+        public int getFixedSize() {
+            return ENCODING.numBytes();
+        }
+    };
+
+    private int value;
+
+    public PooledValueMessage(int value) {
+        this.value = value;
+    }
+
+    private PooledValueMessage(MessagePool<PooledValueMessage> pool) {
+        super(pool);
+    }
+
+    /**
+     * Create a pool of {@link PooledValueMessage} instances.
+     *
+     * @param capacity the maximum number of released messages held by the pool
+     * @return a new, empty pool
+     */
+    public static MessagePool<PooledValueMessage> createPool(int capacity) {
+        return new MessagePool<>(capacity, PooledValueMessage::new);
+    }
+
+    /**
+     * Take a message from the given pool and set its value.
+     *
+     * @param pool the pool to take the message from
+     * @param value the value of the message
+     * @return a pooled message holding a single reference
+     */
+    public static PooledValueMessage acquire(MessagePool<PooledValueMessage> pool, int value) {
+        PooledValueMessage message = pool.acquire();
+        message.value = value;
+        return message;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    @Override
+    public MessageType<PooledValueMessage> getType() {
+        return TYPE;
+    }
+
+    @Override
+    public String toString() {
+        return "PooledValueMessage: " + value;
+    }
+}
@@ -8,6 +8,9 @@ import de.unia.oc.robotcontrol.util.Tuple;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 public class RegistryTest {
 
     @Test
@@ -63,5 +66,64 @@ public class RegistryTest {
                 registry.decode(registry.encode(msg)).toString(),
                 msg.toString()
         );
+
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        registry.encodeInto(msg, buffer);
+        buffer.flip();
+        Assertions.assertArrayEquals(
+                Arrays.copyOf(buffer.array(), buffer.limit()),
+                registry.encode(msg)
+        );
+        Assertions.assertEquals(
+                registry.decodeFrom(buffer).toString(),
+                msg.toString()
+        );
+        Assertions.assertEquals(buffer.remaining(), 0);
+    }
+
+    @Test
+    void createsFrozenArrayRegistry() {
+        MessageIdentifier<Character> id = new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE));
+        SingleValueMessageType<Character> k = new SingleValueMessageType<>(new CharEncoding(CodingContext.NATIVE));
+        SingleValueMessageType<Character> m = new SingleValueMessageType<>(new CharEncoding(CodingContext.NATIVE));
+
+        MessageTypeRegistry<Character> registry = Messaging.createRegistry(id, (p) -> {
+            Assertions.assertTrue(p.apply('k', k));
+            Assertions.assertFalse(p.apply('k', m));
+            Assertions.assertTrue(p.apply('m', m));
+        });
+
+        Assertions.assertTrue(registry instanceof ArrayMessageTypeRegistry);
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> registry.register('x', new SingleValueMessageType<>(new CharEncoding(CodingContext.NATIVE))));
+        Assertions.assertEquals(registry.getValueFor('k').get(), k);
+        Assertions.assertEquals((char) registry.getKeyFor(m).get(), 'm');
+        Assertions.assertFalse(registry.getValueFor('x').isPresent());
+
+        SingleValueMessage<Character> msg = m.produce('b');
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        registry.encodeInto(msg, buffer);
+        buffer.flip();
+        Assertions.assertArrayEquals(
+                Arrays.copyOf(buffer.array(), buffer.limit()),
+                id.encode(Tuple.create('m', m.encode(msg)))
+        );
+        Message decoded = registry.decodeFrom(buffer);
+        Assertions.assertEquals(decoded.getType(), m);
+        Assertions.assertEquals(decoded.toString(), msg.toString());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> registry.decode(id.encode(Tuple.create('x', new byte[2]))));
+    }
+
+    @Test
+    void fallsBackToMapRegistry() {
+        MessageIdentifier<Character> id = new SimpleMessageIdentifier<>(new CharEncoding(CodingContext.NATIVE));
+        SingleValueMessageType<Character> k = new SingleValueMessageType<>(new CharEncoding(CodingContext.NATIVE));
+
+        MessageTypeRegistry<Character> registry = Messaging.createRegistry(id, Tuple.create('\uFFFF', k));
+
+        Assertions.assertTrue(registry instanceof MapMessageTypeRegistry);
+        Assertions.assertEquals(registry.getValueFor('\uFFFF').get(), k);
     }
 }
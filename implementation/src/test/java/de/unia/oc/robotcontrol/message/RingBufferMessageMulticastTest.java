@@ -0,0 +1,84 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.message;
+
+import de.unia.oc.robotcontrol.coding.CodingContext;
+import de.unia.oc.robotcontrol.coding.IntegerEncoding;
+import de.unia.oc.robotcontrol.flow.WaitStrategy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class RingBufferMessageMulticastTest {
+
+    private final MessagePool<PooledValueMessage> pool = PooledValueMessage.createPool(8);
+
+    private final RingBufferMessageMulticast<Message> multicast = new RingBufferMessageMulticast<>(4, WaitStrategy.PARK);
+
+    @Test
+    void retainsForEveryMatchingSubscriber() throws InterruptedException {
+        SingleValueMessageType<Integer> otherType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.NATIVE));
+        List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+        List<Message> other = Collections.synchronizedList(new ArrayList<>());
+        List<Disposable> subscriptions = Arrays.asList(
+                Flux.from(multicast.subscribeTo(PooledValueMessage.TYPE)).subscribe((m) -> consume(m, first)),
+                Flux.from(multicast.subscribeTo(PooledValueMessage.TYPE)).subscribe((m) -> consume(m, second)),
+                Flux.from(multicast.subscribeTo(otherType)).subscribe(other::add));
+
+        // more messages than the pool and the ring buffer hold,
+        // so that the messages are reused while being dispatched
+        for (int i = 1; i <= 32; ++i) {
+            multicast.asSubscriber().onNext(PooledValueMessage.acquire(pool, i));
+        }
+        awaitAllReleased();
+        Assertions.assertEquals(32, first.size());
+        Assertions.assertEquals(first, second);
+        Assertions.assertTrue(other.isEmpty());
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void recyclesMessagesNoSubscriberMatches() throws InterruptedException {
+        SingleValueMessageType<Integer> otherType = new SingleValueMessageType<>(new IntegerEncoding(CodingContext.NATIVE));
+        Disposable subscription = Flux.from(multicast.subscribeTo(otherType)).subscribe();
+
+        for (int i = 1; i <= 32; ++i) {
+            multicast.asSubscriber().onNext(PooledValueMessage.acquire(pool, i));
+        }
+        awaitAllReleased();
+        // at most the messages in the ring buffer were in use at once
+        Assertions.assertTrue(pool.getCreatedCount() <= 8, "created " + pool.getCreatedCount());
+        subscription.dispose();
+    }
+
+    /**
+     * Record the value of the given message, and release it like a
+     * subscriber done with the message would.
+     */
+    private static void consume(Message message, List<Integer> values) {
+        values.add(((PooledValueMessage) message).getValue());
+        Assertions.assertTrue(((PooledValueMessage) message).refCount() > 0);
+        ReferenceCounted.releaseIfCounted(message);
+    }
+
+    /**
+     * Wait until all messages taken from the pool have been released into it again.
+     */
+    private void awaitAllReleased() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getAvailableCount() < expectedAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(expectedAvailable(), pool.getAvailableCount());
+    }
+
+    private long expectedAvailable() {
+        return Math.min(pool.getCreatedCount(), 8);
+    }
+}
@@ -0,0 +1,40 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void bucketsAreContinuous() {
+        Assertions.assertEquals(0, LatencyHistogram.bucketOf(0));
+        for (int bucket = 1; bucket < 400; ++bucket) {
+            long lower = LatencyHistogram.lowerBoundOf(bucket);
+            Assertions.assertEquals(bucket, LatencyHistogram.bucketOf(lower));
+            Assertions.assertEquals(bucket - 1, LatencyHistogram.bucketOf(lower - 1));
+        }
+        Assertions.assertEquals(LatencyHistogram.bucketOf(Long.MAX_VALUE),
+                LatencyHistogram.bucketOf(LatencyHistogram.lowerBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE))));
+    }
+
+    @Test
+    void computesPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 1; i <= 1000; ++i) {
+            histogram.record(i * 1000L);
+        }
+        Assertions.assertEquals(1000, histogram.getCount());
+        Assertions.assertEquals(1_000_000, histogram.getMax());
+
+        long median = histogram.getPercentile(0.5);
+        Assertions.assertTrue(median <= 500_000 && median >= 500_000 * 7 / 8, "median was " + median);
+        long tail = histogram.getPercentile(0.99);
+        Assertions.assertTrue(tail <= 990_000 && tail >= 990_000 * 7 / 8, "p99 was " + tail);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(1.5));
+        histogram.reset();
+        Assertions.assertEquals(0, histogram.getCount());
+    }
+}
@@ -0,0 +1,295 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.processor;
+
+import de.unia.oc.robotcontrol.message.annotation.GeneratedType;
+import de.unia.oc.robotcontrol.message.annotation.MessageField;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Annotation processor which generates a {@code MessageType} implementation
+ * for every message class annotated with {@link GeneratedType}.
+ *
+ * The generated types write and read the annotated fields directly
+ * from and to the buffer passed to {@code encodeInto} and {@code decodeFrom},
+ * so that encoding and decoding does not allocate anything except the decoded
+ * message, and no encodings have to be composed in static initializers.
+ */
+@SupportedAnnotationTypes("de.unia.oc.robotcontrol.message.annotation.GeneratedType")
+public class MessageTypeProcessor extends AbstractProcessor {
+
+    /**
+     * The suffix appended to the name of the message class
+     * to get the name of the generated type
+     */
+    static final String TYPE_SUFFIX = "Type";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GeneratedType.class)) {
+            if (element.getKind() != ElementKind.CLASS
+                    || ((TypeElement) element).getNestingKind() != NestingKind.TOP_LEVEL
+                    || element.getModifiers().contains(Modifier.ABSTRACT)) {
+                error(element, "@GeneratedType can only be used on top-level, non-abstract classes");
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (IllegalArgumentException e) {
+                error(element, e.getMessage());
+            } catch (IOException e) {
+                error(element, "Could not write generated type: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the message type for the given message class.
+     *
+     * @param message the message class annotated with {@link GeneratedType}
+     * @throws IllegalArgumentException if the message class can not be encoded
+     * @throws IOException if the source file could not be written
+     */
+    private void generate(TypeElement message) throws IllegalArgumentException, IOException {
+        GeneratedType annotation = message.getAnnotation(GeneratedType.class);
+        List<FieldCode> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(message.getEnclosedElements())) {
+            MessageField fieldAnnotation = field.getAnnotation(MessageField.class);
+            if (fieldAnnotation != null) {
+                fields.add(new FieldCode(
+                        field,
+                        fieldAnnotation,
+                        annotation.context(),
+                        accessorFor(message, field, fieldAnnotation)));
+            }
+        }
+        if (annotation.factory().isEmpty()) {
+            checkConstructor(message, fields);
+        } else {
+            checkFactory(message, annotation.factory(), fields);
+        }
+
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(message);
+        String packageName = pkg.getQualifiedName().toString();
+        String messageName = message.getSimpleName().toString();
+        String typeName = messageName + TYPE_SUFFIX;
+        String name = annotation.name().isEmpty() ? messageName : annotation.name();
+
+        int numBytes = 0;
+        for (FieldCode f : fields) {
+            numBytes += f.width;
+        }
+
+        String qualifiedName = packageName.isEmpty() ? typeName : packageName + "." + typeName;
+        try (PrintWriter out = new PrintWriter(
+                processingEnv.getFiler().createSourceFile(qualifiedName, message).openWriter())) {
+            new TypeWriter(out, packageName, messageName, typeName, name, annotation, fields, numBytes).write();
+        }
+    }
+
+    /**
+     * Find the expression which reads the given field from a message
+     * instance called {@code object}.
+     *
+     * @param message the message class
+     * @param field the field to read
+     * @param annotation the annotation on the field
+     * @return the java expression reading the field
+     * @throws IllegalArgumentException if the field is private and has no getter
+     */
+    private String accessorFor(TypeElement message, VariableElement field, MessageField annotation)
+            throws IllegalArgumentException {
+        if (!annotation.accessor().isEmpty()) {
+            return "object." + annotation.accessor();
+        }
+        String fieldName = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(message))) {
+            String methodName = method.getSimpleName().toString();
+            if (method.getParameters().isEmpty()
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && (methodName.equals("get" + capitalized) || methodName.equals("is" + capitalized))
+                    && processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType())) {
+                return "object." + methodName + "()";
+            }
+        }
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return "object." + fieldName;
+        }
+        throw new IllegalArgumentException("Field " + fieldName + " is private and has no getter");
+    }
+
+    /**
+     * Check that the message class has a non-private constructor accepting
+     * the given fields in order.
+     *
+     * @param message the message class
+     * @param fields the encoded fields
+     * @throws IllegalArgumentException if there is no such constructor
+     */
+    private void checkConstructor(TypeElement message, List<FieldCode> fields) throws IllegalArgumentException {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(message.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PRIVATE) && acceptsFields(constructor, fields)) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Message needs a constructor accepting all fields annotated "
+                + "with @MessageField in the order of their declaration");
+    }
+
+    /**
+     * Check that the message class has a non-private static method with the
+     * given name accepting the given fields in order and returning the message.
+     *
+     * @param message the message class
+     * @param factory the name of the factory method
+     * @param fields the encoded fields
+     * @throws IllegalArgumentException if there is no such method
+     */
+    private void checkFactory(TypeElement message, String factory, List<FieldCode> fields)
+            throws IllegalArgumentException {
+        for (ExecutableElement method : ElementFilter.methodsIn(message.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(factory)
+                    && method.getModifiers().contains(Modifier.STATIC)
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && processingEnv.getTypeUtils().isSameType(method.getReturnType(), message.asType())
+                    && acceptsFields(method, fields)) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Message needs a static method " + factory + " returning the message "
+                + "and accepting all fields annotated with @MessageField in the order of their declaration");
+    }
+
+    /**
+     * @return whether the given method or constructor accepts exactly
+     * the given fields in order
+     */
+    private boolean acceptsFields(ExecutableElement executable, List<FieldCode> fields) {
+        if (executable.getParameters().size() != fields.size()) {
+            return false;
+        }
+        for (int i = 0; i < fields.size(); ++i) {
+            if (!processingEnv.getTypeUtils().isSameType(
+                    executable.getParameters().get(i).asType(),
+                    fields.get(i).field.asType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Generates the code for encoding and decoding a single field.
+     */
+    static final class FieldCode {
+
+        final VariableElement field;
+        final TypeKind kind;
+        final int width;
+        final boolean signed;
+        final String accessor;
+
+        FieldCode(VariableElement field, MessageField annotation, GeneratedType.Context context, String accessor)
+                throws IllegalArgumentException {
+            this.field = field;
+            this.kind = field.asType().getKind();
+            if (!kind.isPrimitive()) {
+                throw new IllegalArgumentException("Field " + field.getSimpleName() + " is not of a primitive type");
+            }
+            this.width = annotation.width() < 0 ? defaultWidth(kind, context) : annotation.width();
+            if (width < 1 || width > 8) {
+                throw new IllegalArgumentException("Width of field " + field.getSimpleName() + " has to be between 1 and 8");
+            }
+            if (kind == TypeKind.FLOAT && width != 4 || kind == TypeKind.DOUBLE && width != 4 && width != 8) {
+                throw new IllegalArgumentException("Unsupported width for floating point field " + field.getSimpleName());
+            }
+            this.signed = annotation.signed();
+            this.accessor = accessor;
+        }
+
+        /**
+         * @return an expression evaluating to the value to write, as a long
+         */
+        String bits() {
+            switch (kind) {
+                case BOOLEAN: return "(" + accessor + " ? 1L : 0L)";
+                case FLOAT: return "Float.floatToRawIntBits(" + accessor + ")";
+                case DOUBLE: return width == 8
+                        ? "Double.doubleToRawLongBits(" + accessor + ")"
+                        : "Float.floatToRawIntBits((float) " + accessor + ")";
+                default: return accessor;
+            }
+        }
+
+        /**
+         * @param bits an expression holding the read bits (a long)
+         * @return an expression converting the bits to the type of the field
+         */
+        String value(String bits) {
+            switch (kind) {
+                case BOOLEAN: return bits + " != 0";
+                case FLOAT: return "Float.intBitsToFloat((int) " + bits + ")";
+                case DOUBLE: return width == 8
+                        ? "Double.longBitsToDouble(" + bits + ")"
+                        : "(double) Float.intBitsToFloat((int) " + bits + ")";
+                default:
+                    int shift = Long.SIZE - width * Byte.SIZE;
+                    String extended = signed && shift > 0
+                            ? "((" + bits + " << " + shift + ") >> " + shift + ")"
+                            : bits;
+                    return "(" + kind.name().toLowerCase(Locale.ROOT) + ") " + extended;
+            }
+        }
+
+        /**
+         * The size of the given type in the given context,
+         * as returned by the corresponding {@code CodingContext}.
+         */
+        private static int defaultWidth(TypeKind kind, GeneratedType.Context context) {
+            boolean arduino = context == GeneratedType.Context.ARDUINO;
+            switch (kind) {
+                case BOOLEAN:
+                case BYTE: return 1;
+                case SHORT: return 2;
+                case CHAR: return arduino ? 1 : Character.BYTES;
+                case INT: return arduino ? 2 : Integer.BYTES;
+                case LONG: return arduino ? 4 : Long.BYTES;
+                case FLOAT: return Float.BYTES;
+                case DOUBLE: return arduino ? 4 : Double.BYTES;
+                default: throw new IllegalArgumentException("Unsupported type " + kind);
+            }
+        }
+    }
+}
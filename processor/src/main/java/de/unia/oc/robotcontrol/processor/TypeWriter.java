@@ -0,0 +1,152 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.processor;
+
+import de.unia.oc.robotcontrol.message.annotation.GeneratedType;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Writes the source of a single generated message type.
+ * Used by {@link MessageTypeProcessor}.
+ */
+final class TypeWriter {
+
+    private final PrintWriter out;
+    private final String packageName;
+    private final String messageName;
+    private final String typeName;
+    private final String name;
+    private final GeneratedType annotation;
+    private final List<MessageTypeProcessor.FieldCode> fields;
+    private final int numBytes;
+
+    TypeWriter(PrintWriter out,
+               String packageName,
+               String messageName,
+               String typeName,
+               String name,
+               GeneratedType annotation,
+               List<MessageTypeProcessor.FieldCode> fields,
+               int numBytes) {
+        this.out = out;
+        this.packageName = packageName;
+        this.messageName = messageName;
+        this.typeName = typeName;
+        this.name = name;
+        this.annotation = annotation;
+        this.fields = fields;
+        this.numBytes = numBytes;
+    }
+
+    void write() {
+        String context = "CodingContext." + annotation.context().name();
+        boolean hasIdentifier = annotation.identifier() != '\0';
+
+        if (!packageName.isEmpty()) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+        out.println("import de.unia.oc.robotcontrol.coding.CodingContext;");
+        out.println("import de.unia.oc.robotcontrol.coding.CodingUtil;");
+        out.println("import de.unia.oc.robotcontrol.message.MessageType;");
+        out.println();
+        out.println("import java.nio.ByteBuffer;");
+        out.println("import java.nio.ByteOrder;");
+        out.println("import java.util.function.BiFunction;");
+        out.println();
+        out.println("/**");
+        out.println(" * {@link MessageType} for {@link " + messageName + "}.");
+        out.println(" * Generated by " + MessageTypeProcessor.class.getName() + ", do not edit.");
+        out.println(" */");
+        out.println("public final class " + typeName + " implements MessageType<" + messageName + "> {");
+        out.println();
+        out.println("    public static final " + typeName + " INSTANCE = new " + typeName + "();");
+        out.println();
+        out.println("    public static final int NUM_BYTES = " + numBytes + ";");
+        if (hasIdentifier) {
+            out.println();
+            out.println("    public static final char IDENTIFIER = " + charLiteral(annotation.identifier()) + ";");
+        }
+        out.println();
+        out.println("    private static final ByteOrder ORDER = " + context + ".getByteOrder();");
+        out.println();
+        out.println("    private " + typeName + "() {}");
+        out.println();
+        if (hasIdentifier) {
+            out.println("    public static boolean register(BiFunction<Character, MessageType, Boolean> registration) {");
+            out.println("        return registration.apply(IDENTIFIER, INSTANCE);");
+            out.println("    }");
+            out.println();
+        }
+        out.println("    @Override");
+        out.println("    public CodingContext getContext() {");
+        out.println("        return " + context + ";");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public int getFixedSize() {");
+        out.println("        return NUM_BYTES;");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public byte[] encode(" + messageName + " object) throws IllegalArgumentException {");
+        out.println("        byte[] raw = new byte[NUM_BYTES];");
+        out.println("        encodeInto(object, ByteBuffer.wrap(raw));");
+        out.println("        return raw;");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public " + messageName + " decode(byte[] raw) throws IllegalArgumentException {");
+        out.println("        return decodeFrom(ByteBuffer.wrap(raw));");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public void encodeInto(" + messageName + " object, ByteBuffer target) throws IllegalArgumentException {");
+        out.println("        if (object == null) { throw new IllegalArgumentException(\"Passed object was null!\"); }");
+        out.println("        if (target.remaining() < NUM_BYTES) {");
+        out.println("            throw new IllegalArgumentException(\"Not enough bytes remaining to encode! Expected: \" + NUM_BYTES);");
+        out.println("        }");
+        for (MessageTypeProcessor.FieldCode f : fields) {
+            out.println("        CodingUtil.putBits(target, " + f.bits() + ", " + f.width + ", ORDER);");
+        }
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public " + messageName + " decodeFrom(ByteBuffer source) throws IllegalArgumentException {");
+        out.println("        if (source.remaining() < NUM_BYTES) {");
+        out.println("            throw new IllegalArgumentException(\"Not enough bytes remaining to decode! Expected: \" + NUM_BYTES);");
+        out.println("        }");
+        // arguments are evaluated from left to right, so the fields are read in order
+        out.print(annotation.factory().isEmpty()
+                ? "        return new " + messageName + "("
+                : "        return " + messageName + "." + annotation.factory() + "(");
+        for (int i = 0; i < fields.size(); ++i) {
+            MessageTypeProcessor.FieldCode f = fields.get(i);
+            out.println(i == 0 ? "" : ",");
+            out.print("                " + f.value("CodingUtil.getBits(source, " + f.width + ", ORDER)"));
+        }
+        out.println(");");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public String toString() {");
+        out.println("        return \"[MessageType " + name + "]\";");
+        out.println("    }");
+        out.println("}");
+    }
+
+    private static String charLiteral(char c) {
+        if (c == '\'' || c == '\\') {
+            return "'\\" + c + "'";
+        }
+        if (c < 0x20) {
+            // unicode escapes of line terminators would break the literal
+            return String.format("'\\%o'", (int) c);
+        }
+        if (c > 0x7E) {
+            return String.format("'\\u%04x'", (int) c);
+        }
+        return "'" + c + "'";
+    }
+}
@@ -0,0 +1,122 @@
+/* %FILE_TEMPLATE_TEXT% */
+package de.unia.oc.robotcontrol.processor;
+
+import de.unia.oc.robotcontrol.message.Message;
+import de.unia.oc.robotcontrol.message.MessageType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class MessageTypeProcessorTest {
+
+    private static final String SOURCE = String.join("\n",
+            "package sample;",
+            "import de.unia.oc.robotcontrol.message.Message;",
+            "import de.unia.oc.robotcontrol.message.MessageType;",
+            "import de.unia.oc.robotcontrol.message.annotation.GeneratedType;",
+            "import de.unia.oc.robotcontrol.message.annotation.MessageField;",
+            "@GeneratedType(name = \"Sample\", identifier = 's', context = GeneratedType.Context.ARDUINO)",
+            "public class SampleMessage implements Message<SampleMessage> {",
+            "    @MessageField(signed = true) final int speed;",
+            "    @MessageField private final char direction;",
+            "    @MessageField private final double factor;",
+            "    @MessageField(width = 1) private final boolean active;",
+            "    public SampleMessage(int speed, char direction, double factor, boolean active) {",
+            "        this.speed = speed; this.direction = direction; this.factor = factor; this.active = active;",
+            "    }",
+            "    public char getDirection() { return direction; }",
+            "    public double getFactor() { return factor; }",
+            "    public boolean isActive() { return active; }",
+            "    public MessageType<SampleMessage> getType() { return SampleMessageType.INSTANCE; }",
+            "    public long getCreationTime() { return 0; }",
+            "    public String toString() { return speed + \" \" + direction + \" \" + factor + \" \" + active; }",
+            "}");
+
+    private static final String FACTORY_SOURCE = String.join("\n",
+            "package sample;",
+            "import de.unia.oc.robotcontrol.message.Message;",
+            "import de.unia.oc.robotcontrol.message.MessageType;",
+            "import de.unia.oc.robotcontrol.message.annotation.GeneratedType;",
+            "import de.unia.oc.robotcontrol.message.annotation.MessageField;",
+            "@GeneratedType(factory = \"create\")",
+            "public class FactoryMessage implements Message<FactoryMessage> {",
+            "    public static int created = 0;",
+            "    @MessageField final short value;",
+            "    private FactoryMessage(short value) { this.value = value; }",
+            "    static FactoryMessage create(short value) { ++created; return new FactoryMessage(value); }",
+            "    public MessageType<FactoryMessage> getType() { return FactoryMessageType.INSTANCE; }",
+            "    public long getCreationTime() { return 0; }",
+            "}");
+
+    private static String classPathOf(Class<?> c) throws URISyntaxException {
+        return new File(c.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private static Path compile(String className, String code) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Path out = Files.createTempDirectory("processor-test");
+        JavaFileObject source = new SimpleJavaFileObject(
+                URI.create("string:///sample/" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task = compiler.getTask(
+                null, null, diagnostics,
+                Arrays.asList("-d", out.toString(), "-cp", classPathOf(MessageType.class), "-implicit:class"),
+                null,
+                Collections.singletonList(source));
+        task.setProcessors(Collections.singletonList(new MessageTypeProcessor()));
+        Assertions.assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+        return out;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generatesWorkingMessageType() throws Exception {
+        Path out = compile("SampleMessage", SOURCE);
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> typeClass = loader.loadClass("sample.SampleMessageType");
+            MessageType<Message> type = (MessageType<Message>) typeClass.getField("INSTANCE").get(null);
+            Assertions.assertEquals(2 + 1 + 4 + 1, type.getFixedSize());
+            Assertions.assertEquals('s', typeClass.getField("IDENTIFIER").getChar(null));
+            Assertions.assertEquals("[MessageType Sample]", type.toString());
+
+            Message message = (Message) loader.loadClass("sample.SampleMessage")
+                    .getConstructor(int.class, char.class, double.class, boolean.class)
+                    .newInstance(-300, 'w', 0.5, true);
+            byte[] raw = type.encode(message);
+            Assertions.assertArrayEquals(new byte[]{(byte) 0xFE, (byte) 0xD4, 'w', 0x3F, 0, 0, 0, 1}, raw);
+            Assertions.assertEquals(message.toString(), type.decode(raw).toString());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void decodesUsingFactory() throws Exception {
+        Path out = compile("FactoryMessage", FACTORY_SOURCE);
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> typeClass = loader.loadClass("sample.FactoryMessageType");
+            MessageType<Message> type = (MessageType<Message>) typeClass.getField("INSTANCE").get(null);
+            type.decode(new byte[]{0, 42});
+            type.decode(new byte[]{0, 43});
+            Assertions.assertEquals(2, loader.loadClass("sample.FactoryMessage").getField("created").getInt(null));
+        }
+    }
+}